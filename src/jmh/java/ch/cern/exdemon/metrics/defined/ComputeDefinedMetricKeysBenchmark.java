@@ -0,0 +1,93 @@
+package ch.cern.exdemon.metrics.defined;
+
+import java.time.Instant;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import ch.cern.exdemon.components.Component.Type;
+import ch.cern.exdemon.components.ComponentsCatalog;
+import ch.cern.exdemon.metrics.Metric;
+import ch.cern.properties.Properties;
+import scala.Tuple2;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ComputeDefinedMetricKeysBenchmark {
+
+    @Param({"10", "100", "1000"})
+    private int definedMetrics;
+    
+    // Percentage of defined metrics with regular expression filters, which cannot be indexed
+    @Param({"0", "10"})
+    private int regexPercentage;
+    
+    private ComputeDefinedMetricKeysF function;
+    
+    private Metric metric;
+    
+    @Setup
+    public void setUp() throws Exception {
+        Properties sourceProperties = new Properties();
+        sourceProperties.setProperty("type", "test");
+        
+        ComponentsCatalog.init(sourceProperties);
+        ComponentsCatalog.reset();
+        
+        int regexMetrics = definedMetrics * regexPercentage / 100;
+        for (int i = 0; i < definedMetrics; i++) {
+            Properties props = new Properties();
+            props.setProperty("spark.batch.time", "1m");
+            props.setProperty("value", "x");
+            props.setProperty("metrics.groupby", "HOSTNAME");
+            props.setProperty("variables.x.filter.attribute.METRIC_NAME", i < regexMetrics ? "metric" + i + ".*" : "metric" + i);
+            props.setProperty("variables.x.aggregate.type", "avg");
+            
+            ComponentsCatalog.register(Type.METRIC, "dm" + i, props);
+        }
+        
+        function = new ComputeDefinedMetricKeysF(sourceProperties);
+        
+        Map<String, String> attributes = new HashMap<>();
+        attributes.put("HOSTNAME", "host1");
+        attributes.put("METRIC_NAME", "metric" + (definedMetrics - 1));
+        metric = new Metric(Instant.now(), 1f, attributes);
+    }
+    
+    @TearDown
+    public void tearDown() {
+        ComponentsCatalog.reset();
+    }
+    
+    @Benchmark
+    public int call() throws Exception {
+        int keys = 0;
+        
+        Iterator<Tuple2<DefinedMetricStatuskey, Metric>> it = function.call(metric);
+        while(it.hasNext()) {
+            it.next();
+            keys++;
+        }
+        
+        return keys;
+    }
+
+}
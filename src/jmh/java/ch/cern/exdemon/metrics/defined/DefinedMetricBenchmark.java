@@ -0,0 +1,138 @@
+package ch.cern.exdemon.metrics.defined;
+
+import java.time.Instant;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import ch.cern.exdemon.components.ConfigurationResult;
+import ch.cern.exdemon.metrics.Metric;
+import ch.cern.exdemon.metrics.defined.equation.Equation;
+import ch.cern.exdemon.metrics.defined.equation.var.VariableStatuses;
+import ch.cern.exdemon.metrics.value.Value;
+import ch.cern.properties.Properties;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class DefinedMetricBenchmark {
+    
+    private static final String EQUATION = "abs(x - y) / 2 + x * 3";
+
+    @Param({"avg", "max", "count"})
+    private String aggregation;
+    
+    // Values per variable, one metric per second
+    @Param({"100", "10000"})
+    private int historySize;
+    
+    // Aggregate per attribute (AggregationValues) or all values (ValueHistory)
+    @Param({"false", "true"})
+    private boolean aggregateByAttribute;
+    
+    private DefinedMetric definedMetric;
+    
+    private Equation equation;
+    
+    private VariableStatuses stores;
+    
+    private Set<String> groupByKeys;
+    
+    private Map<String, String> groupByAttributes;
+    
+    private Metric[] metrics;
+    
+    private int metricIndex = 0;
+    
+    private Metric triggeringMetric;
+    
+    private long time;
+    
+    @Setup
+    public void setUp() throws Exception {
+        Properties props = new Properties();
+        props.setProperty("spark.batch.time", "1m");
+        props.setProperty("value", EQUATION);
+        props.setProperty("metrics.groupby", "HOSTNAME");
+        for (String variable : new String[] {"x", "y"}) {
+            props.setProperty("variables." + variable + ".filter.attribute.METRIC_NAME", variable);
+            props.setProperty("variables." + variable + ".aggregate.type", aggregation);
+            props.setProperty("variables." + variable + ".aggregate.max-size", Integer.toString(historySize * 2));
+            props.setProperty("variables." + variable + ".expire", (historySize * 2) + "s");
+            if(aggregateByAttribute)
+                props.setProperty("variables." + variable + ".aggregate.attributes", "DEVICE");
+        }
+        
+        definedMetric = new DefinedMetric("benchmark");
+        ConfigurationResult configResult = definedMetric.config(props);
+        if(!configResult.getErrors().isEmpty())
+            throw new IllegalStateException(configResult.toString());
+        
+        equation = new Equation(EQUATION, props.getSubset("variables"));
+        
+        metrics = new Metric[historySize * 2];
+        for (int i = 0; i < metrics.length; i++) {
+            Map<String, String> attributes = new HashMap<>();
+            attributes.put("HOSTNAME", "host1");
+            attributes.put("METRIC_NAME", i % 2 == 0 ? "x" : "y");
+            attributes.put("DEVICE", "device" + (i / 2));
+            
+            metrics[i] = new Metric(Instant.EPOCH, (float) Math.random() * 100, attributes);
+        }
+        
+        groupByAttributes = definedMetric.getGroupByAttributes(metrics[0].getAttributes()).get();
+        groupByKeys = groupByAttributes.keySet();
+        
+        time = Instant.now().toEpochMilli();
+        stores = new VariableStatuses();
+        for (int i = 0; i < metrics.length; i++)
+            definedMetric.updateStore(stores, nextMetric(), groupByKeys);
+        
+        triggeringMetric = metrics[0].clone();
+    }
+    
+    private Metric nextMetric() {
+        Metric metric = metrics[metricIndex];
+        metricIndex = (metricIndex + 1) % metrics.length;
+        
+        time += 1000;
+        metric.setTimestamp(Instant.ofEpochMilli(time));
+        
+        return metric;
+    }
+    
+    @Benchmark
+    public VariableStatuses updateStore() {
+        definedMetric.updateStore(stores, nextMetric(), groupByKeys);
+        
+        return stores;
+    }
+    
+    @Benchmark
+    public Optional<Metric> generateByUpdate() {
+        return definedMetric.generateByUpdate(stores, triggeringMetric, groupByAttributes);
+    }
+    
+    @Benchmark
+    public Value computeEquation() {
+        return equation.compute(stores, Instant.ofEpochMilli(time));
+    }
+
+}
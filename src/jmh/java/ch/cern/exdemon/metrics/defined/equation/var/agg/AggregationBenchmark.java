@@ -0,0 +1,113 @@
+package ch.cern.exdemon.metrics.defined.equation.var.agg;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import ch.cern.exdemon.components.Component.Type;
+import ch.cern.exdemon.components.ComponentTypes;
+import ch.cern.exdemon.metrics.DatedValue;
+import ch.cern.exdemon.metrics.ValueHistory;
+import ch.cern.exdemon.metrics.value.BooleanValue;
+import ch.cern.exdemon.metrics.value.FloatValue;
+import ch.cern.exdemon.metrics.value.StringValue;
+import ch.cern.exdemon.metrics.value.Value;
+import ch.cern.properties.ConfigurationException;
+import ch.cern.properties.Properties;
+import ch.cern.utils.DurationAndTruncate;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class AggregationBenchmark {
+
+    @Param({"avg", "sum", "count", "count_floats", "count_bools", "count_true", "count_false", "count_strings", 
+            "min", "max", "diff", "last", "successive_count", "weighted_avg"})
+    private String type;
+    
+    @Param({"10", "1000", "100000"})
+    private int historySize;
+    
+    private Aggregation aggregation;
+    
+    private List<DatedValue> values;
+    
+    private ValueHistory history;
+    
+    private long time;
+    
+    @Setup
+    public void setUp() throws ConfigurationException {
+        if(type.equals("last")) {
+            aggregation = new LastValueAggregation(FloatValue.class);
+        }else {
+            Properties props = new Properties();
+            props.setProperty("type", type);
+            aggregation = ComponentTypes.<Aggregation>build(Type.AGGREGATION, props).getComponent().get();
+        }
+        
+        if(aggregation instanceof WAvgAggregation)
+            ((WAvgAggregation) aggregation).setExpire(DurationAndTruncate.from("10m"));
+        
+        time = Instant.now().toEpochMilli();
+        
+        values = new ArrayList<>(historySize);
+        history = new ValueHistory(Long.MAX_VALUE, 0, null, aggregation);
+        for (int i = 0; i < historySize; i++) {
+            Instant timestamp = Instant.ofEpochMilli(time++);
+            Value value = newValue(i);
+            
+            values.add(new DatedValue(timestamp, value));
+            history.add(timestamp, value);
+        }
+    }
+    
+    private Value newValue(int i) {
+        Class<? extends Value> inputType = aggregation.inputType();
+        
+        if(inputType.equals(BooleanValue.class))
+            return new BooleanValue(i % 3 == 0);
+        else if(inputType.equals(StringValue.class))
+            return new StringValue("value" + (i % 10));
+        else
+            return new FloatValue(i % 100);
+    }
+    
+    @Benchmark
+    public Value aggregateValues() {
+        return aggregation.aggregateValues(values, Instant.ofEpochMilli(time));
+    }
+    
+    // Sliding window: one value added and one removed, then aggregated
+    @Benchmark
+    public Optional<Value> slideAndAggregate() throws Exception {
+        Instant timestamp = Instant.ofEpochMilli(time++);
+        
+        history.add(timestamp, newValue((int) time));
+        history.purge(timestamp.minusMillis(historySize - 1));
+        
+        Optional<Value> result = history.getAggregatedValue();
+        if(result.isPresent())
+            return result;
+        
+        return Optional.of(aggregation.aggregateValues(history.getDatedValues(), timestamp));
+    }
+
+}
@@ -0,0 +1,91 @@
+package ch.cern.exdemon.metrics.filter;
+
+import java.time.Instant;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import ch.cern.exdemon.metrics.Metric;
+import ch.cern.properties.Properties;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class MetricsFilterBenchmark {
+
+    @Param({"equals", "values", "regex", "expr"})
+    private String filterType;
+    
+    @Param({"5", "20"})
+    private int attributes;
+    
+    private MetricsFilter filter;
+    
+    private Metric matchingMetric;
+    
+    private Metric notMatchingMetric;
+    
+    @Setup
+    public void setUp() {
+        Properties props = new Properties();
+        switch (filterType) {
+        case "equals":
+            props.setProperty("attribute.HOSTNAME", "host1");
+            props.setProperty("attribute.METRIC_NAME", "cpu");
+            break;
+        case "values":
+            props.setProperty("attribute.HOSTNAME", "\"host0\" \"host1\" \"host2\"");
+            props.setProperty("attribute.METRIC_NAME", "!\"memory\"");
+            break;
+        case "regex":
+            props.setProperty("attribute.HOSTNAME", "host[0-9]+");
+            props.setProperty("attribute.METRIC_NAME", ".*cpu.*");
+            break;
+        case "expr":
+            props.setProperty("expr", "(HOSTNAME=\"host1\" | HOSTNAME=\"host2\") & METRIC_NAME!=\"memory\"");
+            break;
+        }
+        
+        filter = new MetricsFilter();
+        filter.config(props);
+        
+        matchingMetric = newMetric("host1", "cpu");
+        notMatchingMetric = newMetric("other", "memory");
+    }
+    
+    private Metric newMetric(String hostname, String metricName) {
+        Map<String, String> metricAttributes = new HashMap<>();
+        for (int i = 0; i < attributes - 2; i++)
+            metricAttributes.put("ATTRIBUTE_" + i, "value" + i);
+        metricAttributes.put("HOSTNAME", hostname);
+        metricAttributes.put("METRIC_NAME", metricName);
+        
+        return new Metric(Instant.now(), 1f, metricAttributes);
+    }
+    
+    @Benchmark
+    public boolean testMatching() {
+        return filter.test(matchingMetric);
+    }
+    
+    @Benchmark
+    public boolean testNotMatching() {
+        return filter.test(notMatchingMetric);
+    }
+
+}
@@ -0,0 +1,77 @@
+package ch.cern.exdemon.metrics.schema;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import ch.cern.exdemon.json.JSON;
+import ch.cern.exdemon.json.PartialJSONParser;
+import ch.cern.exdemon.metrics.Metric;
+import ch.cern.properties.Properties;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class MetricSchemaBenchmark {
+
+    @Param({"1", "10", "50"})
+    private int attributes;
+    
+    private MetricSchema schema;
+    
+    private PartialJSONParser parser;
+    
+    private String jsonString;
+    
+    private byte[] jsonBytes;
+    
+    @Setup
+    public void setUp() {
+        Properties props = new Properties();
+        props.setProperty(MetricSchema.SOURCES_PARAM, "benchmark");
+        props.setProperty(MetricSchema.TIMESTAMP_PARAM + "." + TimestampDescriptor.KEY_PARAM, "metadata.timestamp");
+        props.setProperty(MetricSchema.VALUES_PARAM + ".value.key", "data.value");
+        props.setProperty(MetricSchema.ATTRIBUTES_PARAM + ".attribute_+", "metadata.attribute_(.*)");
+        props.setProperty(MetricSchema.FILTER_PARAM + ".attribute.attribute_0", "!excluded");
+        
+        schema = new MetricSchema("benchmark");
+        schema.config(props);
+        
+        parser = new PartialJSONParser(schema.getJSONKeys(), schema.requiresAllJSONKeys());
+        
+        StringBuilder json = new StringBuilder("{\"metadata\":{\"timestamp\":" + Instant.now().toEpochMilli());
+        for (int i = 0; i < attributes; i++)
+            json.append(",\"attribute_" + i + "\":\"value" + i + "\"");
+        json.append("},\"data\":{\"value\":1234.5}}");
+        
+        jsonString = json.toString();
+        jsonBytes = jsonString.getBytes(StandardCharsets.UTF_8);
+    }
+    
+    @Benchmark
+    public List<Metric> parseAndCall() {
+        return schema.call(new JSON(jsonString));
+    }
+    
+    @Benchmark
+    public List<Metric> partialParseAndCall() {
+        return schema.call(parser.parse(jsonBytes));
+    }
+
+}
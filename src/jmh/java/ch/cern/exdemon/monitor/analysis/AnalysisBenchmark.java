@@ -0,0 +1,103 @@
+package ch.cern.exdemon.monitor.analysis;
+
+import java.time.Instant;
+import java.util.HashMap;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import ch.cern.exdemon.components.Component.Type;
+import ch.cern.exdemon.components.ComponentTypes;
+import ch.cern.exdemon.metrics.Metric;
+import ch.cern.exdemon.monitor.analysis.results.AnalysisResult;
+import ch.cern.properties.Properties;
+import ch.cern.spark.status.HasStatus;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class AnalysisBenchmark {
+
+    @Param({"fixed-threshold", "recent", "percentile", "percentile-sketch", "seasonal", "htm"})
+    private String type;
+    
+    // Values within the analysis period, one per minute
+    @Param({"100", "10000"})
+    private int historySize;
+    
+    private Analysis analysis;
+    
+    private long time;
+    
+    @Setup
+    public void setUp() {
+        Properties props = new Properties();
+        switch (type) {
+        case "fixed-threshold":
+            props.setProperty("type", type);
+            props.setProperty("error.upperbound", "90");
+            props.setProperty("warn.upperbound", "80");
+            props.setProperty("warn.lowerbound", "20");
+            props.setProperty("error.lowerbound", "10");
+            break;
+        case "recent":
+        case "percentile":
+            props.setProperty("type", type);
+            props.setProperty("period", historySize + "m");
+            props.setProperty("error.upperbound", "true");
+            props.setProperty("warn.upperbound", "true");
+            props.setProperty("warn.lowerbound", "true");
+            props.setProperty("error.lowerbound", "true");
+            break;
+        case "percentile-sketch":
+            props.setProperty("type", "percentile");
+            props.setProperty("mode", "sketch");
+            props.setProperty("period", historySize + "m");
+            props.setProperty("error.upperbound", "true");
+            props.setProperty("error.lowerbound", "true");
+            break;
+        case "seasonal":
+            props.setProperty("type", type);
+            props.setProperty("season", "hour");
+            break;
+        case "htm":
+            props.setProperty("type", type);
+            props.setProperty("htm.min", "0");
+            props.setProperty("htm.max", "100");
+            break;
+        }
+        
+        analysis = ComponentTypes.<Analysis>build(Type.ANAYLSIS, props).getComponent().get();
+        if(analysis instanceof HasStatus)
+            ((HasStatus) analysis).load(null);
+        
+        time = Instant.parse("2018-01-01T00:00:00Z").toEpochMilli();
+        for (int i = 0; i < historySize; i++)
+            analysis.apply(nextMetric());
+    }
+    
+    private Metric nextMetric() {
+        time += 60000;
+        
+        return new Metric(Instant.ofEpochMilli(time), (float) (50 + Math.random() * 20), new HashMap<>());
+    }
+    
+    @Benchmark
+    public AnalysisResult apply() {
+        return analysis.apply(nextMetric());
+    }
+
+}
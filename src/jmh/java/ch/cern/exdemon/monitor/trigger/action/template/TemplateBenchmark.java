@@ -0,0 +1,74 @@
+package ch.cern.exdemon.monitor.trigger.action.template;
+
+import java.time.Instant;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import ch.cern.exdemon.metrics.Metric;
+import ch.cern.exdemon.monitor.analysis.results.AnalysisResult;
+import ch.cern.exdemon.monitor.analysis.results.AnalysisResult.Status;
+import ch.cern.exdemon.monitor.trigger.action.Action;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class TemplateBenchmark {
+    
+    private static final String TEMPLATE = "Monitor <monitor_id> (<trigger_id>) on <attribute_value:HOSTNAME>: <reason>\n"
+                                         + "Value <triggering_value> is <analysis_status>, threshold <analysis_param:error_upperbound>\n"
+                                         + "Attributes: <attributes:.*>\n"
+                                         + "Tags: <tags>\n"
+                                         + "Owner: <tags:owner>\n"
+                                         + "At <datetime> (<datetime:utc>)";
+    
+    private Action action;
+    
+    @Setup
+    public void setUp() {
+        Map<String, String> attributes = new HashMap<>();
+        attributes.put("HOSTNAME", "host1");
+        attributes.put("CLUSTER", "cluster1");
+        attributes.put("METRIC_NAME", "cpu");
+        
+        Map<String, String> tags = new HashMap<>();
+        tags.put("owner", "team");
+        tags.put("email.to", "<attribute_value:HOSTNAME>@cern.ch");
+        
+        AnalysisResult triggeringResult = new AnalysisResult();
+        triggeringResult.setAnalyzedMetric(new Metric(Instant.now(), 95f, attributes));
+        triggeringResult.setStatus(Status.ERROR, "Value higher than threshold");
+        triggeringResult.addAnalysisParam("error_upperbound", 90f);
+        
+        action = new Action("monitor1", "trigger1", attributes, "In ERROR for 10 minutes", new HashSet<>(), tags, triggeringResult);
+        action.setCreation_timestamp(Instant.now());
+    }
+    
+    @Benchmark
+    public String apply() {
+        return Template.apply(TEMPLATE, action);
+    }
+    
+    @Benchmark
+    @Threads(4)
+    public String applyConcurrently() {
+        return Template.apply(TEMPLATE, action);
+    }
+
+}
@@ -0,0 +1,107 @@
+package ch.cern.spark.status.storage;
+
+import java.io.IOException;
+import java.time.Instant;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import ch.cern.exdemon.metrics.ValueHistory;
+import ch.cern.exdemon.metrics.defined.DefinedMetricStatuskey;
+import ch.cern.exdemon.metrics.defined.equation.var.agg.AggregationValues;
+import ch.cern.exdemon.metrics.defined.equation.var.agg.AvgAggregation;
+import ch.cern.exdemon.metrics.value.FloatValue;
+import ch.cern.spark.status.StatusKey;
+import ch.cern.spark.status.StatusValue;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class StatusSerializerBenchmark {
+
+    @Param({"json", "binary", "java"})
+    private String serializerType;
+    
+    @Param({"10", "1000", "10000"})
+    private int historySize;
+    
+    private StatusSerializer serializer;
+    
+    private StatusKey key;
+    
+    private StatusValue valueHistory;
+    
+    private StatusValue aggregationValues;
+    
+    private byte[] serializedValueHistory;
+    
+    @Setup
+    public void setUp() throws IOException {
+        switch (serializerType) {
+        case "json":
+            serializer = new JSONStatusSerializer();
+            break;
+        case "binary":
+            serializer = new BinaryStatusSerializer();
+            break;
+        case "java":
+            serializer = new JavaStatusSerializer();
+            break;
+        }
+        
+        Map<String, String> attributes = new HashMap<>();
+        attributes.put("HOSTNAME", "host1");
+        attributes.put("METRIC_NAME", "cpu");
+        key = new DefinedMetricStatuskey("dm1", attributes);
+        
+        Instant time = Instant.now();
+        
+        ValueHistory.Status history = new ValueHistory.Status(historySize, 0, null, new AvgAggregation());
+        for (int i = 0; i < historySize; i++)
+            history.history.add(time.plusMillis(i), new FloatValue(Math.random()));
+        valueHistory = history;
+        
+        AggregationValues aggValues = new AggregationValues(historySize, 0);
+        for (int i = 0; i < historySize; i++)
+            aggValues.add(i, new FloatValue(Math.random()), time.plusMillis(i));
+        aggregationValues = aggValues;
+        
+        serializedValueHistory = serializer.fromValue(valueHistory);
+    }
+    
+    @Benchmark
+    public StatusKey keyRoundTrip() throws IOException {
+        return serializer.toKey(serializer.fromKey(key));
+    }
+    
+    @Benchmark
+    public byte[] serializeValueHistory() throws IOException {
+        return serializer.fromValue(valueHistory);
+    }
+    
+    @Benchmark
+    public StatusValue deserializeValueHistory() throws IOException {
+        return serializer.toValue(serializedValueHistory);
+    }
+    
+    @Benchmark
+    public StatusValue aggregationValuesRoundTrip() throws IOException {
+        return serializer.toValue(serializer.fromValue(aggregationValues));
+    }
+
+}
@@ -50,6 +50,9 @@ public final class Driver {
 
     public static String BATCH_INTERVAL_PARAM = "spark.batch.time";
 
+    public static String ENGINE_PARAM = "engine";
+    public static String ENGINE_STRUCTURED = "structured";
+
     public static String CHECKPOINT_DIR_PARAM = "checkpoint.dir";
     public static String CHECKPOINT_DIR_DEFAULT = "/tmp/";
 
@@ -91,6 +94,11 @@ public final class Driver {
         String propertyFilePath = args[0];
         Properties properties = Properties.fromFile(propertyFilePath);
 
+        if (ENGINE_STRUCTURED.equals(properties.getProperty(ENGINE_PARAM))) {
+            ch.cern.exdemon.struct.Driver.run(properties);
+            return;
+        }
+
         Driver driver = new Driver(properties);
 
         Properties componentsSourceProps = properties.getSubset(ComponentsSource.PARAM);
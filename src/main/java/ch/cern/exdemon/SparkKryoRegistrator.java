@@ -7,11 +7,14 @@ import org.numenta.nupic.network.Network;
 
 import com.esotericsoftware.kryo.Kryo;
 
+import ch.cern.exdemon.metrics.Attributes;
 import ch.cern.exdemon.metrics.ValueHistory;
+import ch.cern.exdemon.metrics.ValueHistoryKryoSerializer;
 import ch.cern.exdemon.metrics.defined.DefinedMetricStatuskey;
 import ch.cern.exdemon.metrics.defined.equation.var.VariableStatuses;
 import ch.cern.exdemon.metrics.defined.equation.var.agg.AggregationValues;
 import ch.cern.exdemon.monitor.MonitorStatusKey;
+import ch.cern.exdemon.monitor.analysis.types.SeasonalAnalysis;
 import ch.cern.exdemon.monitor.analysis.types.htm.PersistableKryoSerializer;
 import ch.cern.exdemon.monitor.trigger.TriggerStatus;
 import ch.cern.exdemon.monitor.trigger.TriggerStatusKey;
@@ -20,14 +23,16 @@ public class SparkKryoRegistrator implements KryoRegistrator {
 
     @Override
     public void registerClasses(Kryo kryo) {
+        kryo.register(Attributes.class);
         kryo.register(DefinedMetricStatuskey.class);
         kryo.register(DefinedMetricStatuskey.class); 
         kryo.register(MonitorStatusKey.class);
         kryo.register(TriggerStatusKey.class);
         kryo.register(TriggerStatus.class); 
-        kryo.register(ValueHistory.class);
+        kryo.register(ValueHistory.class, new ValueHistoryKryoSerializer());
         kryo.register(VariableStatuses.class);
         kryo.register(AggregationValues.class);
+        kryo.register(SeasonalAnalysis.Status_.class);
         
         kryo.register(Persistable.class, new PersistableKryoSerializer());
         kryo.register(Network.class, new PersistableKryoSerializer());
@@ -51,10 +51,10 @@ public class ComponentTypes {
     }
 
     public static Type getType(Class<? extends Component> componentClass) {
-        ComponentType typeAnnotation = componentClass.getSuperclass().getAnnotation(ComponentType.class);
-    	
-        if(typeAnnotation == null && componentClass.getSuperclass().getSuperclass() != null)
-    	    typeAnnotation = componentClass.getSuperclass().getSuperclass().getAnnotation(ComponentType.class);
+        ComponentType typeAnnotation = null;
+        
+        for (Class<?> clazz = componentClass.getSuperclass(); typeAnnotation == null && clazz != null; clazz = clazz.getSuperclass())
+            typeAnnotation = clazz.getAnnotation(ComponentType.class);
     	
     	if(typeAnnotation == null)
             typeAnnotation = componentClass.getAnnotation(ComponentType.class);
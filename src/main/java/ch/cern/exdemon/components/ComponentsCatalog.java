@@ -3,7 +3,7 @@ package ch.cern.exdemon.components;
 import java.util.Map;
 import java.util.Optional;
 import java.util.concurrent.ConcurrentHashMap;
-import java.util.stream.Collectors;
+import java.util.concurrent.atomic.AtomicLong;
 
 import org.apache.log4j.Logger;
 
@@ -17,6 +17,10 @@ public class ComponentsCatalog {
     private transient final static Logger LOG = Logger.getLogger(ComponentsCatalog.class.getName());
     
     private static Map<Component.Type, Map<String, Component>> components = new ConcurrentHashMap<>();
+    
+    private static AtomicLong version = new AtomicLong();
+    private static volatile ComponentsCatalogSnapshot snapshot = null;
+    
     static {
         reset();
     }
@@ -49,7 +53,7 @@ public class ComponentsCatalog {
     }
     
     public static ComponentRegistrationResult register(Type componentType, String id, Properties properties) {
-        Map<String, Component> componentsOfType = get(componentType);
+        Map<String, Component> componentsOfType = getSnapshot().get(componentType);
         
         //Do not build and register component if it exists and has same configuration
         if(componentsOfType.containsKey(id)) {
@@ -66,6 +70,7 @@ public class ComponentsCatalog {
         
         componentBuildResult.getComponent().ifPresent(c -> {
             components.get(componentType).put(id, c);
+            version.incrementAndGet();
         });
         
         if(!componentBuildResult.getConfigurationResult().getErrors().isEmpty())
@@ -74,20 +79,28 @@ public class ComponentsCatalog {
         return ComponentRegistrationResult.from(componentBuildResult);
     }
     
-    @SuppressWarnings("unchecked")
     public static <C extends Component> Optional<C> get(Type componentType, String id) {
-        return Optional.ofNullable((C) get(componentType).get(id));
+        return getSnapshot().get(componentType, id);
     }
 
-    @SuppressWarnings("unchecked")
     public static <C extends Component> Map<String, C> get(Type componentType) {
-        Map<String, Component> componentsOfType = components.get(componentType);
-        
-        if(componentsOfType == null)
-            throw new IllegalArgumentException(componentType + " type cannot be in the catalog");
+        return getSnapshot().get(componentType);
+    }
+    
+    public static ComponentsCatalogSnapshot getSnapshot() {
+        ComponentsCatalogSnapshot currentSnapshot = snapshot;
+        if(currentSnapshot != null && currentSnapshot.getVersion() == version.get())
+            return currentSnapshot;
         
-        return componentsOfType.entrySet().stream()
-                    .collect(Collectors.toMap(entry -> entry.getKey(), entry -> ((C) entry.getValue())));
+        synchronized (ComponentsCatalog.class) {
+            // Version is read before copying, a concurrent change makes next call to build a new snapshot
+            long currentVersion = version.get();
+            
+            if(snapshot == null || snapshot.getVersion() != currentVersion)
+                snapshot = new ComponentsCatalogSnapshot(currentVersion, components);
+            
+            return snapshot;
+        }
     }
     
     public static void remove(Type componentType, String id) {
@@ -97,6 +110,7 @@ public class ComponentsCatalog {
         LOG.info("Component "+componentType+" with id="+id+" removed ");
         
         components.get(componentType).remove(id);
+        version.incrementAndGet();
     }
 
     public static void reset() {
@@ -105,6 +119,8 @@ public class ComponentsCatalog {
         components.put(Type.MONITOR, new ConcurrentHashMap<>());
         components.put(Type.ACTUATOR, new ConcurrentHashMap<>());
         components.put(Type.SILENCE, new ConcurrentHashMap<>());
+        
+        version.incrementAndGet();
     }
 
     public static void resetSource() {
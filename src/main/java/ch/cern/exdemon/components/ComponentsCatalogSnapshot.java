@@ -0,0 +1,101 @@
+package ch.cern.exdemon.components;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+
+import ch.cern.exdemon.components.Component.Type;
+import ch.cern.exdemon.json.PartialJSONParser;
+import ch.cern.exdemon.metrics.defined.DefinedMetric;
+import ch.cern.exdemon.metrics.filter.MetricsFilterIndex;
+import ch.cern.exdemon.metrics.schema.MetricSchema;
+import ch.cern.exdemon.monitor.Monitor;
+import lombok.Getter;
+import lombok.ToString;
+
+@ToString
+public class ComponentsCatalogSnapshot {
+
+    @Getter
+    private final long version;
+
+    private final Map<Type, Map<String, Component>> components;
+
+    private final MetricsFilterIndex<DefinedMetric> definedMetricsIndex;
+
+    private final MetricsFilterIndex<Monitor> monitorsIndex;
+
+    private final Map<String, List<MetricSchema>> schemasBySource = new HashMap<>();
+
+    private final Map<String, PartialJSONParser> jsonParsersBySource = new HashMap<>();
+
+    @SuppressWarnings("unchecked")
+    ComponentsCatalogSnapshot(long version, Map<Type, Map<String, Component>> components) {
+        this.version = version;
+
+        Map<Type, Map<String, Component>> componentsCopy = new HashMap<>();
+        components.forEach((type, componentsOfType) -> {
+            componentsCopy.put(type, Collections.unmodifiableMap(new HashMap<>(componentsOfType)));
+        });
+        this.components = componentsCopy;
+
+        Collection<DefinedMetric> definedMetrics = (Collection<DefinedMetric>) (Collection<?>) get(Type.METRIC).values();
+        definedMetricsIndex = new MetricsFilterIndex<>(definedMetrics, DefinedMetric::getFilter);
+
+        Collection<Monitor> monitors = (Collection<Monitor>) (Collection<?>) get(Type.MONITOR).values();
+        monitorsIndex = new MetricsFilterIndex<>(monitors, Monitor::getFilter);
+
+        Map<String, MetricSchema> schemas = get(Type.SCHEMA);
+        for (MetricSchema schema : schemas.values())
+            if(schema.getSources() != null)
+                for (String sourceId : schema.getSources())
+                    schemasBySource.computeIfAbsent(sourceId, id -> new LinkedList<>()).add(schema);
+
+        // Events are parsed once for all schemas of the source, only with the keys they use
+        schemasBySource.forEach((sourceId, schemasOfSource) -> {
+            Set<String> keys = new HashSet<>();
+            schemasOfSource.forEach(schema -> keys.addAll(schema.getJSONKeys()));
+            boolean allKeys = schemasOfSource.stream().anyMatch(MetricSchema::requiresAllJSONKeys);
+
+            jsonParsersBySource.put(sourceId, new PartialJSONParser(keys, allKeys));
+        });
+    }
+
+    @SuppressWarnings("unchecked")
+    public <C extends Component> Optional<C> get(Type componentType, String id) {
+        return Optional.ofNullable((C) get(componentType).get(id));
+    }
+
+    @SuppressWarnings("unchecked")
+    public <C extends Component> Map<String, C> get(Type componentType) {
+        Map<String, Component> componentsOfType = components.get(componentType);
+
+        if(componentsOfType == null)
+            throw new IllegalArgumentException(componentType + " type cannot be in the catalog");
+
+        return (Map<String, C>) componentsOfType;
+    }
+
+    public List<MetricSchema> getSchemas(String sourceId) {
+        return schemasBySource.getOrDefault(sourceId, Collections.emptyList());
+    }
+
+    public Optional<PartialJSONParser> getSchemasJSONParser(String sourceId) {
+        return Optional.ofNullable(jsonParsersBySource.get(sourceId));
+    }
+
+    public Collection<DefinedMetric> getDefinedMetricsCandidates(Map<String, String> attributes) {
+        return definedMetricsIndex.getCandidates(attributes);
+    }
+
+    public Collection<Monitor> getMonitorsCandidates(Map<String, String> attributes) {
+        return monitorsIndex.getCandidates(attributes);
+    }
+
+}
@@ -5,9 +5,15 @@ import java.io.Serializable;
 import java.text.ParseException;
 import java.util.Collections;
 import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.Semaphore;
 import java.util.concurrent.TimeUnit;
 import java.util.stream.Collectors;
 
@@ -25,20 +31,36 @@ import org.apache.log4j.LogManager;
 import org.apache.log4j.Logger;
 import org.apache.spark.streaming.api.java.JavaDStream;
 
+import com.codahale.metrics.Counter;
+import com.codahale.metrics.Histogram;
+
 import ch.cern.exdemon.components.ConfigurationResult;
 import ch.cern.exdemon.json.JSON;
 import ch.cern.properties.ConfigurationException;
 import ch.cern.properties.Properties;
+import ch.cern.spark.JobMetricsSource;
 import lombok.ToString;
 
-@ToString(callSuper=false)
+@ToString(callSuper=false, exclude={"failuresCounter", "sendTime"})
 public class HTTPSink implements Serializable{
 	
 	private static final long serialVersionUID = 2779022310649799825L;
 
 	private final static Logger LOG = LogManager.getLogger(HTTPSink.class);
 
-	private static HttpClient httpClient;
+	private static volatile HttpClient httpClient;
+
+	private static final ExecutorService SENDERS = Executors.newCachedThreadPool(runnable -> {
+	    Thread thread = new Thread(runnable, "http-sink-sender");
+	    thread.setDaemon(true);
+	    return thread;
+	});
+	
+	private static final ScheduledExecutorService ABORTERS = Executors.newSingleThreadScheduledExecutor(runnable -> {
+	    Thread thread = new Thread(runnable, "http-sink-aborter");
+	    thread.setDaemon(true);
+	    return thread;
+	});
 
 	public static final String URL_PARAM = "url";
 	private String url;
@@ -61,10 +83,16 @@ public class HTTPSink implements Serializable{
     public static final String AUTH_PASSWORD_PARAM = AUTH_PARAM + ".password";
     private UsernamePasswordCredentials authCredentials;
 	
+	public static final String COMPRESSION_PARAM = "compression";
+	private boolean gzip;
+	
 	private static final String AS_ARRAY_PARAM = "as-array";
     private boolean as_array;
 
     private boolean addAction;
+    
+    private transient Counter failuresCounter;
+    private transient volatile Histogram sendTime;
 
 	public ConfigurationResult config(Properties properties) {
 	    ConfigurationResult confResult = ConfigurationResult.SUCCESSFUL();
@@ -85,6 +113,14 @@ public class HTTPSink implements Serializable{
             confResult.withError(null, e);
         }
 		
+		String compression = properties.getProperty(COMPRESSION_PARAM, "none");
+		if(compression.equals("gzip"))
+		    gzip = true;
+		else if(compression.equals("none"))
+		    gzip = false;
+		else
+		    confResult.withError(COMPRESSION_PARAM, "compression \"" + compression + "\" is not available");
+		
 		String authenticationType = properties.getProperty(AUTH_TYPE_PARAM, "disabled");
         if(authenticationType.equals("basic-user-password")){
             String username = properties.getProperty(AUTH_USERNAME_PARAM);
@@ -100,17 +136,67 @@ public class HTTPSink implements Serializable{
         return confResult;
 	}
 	
+	// No shuffle, every partition sends its requests concurrently
 	public void sink(JavaDStream<JsonPOSTRequest> jsonRequests) {
-	    jsonRequests = jsonRequests.repartition(parallelization);
-	    
-	    jsonRequests.foreachRDD(rdd -> rdd.foreachPartitionAsync(requests -> batchAndSend(requests)));
+	    jsonRequests.foreachRDD(rdd -> rdd.foreachPartitionAsync(requests -> sink(requests)));
 	}
 
 	public void sink(JsonPOSTRequest request) throws ParseException {
         batchAndSend(Collections.singleton(request).iterator());
     }
+
+    public void sink(Iterator<JsonPOSTRequest> requests) throws InterruptedException {
+        sink(requests, Long.MAX_VALUE);
+    }
+
+    // Requests are batched and sent concurrently, keeping at most "parallelization" requests in flight.
+    // Requests are only consumed when there is room for sending them, so a slow end point slows down the producer.
+    // Requests not sent before the deadline (epoch ms) are discarded, requests in flight at the deadline are aborted.
+    public void sink(Iterator<JsonPOSTRequest> requests, long deadline) throws InterruptedException {
+        int maxInFlight = Math.max(1, parallelization);
+        Semaphore inFlight = new Semaphore(maxInFlight);
+        
+        try {
+            batch(requests, batch -> {
+                for (JsonPOSTRequest request : batch) {
+                    long remaining = deadline - System.currentTimeMillis();
+                    if(remaining <= 0 || !inFlight.tryAcquire(remaining, TimeUnit.MILLISECONDS)) {
+                        initMetrics();
+                        failuresCounter.inc();
+                        
+                        LOG.error("Request not sent before deadline, discarded: " + request);
+                        continue;
+                    }
+                    
+                    try {
+                        SENDERS.execute(() -> {
+                            try {
+                                trySend(request, deadline);
+                            } finally {
+                                inFlight.release();
+                            }
+                        });
+                    } catch (RuntimeException e) {
+                        inFlight.release();
+                        
+                        throw e;
+                    }
+                }
+            });
+        } finally {
+            inFlight.acquireUninterruptibly(maxInFlight);
+        }
+    }
     
     protected void batchAndSend(Iterator<JsonPOSTRequest> requests) {
+        try {
+            batch(requests, batch -> batch.forEach(this::trySend));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void batch(Iterator<JsonPOSTRequest> requests, BatchConsumer consumer) throws InterruptedException {
         List<JsonPOSTRequest> requestsToSend = new LinkedList<>();
         while (requests.hasNext()) {
             JsonPOSTRequest request = requests.next();
@@ -120,61 +206,109 @@ public class HTTPSink implements Serializable{
             requestsToSend.add(request);
             
             if(requestsToSend.size() >= batch_size) {
-                buildBatchAndSend(requestsToSend);
+                consumer.accept(buildBatch(requestsToSend));
                 
                 requestsToSend = new LinkedList<>();
             }
         }
         
-        buildBatchAndSend(requestsToSend);
+        if(!requestsToSend.isEmpty())
+            consumer.accept(buildBatch(requestsToSend));
     }
 
     public void buildBatchAndSend(List<JsonPOSTRequest> requests) {
+        for (JsonPOSTRequest request : buildBatch(requests))
+            trySend(request);
+    }
+
+    private List<JsonPOSTRequest> buildBatch(List<JsonPOSTRequest> requests) {
 	    if(as_array)
 	        requests = buildJSONArrays(requests);
 
-        for (JsonPOSTRequest request : requests)
-            trySend(request);
+        return requests;
+    }
+
+    private interface BatchConsumer {
+        
+        void accept(List<JsonPOSTRequest> batch) throws InterruptedException;
+        
     }
 
+    // Shared by all sender threads, only one client is built
     private static HttpClient getHTTPClient() {
-        if(HTTPSink.httpClient == null)
-            HTTPSink.httpClient = HttpClients.custom()
-                                             .setRetryHandler(retryHandler)
-                                             .setConnectionTimeToLive(1, TimeUnit.MINUTES)
-                                             .setMaxConnPerRoute(1000)
-                                             .setMaxConnTotal(10000)
-                                             .build();
+        HttpClient client = HTTPSink.httpClient;
+        if(client != null)
+            return client;
         
-		return HTTPSink.httpClient;
+        synchronized (HTTPSink.class) {
+            if(HTTPSink.httpClient == null)
+                HTTPSink.httpClient = HttpClients.custom()
+                                                 .setRetryHandler(retryHandler)
+                                                 .setConnectionTimeToLive(1, TimeUnit.MINUTES)
+                                                 .setMaxConnPerRoute(1000)
+                                                 .setMaxConnTotal(10000)
+                                                 .build();
+            
+            return HTTPSink.httpClient;
+        }
 	}
 	
-	public static HttpClient setHTTPClient(HttpClient httpClient) {
+	public static synchronized HttpClient setHTTPClient(HttpClient httpClient) {
 		return HTTPSink.httpClient = httpClient;
 	}
 
-	public void trySend(JsonPOSTRequest request) {		
+	public void trySend(JsonPOSTRequest request) {
+	    trySend(request, Long.MAX_VALUE);
+	}
+
+	private void trySend(JsonPOSTRequest request, long deadline) {
 		HttpClient httpClient = getHTTPClient();
 		
+		initMetrics();
+		
+		long start = System.nanoTime();
         try {
-            send(httpClient, request);
+            send(httpClient, request, deadline);
         } catch (Exception e) {
+            failuresCounter.inc();
+            
             LOG.error("Error sending request: " + request, e);
+        } finally {
+            sendTime.update(System.nanoTime() - start);
         }
 	}
 	
-	private void send(HttpClient httpClient, JsonPOSTRequest request) throws HttpException, IOException {
-        HttpPost postMethod = request.toPostMethod();
+	private void initMetrics() {
+	    if(sendTime != null)
+	        return;
+	    
+	    failuresCounter = JobMetricsSource.counter("sinks", "http", "failures");
+	    sendTime = JobMetricsSource.histogram("sinks", "http", "send_time_ns");
+	}
+
+	// Timeouts are bounded by the deadline and the request is aborted if still running at the deadline,
+	// since a blocked send is not stopped by interrupting the sending thread
+	private void send(HttpClient httpClient, JsonPOSTRequest request, long deadline) throws HttpException, IOException {
+	    long remaining = deadline - System.currentTimeMillis();
+	    if(remaining <= 0)
+	        throw new HttpException("Deadline reached before POSTing to url=" + request.getUrl());
+	    int requestTimeout_ms = (int) Math.min(timeout_ms, remaining);
+	    
+        HttpPost postMethod = request.toPostMethod(gzip);
         
         postMethod.setConfig(RequestConfig.custom()
-                                                .setConnectTimeout(timeout_ms)
-                                                .setSocketTimeout(timeout_ms)
-                                                .setConnectionRequestTimeout(timeout_ms)
+                                                .setConnectTimeout(requestTimeout_ms)
+                                                .setSocketTimeout(requestTimeout_ms)
+                                                .setConnectionRequestTimeout(requestTimeout_ms)
                                                 .build());
         
         if(authCredentials != null)
             postMethod.addHeader(new BasicScheme().authenticate(authCredentials, postMethod, null));
         
+        ScheduledFuture<?> abort = null;
+        if(deadline != Long.MAX_VALUE)
+            abort = ABORTERS.schedule(postMethod::abort, remaining, TimeUnit.MILLISECONDS);
+        
 		HttpResponse response = null;
         try {
             response = httpClient.execute(postMethod);
@@ -186,25 +320,30 @@ public class HTTPSink implements Serializable{
             
             throw new HttpException("Unable to POST to url=" + request.getUrl(), e);
         }finally {
+            if(abort != null)
+                abort.cancel(false);
+            
             postMethod.releaseConnection();
         }
 		
 		int statusCode = response.getStatusLine().getStatusCode();
         if (statusCode == 201 || statusCode == 200) {
-            LOG.trace("JSON: " + request.getJson() + " sent to " + request.getUrl());
+            if(LOG.isTraceEnabled())
+                LOG.trace("JSON: " + request.getBody() + " sent to " + request.getUrl());
         } else {
-            throw new HttpException("Unable to POST to url=" + request.getUrl() + " with status code=" + statusCode + " "+response.toString()+". JSON: " + request.getJson());
+            throw new HttpException("Unable to POST to url=" + request.getUrl() + " with status code=" + statusCode + " "+response.toString()+". JSON: " + request.getBody());
         }
 	}
 
     private List<JsonPOSTRequest> buildJSONArrays(List<JsonPOSTRequest> requests) {
-	    Map<String, List<JsonPOSTRequest>> groupedByUrl = requests.stream().collect(Collectors.groupingBy(JsonPOSTRequest::getUrl));
+	    Map<String, List<JSON>> groupedByUrl = requests.stream().collect(Collectors.groupingBy(
+	                                                                        JsonPOSTRequest::getUrl, 
+	                                                                        LinkedHashMap::new,
+	                                                                        Collectors.mapping(JsonPOSTRequest::getJson, Collectors.toList())));
 	    
-	    return groupedByUrl.entrySet().stream().map(entry -> {
-            	        String jsonString = entry.getValue().stream().map(req -> req.getJson().toString()).collect(Collectors.toList()).toString();
-            	        
-            	        return new JsonPOSTRequest(entry.getKey(), new JSON(jsonString));
-            	    }).collect(Collectors.toList());
+	    return groupedByUrl.entrySet().stream()
+	                                  .map(entry -> JsonPOSTRequest.asArray(entry.getKey(), entry.getValue()))
+	                                  .collect(Collectors.toList());
 	}
 
 }
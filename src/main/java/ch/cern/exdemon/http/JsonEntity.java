@@ -0,0 +1,80 @@
+package ch.cern.exdemon.http;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+import org.apache.http.entity.AbstractHttpEntity;
+import org.apache.http.entity.ContentType;
+
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+import com.google.gson.stream.JsonWriter;
+
+import ch.cern.exdemon.json.JSON;
+
+// Writes the documents directly into the request body, without building the whole body as a string
+class JsonEntity extends AbstractHttpEntity {
+
+    // Same output than JsonElement.toString()
+    private static final Gson GSON = new GsonBuilder().serializeNulls().disableHtmlEscaping().create();
+
+    private List<JSON> jsons;
+
+    private boolean asArray;
+
+    JsonEntity(List<JSON> jsons, boolean asArray) {
+        this.jsons = jsons;
+        this.asArray = asArray;
+
+        setContentType(ContentType.APPLICATION_JSON.toString());
+    }
+
+    @Override
+    public void writeTo(OutputStream outstream) throws IOException {
+        Writer writer = new OutputStreamWriter(outstream, StandardCharsets.UTF_8);
+        JsonWriter jsonWriter = new JsonWriter(writer);
+        jsonWriter.setLenient(true);
+
+        if(asArray)
+            jsonWriter.beginArray();
+
+        for (JSON json : jsons)
+            GSON.toJson(json.getElement(), jsonWriter);
+
+        if(asArray)
+            jsonWriter.endArray();
+
+        jsonWriter.flush();
+    }
+
+    @Override
+    public InputStream getContent() throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        writeTo(bytes);
+
+        return new ByteArrayInputStream(bytes.toByteArray());
+    }
+
+    @Override
+    public boolean isRepeatable() {
+        return true;
+    }
+
+    @Override
+    public long getContentLength() {
+        return -1;
+    }
+
+    @Override
+    public boolean isStreaming() {
+        return false;
+    }
+
+}
@@ -1,10 +1,12 @@
 package ch.cern.exdemon.http;
 
-import java.io.UnsupportedEncodingException;
 import java.text.ParseException;
+import java.util.Collections;
+import java.util.List;
 
+import org.apache.http.HttpEntity;
+import org.apache.http.client.entity.GzipCompressingEntity;
 import org.apache.http.client.methods.HttpPost;
-import org.apache.http.entity.StringEntity;
 
 import ch.cern.exdemon.json.JSON;
 import lombok.EqualsAndHashCode;
@@ -21,24 +23,45 @@ public class JsonPOSTRequest {
     @Getter
     private JSON json;
     
+    // Documents sent as a JSON array, json is null
+    @Getter
+    private List<JSON> jsonArray;
+    
     public JsonPOSTRequest(String url, JSON json) {
         this.url = url;
         this.json = json;
     }
+    
+    public static JsonPOSTRequest asArray(String url, List<JSON> jsonArray) {
+        JsonPOSTRequest request = new JsonPOSTRequest(url, null);
+        request.jsonArray = Collections.unmodifiableList(jsonArray);
+        
+        return request;
+    }
 
     public void addProperty(String key, String value) throws ParseException {
         json.setProperty(key, value);
     }
 
-    public HttpPost toPostMethod() throws UnsupportedEncodingException {
+    public HttpPost toPostMethod() {
+        return toPostMethod(false);
+    }
+    
+    public HttpPost toPostMethod(boolean gzip) {
         HttpPost httpPost = new HttpPost(url);
         
-        httpPost.setEntity(new StringEntity(json.toString()));
+        HttpEntity entity = jsonArray != null ? new JsonEntity(jsonArray, true) : new JsonEntity(Collections.singletonList(json), false);
+        
+        httpPost.setEntity(gzip ? new GzipCompressingEntity(entity) : entity);
         httpPost.setHeader("Accept", "application/json");
         httpPost.setHeader("Content-type", "application/json");
         
         return httpPost;
     }
+    
+    public String getBody() {
+        return jsonArray != null ? jsonArray.toString() : String.valueOf(json);
+    }
 
     public JsonPOSTRequest setUrlIfNull(String url) {
         if(this.url == null)
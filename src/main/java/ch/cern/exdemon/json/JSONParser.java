@@ -13,6 +13,8 @@ import com.google.gson.JsonPrimitive;
 import com.google.gson.JsonSerializationContext;
 import com.google.gson.JsonSerializer;
 
+import ch.cern.exdemon.metrics.value.Value;
+
 public class JSONParser {
 
     public static String TIMESTAMP_OUTPUT_FORMAT = "yyyy-MM-dd'T'HH:mm:ssZ";
@@ -26,6 +28,7 @@ public class JSONParser {
 					return new JsonPrimitive(ZonedDateTime.ofInstant(instant , ZoneOffset.systemDefault()).format(formatter));
 				}
     			})
+    		.registerTypeAdapterFactory(new Value.GsonAdapterFactory())
     		.create();
 
     public static<T> JSON parse(T javaObject) {    	
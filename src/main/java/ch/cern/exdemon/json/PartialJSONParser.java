@@ -0,0 +1,112 @@
+package ch.cern.exdemon.json;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.io.StringReader;
+import java.nio.charset.StandardCharsets;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.function.Supplier;
+
+import com.google.gson.JsonIOException;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
+import com.google.gson.JsonSyntaxException;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+import com.google.gson.stream.MalformedJsonException;
+
+// Parses in a single pass only the elements with the given keys (nested names separated by dots), the rest is skipped
+public class PartialJSONParser {
+
+    private static transient JsonParser PARSER = new JsonParser();
+
+    private Node root = new Node();
+
+    private boolean allPrimitives;
+
+    // If all primitives are parsed, JSON.getAllKeys() returns the same keys than with the full document
+    public PartialJSONParser(Collection<String> keys, boolean allPrimitives) {
+        this.allPrimitives = allPrimitives;
+
+        for (String key : keys) {
+            Node node = root;
+
+            for (String name : key.split("\\.", -1))
+                node = node.children.computeIfAbsent(name, n -> new Node());
+
+            node.requested = true;
+        }
+    }
+
+    public JSON parse(String jsonString) {
+        return parse(new StringReader(jsonString), () -> new JSON(jsonString));
+    }
+
+    public JSON parse(byte[] bytes) {
+        Reader reader = new InputStreamReader(new ByteArrayInputStream(bytes), StandardCharsets.UTF_8);
+
+        return parse(reader, () -> new JSON(new String(bytes, StandardCharsets.UTF_8)));
+    }
+
+    // Documents which are not objects are fully parsed
+    private JSON parse(Reader input, Supplier<JSON> fullParse) {
+        JsonReader reader = new JsonReader(input);
+        reader.setLenient(true);
+
+        try {
+            if(reader.peek() != JsonToken.BEGIN_OBJECT)
+                return fullParse.get();
+        } catch (IOException e) {
+            return fullParse.get();
+        }
+
+        try {
+            JsonObject object = readObject(reader, root);
+
+            if(reader.peek() != JsonToken.END_DOCUMENT)
+                throw new JsonSyntaxException("Did not consume the entire document.");
+
+            return new JSON(object);
+        } catch (MalformedJsonException | NumberFormatException e) {
+            throw new JsonSyntaxException(e);
+        } catch (IOException e) {
+            throw new JsonIOException(e);
+        }
+    }
+
+    private JsonObject readObject(JsonReader reader, Node node) throws IOException {
+        JsonObject object = new JsonObject();
+
+        reader.beginObject();
+        while(reader.hasNext()) {
+            String name = reader.nextName();
+            Node child = node != null ? node.children.get(name) : null;
+            JsonToken token = reader.peek();
+
+            if(child != null && child.requested)
+                object.add(name, PARSER.parse(reader));
+            else if(token == JsonToken.BEGIN_OBJECT && (child != null || allPrimitives))
+                object.add(name, readObject(reader, child));
+            else if(allPrimitives && (token == JsonToken.STRING || token == JsonToken.NUMBER || token == JsonToken.BOOLEAN))
+                object.add(name, PARSER.parse(reader));
+            else
+                reader.skipValue();
+        }
+        reader.endObject();
+
+        return object;
+    }
+
+    private static class Node {
+
+        private Map<String, Node> children = new HashMap<>();
+
+        private boolean requested = false;
+
+    }
+
+}
@@ -0,0 +1,367 @@
+package ch.cern.exdemon.metrics;
+
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.Serializable;
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Objects;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
+
+import com.esotericsoftware.kryo.DefaultSerializer;
+import com.esotericsoftware.kryo.Kryo;
+import com.esotericsoftware.kryo.Serializer;
+import com.esotericsoftware.kryo.io.Input;
+import com.esotericsoftware.kryo.io.Output;
+import com.esotericsoftware.kryo.util.ObjectMap;
+
+import lombok.NonNull;
+
+// Immutable attributes of a metric or status key, sorted by key.
+// Keys and values are interned, so the same strings are shared by all metrics and keys of the JVM.
+// Hash code is computed once, it is the same than for any other map with the same entries.
+@DefaultSerializer(Attributes.KryoSerializer.class)
+public final class Attributes extends AbstractMap<String, String> implements Serializable {
+
+    private static final long serialVersionUID = -3411549431016239851L;
+
+    public static final Attributes EMPTY = new Attributes(new String[0], new String[0]);
+
+    // Once full, new strings are not interned any more (high cardinality values)
+    private static final int DICTIONARY_MAX_SIZE = 1 << 20;
+
+    private static final Map<String, String> DICTIONARY = new ConcurrentHashMap<>();
+
+    private transient String[] keys;
+
+    private transient String[] values;
+
+    private transient int hash;
+
+    private Attributes(String[] keys, String[] values) {
+        this.keys = keys;
+        this.values = values;
+        this.hash = computeHash();
+    }
+
+    public static Attributes of(Map<String, String> attributes) {
+        if(attributes == null || attributes.isEmpty())
+            return EMPTY;
+
+        if(attributes instanceof Attributes)
+            return (Attributes) attributes;
+
+        TreeMap<String, String> sorted = new TreeMap<>(attributes);
+
+        String[] keys = new String[sorted.size()];
+        String[] values = new String[sorted.size()];
+
+        int i = 0;
+        for (Map.Entry<String, String> entry : sorted.entrySet()) {
+            keys[i] = intern(entry.getKey());
+            values[i] = intern(entry.getValue());
+            i++;
+        }
+
+        return new Attributes(keys, values);
+    }
+
+    public static String intern(String string) {
+        if(string == null)
+            return null;
+
+        String interned = DICTIONARY.get(string);
+        if(interned != null)
+            return interned;
+
+        if(DICTIONARY.size() >= DICTIONARY_MAX_SIZE)
+            return string;
+
+        interned = DICTIONARY.putIfAbsent(string, string);
+
+        return interned != null ? interned : string;
+    }
+
+    public Attributes with(@NonNull String key, String value) {
+        int index = indexOf(key);
+
+        if(index >= 0) {
+            if(Objects.equals(values[index], value))
+                return this;
+
+            String[] newValues = Arrays.copyOf(values, values.length);
+            newValues[index] = intern(value);
+
+            return new Attributes(keys, newValues);
+        }
+
+        int insertion = -index - 1;
+
+        String[] newKeys = new String[keys.length + 1];
+        String[] newValues = new String[values.length + 1];
+
+        System.arraycopy(keys, 0, newKeys, 0, insertion);
+        System.arraycopy(values, 0, newValues, 0, insertion);
+        newKeys[insertion] = intern(key);
+        newValues[insertion] = intern(value);
+        System.arraycopy(keys, insertion, newKeys, insertion + 1, keys.length - insertion);
+        System.arraycopy(values, insertion, newValues, insertion + 1, values.length - insertion);
+
+        return new Attributes(newKeys, newValues);
+    }
+
+    public Attributes with(Map<String, String> attributes) {
+        Attributes result = this;
+
+        for (Map.Entry<String, String> entry : attributes.entrySet())
+            result = result.with(entry.getKey(), entry.getValue());
+
+        return result;
+    }
+
+    public Attributes without(@NonNull Collection<String> keysToRemove) {
+        int remaining = 0;
+        boolean[] keep = new boolean[keys.length];
+        for (int i = 0; i < keys.length; i++)
+            if(keep[i] = !keysToRemove.contains(keys[i]))
+                remaining++;
+
+        if(remaining == keys.length)
+            return this;
+        if(remaining == 0)
+            return EMPTY;
+
+        String[] newKeys = new String[remaining];
+        String[] newValues = new String[remaining];
+
+        int j = 0;
+        for (int i = 0; i < keys.length; i++) {
+            if(keep[i]) {
+                newKeys[j] = keys[i];
+                newValues[j] = values[i];
+                j++;
+            }
+        }
+
+        return new Attributes(newKeys, newValues);
+    }
+
+    // Interned keys, like the ones of filters, are found without comparing characters
+    private int indexOf(Object key) {
+        for (int i = 0; i < keys.length; i++)
+            if(keys[i] == key)
+                return i;
+
+        if(!(key instanceof String))
+            return -1;
+
+        return Arrays.binarySearch(keys, (String) key);
+    }
+
+    @Override
+    public String get(Object key) {
+        int index = indexOf(key);
+
+        return index >= 0 ? values[index] : null;
+    }
+
+    @Override
+    public boolean containsKey(Object key) {
+        return indexOf(key) >= 0;
+    }
+
+    @Override
+    public int size() {
+        return keys.length;
+    }
+
+    @Override
+    public boolean isEmpty() {
+        return keys.length == 0;
+    }
+
+    @Override
+    public Set<Map.Entry<String, String>> entrySet() {
+        return new AbstractSet<Map.Entry<String, String>>() {
+
+            @Override
+            public Iterator<Map.Entry<String, String>> iterator() {
+                return new Iterator<Map.Entry<String, String>>() {
+
+                    private int index = 0;
+
+                    @Override
+                    public boolean hasNext() {
+                        return index < keys.length;
+                    }
+
+                    @Override
+                    public Map.Entry<String, String> next() {
+                        if(!hasNext())
+                            throw new NoSuchElementException();
+
+                        Map.Entry<String, String> entry = new SimpleImmutableEntry<>(keys[index], values[index]);
+                        index++;
+
+                        return entry;
+                    }
+
+                };
+            }
+
+            @Override
+            public int size() {
+                return keys.length;
+            }
+
+        };
+    }
+
+    @Override
+    public boolean equals(Object other) {
+        if(other == this)
+            return true;
+
+        if(other instanceof Attributes) {
+            Attributes otherAttributes = (Attributes) other;
+
+            return hash == otherAttributes.hash
+                    && Arrays.equals(keys, otherAttributes.keys)
+                    && Arrays.equals(values, otherAttributes.values);
+        }
+
+        return super.equals(other);
+    }
+
+    @Override
+    public int hashCode() {
+        return hash;
+    }
+
+    private int computeHash() {
+        int hash = 0;
+
+        for (int i = 0; i < keys.length; i++)
+            hash += keys[i].hashCode() ^ Objects.hashCode(values[i]);
+
+        return hash;
+    }
+
+    private void writeObject(ObjectOutputStream out) throws IOException {
+        out.defaultWriteObject();
+        out.writeObject(keys);
+        out.writeObject(values);
+    }
+
+    private void readObject(ObjectInputStream in) throws IOException, ClassNotFoundException {
+        in.defaultReadObject();
+        keys = (String[]) in.readObject();
+        values = (String[]) in.readObject();
+
+        for (int i = 0; i < keys.length; i++) {
+            keys[i] = intern(keys[i]);
+            values[i] = intern(values[i]);
+        }
+        hash = computeHash();
+    }
+
+    // Strings are written once per serialized object graph, next occurrences are written as their position
+    public static class KryoSerializer extends Serializer<Attributes> {
+
+        private static final Object DICTIONARY_CONTEXT_KEY = KryoSerializer.class;
+
+        public KryoSerializer() {
+            setImmutable(true);
+        }
+
+        @Override
+        public void write(Kryo kryo, Output output, Attributes attributes) {
+            Map<String, Integer> written = getDictionary(kryo, HashMap::new);
+
+            output.writeVarInt(attributes.keys.length, true);
+            for (int i = 0; i < attributes.keys.length; i++) {
+                writeString(output, written, attributes.keys[i]);
+                writeString(output, written, attributes.values[i]);
+            }
+        }
+
+        // Graph context is reset by Kryo after every serialized object graph
+        @SuppressWarnings("unchecked")
+        private static <D> D getDictionary(Kryo kryo, Supplier<D> newDictionary) {
+            ObjectMap<Object, Object> context = kryo.getGraphContext();
+
+            D dictionary = (D) context.get(DICTIONARY_CONTEXT_KEY);
+            if(dictionary == null) {
+                dictionary = newDictionary.get();
+                context.put(DICTIONARY_CONTEXT_KEY, dictionary);
+            }
+
+            return dictionary;
+        }
+
+        // 0 for null, position + 1 for strings already written and negative for new strings
+        private void writeString(Output output, Map<String, Integer> written, String string) {
+            if(string == null) {
+                output.writeVarInt(0, false);
+                return;
+            }
+
+            Integer position = written.get(string);
+            if(position != null) {
+                output.writeVarInt(position + 1, false);
+                return;
+            }
+
+            written.put(string, written.size());
+
+            output.writeVarInt(-1, false);
+            output.writeString(string);
+        }
+
+        @Override
+        public Attributes read(Kryo kryo, Input input, Class<Attributes> type) {
+            List<String> read = getDictionary(kryo, ArrayList::new);
+
+            int size = input.readVarInt(true);
+            if(size == 0)
+                return EMPTY;
+
+            String[] keys = new String[size];
+            String[] values = new String[size];
+            for (int i = 0; i < size; i++) {
+                keys[i] = readString(input, read);
+                values[i] = readString(input, read);
+            }
+
+            return new Attributes(keys, values);
+        }
+
+        private String readString(Input input, List<String> read) {
+            int position = input.readVarInt(false);
+
+            if(position == 0)
+                return null;
+            if(position > 0)
+                return read.get(position - 1);
+
+            String string = intern(input.readString());
+            read.add(string);
+
+            return string;
+        }
+
+    }
+
+}
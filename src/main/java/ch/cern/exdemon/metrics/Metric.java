@@ -2,7 +2,6 @@ package ch.cern.exdemon.metrics;
 
 import java.io.Serializable;
 import java.time.Instant;
-import java.util.HashMap;
 import java.util.Map;
 import java.util.Set;
 
@@ -20,8 +19,8 @@ public class Metric implements Serializable {
 
     private static final long serialVersionUID = -182236104179624396L;
 
+    // Immutable, metrics with different attributes are derived with addAttribute and removeAttributes
     @Getter
-    @Setter
     @NonNull
     private Map<String, String> attributes;
 
@@ -39,26 +38,32 @@ public class Metric implements Serializable {
     }
 
     public Metric(@NonNull Instant timestamp, @NonNull Value value, Map<String, String> attributes) {
-        if (attributes == null)
-            this.attributes = new HashMap<String, String>();
-        else
-            this.attributes = new HashMap<String, String>(attributes);
+        this.attributes = Attributes.of(attributes);
 
         this.timestamp = timestamp;
         this.value = value;
     }
 
+    public void setAttributes(@NonNull Map<String, String> attributes) {
+        this.attributes = Attributes.of(attributes);
+    }
+
     public void addAttribute(@NonNull String key, @NonNull String value) {
-        attributes.put(key, value);
+        attributes = Attributes.of(attributes).with(key, value);
+    }
+
+    public void addAttributes(@NonNull Map<String, String> newAttributes) {
+        attributes = Attributes.of(attributes).with(newAttributes);
     }
 
     public void removeAttributes(@NonNull Set<String> keySet) {
-        keySet.forEach(key -> attributes.remove(key));
+        attributes = Attributes.of(attributes).without(keySet);
     }
 
+    // Attributes are shared, they cannot be modified
     @Override
     public Metric clone() {
-        return new Metric(timestamp, value.clone(), new HashMap<>(attributes));
+        return new Metric(timestamp, value.clone(), attributes);
     }
 
 }
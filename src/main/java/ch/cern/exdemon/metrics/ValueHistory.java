@@ -8,18 +8,20 @@ import java.time.Instant;
 import java.time.LocalDateTime;
 import java.time.temporal.ChronoField;
 import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
+import java.util.Objects;
 import java.util.Optional;
-import java.util.stream.Collectors;
-import java.util.stream.IntStream;
+import java.util.TreeMap;
 
 import org.apache.commons.math3.stat.descriptive.DescriptiveStatistics;
 
 import ch.cern.exdemon.metrics.defined.equation.ComputationException;
 import ch.cern.exdemon.metrics.defined.equation.var.ValueVariable;
 import ch.cern.exdemon.metrics.defined.equation.var.agg.Aggregation;
+import ch.cern.exdemon.metrics.defined.equation.var.agg.AggregationState;
 import ch.cern.exdemon.metrics.value.FloatValue;
 import ch.cern.exdemon.metrics.value.Value;
 import ch.cern.spark.status.StatusValue;
@@ -31,25 +33,35 @@ import lombok.Getter;
 import lombok.Setter;
 import lombok.ToString;
 
-@EqualsAndHashCode(callSuper=false)
-@ToString
 public class ValueHistory implements Serializable {
 
-    private static final long serialVersionUID = 9141577304066319408L;
+    private static final long serialVersionUID = -3260913187472924640L;
 
-    @Getter @Setter
-    private List<DatedValue> values;
+    private static final int INITIAL_CAPACITY = 8;
+
+    // Ring buffer sorted by time, head points to the oldest value
+    private long[] times;
+    // Only allocated if any time has sub-millisecond precision
+    private int[] nanosOfMilli;
+    private float[] floats;
+    // Only allocated if any value is not a plain float, null entries are stored in floats
+    private Value[] objects;
+    private int head;
+    private int size;
 
     @Getter @Setter
     private long max_size;
 
     @Getter @Setter
     private ChronoUnit granularity;
-    
-    @Getter @Setter
-    private Aggregation aggregation;
-    
+
     @Getter
+    private Aggregation aggregation;
+
+    // Kept up to date with the values if the aggregation supports it, built again when needed
+    private transient AggregationState aggregationState;
+
+    @Getter @Setter
     private List<Metric> lastAggregatedMetrics;
     @Getter @Setter
     private int max_lastAggregatedMetrics_size = 0;
@@ -57,16 +69,23 @@ public class ValueHistory implements Serializable {
     public ValueHistory(){
         this(ValueVariable.MAX_SIZE_DEFAULT, 0, null, null);
     }
-    
+
     public ValueHistory(long max_size, int max_lastAggregatedMetrics_size, ChronoUnit granularity, Aggregation aggregation){
-        this.values = new LinkedList<>();
+        clearValues();
         this.max_lastAggregatedMetrics_size = (int) Math.min(max_size, max_lastAggregatedMetrics_size);
-        
+
         this.max_size = max_size;
         this.granularity = granularity;
         this.aggregation = aggregation;
     }
 
+    public void setAggregation(Aggregation aggregation) {
+        if(this.aggregation == null || aggregation == null || !this.aggregation.equals(aggregation))
+            aggregationState = null;
+
+        this.aggregation = aggregation;
+    }
+
     public void add(Instant time, float value) {
         add(time, new FloatValue(value));
     }
@@ -75,93 +94,284 @@ public class ValueHistory implements Serializable {
         addLastAggMetric(originalMetric);
         add(time, value);
     }
-    
+
     private void addLastAggMetric(Metric metric) {
         if(max_lastAggregatedMetrics_size <= 0) {
             lastAggregatedMetrics = null;
             return;
         }
-        
+
         if(lastAggregatedMetrics == null)
             lastAggregatedMetrics = new LimitedQueue<>(max_lastAggregatedMetrics_size);
-        
+
         if(metric != null)
             lastAggregatedMetrics.add(metric);
     }
-    
+
     public void add(Instant time, Value value) {
         if(time == null || value == null)
             return;
-        
-        if(values.size() >= (max_size * 0.9))
-            summarizeValues(time);
+
+        if(size >= (max_size * 0.9))
+            summarizeValues();
 
         if (isMaxSizeReached())
-            values.remove(values.iterator().next());
-        
-        values.add(new DatedValue(time, value));
+            removeOldest(1);
+
+        insert(time, value);
     }
 
 	private boolean isMaxSizeReached() {
-		return values.size() > max_size;
+		return size > max_size;
 	}
-    
-    private void summarizeValues(Instant time) {
+
+    private void summarizeValues() {
         if(granularity == null || aggregation == null)
             return;
-  
-        Map<Instant, List<DatedValue>> groupedValues = values.stream()
-                                                        .collect(Collectors.groupingBy(v -> v.getTime().truncatedTo(granularity)));
-        
-        values = new LinkedList<>();
+
+        Map<Instant, List<DatedValue>> groupedValues = new TreeMap<>();
+        for (int i = 0; i < size; i++) {
+            Instant time = getTime(i);
+
+            groupedValues.computeIfAbsent(time.truncatedTo(granularity), t -> new LinkedList<>()).add(new DatedValue(time, getValue(i)));
+        }
+
+        clearValues();
         for (Map.Entry<Instant, List<DatedValue>> group : groupedValues.entrySet())
-            values.add(new DatedValue(group.getKey(), aggregation.aggregateValues(group.getValue(), group.getKey())));
-        
-        values = values.stream().sorted().collect(Collectors.toList());
+            insert(group.getKey(), aggregation.aggregateValues(group.getValue(), group.getKey()));
+    }
+
+    void insert(Instant time, Value value) {
+        long millis = time.toEpochMilli();
+        int nanos = time.getNano() % 1000000;
+
+        if(size == times.length)
+            grow();
+
+        // Values usually come in order, so the position is searched from the newest
+        int position = size;
+        while(position > 0 && compare(position - 1, millis, nanos) > 0)
+            position--;
+
+        for (int i = size; i > position; i--)
+            copy(index(i - 1), index(i));
+        size++;
+
+        int index = index(position);
+        times[index] = millis;
+        if(nanos != 0 && nanosOfMilli == null)
+            nanosOfMilli = new int[times.length];
+        if(nanosOfMilli != null)
+            nanosOfMilli[index] = nanos;
+
+        if(isPlainFloat(value)) {
+            floats[index] = value.getAsFloat().get();
+            if(objects != null)
+                objects[index] = null;
+        }else {
+            if(objects == null)
+                objects = new Value[times.length];
+            objects[index] = value;
+        }
+
+        if(aggregationState != null && aggregation.accepts(value))
+            aggregationState.add(value);
+    }
+
+    private boolean isPlainFloat(Value value) {
+        return value.getClass().equals(FloatValue.class)
+                && (!value.hasSource() || value.getSource().equals(value.toString()))
+                && value.getLastSourceMetrics() == null;
+    }
+
+    private void copy(int from, int to) {
+        times[to] = times[from];
+        floats[to] = floats[from];
+        if(nanosOfMilli != null)
+            nanosOfMilli[to] = nanosOfMilli[from];
+        if(objects != null)
+            objects[to] = objects[from];
+    }
+
+    private void grow() {
+        int capacity = times.length * 2;
+
+        long[] newTimes = new long[capacity];
+        float[] newFloats = new float[capacity];
+        int[] newNanosOfMilli = nanosOfMilli != null ? new int[capacity] : null;
+        Value[] newObjects = objects != null ? new Value[capacity] : null;
+
+        for (int i = 0; i < size; i++) {
+            int index = index(i);
+
+            newTimes[i] = times[index];
+            newFloats[i] = floats[index];
+            if(newNanosOfMilli != null)
+                newNanosOfMilli[i] = nanosOfMilli[index];
+            if(newObjects != null)
+                newObjects[i] = objects[index];
+        }
+
+        times = newTimes;
+        floats = newFloats;
+        nanosOfMilli = newNanosOfMilli;
+        objects = newObjects;
+        head = 0;
+    }
+
+    private int index(int position) {
+        int index = head + position;
+
+        return index < times.length ? index : index - times.length;
+    }
+
+    private int compare(int position, long millis, int nanos) {
+        int index = index(position);
+
+        int comparison = Long.compare(times[index], millis);
+        if(comparison != 0)
+            return comparison;
+
+        return Integer.compare(nanosOfMilli != null ? nanosOfMilli[index] : 0, nanos);
+    }
+
+    private void removeOldest(int count) {
+        if(aggregationState != null)
+            for (int i = 0; i < count; i++) {
+                Value value = getValue(i);
+
+                if(aggregation.accepts(value))
+                    aggregationState.remove(value);
+            }
+
+        if(objects != null)
+            for (int i = 0; i < count; i++)
+                objects[index(i)] = null;
+
+        head = index(count);
+        size -= count;
+    }
+
+    private void clearValues() {
+        times = new long[INITIAL_CAPACITY];
+        floats = new float[INITIAL_CAPACITY];
+        nanosOfMilli = null;
+        objects = null;
+        head = 0;
+        size = 0;
+        aggregationState = null;
     }
 
     public void purge(Instant oldest_time) {
-    	values.removeIf(value -> value.getTime().isBefore(oldest_time));
+        long millis = oldest_time.toEpochMilli();
+        int nanos = oldest_time.getNano() % 1000000;
+
+        // Number of values older than oldest_time
+        int low = 0, high = size;
+        while(low < high) {
+            int middle = (low + high) >>> 1;
+
+            if(compare(middle, millis, nanos) < 0)
+                low = middle + 1;
+            else
+                high = middle;
+        }
+
+        removeOldest(low);
     }
 
     public int size() {
-        return values.size();
+        return size;
+    }
+
+    Instant getTime(int position) {
+        int index = index(position);
+
+        Instant time = Instant.ofEpochMilli(times[index]);
+
+        return nanosOfMilli != null ? time.plusNanos(nanosOfMilli[index]) : time;
+    }
+
+    Value getValue(int position) {
+        int index = index(position);
+
+        if(objects != null && objects[index] != null)
+            return objects[index];
+
+        return new FloatValue(floats[index]);
+    }
+
+    boolean isFloat(int position) {
+        return objects == null || objects[index(position)] == null;
+    }
+
+    float getFloat(int position) {
+        return floats[index(position)];
+    }
+
+    public List<DatedValue> getValues() {
+        List<DatedValue> values = new ArrayList<>(size);
+
+        for (int i = 0; i < size; i++)
+            values.add(new DatedValue(getTime(i), getValue(i)));
+
+        return values;
     }
 
     public List<DatedValue> getDatedValues() throws ComputationException {
         if(isMaxSizeReached())
             throw new ComputationException("Maximum aggregation size reached. You may mitigate that by increasing granularity.");
-        
-        return values;
+
+        return getValues();
+    }
+
+    // Empty if the aggregation cannot be updated value by value
+    public Optional<Value> getAggregatedValue() throws ComputationException {
+        if(isMaxSizeReached())
+            throw new ComputationException("Maximum aggregation size reached. You may mitigate that by increasing granularity.");
+
+        if(aggregation == null)
+            return Optional.empty();
+
+        if(aggregationState == null) {
+            aggregationState = aggregation.newState();
+            if(aggregationState == null)
+                return Optional.empty();
+
+            for (int i = 0; i < size; i++) {
+                Value value = getValue(i);
+
+                if(aggregation.accepts(value))
+                    aggregationState.add(value);
+            }
+        }
+
+        return Optional.of(aggregation.aggregateState(aggregationState));
     }
 
     public List<Value> getHourlyValues(Instant time) {
-    		LocalDateTime dateTime = TimeUtils.toLocalDateTime(time);
-    	
-        return values.stream()
-        		.filter(value -> isSameMinute(dateTime, TimeUtils.toLocalDateTime(value.getTime()), false, false))
-        		.map(value -> value.getValue())
-        		.collect(Collectors.toList());
+        return getValuesAtSameMinute(time, false, false);
     }
 
 	public List<Value> getDaylyValues(Instant time) {
-		LocalDateTime dateTime = TimeUtils.toLocalDateTime(time);
-		
-        return values.stream()
-        		.filter(value -> isSameMinute(dateTime, TimeUtils.toLocalDateTime(value.getTime()), false, true))
-        		.map(value -> value.getValue())
-        		.collect(Collectors.toList());
+        return getValuesAtSameMinute(time, false, true);
     }
 
     public List<Value> getWeeklyValues(Instant time) {
+        return getValuesAtSameMinute(time, true, true);
+    }
+
+    private List<Value> getValuesAtSameMinute(Instant time, boolean week, boolean day) {
         LocalDateTime dateTime = TimeUtils.toLocalDateTime(time);
-    		
-        return values.stream()
-        		.filter(value -> isSameMinute(dateTime, TimeUtils.toLocalDateTime(value.getTime()), true, true))
-        		.map(value -> value.getValue())
-        		.collect(Collectors.toList());
+
+        List<Value> values = new LinkedList<>();
+        for (int i = 0; i < size; i++)
+            if(isSameMinute(dateTime, TimeUtils.toLocalDateTime(getTime(i)), week, day))
+                values.add(getValue(i));
+
+        return values;
     }
-    
+
     private boolean isSameMinute(LocalDateTime time1, LocalDateTime time2, boolean week, boolean day) {
 		return time1.get(ChronoField.MINUTE_OF_HOUR) == time2.get(ChronoField.MINUTE_OF_HOUR)
 				&& (!day || time1.get(ChronoField.HOUR_OF_DAY) == time2.get(ChronoField.HOUR_OF_DAY))
@@ -170,23 +380,56 @@ public class ValueHistory implements Serializable {
 
     public DescriptiveStatistics getStatistics() {
         DescriptiveStatistics stats = new DescriptiveStatistics();
-        
-        values.stream()
-        		.map(val -> val.getValue().getAsFloat())
-        		.filter(Optional::isPresent).map(Optional::get)
-        		.forEach(stats::addValue);
-        
+
+        for (int i = 0; i < size; i++) {
+            if(isFloat(i)) {
+                stats.addValue(getFloat(i));
+            }else {
+                Optional<Float> value = getValue(i).getAsFloat();
+                if(value.isPresent())
+                    stats.addValue(value.get());
+            }
+        }
+
         return stats;
     }
-    
+
+    @Override
+    public boolean equals(Object obj) {
+        if(this == obj)
+            return true;
+        if(!(obj instanceof ValueHistory))
+            return false;
+
+        ValueHistory other = (ValueHistory) obj;
+
+        return max_size == other.max_size
+                && max_lastAggregatedMetrics_size == other.max_lastAggregatedMetrics_size
+                && Objects.equals(granularity, other.granularity)
+                && Objects.equals(aggregation, other.aggregation)
+                && Objects.equals(lastAggregatedMetrics, other.lastAggregatedMetrics)
+                && getValues().equals(other.getValues());
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(getValues(), max_size, granularity, aggregation, lastAggregatedMetrics, max_lastAggregatedMetrics_size);
+    }
+
+    @Override
+    public String toString() {
+        return "ValueHistory(values=" + getValues() + ", max_size=" + max_size + ", granularity=" + granularity + ", aggregation=" + aggregation
+                + ", lastAggregatedMetrics=" + lastAggregatedMetrics + ", max_lastAggregatedMetrics_size=" + max_lastAggregatedMetrics_size + ")";
+    }
+
     @EqualsAndHashCode(callSuper=true)
     @ToString
     @ClassNameAlias("value-history")
     public static class Status extends StatusValue{
         private static final long serialVersionUID = 8818532585911816073L;
-        
+
         public ValueHistory history;
-        
+
         public Status() {
             history = new ValueHistory();
         }
@@ -196,48 +439,40 @@ public class ValueHistory implements Serializable {
         }
 
         private void writeObject(ObjectOutputStream out) throws IOException{
-            List<DatedValue> datedValues = history.values;
-            
             ChronoUnit granularity = history.getGranularity();
             Aggregation agg = history.getAggregation();
-            
-            int[] times = new int[datedValues.size()];
-            Value[] values = new Value[datedValues.size()];
-            
-            int i = 0;
-            for (DatedValue value : datedValues) {
-                times[i] = (int) value.getTime().getEpochSecond();
-                values[i] = value.getValue();
-                
-                i++;
+
+            int[] times = new int[history.size()];
+            Value[] values = new Value[history.size()];
+
+            for (int i = 0; i < history.size(); i++) {
+                times[i] = (int) history.getTime(i).getEpochSecond();
+                values[i] = history.getValue(i);
             }
-            
+
             out.writeObject(granularity);
             out.writeObject(agg);
             out.writeObject(times);
             out.writeObject(values);
         }
-        
+
         private void readObject(ObjectInputStream in) throws IOException, ClassNotFoundException{
             ChronoUnit granularity = (ChronoUnit) in.readObject();
             Aggregation aggregation = (Aggregation) in.readObject();
             history = new ValueHistory(ValueVariable.MAX_SIZE_DEFAULT, 0, granularity, aggregation);
-            
+
             int[] times = (int[]) in.readObject();
             Value[] values = (Value[]) in.readObject();
-            
-            List<DatedValue> datedValues = IntStream.range(0, times.length)
-								            		.mapToObj(i -> new DatedValue(Instant.ofEpochSecond(times[i]), values[i]))
-								            		.collect(Collectors.toList());
-            
-            history.setValues(datedValues);
+
+            for (int i = 0; i < times.length; i++)
+                history.insert(Instant.ofEpochSecond(times[i]), values[i]);
         }
-        
+
     }
 
     public void reset() {
-        this.values = new LinkedList<>();
-        
+        clearValues();
+
         if(max_lastAggregatedMetrics_size > 0)
             this.lastAggregatedMetrics = new LimitedQueue<>(max_lastAggregatedMetrics_size);
         else
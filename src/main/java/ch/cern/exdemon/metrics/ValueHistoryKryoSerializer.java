@@ -0,0 +1,95 @@
+package ch.cern.exdemon.metrics;
+
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.List;
+
+import com.esotericsoftware.kryo.Kryo;
+import com.esotericsoftware.kryo.Serializer;
+import com.esotericsoftware.kryo.io.Input;
+import com.esotericsoftware.kryo.io.Output;
+
+import ch.cern.exdemon.metrics.defined.equation.var.agg.Aggregation;
+import ch.cern.exdemon.metrics.value.FloatValue;
+import ch.cern.exdemon.metrics.value.Value;
+
+public class ValueHistoryKryoSerializer extends Serializer<ValueHistory> {
+
+    private static final ChronoUnit[] CHRONO_UNITS = ChronoUnit.values();
+
+    @Override
+    public void write(Kryo kryo, Output output, ValueHistory history) {
+        output.writeVarLong(history.getMax_size(), true);
+        output.writeVarInt(history.getGranularity() != null ? history.getGranularity().ordinal() + 1 : 0, true);
+        kryo.writeClassAndObject(output, history.getAggregation());
+        output.writeVarInt(history.getMax_lastAggregatedMetrics_size(), true);
+        kryo.writeClassAndObject(output, history.getLastAggregatedMetrics());
+
+        // Times as deltas in milliseconds and, if all values are plain floats, values as floats
+        int size = history.size();
+        output.writeVarInt(size, true);
+
+        boolean subMillisecondTimes = false;
+        boolean onlyFloats = true;
+        for (int i = 0; i < size; i++) {
+            subMillisecondTimes |= history.getTime(i).getNano() % 1000000 != 0;
+            onlyFloats &= history.isFloat(i);
+        }
+        output.writeBoolean(subMillisecondTimes);
+        output.writeBoolean(onlyFloats);
+
+        long previousMillis = 0;
+        for (int i = 0; i < size; i++) {
+            Instant time = history.getTime(i);
+
+            long millis = time.toEpochMilli();
+            output.writeVarLong(millis - previousMillis, false);
+            previousMillis = millis;
+
+            if(subMillisecondTimes)
+                output.writeVarInt(time.getNano() % 1000000, true);
+        }
+
+        for (int i = 0; i < size; i++)
+            if(onlyFloats)
+                output.writeFloat(history.getFloat(i));
+            else
+                kryo.writeClassAndObject(output, history.getValue(i));
+    }
+
+    @Override
+    public ValueHistory read(Kryo kryo, Input input, Class<ValueHistory> type) {
+        long max_size = input.readVarLong(true);
+        int granularityOrdinal = input.readVarInt(true);
+        ChronoUnit granularity = granularityOrdinal > 0 ? CHRONO_UNITS[granularityOrdinal - 1] : null;
+        Aggregation aggregation = (Aggregation) kryo.readClassAndObject(input);
+        int max_lastAggregatedMetrics_size = input.readVarInt(true);
+        @SuppressWarnings("unchecked")
+        List<Metric> lastAggregatedMetrics = (List<Metric>) kryo.readClassAndObject(input);
+
+        int size = input.readVarInt(true);
+        boolean subMillisecondTimes = input.readBoolean();
+        boolean onlyFloats = input.readBoolean();
+
+        Instant[] times = new Instant[size];
+        long millis = 0;
+        for (int i = 0; i < size; i++) {
+            millis += input.readVarLong(false);
+
+            times[i] = Instant.ofEpochMilli(millis);
+            if(subMillisecondTimes)
+                times[i] = times[i].plusNanos(input.readVarInt(true));
+        }
+
+        ValueHistory history = new ValueHistory(max_size, max_lastAggregatedMetrics_size, granularity, aggregation);
+        for (int i = 0; i < size; i++)
+            if(onlyFloats)
+                history.insert(times[i], new FloatValue(input.readFloat()));
+            else
+                history.insert(times[i], (Value) kryo.readClassAndObject(input));
+        history.setLastAggregatedMetrics(lastAggregatedMetrics);
+
+        return history;
+    }
+
+}
@@ -1,12 +1,11 @@
 package ch.cern.exdemon.metrics.defined;
 
+import java.util.Collection;
 import java.util.Iterator;
-import java.util.Map;
 
 import org.apache.spark.api.java.function.PairFlatMapFunction;
 
 import ch.cern.exdemon.components.ComponentsCatalog;
-import ch.cern.exdemon.components.Component.Type;
 import ch.cern.exdemon.metrics.Metric;
 import ch.cern.properties.Properties;
 import scala.Tuple2;
@@ -25,9 +24,9 @@ public class ComputeDefinedMetricKeysF implements PairFlatMapFunction<Metric, De
 	public Iterator<Tuple2<DefinedMetricStatuskey, Metric>> call(Metric metric) throws Exception {
 		ComponentsCatalog.init(propertiesSourceProps);
 		
-		Map<String, DefinedMetric> definedMetrics = ComponentsCatalog.get(Type.METRIC);
+		Collection<DefinedMetric> definedMetrics = ComponentsCatalog.getSnapshot().getDefinedMetricsCandidates(metric.getAttributes());
 		
-        return definedMetrics.values().stream()
+        return definedMetrics.stream()
 		        		.filter(definedMetric -> definedMetric.testIfApplyForAnyVariable(metric))
 		        		.map(definedMetric -> new Tuple2<>(definedMetric.getId(), definedMetric.getGroupByAttributes(metric.getAttributes())))
 		        		.filter(pair -> pair._2.isPresent())
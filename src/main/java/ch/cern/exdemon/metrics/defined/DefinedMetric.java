@@ -11,6 +11,8 @@ import java.util.Optional;
 import java.util.Set;
 import java.util.stream.Collectors;
 
+import com.codahale.metrics.Counter;
+
 import ch.cern.exdemon.Driver;
 import ch.cern.exdemon.components.Component;
 import ch.cern.exdemon.components.Component.Type;
@@ -27,11 +29,12 @@ import ch.cern.exdemon.metrics.value.StringValue;
 import ch.cern.exdemon.metrics.value.Value;
 import ch.cern.properties.ConfigurationException;
 import ch.cern.properties.Properties;
+import ch.cern.spark.JobMetricsSource;
 import ch.cern.utils.Pair;
 import lombok.Getter;
 import lombok.ToString;
 
-@ToString
+@ToString(exclude="metricsCounter")
 @ComponentType(Type.METRIC)
 public final class DefinedMetric extends Component {
 
@@ -47,6 +50,7 @@ public final class DefinedMetric extends Component {
 	
 	private HashMap<String, Variable> variables;
 	
+	@Getter
 	private MetricsFilter filter;
 
     private Map<String, String> fixedValueAttributes;
@@ -54,6 +58,8 @@ public final class DefinedMetric extends Component {
     private Map<String, String> variableAttributes;
 
     private HashSet<String> lastSourceMetricsVariables;
+    
+    private transient Counter metricsCounter;
 
     public DefinedMetric() {
     }
@@ -168,11 +174,15 @@ public final class DefinedMetric extends Component {
 		if(!filter.test(metric))
 			return;
 		
+		if(metricsCounter == null)
+		    metricsCounter = JobMetricsSource.counter("defined_metrics", getId(), "metrics");
+		metricsCounter.inc();
+		
 		Map<String, Variable> variablesToUpdate = getVariablesToUpdate(metric);
 		
 		Metric metricForStore = metric.clone();
 		if(groupByKeys != null)
-			metricForStore.getAttributes().entrySet().removeIf(entry -> groupByKeys.contains(entry.getKey()));
+			metricForStore.removeAttributes(groupByKeys);
 		
 		for (Variable variableToUpdate : variablesToUpdate.values()) {
 		    String name = variableToUpdate.getName();
@@ -2,6 +2,7 @@ package ch.cern.exdemon.metrics.defined;
 
 import java.util.Map;
 
+import ch.cern.exdemon.metrics.Attributes;
 import ch.cern.spark.status.IDStatusKey;
 import ch.cern.spark.status.storage.ClassNameAlias;
 import lombok.EqualsAndHashCode;
@@ -22,7 +23,7 @@ public class DefinedMetricStatuskey implements IDStatusKey {
 
 	public DefinedMetricStatuskey(String definedMetricId, Map<String, String> metric_attributes) {
 		this.id = definedMetricId;
-		this.metric_attributes = metric_attributes;
+		this.metric_attributes = Attributes.of(metric_attributes);
 	}
 
 	public String getID() {
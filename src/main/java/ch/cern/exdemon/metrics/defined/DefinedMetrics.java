@@ -10,6 +10,7 @@ import ch.cern.exdemon.metrics.Metric;
 import ch.cern.exdemon.metrics.defined.equation.var.VariableStatuses;
 import ch.cern.properties.ConfigurationException;
 import ch.cern.properties.Properties;
+import ch.cern.spark.BatchClock;
 import ch.cern.spark.status.StateDStream;
 import ch.cern.spark.status.Status;
 import ch.cern.spark.status.StatusOperation;
@@ -22,18 +23,18 @@ public class DefinedMetrics {
 	        Optional<JavaDStream<StatusOperation<DefinedMetricStatuskey, Metric>>> operationsOpt) 
 	                throws ClassNotFoundException, IOException, ConfigurationException{
 	    
-        JavaPairDStream<DefinedMetricStatuskey, Metric> resultsKeyed = metrics.flatMapToPair(new ComputeDefinedMetricKeysF(propertiesSourceProps));
+        ComputeDefinedMetricKeysF computeKeys = new ComputeDefinedMetricKeysF(propertiesSourceProps);
+        JavaPairDStream<DefinedMetricStatuskey, Metric> resultsKeyed = metrics.transformToPair((rdd, time) -> BatchClock.setForTasks(rdd, time).flatMapToPair(computeKeys));
 
         JavaDStream<StatusOperation<DefinedMetricStatuskey, Metric>> operations = resultsKeyed.map(mk -> new StatusOperation<>(mk._1, mk._2));
-
-        if(operationsOpt.isPresent())
-            operations = operations.union(operationsOpt.get());
         
         StateDStream<DefinedMetricStatuskey, Metric, VariableStatuses, Metric> statuses = 
                 Status.<DefinedMetricStatuskey, Metric, VariableStatuses, Metric>map(
                         DefinedMetricStatuskey.class, 
                         VariableStatuses.class, 
                         operations, 
+                        operationsOpt,
+                        Metric::getTimestamp,
                         new UpdateDefinedMetricStatusesF(propertiesSourceProps));
 
 		JavaDStream<Metric> definedMetricsWhenBatch = statuses.statuses().transform((rdd, time) -> rdd.flatMap(new ComputeBatchDefineMetricsF(time, propertiesSourceProps)));
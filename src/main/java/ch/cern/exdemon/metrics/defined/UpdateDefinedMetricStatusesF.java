@@ -1,5 +1,8 @@
 package ch.cern.exdemon.metrics.defined;
 
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
 import java.util.Optional;
 
 import org.apache.log4j.Logger;
@@ -28,35 +31,46 @@ public class UpdateDefinedMetricStatusesF extends UpdateStatusFunction<DefinedMe
     @Override
     protected Optional<Metric> update(DefinedMetricStatuskey id, Metric metric, State<VariableStatuses> status) 
             throws Exception {
+        List<Metric> newMetrics = update(id, Collections.singletonList(metric), status);
+        
+        return newMetrics.isEmpty() ? Optional.empty() : Optional.of(newMetrics.get(0));
+    }
+    
+    // Defined metric and variable statuses are obtained and stored once for all metrics of the batch
+    @Override
+    protected List<Metric> update(DefinedMetricStatuskey id, List<Metric> metrics, State<VariableStatuses> status) 
+            throws Exception {
         Optional<DefinedMetric> definedMetricOpt = getDefinedMetric(id.getID());
         if(!definedMetricOpt.isPresent()) {
             status.remove();
-            return Optional.empty();
+            return Collections.emptyList();
         }
         DefinedMetric definedMetric = definedMetricOpt.get();
             
         VariableStatuses varStatuses = getStatus(status);
 
-        Optional<Metric> newMetric = Optional.empty();
-        try {
-            definedMetric.updateStore(varStatuses, metric, id.getMetric_attributes().keySet());
-            
-            newMetric = definedMetric.generateByUpdate(varStatuses, metric, id.getMetric_attributes());
-        }catch(Exception e) {
-            LOG.error("ID:" + id
-                    + " Metric: " + metric
-                    + " VariableStatuses: " + varStatuses
-                    + " Message:" + e.getMessage(), e);
-            
-            newMetric = Optional.of(new Metric(
-                                            metric.getTimestamp(), 
-                                            new ExceptionValue("Error when processing defined metric: " + e.getMessage()), 
-                                            id.getMetric_attributes()));   
+        List<Metric> newMetrics = new ArrayList<>();
+        for (Metric metric : metrics) {
+            try {
+                definedMetric.updateStore(varStatuses, metric, id.getMetric_attributes().keySet());
+                
+                definedMetric.generateByUpdate(varStatuses, metric, id.getMetric_attributes()).ifPresent(newMetrics::add);
+            }catch(Exception e) {
+                LOG.error("ID:" + id
+                        + " Metric: " + metric
+                        + " VariableStatuses: " + varStatuses
+                        + " Message:" + e.getMessage(), e);
+                
+                newMetrics.add(new Metric(
+                                    metric.getTimestamp(), 
+                                    new ExceptionValue("Error when processing defined metric: " + e.getMessage()), 
+                                    id.getMetric_attributes()));   
+            }
         }
         
         status.update(varStatuses);
         
-        return newMetric;
+        return newMetrics;
     }
 
 	protected Optional<DefinedMetric> getDefinedMetric(String id) throws Exception {
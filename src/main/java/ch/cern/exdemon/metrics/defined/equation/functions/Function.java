@@ -2,14 +2,15 @@ package ch.cern.exdemon.metrics.defined.equation.functions;
 
 import java.text.ParseException;
 import java.time.Instant;
-import java.util.Arrays;
+import java.util.ArrayList;
 import java.util.HashSet;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Set;
-import java.util.stream.Collectors;
 
 import ch.cern.exdemon.metrics.Metric;
 import ch.cern.exdemon.metrics.defined.equation.ValueComputable;
+import ch.cern.exdemon.metrics.defined.equation.var.Variable;
 import ch.cern.exdemon.metrics.defined.equation.var.VariableStatuses;
 import ch.cern.exdemon.metrics.value.BooleanValue;
 import ch.cern.exdemon.metrics.value.ExceptionValue;
@@ -27,6 +28,11 @@ public abstract class Function implements ValueComputable{
 
 	private boolean operationInTheMiddle = false;	
 
+	// Trees of float and boolean functions are computed with primitives, variables are the leaves of the tree
+	private boolean compiled;
+	private List<ValueComputable> leaves = new ArrayList<>();
+	private int[] argumentsFirstLeaf;
+
 	public Function(String representation, Class<? extends Value>[] types, ValueComputable... arguments) throws ParseException {
 		this.representation = representation;
 		
@@ -42,75 +48,166 @@ public abstract class Function implements ValueComputable{
 			if(!types[i].equals(Value.class) && !argumentsReturnType.equals(types[i]))
 				throw new ParseException(getExceptionPrefix() + "expects type " + types[i].getSimpleName() + " for argument " + (i+1), 0);
 		}
+		
+		compiled = this instanceof FloatCompilable || this instanceof BooleanCompilable;
+		argumentsFirstLeaf = new int[arguments.length];
+		for (int i = 0; i < arguments.length; i++) {
+			argumentsFirstLeaf[i] = leaves.size();
+			
+			if(arguments[i] instanceof Function) {
+				compiled &= ((Function) arguments[i]).compiled;
+				leaves.addAll(((Function) arguments[i]).leaves);
+			}else if(arguments[i] instanceof Variable) {
+				leaves.add(arguments[i]);
+			}else if(!(arguments[i] instanceof FloatValue) && !(arguments[i] instanceof BooleanValue)) {
+				compiled = false;
+			}
+		}
 	}
 
 	@Override
 	public Value compute(VariableStatuses stores, Instant time) {
+		if(compiled)
+			return computeCompiled(new Evaluation(stores, time, leaves.size()));
+		
 		Value[] argumentValues = new Value[arguments.length];
+		for (int i = 0; i < arguments.length; i++)
+			argumentValues[i] = arguments[i].compute(stores, time);
+		
+		return computeFromArguments(argumentValues);
+	}
+
+	private Value computeCompiled(Evaluation evaluation) {
+		Value result;
+		try {
+			if(this instanceof FloatCompilable)
+				result = new FloatValue(((FloatCompilable) this).computeFloat(evaluation, 0));
+			else
+				result = new BooleanValue(((BooleanCompilable) this).computeBoolean(evaluation, 0));
+		}catch(NotCompilableValueException e) {
+			// Some variable did not return the expected type, computed values are reused
+			return compute(evaluation, 0);
+		}
+		
+		// Source is built from the values of the variables, statuses may change before it is requested
+		Evaluation sourceEvaluation = evaluation.withoutStores(leaves);
+		result.setSource(() -> compute(sourceEvaluation, 0).getSource());
+		result.setLastSourceMetrics(sourceEvaluation.getLastSourceMetrics());
 		
-		Set<String> exceptions = new HashSet<>();
-		String typeExceptions = "";
+		return result;
+	}
+
+	private Value compute(Evaluation evaluation, int firstLeaf) {
+		Value[] argumentValues = new Value[arguments.length];
+		for (int i = 0; i < arguments.length; i++)
+			argumentValues[i] = evaluation.compute(arguments[i], firstLeaf + argumentsFirstLeaf[i]);
+		
+		return computeFromArguments(argumentValues);
+	}
+
+	private Value computeFromArguments(Value[] argumentValues) {
+		Set<String> exceptions = null;
+		String typeExceptions = null;
 		for (int i = 0; i < arguments.length; i++) {
-			ValueComputable argument = arguments[i];
+			String typeException = null;
 			
-			argumentValues[i] = argument.compute(stores, time);		
-			if(argumentValues[i].getAsException().isPresent())
+			if(argumentValues[i].getAsException().isPresent()) {
+				if(exceptions == null)
+					exceptions = new HashSet<>();
+				
 				exceptions.add(argumentValues[i].getAsException().get());
-			else if(types[i].equals(FloatValue.class) && !argumentValues[i].getAsFloat().isPresent())
-				typeExceptions += "argument " + (i+1) + ": requires float value, ";
+			}else if(types[i].equals(FloatValue.class) && !argumentValues[i].getAsFloat().isPresent())
+				typeException = "argument " + (i+1) + ": requires float value";
 			else if(types[i].equals(StringValue.class) && !argumentValues[i].getAsString().isPresent())
-				typeExceptions += "argument " + (i+1) + ": requires string value, ";
+				typeException = "argument " + (i+1) + ": requires string value";
 			else if(types[i].equals(BooleanValue.class) && !argumentValues[i].getAsBoolean().isPresent())
-				typeExceptions += "argument " + (i+1) + ": requires boolean value, ";
+				typeException = "argument " + (i+1) + ": requires boolean value";
+			
+			if(typeException != null)
+				typeExceptions = typeExceptions == null ? typeException : typeExceptions + ", " + typeException;
 		}
 		
 		Value result = null;
-		if(!exceptions.isEmpty()) {
-			String exceptionsString = toString(exceptions);
-			result = new ExceptionValue(exceptionsString);
+		if(exceptions != null) {
+			result = new ExceptionValue(String.join(", ", exceptions));
 			
 			setSourceFromArgumentmValues(result, new ExceptionValue("in arguments").toString(), argumentValues);
-		}else if(typeExceptions.length() > 0) {
-			typeExceptions = typeExceptions.substring(0, typeExceptions.length() - 2);
+		}else if(typeExceptions != null) {
 			result = new ExceptionValue(getExceptionPrefix() + typeExceptions);
 			
 			setSourceFromArgumentmValues(result, new ExceptionValue(typeExceptions).toString(), argumentValues);
 		}else{
 			result = compute(argumentValues);
-			setSourceFromArgumentmValues(result, result.toString(), argumentValues);
+			
+			// Some functions return one of the arguments, source would reference itself
+			for (Value argumentValue : argumentValues)
+				if(result == argumentValue)
+					result = result.clone();
+			
+			Value finalResult = result;
+			result.setSource(() -> buildSource(finalResult.toString(), argumentValues));
+			setLastSourceMetrics(result, argumentValues);
 		}
 		
 		return result;
 	}
 
-	private String toString(Set<String> exceptions) {
-		String exceptionsString = "";
-		
-		for (String exceptio : exceptions)
-			exceptionsString += exceptio + ", ";
+	protected void setSourceFromArgumentmValues(Value result, String resultString, Value... argumentValues) {
+		result.setSource(buildSource(resultString, argumentValues));
 		
-		return exceptionsString.substring(0, exceptionsString.length() - 2);
+		setLastSourceMetrics(result, argumentValues);
 	}
 
-	protected void setSourceFromArgumentmValues(Value result, String resultString, Value... argumentValues) {
-		if(operationInTheMiddle) {
-			result.setSource("(" + argumentValues[0].getSource() + " " + representation + " " + argumentValues[1].getSource() + ")=" + resultString);
-		}else {
-			String output = representation + "(";
+	private String buildSource(String resultString, Value... argumentValues) {
+		if(operationInTheMiddle)
+			return "(" + argumentValues[0].getSource() + " " + representation + " " + argumentValues[1].getSource() + ")=" + resultString;
+		
+		StringBuilder output = new StringBuilder(representation).append("(");
+		for (int i = 0; i < argumentValues.length; i++) {
+			if(i > 0)
+				output.append(", ");
 			
-			for (Value argumentValue : argumentValues)
-				output += argumentValue.getSource() + ", ";
+			output.append(argumentValues[i].getSource());
+		}
+		
+		return output.append(")=").append(resultString).toString();
+	}
+
+	private void setLastSourceMetrics(Value result, Value... argumentValues) {
+		Set<Metric> lastSourceMetrics = null;
+		for (Value argumentValue : argumentValues) {
+			List<Metric> metrics = argumentValue.getLastSourceMetrics();
+			if(metrics == null)
+				continue;
 			
-			result.setSource(output.substring(0, output.length() - 2) + ")=" + resultString);
+			if(lastSourceMetrics == null)
+				lastSourceMetrics = new LinkedHashSet<>();
+			lastSourceMetrics.addAll(metrics);
 		}
 		
-		List<Metric> lastSourceMetrics = Arrays.stream(argumentValues).map(value -> value.getLastSourceMetrics())
-		                                                              .filter(metrics -> metrics != null)
-		                                                              .flatMap(List::stream)
-		                                                              .distinct()
-		                                                              .collect(Collectors.toList());
-		if(lastSourceMetrics.size() > 0)
-            result.setLastSourceMetrics(lastSourceMetrics);
+		if(lastSourceMetrics != null)
+			result.setLastSourceMetrics(new ArrayList<>(lastSourceMetrics));
+	}
+
+	// Functions computed with primitives when all their arguments can be
+	public interface FloatCompilable {
+		
+		float computeFloat(Evaluation evaluation, int firstLeaf);
+		
+	}
+
+	public interface BooleanCompilable {
+		
+		boolean computeBoolean(Evaluation evaluation, int firstLeaf);
+		
+	}
+
+	protected float floatArgument(int index, Evaluation evaluation, int firstLeaf) {
+		return evaluation.computeFloat(arguments[index], firstLeaf + argumentsFirstLeaf[index]);
+	}
+
+	protected boolean booleanArgument(int index, Evaluation evaluation, int firstLeaf) {
+		return evaluation.computeBoolean(arguments[index], firstLeaf + argumentsFirstLeaf[index]);
 	}
 
 	protected abstract Value compute(Value... values);
@@ -146,4 +243,100 @@ public abstract class Function implements ValueComputable{
 		return output.substring(0, output.length() - 2) + ")";
 	}
 	
+	protected static class Evaluation {
+		
+		private VariableStatuses stores;
+		private Instant time;
+		
+		// Values computed by the variables, needed for building the source
+		private Value[] leaves;
+		
+		private Evaluation(VariableStatuses stores, Instant time, int leavesCount) {
+			this.stores = stores;
+			this.time = time;
+			this.leaves = new Value[leavesCount];
+		}
+		
+		// Computes the variables that were not needed for the result
+		private Evaluation withoutStores(List<ValueComputable> variables) {
+			for (int leaf = 0; leaf < leaves.length; leaf++)
+				computeLeaf(variables.get(leaf), leaf);
+			
+			return new Evaluation(null, time, leaves);
+		}
+		
+		private Evaluation(VariableStatuses stores, Instant time, Value[] leaves) {
+			this.stores = stores;
+			this.time = time;
+			this.leaves = leaves;
+		}
+		
+		private Value compute(ValueComputable argument, int leaf) {
+			if(argument instanceof Function)
+				return ((Function) argument).compute(this, leaf);
+			
+			if(argument instanceof Variable)
+				return computeLeaf(argument, leaf);
+			
+			return argument.compute(stores, time);
+		}
+		
+		private float computeFloat(ValueComputable argument, int leaf) {
+			if(argument instanceof FloatCompilable)
+				return ((FloatCompilable) argument).computeFloat(this, leaf);
+			
+			Value value = argument instanceof FloatValue ? (Value) argument : compute(argument, leaf);
+			if(!(value instanceof FloatValue))
+				throw NotCompilableValueException.INSTANCE;
+			
+			return ((FloatValue) value).floatValue();
+		}
+		
+		private boolean computeBoolean(ValueComputable argument, int leaf) {
+			if(argument instanceof BooleanCompilable)
+				return ((BooleanCompilable) argument).computeBoolean(this, leaf);
+			
+			Value value = argument instanceof BooleanValue ? (Value) argument : compute(argument, leaf);
+			if(!(value instanceof BooleanValue))
+				throw NotCompilableValueException.INSTANCE;
+			
+			return ((BooleanValue) value).booleanValue();
+		}
+		
+		private Value computeLeaf(ValueComputable variable, int leaf) {
+			if(leaves[leaf] == null)
+				leaves[leaf] = variable.compute(stores, time);
+			
+			return leaves[leaf];
+		}
+		
+		private List<Metric> getLastSourceMetrics() {
+			Set<Metric> lastSourceMetrics = null;
+			for (Value leaf : leaves) {
+				List<Metric> metrics = leaf.getLastSourceMetrics();
+				if(metrics == null)
+					continue;
+				
+				if(lastSourceMetrics == null)
+					lastSourceMetrics = new LinkedHashSet<>();
+				lastSourceMetrics.addAll(metrics);
+			}
+			
+			return lastSourceMetrics != null ? new ArrayList<>(lastSourceMetrics) : null;
+		}
+		
+	}
+	
+	private static class NotCompilableValueException extends RuntimeException {
+		
+		private static final long serialVersionUID = 5410207409592424585L;
+		
+		private static final NotCompilableValueException INSTANCE = new NotCompilableValueException();
+		
+		private NotCompilableValueException() {
+			super(null, null, false, false);
+		}
+		
+	}
+	
 }
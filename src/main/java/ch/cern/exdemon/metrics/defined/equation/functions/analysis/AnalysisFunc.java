@@ -3,6 +3,7 @@ package ch.cern.exdemon.metrics.defined.equation.functions.analysis;
 import java.text.ParseException;
 import java.time.Instant;
 import java.util.HashMap;
+import java.util.function.BiFunction;
 
 import ch.cern.exdemon.components.Component.Type;
 import ch.cern.exdemon.components.ComponentBuildResult;
@@ -20,6 +21,7 @@ import ch.cern.exdemon.metrics.value.Value;
 import ch.cern.exdemon.monitor.analysis.Analysis;
 import ch.cern.exdemon.monitor.analysis.BooleanAnalysis;
 import ch.cern.exdemon.monitor.analysis.NumericAnalysis;
+import ch.cern.exdemon.monitor.analysis.StatefulNumericAnalysis;
 import ch.cern.exdemon.monitor.analysis.StringAnalysis;
 import ch.cern.exdemon.monitor.analysis.results.AnalysisResult;
 import ch.cern.exdemon.monitor.analysis.types.NoneAnalysis;
@@ -65,12 +67,11 @@ public class AnalysisFunc extends Function {
 		
 		Value value = arguments[0].compute(stores, time);
 		
-		if(analysis instanceof HasStatus) {
-		    VariableStatus status = stores.get(propsVal.getName());
-		    
-		    if(status != null && status instanceof AnalysisStatus)		    
-		        ((HasStatus) analysis).load(((AnalysisStatus) status).status);
-        }
+		VariableStatus storedStatus = stores.get(propsVal.getName());
+		StatusValue analysisStatus = storedStatus != null && storedStatus instanceof AnalysisStatus ? ((AnalysisStatus) storedStatus).status : null;
+		
+		if(analysis instanceof HasStatus && analysisStatus != null)
+		    ((HasStatus) analysis).load(analysisStatus);
 		
 		if(value.getAsException().isPresent()) {
 			result = new ExceptionValue(value.getAsException().get());
@@ -78,8 +79,16 @@ public class AnalysisFunc extends Function {
 			setSourceFromArgumentmValues(result, new ExceptionValue("in arguments").toString(), value, propsVal);
 			
 			return result;
+		}else if(analysis instanceof StatefulNumericAnalysis) {
+			StatusValue state = ((StatefulNumericAnalysis<?>) analysis).getState(analysisStatus);
+			
+			result = computeNumericAnalysis((NumericAnalysis) analysis, propsVal, value, time, (timestamp, val) -> process(analysis, state, timestamp, val));
+			
+			AnalysisStatus newStatus = new AnalysisStatus();
+			newStatus.status = state;
+			stores.put(propsVal.getName(), newStatus);
 		}else if(analysis instanceof NumericAnalysis) {
-			result = computeNumericAnalysis((NumericAnalysis) analysis, propsVal, value, time);
+			result = computeNumericAnalysis((NumericAnalysis) analysis, propsVal, value, time, ((NumericAnalysis) analysis)::process);
 		}else if(analysis instanceof StringAnalysis) {
 			result = computeStringAnalysis((StringAnalysis) analysis, propsVal, value, time);
 		}else if(analysis instanceof BooleanAnalysis) {
@@ -143,7 +152,13 @@ public class AnalysisFunc extends Function {
 		return result;
 	}
 
-	private Value computeNumericAnalysis(NumericAnalysis analysis, Value props, Value value, Instant time) {
+	@SuppressWarnings("unchecked")
+	private <S extends StatusValue> AnalysisResult process(Analysis analysis, StatusValue state, Instant time, double value) {
+		return ((StatefulNumericAnalysis<S>) analysis).process((S) state, time, value);
+	}
+
+	private Value computeNumericAnalysis(NumericAnalysis analysis, Value props, Value value, Instant time, 
+			BiFunction<Instant, Double, AnalysisResult> processor) {
 		Value result;
 		
 		if(!value.getAsFloat().isPresent()) {
@@ -153,7 +168,7 @@ public class AnalysisFunc extends Function {
 		}else{
 			value.setSource("filter_float(" + value.getSource() + ")");
 			
-			AnalysisResult analysisResult = analysis.process(time, value.getAsFloat().get());
+			AnalysisResult analysisResult = processor.apply(time, value.getAsFloat().get().doubleValue());
 			
 			result = new StringValue(analysisResult.getStatus().toString());
 			setSourceFromArgumentmValues(result, result.toString(), value, props);
@@ -4,10 +4,11 @@ import java.text.ParseException;
 
 import ch.cern.exdemon.metrics.defined.equation.ValueComputable;
 import ch.cern.exdemon.metrics.defined.equation.functions.Function;
+import ch.cern.exdemon.metrics.defined.equation.functions.Function.BooleanCompilable;
 import ch.cern.exdemon.metrics.value.BooleanValue;
 import ch.cern.exdemon.metrics.value.Value;
 
-public class AndFunc extends Function {
+public class AndFunc extends Function implements BooleanCompilable {
 	
 	public static String REPRESENTATION = "&&";
 	
@@ -29,4 +30,12 @@ public class AndFunc extends Function {
 		return new BooleanValue(values[0].getAsBoolean().get() && values[1].getAsBoolean().get());
 	}
 
+	@Override
+	public boolean computeBoolean(Evaluation evaluation, int firstLeaf) {
+		boolean value1 = booleanArgument(0, evaluation, firstLeaf);
+		boolean value2 = booleanArgument(1, evaluation, firstLeaf);
+		
+		return value1 && value2;
+	}
+
 }
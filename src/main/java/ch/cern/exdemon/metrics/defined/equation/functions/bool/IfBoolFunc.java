@@ -4,11 +4,12 @@ import java.text.ParseException;
 
 import ch.cern.exdemon.metrics.defined.equation.ValueComputable;
 import ch.cern.exdemon.metrics.defined.equation.functions.Function;
+import ch.cern.exdemon.metrics.defined.equation.functions.Function.BooleanCompilable;
 import ch.cern.exdemon.metrics.defined.equation.functions.FunctionCaller;
 import ch.cern.exdemon.metrics.value.BooleanValue;
 import ch.cern.exdemon.metrics.value.Value;
 
-public class IfBoolFunc extends Function {
+public class IfBoolFunc extends Function implements BooleanCompilable {
 	
 	public static String REPRESENTATION = "if_bool";
 	
@@ -27,6 +28,15 @@ public class IfBoolFunc extends Function {
 	protected Value compute(Value... values) {
 		return values[0].getAsBoolean().get() ? values[1] : values[2];
 	}
+
+	@Override
+	public boolean computeBoolean(Evaluation evaluation, int firstLeaf) {
+		boolean condition = booleanArgument(0, evaluation, firstLeaf);
+		boolean value1 = booleanArgument(1, evaluation, firstLeaf);
+		boolean value2 = booleanArgument(2, evaluation, firstLeaf);
+		
+		return condition ? value1 : value2;
+	}
 	
 	public static class Caller implements FunctionCaller{
 		
@@ -4,10 +4,11 @@ import java.text.ParseException;
 
 import ch.cern.exdemon.metrics.defined.equation.ValueComputable;
 import ch.cern.exdemon.metrics.defined.equation.functions.Function;
+import ch.cern.exdemon.metrics.defined.equation.functions.Function.BooleanCompilable;
 import ch.cern.exdemon.metrics.value.BooleanValue;
 import ch.cern.exdemon.metrics.value.Value;
 
-public class NotFunc extends Function{
+public class NotFunc extends Function implements BooleanCompilable {
 	
 	public static String REPRESENTATION = "!";
 
@@ -28,5 +29,10 @@ public class NotFunc extends Function{
 	protected Value compute(Value... values) {
 		return new BooleanValue(!values[0].getAsBoolean().get());
 	}
+
+	@Override
+	public boolean computeBoolean(Evaluation evaluation, int firstLeaf) {
+		return !booleanArgument(0, evaluation, firstLeaf);
+	}
 	
 }
@@ -4,10 +4,11 @@ import java.text.ParseException;
 
 import ch.cern.exdemon.metrics.defined.equation.ValueComputable;
 import ch.cern.exdemon.metrics.defined.equation.functions.Function;
+import ch.cern.exdemon.metrics.defined.equation.functions.Function.FloatCompilable;
 import ch.cern.exdemon.metrics.value.FloatValue;
 import ch.cern.exdemon.metrics.value.Value;
 
-public abstract class BiNumericFunction extends Function{
+public abstract class BiNumericFunction extends Function implements FloatCompilable {
 
 	public static Class<? extends Value>[] argumentTypes = types(FloatValue.class, FloatValue.class);
 	
@@ -21,6 +22,11 @@ public abstract class BiNumericFunction extends Function{
 		return new FloatValue(compute(values[0].getAsFloat().get(), values[1].getAsFloat().get()));
 	}
 
+	@Override
+	public float computeFloat(Evaluation evaluation, int firstLeaf) {
+		return compute(floatArgument(0, evaluation, firstLeaf), floatArgument(1, evaluation, firstLeaf));
+	}
+
 	@Override
 	public Class<FloatValue> returnType() {
 		return FloatValue.class;
@@ -4,12 +4,13 @@ import java.text.ParseException;
 
 import ch.cern.exdemon.metrics.defined.equation.ValueComputable;
 import ch.cern.exdemon.metrics.defined.equation.functions.Function;
+import ch.cern.exdemon.metrics.defined.equation.functions.Function.FloatCompilable;
 import ch.cern.exdemon.metrics.defined.equation.functions.FunctionCaller;
 import ch.cern.exdemon.metrics.value.BooleanValue;
 import ch.cern.exdemon.metrics.value.FloatValue;
 import ch.cern.exdemon.metrics.value.Value;
 
-public class IfFloatFunc extends Function {
+public class IfFloatFunc extends Function implements FloatCompilable {
 
 	public static String REPRESENTATION = "if_float";
 
@@ -25,6 +26,15 @@ public class IfFloatFunc extends Function {
 		return values[0].getAsBoolean().get() ? values[1] : values[2];
 	}
 
+	@Override
+	public float computeFloat(Evaluation evaluation, int firstLeaf) {
+		boolean condition = booleanArgument(0, evaluation, firstLeaf);
+		float value1 = floatArgument(1, evaluation, firstLeaf);
+		float value2 = floatArgument(2, evaluation, firstLeaf);
+		
+		return condition ? value1 : value2;
+	}
+
 	@Override
 	public Class<? extends Value> returnType() {
 		return FloatValue.class;
@@ -4,11 +4,12 @@ import java.text.ParseException;
 
 import ch.cern.exdemon.metrics.defined.equation.ValueComputable;
 import ch.cern.exdemon.metrics.defined.equation.functions.Function;
+import ch.cern.exdemon.metrics.defined.equation.functions.Function.BooleanCompilable;
 import ch.cern.exdemon.metrics.value.BooleanValue;
 import ch.cern.exdemon.metrics.value.FloatValue;
 import ch.cern.exdemon.metrics.value.Value;
 
-public class LTFunc extends Function {
+public class LTFunc extends Function implements BooleanCompilable {
 	
 	public static String REPRESENTATION = ">";
 	
@@ -31,4 +32,9 @@ public class LTFunc extends Function {
 		return new BooleanValue(values[0].getAsFloat().get() > values[1].getAsFloat().get());
 	}
 
+	@Override
+	public boolean computeBoolean(Evaluation evaluation, int firstLeaf) {
+		return floatArgument(0, evaluation, firstLeaf) > floatArgument(1, evaluation, firstLeaf);
+	}
+
 }
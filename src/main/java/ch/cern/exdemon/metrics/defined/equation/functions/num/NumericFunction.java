@@ -4,10 +4,11 @@ import java.text.ParseException;
 
 import ch.cern.exdemon.metrics.defined.equation.ValueComputable;
 import ch.cern.exdemon.metrics.defined.equation.functions.Function;
+import ch.cern.exdemon.metrics.defined.equation.functions.Function.FloatCompilable;
 import ch.cern.exdemon.metrics.value.FloatValue;
 import ch.cern.exdemon.metrics.value.Value;
 
-public abstract class NumericFunction extends Function {
+public abstract class NumericFunction extends Function implements FloatCompilable {
 
 	public static Class<? extends Value>[] argumentTypes = types(FloatValue.class);
 
@@ -20,6 +21,11 @@ public abstract class NumericFunction extends Function {
 	protected Value compute(Value... values) {
 		return new FloatValue(compute(values[0].getAsFloat().get()));
 	}
+
+	@Override
+	public float computeFloat(Evaluation evaluation, int firstLeaf) {
+		return compute(floatArgument(0, evaluation, firstLeaf));
+	}
 	
 	@Override
 	public Class<FloatValue> returnType() {
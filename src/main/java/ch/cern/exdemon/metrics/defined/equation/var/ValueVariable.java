@@ -2,8 +2,10 @@ package ch.cern.exdemon.metrics.defined.equation.var;
 
 import java.time.Instant;
 import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
+import java.util.HashMap;
 import java.util.HashSet;
 import java.util.LinkedList;
 import java.util.List;
@@ -155,9 +157,15 @@ public class ValueVariable extends Variable {
     public Value compute(Optional<VariableStatus> statusOpt, Instant time) {
         Value aggValue = null;
         try {
-            Collection<DatedValue> values = getDatedValues(statusOpt, time, aggregation.inputType());
+            Optional<Value> stateValue = getAggregatedValue(statusOpt, time);
 
-            aggValue = aggregation.aggregateValues(values, time);
+            if(stateValue.isPresent()) {
+                aggValue = stateValue.get();
+            }else {
+                Collection<DatedValue> values = getDatedValues(statusOpt, time, aggregation.inputType());
+    
+                aggValue = aggregation.aggregateValues(values, time);
+            }
 
             if (aggValue.getAsAggregated().isPresent())
                 aggValue = aggValue.getAsAggregated().get();
@@ -167,12 +175,15 @@ public class ValueVariable extends Variable {
             aggValue = new ExceptionValue(e.getMessage());
         }
 
-        String source = aggValue.toString();
+        Value sourceValue = aggValue;
         if (aggValue.getAsException().isPresent())
             aggValue = new ExceptionValue("Variable " + name + ": " + aggValue.getAsException().get());
 
-        String aggName = aggregation.getClass().getAnnotation(RegisterComponentType.class).value();
-        aggValue.setSource(aggName.toLowerCase() + "(var(" + name + "))=" + source);
+        aggValue.setSource(() -> {
+            String aggName = aggregation.getClass().getAnnotation(RegisterComponentType.class).value();
+
+            return aggName.toLowerCase() + "(var(" + name + "))=" + sourceValue.toString();
+        });
 
         return aggValue;
     }
@@ -200,6 +211,33 @@ public class ValueVariable extends Variable {
         return null;
     }
 
+    // Empty if the aggregation needs to be computed from all values
+    private Optional<Value> getAggregatedValue(Optional<VariableStatus> statusOpt, Instant time) throws ComputationException {
+        if(ignore != null || !statusOpt.isPresent() || !(statusOpt.get() instanceof Status_))
+            return Optional.empty();
+        
+        Status_ status = (Status_) statusOpt.get();
+
+        if (isThereSelectedAttributes() && status.aggregationValues != null) {
+            AggregationValues aggValues = status.aggregationValues;
+
+            if (expire != null)
+                aggValues.purge(expire.adjustMinus(time));
+
+            return aggValues.getAggregatedValue(aggregation);
+        } else if (!isThereSelectedAttributes() && status.valueHistory != null 
+                    && status.valueHistory.getAggregation() != null && aggregation.equals(status.valueHistory.getAggregation())) {
+            ValueHistory history = status.valueHistory;
+
+            if (expire != null)
+                history.purge(expire.adjustMinus(time));
+
+            return history.getAggregatedValue();
+        }
+        
+        return Optional.empty();
+    }
+
     private Collection<DatedValue> getDatedValues(Optional<VariableStatus> statusOpt, Instant time, Class<? extends Value> inputType)
             throws ComputationException {
         Collection<DatedValue> values = new LinkedList<>();
@@ -259,9 +297,7 @@ public class ValueVariable extends Variable {
                 hash = metric.getAttributes().hashCode();
 
             if (aggregateSelectAtt != null)
-                hash = metric.getAttributes().entrySet().stream()
-                                                .filter(e -> aggregateSelectAtt.contains(e.getKey()))
-                                                .collect(Collectors.toList()).hashCode();
+                hash = getSelectHash(metric.getAttributes());
 
             if (aggregateSelectALL || (hash != 1 && hash != 0))
                 aggValues.add(hash, metric.getValue(), metric.getTimestamp(), metric, originalMetric);
@@ -305,6 +341,17 @@ public class ValueVariable extends Variable {
                 .collect(Collectors.toMap(Map.Entry::getKey, Map.Entry::getValue));
     }
 
+    // Entries are hashed in the order of a hash map, like when attributes were kept in hash maps,
+    // so the hash only depends on the selected attributes and values stored by previous versions keep matching
+    private int getSelectHash(Map<String, String> attributes) {
+        Map<String, String> selected = new HashMap<>();
+        for (Map.Entry<String, String> entry : attributes.entrySet())
+            if (aggregateSelectAtt.contains(entry.getKey()))
+                selected.put(entry.getKey(), entry.getValue());
+
+        return new ArrayList<>(selected.entrySet()).hashCode();
+    }
+
     @Override
     public Class<? extends Value> returnType() {
         return aggregation.returnType();
@@ -27,29 +27,49 @@ public abstract class Aggregation extends Component {
     public Value aggregateValues(Collection<DatedValue> values, Instant time) {
         values = filterByTypes(values);
         
-        Value result = aggregate(values, time);
-        
+        return toAggregatedValue(aggregate(values, time));
+    }
+    
+    public Value aggregateState(AggregationState state) {
+        return toAggregatedValue(state.getResult());
+    }
+    
+    private Value toAggregatedValue(Value result) {
         if(result.getAsException().isPresent())
             return result;
         else
             return new AggregatedValue(result);
     }
     
+    // Aggregations that can be updated value by value return a new state, null otherwise
+    public AggregationState newState() {
+        return null;
+    }
+    
     private Collection<DatedValue> filterByTypes(Collection<DatedValue> values) {
         Class<? extends Value> inputType = inputType();
-        Class<? extends Value> returnType = returnType();
+        
+        if(inputType.equals(FloatValue.class) || inputType.equals(BooleanValue.class) || inputType.equals(StringValue.class))
+            values = values.stream().filter(v -> accepts(v.getValue())).collect(Collectors.toList());
+        
+        return values;
+    }
+    
+    public boolean accepts(Value value) {
+        Class<? extends Value> inputType = inputType();
         
         if(inputType.equals(FloatValue.class))
-            values = values.stream().filter(v -> v.getValue().getAsFloat().isPresent() 
-                                             || (v.getValue().getAsAggregated().isPresent() && v.getValue().getAsAggregated().get().getClass().equals(returnType))).collect(Collectors.toList());
+            return value.getAsFloat().isPresent() || isAggregatedOfReturnType(value);
         else if(inputType.equals(BooleanValue.class))
-            values = values.stream().filter(v -> v.getValue().getAsBoolean().isPresent() 
-                                             || (v.getValue().getAsAggregated().isPresent() && v.getValue().getAsAggregated().get().getClass().equals(returnType))).collect(Collectors.toList());
+            return value.getAsBoolean().isPresent() || isAggregatedOfReturnType(value);
         else if(inputType.equals(StringValue.class))
-            values = values.stream().filter(v -> v.getValue().getAsString().isPresent() 
-                                             || (v.getValue().getAsAggregated().isPresent() && v.getValue().getAsAggregated().get().getClass().equals(returnType))).collect(Collectors.toList());
+            return value.getAsString().isPresent() || isAggregatedOfReturnType(value);
         
-        return values;
+        return true;
+    }
+
+    private boolean isAggregatedOfReturnType(Value value) {
+        return value.getAsAggregated().isPresent() && value.getAsAggregated().get().getClass().equals(returnType());
     }
 
     protected abstract Value aggregate(Collection<DatedValue> values, Instant time);
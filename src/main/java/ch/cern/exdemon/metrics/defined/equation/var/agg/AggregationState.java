@@ -0,0 +1,17 @@
+package ch.cern.exdemon.metrics.defined.equation.var.agg;
+
+import ch.cern.exdemon.metrics.value.Value;
+
+public abstract class AggregationState {
+
+    public abstract void add(Value value);
+
+    public abstract void remove(Value value);
+
+    public abstract Value getResult();
+
+    protected static float getAsFloat(Value value) {
+        return value.getAsAggregated().isPresent() ? value.getAsAggregated().get().getAsFloat().get() : value.getAsFloat().get();
+    }
+
+}
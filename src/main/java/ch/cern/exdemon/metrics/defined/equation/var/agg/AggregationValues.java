@@ -2,8 +2,10 @@ package ch.cern.exdemon.metrics.defined.equation.var.agg;
 
 import java.time.Instant;
 import java.util.Collection;
+import java.util.Iterator;
 import java.util.LinkedHashMap;
 import java.util.Map;
+import java.util.Optional;
 
 import ch.cern.exdemon.metrics.DatedValue;
 import ch.cern.exdemon.metrics.Metric;
@@ -18,7 +20,7 @@ import lombok.Setter;
 import lombok.ToString;
 
 @ClassNameAlias("aggregated-values")
-@ToString
+@ToString(exclude={"stateAggregation", "aggregationState"})
 @EqualsAndHashCode(callSuper=false)
 public class AggregationValues extends StatusValue {
 
@@ -34,6 +36,10 @@ public class AggregationValues extends StatusValue {
     @Getter @Setter
     private int max_lastAggregatedMetrics_size = 0;
     
+    // Kept up to date with the values if the aggregation supports it, built again when needed
+    private transient Aggregation stateAggregation;
+    private transient AggregationState aggregationState;
+    
     public AggregationValues(int max_aggregation_size, int max_lastAggregatedMetrics_size) {
         this.max_aggregation_size = max_aggregation_size;
         this.max_lastAggregatedMetrics_size = max_lastAggregatedMetrics_size;
@@ -75,12 +81,20 @@ public class AggregationValues extends StatusValue {
         if (values.size() >= max_aggregation_size + 1) {
         	int key = values.keySet().iterator().next();
         	
-            values.remove(key);
+            removeFromState(values.remove(key));
             if(lastAggregatedMetrics != null)
                 lastAggregatedMetrics.remove(key);
         }
 
-        values.put(idHash, new DatedValue(instant, value));
+        removeFromState(values.put(idHash, new DatedValue(instant, value)));
+        
+        if(aggregationState != null && stateAggregation.accepts(value))
+            aggregationState.add(value);
+    }
+    
+    private void removeFromState(DatedValue datedValue) {
+        if(aggregationState != null && datedValue != null && stateAggregation.accepts(datedValue.getValue()))
+            aggregationState.remove(datedValue.getValue());
     }
 
     public Collection<DatedValue> getDatedValues() throws ComputationException {
@@ -89,9 +103,36 @@ public class AggregationValues extends StatusValue {
         
         return values.values();        
     }
+    
+    // Empty if the aggregation cannot be updated value by value
+    public Optional<Value> getAggregatedValue(Aggregation aggregation) throws ComputationException {
+        if(values.size() > max_aggregation_size)
+            throw new ComputationException("Maximum aggregation size reached.");
+        
+        if(aggregationState == null || !aggregation.equals(stateAggregation)) {
+            stateAggregation = aggregation;
+            aggregationState = aggregation.newState();
+            if(aggregationState == null)
+                return Optional.empty();
+            
+            for (DatedValue datedValue : values.values())
+                if(aggregation.accepts(datedValue.getValue()))
+                    aggregationState.add(datedValue.getValue());
+        }
+        
+        return Optional.of(aggregation.aggregateState(aggregationState));
+    }
 
     public void purge(Instant oldestTime) {
-        values.values().removeIf(dv -> dv.getTime().isBefore(oldestTime));
+        Iterator<DatedValue> datedValues = values.values().iterator();
+        while(datedValues.hasNext()) {
+            DatedValue datedValue = datedValues.next();
+            
+            if(datedValue.getTime().isBefore(oldestTime)) {
+                datedValues.remove();
+                removeFromState(datedValue);
+            }
+        }
         
         if(lastAggregatedMetrics != null)
             lastAggregatedMetrics.values().removeIf(m -> m.getTimestamp().isBefore(oldestTime));
@@ -100,6 +141,7 @@ public class AggregationValues extends StatusValue {
     public void reset() {
         values = new LinkedHashMap<>();
         lastAggregatedMetrics = null;
+        aggregationState = null;
     }
 
 }
@@ -36,6 +36,11 @@ public class AvgAggregation extends Aggregation {
                                         .average().getAsDouble());
     }
     
+    @Override
+    public AggregationState newState() {
+        return new SumState(true);
+    }
+    
     @Override
     public Class<? extends Value> returnType() {
         return FloatValue.class;
@@ -27,9 +27,42 @@ public class CountAgregation extends Aggregation {
                                         .sum());
     }
 
+    @Override
+    public AggregationState newState() {
+        return new CountState();
+    }
+
     @Override
     public Class<? extends Value> returnType() {
         return FloatValue.class;
     }
 
+    static class CountState extends AggregationState {
+
+        private double count = 0;
+        private int size = 0;
+
+        @Override
+        public void add(Value value) {
+            count += getCount(value);
+            size++;
+        }
+
+        @Override
+        public void remove(Value value) {
+            size--;
+            count = size > 0 ? count - getCount(value) : 0;
+        }
+
+        private float getCount(Value value) {
+            return value.getAsAggregated().isPresent() ? value.getAsAggregated().get().getAsFloat().get() : 1;
+        }
+
+        @Override
+        public Value getResult() {
+            return new FloatValue(count);
+        }
+
+    }
+
 }
@@ -27,6 +27,11 @@ public class CountFloatsAgregation extends Aggregation {
                                         .sum());
     }
 
+    @Override
+    public AggregationState newState() {
+        return new CountAgregation.CountState();
+    }
+
     @Override
     public Class<? extends Value> returnType() {
         return FloatValue.class;
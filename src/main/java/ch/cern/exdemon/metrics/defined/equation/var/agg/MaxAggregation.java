@@ -33,6 +33,11 @@ public class MaxAggregation extends Aggregation {
                                                                     .max().getAsDouble());
     }
     
+    @Override
+    public AggregationState newState() {
+        return new SortedValuesState(true);
+    }
+    
     @Override
     public Class<? extends Value> returnType() {
         return FloatValue.class;
@@ -33,6 +33,11 @@ public class MinAggregation extends Aggregation {
                                                                     .min().getAsDouble());
     }
     
+    @Override
+    public AggregationState newState() {
+        return new SortedValuesState(false);
+    }
+    
     @Override
     public Class<? extends Value> returnType() {
         return FloatValue.class;
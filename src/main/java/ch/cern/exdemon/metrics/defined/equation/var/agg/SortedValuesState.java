@@ -0,0 +1,52 @@
+package ch.cern.exdemon.metrics.defined.equation.var.agg;
+
+import java.util.TreeMap;
+
+import ch.cern.exdemon.metrics.value.ExceptionValue;
+import ch.cern.exdemon.metrics.value.FloatValue;
+import ch.cern.exdemon.metrics.value.Value;
+
+class SortedValuesState extends AggregationState {
+
+    private final boolean max;
+
+    // Values can be removed in any order, so all of them are kept with their number of occurrences
+    private TreeMap<Float, Integer> counts = new TreeMap<>();
+
+    private int nanCount = 0;
+
+    SortedValuesState(boolean max) {
+        this.max = max;
+    }
+
+    @Override
+    public void add(Value value) {
+        float num = getAsFloat(value);
+
+        if(Float.isNaN(num))
+            nanCount++;
+        else
+            counts.merge(num, 1, Integer::sum);
+    }
+
+    @Override
+    public void remove(Value value) {
+        float num = getAsFloat(value);
+
+        if(Float.isNaN(num))
+            nanCount--;
+        else
+            counts.computeIfPresent(num, (key, count) -> count > 1 ? count - 1 : null);
+    }
+
+    @Override
+    public Value getResult() {
+        if(nanCount > 0)
+            return new FloatValue(Float.NaN);
+        if(counts.isEmpty())
+            return new ExceptionValue("no values");
+
+        return new FloatValue(max ? counts.lastKey() : counts.firstKey());
+    }
+
+}
@@ -35,6 +35,11 @@ public class SumAggregation extends Aggregation {
                                         .sum());
     }
     
+    @Override
+    public AggregationState newState() {
+        return new SumState(false);
+    }
+    
     @Override
     public Class<? extends Value> returnType() {
         return FloatValue.class;
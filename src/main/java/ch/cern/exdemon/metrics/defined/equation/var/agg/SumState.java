@@ -0,0 +1,91 @@
+package ch.cern.exdemon.metrics.defined.equation.var.agg;
+
+import ch.cern.exdemon.metrics.value.ExceptionValue;
+import ch.cern.exdemon.metrics.value.FloatValue;
+import ch.cern.exdemon.metrics.value.Value;
+
+// Finite values are summed with Neumaier compensation, so the sum does not drift when values are removed.
+// Non finite values are only counted, so the result recovers once they leave the window.
+class SumState extends AggregationState {
+
+    private final boolean average;
+
+    private double sum = 0;
+
+    private double compensation = 0;
+
+    private int count = 0;
+
+    private int finiteCount = 0;
+
+    private int nanCount = 0;
+
+    private int positiveInfinityCount = 0;
+
+    private int negativeInfinityCount = 0;
+
+    SumState(boolean average) {
+        this.average = average;
+    }
+
+    @Override
+    public void add(Value value) {
+        count++;
+        update(getAsFloat(value), 1);
+    }
+
+    @Override
+    public void remove(Value value) {
+        count--;
+        update(getAsFloat(value), -1);
+    }
+
+    private void update(float num, int sign) {
+        if(Float.isNaN(num)) {
+            nanCount += sign;
+        }else if(num == Float.POSITIVE_INFINITY) {
+            positiveInfinityCount += sign;
+        }else if(num == Float.NEGATIVE_INFINITY) {
+            negativeInfinityCount += sign;
+        }else {
+            finiteCount += sign;
+
+            if(finiteCount <= 0) {
+                sum = 0;
+                compensation = 0;
+            }else {
+                sum(sign * (double) num);
+            }
+        }
+    }
+
+    private void sum(double value) {
+        double newSum = sum + value;
+
+        if(Math.abs(sum) >= Math.abs(value))
+            compensation += (sum - newSum) + value;
+        else
+            compensation += (value - newSum) + sum;
+
+        sum = newSum;
+    }
+
+    @Override
+    public Value getResult() {
+        if(count == 0)
+            return new ExceptionValue("no values");
+
+        double total;
+        if(nanCount > 0 || (positiveInfinityCount > 0 && negativeInfinityCount > 0))
+            total = Double.NaN;
+        else if(positiveInfinityCount > 0)
+            total = Double.POSITIVE_INFINITY;
+        else if(negativeInfinityCount > 0)
+            total = Double.NEGATIVE_INFINITY;
+        else
+            total = sum + compensation;
+
+        return new FloatValue(average ? total / count : total);
+    }
+
+}
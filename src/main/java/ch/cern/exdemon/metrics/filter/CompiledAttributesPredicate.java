@@ -0,0 +1,226 @@
+package ch.cern.exdemon.metrics.filter;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Predicate;
+
+import ch.cern.util.function.AndPredicate;
+import ch.cern.util.function.OrPredicate;
+
+// Evaluator of a parsed attributes predicate.
+// Nested conjunctions and disjunctions are flattened, and their operands are periodically reordered
+// by observed pass ratio and cost, so operands that most likely decide the result are evaluated first.
+// Evaluators can be shared by several threads: statistics are only recorded for a sample of the evaluations,
+// so threads rarely write the shared counters, and a single thread reorders at a time.
+class CompiledAttributesPredicate implements Predicate<Map<String, String>> {
+
+    // Evaluations of a node after which its operands are reordered, on average
+    static final int REORDER_INTERVAL = 1024;
+
+    // One of this number of evaluations, on average, records statistics
+    static final int SAMPLING_INTERVAL = 16;
+
+    private final Predicate<Map<String, String>> root;
+
+    private CompiledAttributesPredicate(Predicate<Map<String, String>> root) {
+        this.root = root;
+    }
+
+    static CompiledAttributesPredicate compile(Predicate<Map<String, String>> predicate) {
+        return new CompiledAttributesPredicate(toNode(predicate));
+    }
+
+    @Override
+    public boolean test(Map<String, String> attributes) {
+        return root.test(attributes);
+    }
+
+    private static Predicate<Map<String, String>> toNode(Predicate<Map<String, String>> predicate) {
+        if(predicate instanceof AndPredicate) {
+            List<Predicate<Map<String, String>>> operands = new ArrayList<>();
+            flatten(predicate, AndPredicate.class, operands);
+
+            return new Junction(true, operands);
+        }else if(predicate instanceof OrPredicate) {
+            List<Predicate<Map<String, String>>> operands = new ArrayList<>();
+            flatten(predicate, OrPredicate.class, operands);
+
+            return new Junction(false, operands);
+        }
+
+        return predicate;
+    }
+
+    @SuppressWarnings("unchecked")
+    private static void flatten(Predicate<Map<String, String>> predicate, Class<?> type, List<Predicate<Map<String, String>>> operands) {
+        if(predicate instanceof AndPredicate && type.equals(AndPredicate.class)) {
+            AndPredicate<Map<String, String>> andPredicate = (AndPredicate<Map<String, String>>) predicate;
+
+            flatten(andPredicate.getPred1(), type, operands);
+            flatten(andPredicate.getPred2(), type, operands);
+        }else if(predicate instanceof OrPredicate && type.equals(OrPredicate.class)) {
+            OrPredicate<Map<String, String>> orPredicate = (OrPredicate<Map<String, String>>) predicate;
+
+            flatten(orPredicate.getPred1(), type, operands);
+            flatten(orPredicate.getPred2(), type, operands);
+        }else {
+            operands.add(toNode(predicate));
+        }
+    }
+
+    private static int getCost(Predicate<Map<String, String>> predicate) {
+        if(predicate instanceof EqualMetricPredicate)
+            return ((EqualMetricPredicate) predicate).getCost();
+        if(predicate instanceof NotEqualMetricPredicate)
+            return ((NotEqualMetricPredicate) predicate).getCost();
+        if(predicate instanceof Junction)
+            return ((Junction) predicate).cost;
+
+        return 1;
+    }
+
+    private static class Operand {
+
+        private final Predicate<Map<String, String>> predicate;
+
+        private final int cost;
+
+        private final AtomicLong evaluations = new AtomicLong();
+
+        private final AtomicLong passes = new AtomicLong();
+
+        private Operand(Predicate<Map<String, String>> predicate) {
+            this.predicate = predicate;
+            this.cost = getCost(predicate);
+        }
+
+        // Expected cost for getting a result that decides the junction, lower goes first
+        private double rank(boolean conjunction) {
+            double passRatio = (passes.get() + 1d) / (evaluations.get() + 2d);
+
+            return cost / (conjunction ? 1 - passRatio : passRatio);
+        }
+
+    }
+
+    static class Junction implements Predicate<Map<String, String>> {
+
+        private final boolean conjunction;
+
+        private final int cost;
+
+        private volatile Operand[] operands;
+
+        private final AtomicInteger evaluations = new AtomicInteger();
+
+        private final AtomicBoolean reordering = new AtomicBoolean();
+
+        private Junction(boolean conjunction, List<Predicate<Map<String, String>>> predicates) {
+            this.conjunction = conjunction;
+
+            operands = predicates.stream().map(Operand::new).toArray(Operand[]::new);
+            cost = Arrays.stream(operands).mapToInt(operand -> operand.cost).sum();
+        }
+
+        @Override
+        public boolean test(Map<String, String> attributes) {
+            Operand[] operands = this.operands;
+
+            if(ThreadLocalRandom.current().nextInt(SAMPLING_INTERVAL) == 0)
+                return testAndRecord(attributes, operands);
+
+            for (Operand operand : operands) {
+                boolean pass = operand.predicate.test(attributes);
+
+                if(pass != conjunction)
+                    return pass;
+            }
+
+            return conjunction;
+        }
+
+        private boolean testAndRecord(Map<String, String> attributes, Operand[] operands) {
+            if(evaluations.incrementAndGet() >= REORDER_INTERVAL / SAMPLING_INTERVAL && reordering.compareAndSet(false, true)) {
+                try {
+                    reorder(operands);
+                }finally {
+                    reordering.set(false);
+                }
+            }
+
+            for (Operand operand : operands) {
+                boolean pass = operand.predicate.test(attributes);
+
+                operand.evaluations.incrementAndGet();
+                if(pass)
+                    operand.passes.incrementAndGet();
+
+                if(pass != conjunction)
+                    return pass;
+            }
+
+            return conjunction;
+        }
+
+        // Counters are halved so ordering follows changes in the incoming metrics.
+        // Ranks are taken before sorting, since other threads keep updating the counters.
+        private void reorder(Operand[] current) {
+            evaluations.set(0);
+
+            double[] ranks = new double[current.length];
+            Integer[] order = new Integer[current.length];
+            for (int i = 0; i < current.length; i++) {
+                ranks[i] = current[i].rank(conjunction);
+                order[i] = i;
+            }
+            Arrays.sort(order, (i, j) -> Double.compare(ranks[i], ranks[j]));
+
+            Operand[] reordered = new Operand[current.length];
+            for (int i = 0; i < order.length; i++) {
+                reordered[i] = current[order[i]];
+
+                reordered[i].evaluations.updateAndGet(value -> value / 2);
+                reordered[i].passes.updateAndGet(value -> value / 2);
+            }
+
+            operands = reordered;
+        }
+
+        List<Predicate<Map<String, String>>> getOperands() {
+            Operand[] operands = this.operands;
+
+            List<Predicate<Map<String, String>>> predicates = new ArrayList<>(operands.length);
+            for (Operand operand : operands)
+                predicates.add(operand.predicate);
+
+            return predicates;
+        }
+
+        @Override
+        public String toString() {
+            Operand[] operands = this.operands;
+
+            StringBuilder sb = new StringBuilder("(");
+            for (int i = 0; i < operands.length; i++) {
+                if(i > 0)
+                    sb.append(conjunction ? " & " : " | ");
+                sb.append(operands[i].predicate);
+            }
+
+            return sb.append(")").toString();
+        }
+
+    }
+
+    @Override
+    public String toString() {
+        return root.toString();
+    }
+
+}
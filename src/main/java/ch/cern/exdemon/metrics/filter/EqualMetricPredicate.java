@@ -3,10 +3,12 @@ package ch.cern.exdemon.metrics.filter;
 import java.io.Serializable;
 import java.text.ParseException;
 import java.util.Map;
+import java.util.Optional;
 import java.util.function.Predicate;
 import java.util.regex.Pattern;
 import java.util.regex.PatternSyntaxException;
 
+import ch.cern.exdemon.metrics.Attributes;
 import lombok.Getter;
 
 public class EqualMetricPredicate implements Predicate<Map<String, String>>, Serializable {
@@ -18,23 +20,34 @@ public class EqualMetricPredicate implements Predicate<Map<String, String>>, Ser
 	
 	@Getter
 	private Pattern value;
+	
+	private ValueMatcher matcher;
 
 	public EqualMetricPredicate(String key, String value) throws ParseException {
-		this.key = key;
+		this.key = Attributes.intern(key);
 		
 		try {
 			this.value = Pattern.compile(value);
 		}catch(PatternSyntaxException e) {
 			throw new ParseException(e.getDescription(), 0);
 		}
+		
+		matcher = new ValueMatcher(this.value);
 	}
 
 	@Override
 	public boolean test(Map<String, String> attributes) {
-		Predicate<Map<String, String>> exist = metric -> attributes.containsKey(key);
-		Predicate<Map<String, String>> match = metric -> value.matcher(attributes.get(key)).matches();
+		String attributeValue = attributes.get(key);
 		
-		return exist.and(match).test(attributes);
+		return attributeValue != null && matcher.matches(attributeValue);
+	}
+	
+	int getCost() {
+	    return matcher.getCost();
+	}
+	
+	public Optional<String> getLiteralValue() {
+	    return matcher.getLiteral();
 	}
 	
 	@Override
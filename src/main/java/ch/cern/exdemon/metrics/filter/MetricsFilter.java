@@ -3,7 +3,7 @@ package ch.cern.exdemon.metrics.filter;
 import java.io.Serializable;
 import java.text.ParseException;
 import java.time.Duration;
-import java.time.Instant;
+import java.util.HashMap;
 import java.util.HashSet;
 import java.util.LinkedList;
 import java.util.List;
@@ -19,13 +19,14 @@ import ch.cern.exdemon.components.ConfigurationResult;
 import ch.cern.exdemon.metrics.Metric;
 import ch.cern.properties.ConfigurationException;
 import ch.cern.properties.Properties;
+import ch.cern.spark.BatchClock;
 import ch.cern.util.function.AndPredicate;
 import ch.cern.util.function.OrPredicate;
 import lombok.Getter;
 import lombok.Setter;
 import lombok.ToString;
 
-@ToString
+@ToString(exclude = "compiledAttributesPredicate")
 public class MetricsFilter implements Predicate<Metric>, Serializable {
 
     private static final long serialVersionUID = 9170996730102744051L;
@@ -36,6 +37,9 @@ public class MetricsFilter implements Predicate<Metric>, Serializable {
 
     private Predicate<Map<String, String>> attributesPredicate = null;
 
+    // Built when first used, operands are ordered by what is observed in this JVM
+    private transient CompiledAttributesPredicate compiledAttributesPredicate = null;
+
     public MetricsFilter() {
     }
     
@@ -102,10 +106,10 @@ public class MetricsFilter implements Predicate<Metric>, Serializable {
 
     @Override
     public boolean test(Metric metric) {
-        if (attributesPredicate != null && !attributesPredicate.test(metric.getAttributes()))
+        if (!test(metric.getAttributes()))
             return false;
 
-        if (timestampExpire != null && !metric.getTimestamp().isAfter(Instant.now().minus(timestampExpire)))
+        if (timestampExpire != null && !metric.getTimestamp().isAfter(BatchClock.now().minus(timestampExpire)))
             return false;
 
         return true;
@@ -123,6 +127,8 @@ public class MetricsFilter implements Predicate<Metric>, Serializable {
             attributesPredicate = newPredicate;
         else
             attributesPredicate = new AndPredicate<Map<String, String>>(attributesPredicate, newPredicate);
+
+        compiledAttributesPredicate = null;
     }
 
     private static List<String> getValues(String valueString) {
@@ -146,7 +152,11 @@ public class MetricsFilter implements Predicate<Metric>, Serializable {
         if (attributesPredicate == null)
             return true;
 
-        return attributesPredicate.test(attributes);
+        CompiledAttributesPredicate compiled = compiledAttributesPredicate;
+        if (compiled == null)
+            compiledAttributesPredicate = compiled = CompiledAttributesPredicate.compile(attributesPredicate);
+
+        return compiled.test(attributes);
     }
     
     public Set<String> getAttributesValuesWithEqualsForKey(String key){
@@ -182,6 +192,55 @@ public class MetricsFilter implements Predicate<Metric>, Serializable {
         return values;
     }
     
+    // Attributes that must have one of the returned values for the filter to pass
+    public Map<String, Set<String>> getRequiredAttributesValues(){
+        if(attributesPredicate == null)
+            return new HashMap<>();
+        
+        return getRequiredAttributesValues(attributesPredicate);
+    }
+    
+    private static Map<String, Set<String>> getRequiredAttributesValues(Predicate<Map<String, String>> predicate){
+        Map<String, Set<String>> required = new HashMap<>();
+        
+        if(predicate instanceof AndPredicate) {
+            AndPredicate<Map<String, String>> andPredicate = (AndPredicate<Map<String, String>>) predicate;
+            
+            required.putAll(getRequiredAttributesValues(andPredicate.getPred1()));
+            
+            getRequiredAttributesValues(andPredicate.getPred2()).forEach((key, values) -> {
+                if(required.containsKey(key))
+                    required.get(key).retainAll(values);
+                else
+                    required.put(key, values);
+            });
+        }else if(predicate instanceof OrPredicate) {
+            OrPredicate<Map<String, String>> orPredicate = (OrPredicate<Map<String, String>>) predicate;
+            
+            Map<String, Set<String>> required1 = getRequiredAttributesValues(orPredicate.getPred1());
+            Map<String, Set<String>> required2 = getRequiredAttributesValues(orPredicate.getPred2());
+            
+            required1.forEach((key, values) -> {
+                if(required2.containsKey(key)) {
+                    values.addAll(required2.get(key));
+                    
+                    required.put(key, values);
+                }
+            });
+        }else if(predicate instanceof EqualMetricPredicate) {
+            EqualMetricPredicate equalPredicate = (EqualMetricPredicate) predicate;
+            
+            equalPredicate.getLiteralValue().ifPresent(value -> {
+                Set<String> values = new HashSet<>();
+                values.add(value);
+                
+                required.put(equalPredicate.getKey(), values);
+            });
+        }
+        
+        return required;
+    }
+    
     public Set<String> getFilteredAttributes(){
         HashSet<String> values = new HashSet<>();
         
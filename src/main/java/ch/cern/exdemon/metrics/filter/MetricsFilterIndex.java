@@ -0,0 +1,124 @@
+package ch.cern.exdemon.metrics.filter;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Function;
+
+import lombok.ToString;
+
+@ToString
+public class MetricsFilterIndex<T> {
+
+    private final List<T> elements;
+
+    private final Map<String, Map<String, int[]>> indexed;
+
+    private final int[] notIndexed;
+
+    public MetricsFilterIndex(Collection<T> elements, Function<T, MetricsFilter> filterFunction) {
+        this.elements = Collections.unmodifiableList(new ArrayList<>(elements));
+
+        List<Map<String, Set<String>>> requiredByElement = new ArrayList<>(elements.size());
+        Map<String, Integer> elementsPerKey = new HashMap<>();
+
+        for (T element : this.elements) {
+            MetricsFilter filter = filterFunction.apply(element);
+
+            Map<String, Set<String>> required = filter != null ? filter.getRequiredAttributesValues() : Collections.emptyMap();
+            requiredByElement.add(required);
+
+            required.keySet().forEach(key -> elementsPerKey.merge(key, 1, Integer::sum));
+        }
+
+        Map<String, Map<String, List<Integer>>> indexedLists = new HashMap<>();
+        List<Integer> notIndexedList = new ArrayList<>();
+
+        for (int position = 0; position < this.elements.size(); position++) {
+            Map<String, Set<String>> required = requiredByElement.get(position);
+
+            // Index by the key shared with most elements, so less keys are looked up per metric
+            String indexKey = null;
+            for (String key : required.keySet())
+                if(indexKey == null
+                        || elementsPerKey.get(key) > elementsPerKey.get(indexKey)
+                        || (elementsPerKey.get(key).equals(elementsPerKey.get(indexKey)) && key.compareTo(indexKey) < 0))
+                    indexKey = key;
+
+            if(indexKey == null) {
+                notIndexedList.add(position);
+                continue;
+            }
+
+            Map<String, List<Integer>> positionsByValue = indexedLists.computeIfAbsent(indexKey, k -> new HashMap<>());
+            for (String value : required.get(indexKey))
+                positionsByValue.computeIfAbsent(value, v -> new ArrayList<>()).add(position);
+        }
+
+        indexed = new HashMap<>();
+        indexedLists.forEach((key, positionsByValue) -> {
+            Map<String, int[]> positionsArrayByValue = new HashMap<>();
+            positionsByValue.forEach((value, positions) -> positionsArrayByValue.put(value, toArray(positions)));
+
+            indexed.put(key, positionsArrayByValue);
+        });
+        notIndexed = toArray(notIndexedList);
+    }
+
+    // Candidates are returned in the same order as the elements the index was built with
+    public List<T> getCandidates(Map<String, String> attributes) {
+        if(indexed.isEmpty())
+            return elements;
+
+        int[] positions = notIndexed;
+
+        for (Map.Entry<String, Map<String, int[]>> index : indexed.entrySet()) {
+            String value = attributes.get(index.getKey());
+            if(value == null)
+                continue;
+
+            int[] indexedPositions = index.getValue().get(value);
+            if(indexedPositions == null)
+                continue;
+
+            if(positions.length == 0)
+                positions = indexedPositions;
+            else
+                positions = merge(positions, indexedPositions);
+        }
+
+        List<T> candidates = new ArrayList<>(positions.length);
+        for (int position : positions)
+            candidates.add(elements.get(position));
+
+        return candidates;
+    }
+
+    private static int[] merge(int[] positions1, int[] positions2) {
+        int[] positions = new int[positions1.length + positions2.length];
+
+        int i = 0, j = 0, k = 0;
+        while(i < positions1.length && j < positions2.length)
+            positions[k++] = positions1[i] < positions2[j] ? positions1[i++] : positions2[j++];
+        while(i < positions1.length)
+            positions[k++] = positions1[i++];
+        while(j < positions2.length)
+            positions[k++] = positions2[j++];
+
+        return positions;
+    }
+
+    private static int[] toArray(List<Integer> list) {
+        int[] array = new int[list.size()];
+
+        for (int i = 0; i < array.length; i++)
+            array[i] = list.get(i);
+
+        return array;
+    }
+
+}
@@ -7,6 +7,7 @@ import java.util.function.Predicate;
 import java.util.regex.Pattern;
 import java.util.regex.PatternSyntaxException;
 
+import ch.cern.exdemon.metrics.Attributes;
 import lombok.Getter;
 
 public class NotEqualMetricPredicate implements Predicate<Map<String, String>>, Serializable {
@@ -18,23 +19,30 @@ public class NotEqualMetricPredicate implements Predicate<Map<String, String>>,
     
     @Getter
     private Pattern value;
+    
+    private ValueMatcher matcher;
 
     public NotEqualMetricPredicate(String key, String value) throws ParseException {
-        this.key = key;
+        this.key = Attributes.intern(key);
         
         try {
             this.value = Pattern.compile(value);
         } catch (PatternSyntaxException e) {
             throw new ParseException(e.getDescription(), 0);
         }
+        
+        matcher = new ValueMatcher(this.value);
     }
 
     @Override
     public boolean test(Map<String, String> attributes) {
-        Predicate<Map<String, String>> notExist = metric -> !attributes.containsKey(key);
-        Predicate<Map<String, String>> notMatch = metric -> !value.matcher(attributes.get(key)).matches();
+        String attributeValue = attributes.get(key);
 
-        return notExist.or(notMatch).test(attributes);
+        return attributeValue == null || !matcher.matches(attributeValue);
+    }
+    
+    int getCost() {
+        return matcher.getCost();
     }
 
     @Override
@@ -0,0 +1,109 @@
+package ch.cern.exdemon.metrics.filter;
+
+import java.io.Serializable;
+import java.util.Optional;
+import java.util.regex.Pattern;
+
+import lombok.Getter;
+
+// Matches attribute values against a configured pattern.
+// Literals and literals with a leading or trailing ".*" are matched without the regex engine.
+class ValueMatcher implements Serializable {
+
+    private static final long serialVersionUID = -3605069012183813245L;
+
+    private static final Pattern REGEX_METACHARACTERS = Pattern.compile("[\\\\.\\[\\]{}()*+?^$|]");
+
+    private static final String ANY = ".*";
+
+    enum Type {LITERAL, PREFIX, SUFFIX, CONTAINS, REGEX};
+
+    @Getter
+    private Type type;
+
+    private String literal;
+
+    private Pattern pattern;
+
+    ValueMatcher(Pattern pattern) {
+        this.pattern = pattern;
+
+        String value = pattern.pattern();
+        boolean anyAtStart = value.startsWith(ANY);
+        boolean anyAtEnd = value.length() >= (anyAtStart ? 4 : 2) && value.endsWith(ANY);
+
+        String literal = value.substring(anyAtStart ? 2 : 0, value.length() - (anyAtEnd ? 2 : 0));
+        if(!isLiteral(literal)) {
+            type = Type.REGEX;
+            return;
+        }
+
+        this.literal = literal;
+
+        if(anyAtStart && anyAtEnd)
+            type = Type.CONTAINS;
+        else if(anyAtStart)
+            type = Type.SUFFIX;
+        else if(anyAtEnd)
+            type = Type.PREFIX;
+        else
+            type = Type.LITERAL;
+    }
+
+    // Patterns without metacharacters only match themselves
+    private static boolean isLiteral(String pattern) {
+        return !REGEX_METACHARACTERS.matcher(pattern).find();
+    }
+
+    Optional<String> getLiteral() {
+        return type == Type.LITERAL ? Optional.of(literal) : Optional.empty();
+    }
+
+    boolean matches(String value) {
+        switch (type) {
+        case LITERAL:
+            return literal.equals(value);
+        case PREFIX:
+            return value.startsWith(literal) && !hasLineTerminator(value, literal.length(), value.length());
+        case SUFFIX:
+            return value.endsWith(literal) && !hasLineTerminator(value, 0, value.length() - literal.length());
+        case CONTAINS:
+            // "." does not match line terminators, so the literal must be found within a single line
+            int index = value.indexOf(literal);
+            if(index < 0)
+                return false;
+            if(!hasLineTerminator(value, 0, value.length()))
+                return true;
+            return pattern.matcher(value).matches();
+        default:
+            return pattern.matcher(value).matches();
+        }
+    }
+
+    // Relative cost of a match, used for ordering predicates
+    int getCost() {
+        switch (type) {
+        case LITERAL:
+            return 1;
+        case PREFIX:
+        case SUFFIX:
+            return 2;
+        case CONTAINS:
+            return 4;
+        default:
+            return 16;
+        }
+    }
+
+    private static boolean hasLineTerminator(String value, int from, int to) {
+        for (int i = from; i < to; i++) {
+            char c = value.charAt(i);
+
+            if(c == '\n' || c == '\r' || c == '\u0085' || c == '\u2028' || c == '\u2029')
+                return true;
+        }
+
+        return false;
+    }
+
+}
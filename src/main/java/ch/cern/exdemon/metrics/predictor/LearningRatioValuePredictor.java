@@ -1,25 +1,36 @@
 package ch.cern.exdemon.metrics.predictor;
 
+import java.io.DataInput;
+import java.io.DataOutput;
 import java.io.IOException;
 import java.io.ObjectInputStream;
 import java.io.ObjectOutputStream;
 import java.io.Serializable;
 import java.time.Instant;
-import java.time.LocalDateTime;
-import java.time.temporal.ChronoField;
+import java.time.ZoneId;
+import java.time.zone.ZoneRules;
 import java.util.Arrays;
 
 import ch.cern.spark.status.StatusValue;
 import ch.cern.spark.status.storage.ClassNameAlias;
-import ch.cern.utils.TimeUtils;
 
 public class LearningRatioValuePredictor implements Serializable {
     
     private static final long serialVersionUID = -6776886545598962207L;
 
+    private static final long MINUTES_PER_DAY = 60 * 24;
+    
+    private static final ZoneRules ZONE_RULES = ZoneId.systemDefault().getRules();
+
     public enum Period {HOUR, DAY, WEEK};
     private Period period;
     
+    // Precision of the stored average and variance, ordinal is written in the compact format
+    public enum Precision {FULL, HALF, QUANTIZED};
+    
+    // Quantized slots are scaled per block, so low values keep their resolution next to much higher ones
+    private static final int QUANTIZED_BLOCK_SLOTS = 256;
+    
     private float learning_ratio;
     
     private float[] values;
@@ -71,25 +82,20 @@ public class LearningRatioValuePredictor implements Serializable {
         update(position, value);
     }
 
-    private int getCorrespondingPosition(Instant timestamp) {
-    		LocalDateTime dateTime = TimeUtils.toLocalDateTime(timestamp);
-    	
-        int minute = dateTime.get(ChronoField.MINUTE_OF_HOUR);
-        int hour = 0;
-        int day_of_week = 0;
+    // Minute of the season in local time, computed from the epoch without creating date objects
+    int getCorrespondingPosition(Instant timestamp) {
+        long localMinutes = Math.floorDiv(timestamp.getEpochSecond() + ZONE_RULES.getOffset(timestamp).getTotalSeconds(), 60);
         
         switch(period){
         case WEEK:
-            day_of_week = dateTime.get(ChronoField.DAY_OF_WEEK) - 1;
+            // Epoch day was a Thursday, weeks start on Monday
+            return (int) Math.floorMod(localMinutes + 3 * MINUTES_PER_DAY, MINUTES_PER_DAY * 7);
         case DAY:
-            hour = dateTime.get(ChronoField.HOUR_OF_DAY);
+            return (int) Math.floorMod(localMinutes, MINUTES_PER_DAY);
         case HOUR:
         default:
+            return (int) Math.floorMod(localMinutes, 60L);
         }
-        
-        int position = minute + hour * 60 + day_of_week * 24 * 60;
-        
-        return position;
     }
 
     private void update(int position, float newValue) {
@@ -124,6 +130,175 @@ public class LearningRatioValuePredictor implements Serializable {
         return new Prediction(values[position], stndDev);
     }
     
+    // Compact format: bitmaps of set slots followed by the set slots only, with full, half (16 bits) or quantized (8 bits) precision.
+    // Quantized variance is stored as standard deviation, so it keeps the resolution of the values.
+    public void write(DataOutput out, Precision precision) throws IOException {
+        out.writeFloat(learning_ratio);
+        out.writeUTF(period.name());
+        out.writeByte(precision.ordinal());
+        
+        writeSlots(out, values, precision);
+        
+        if(precision == Precision.QUANTIZED) {
+            float[] deviations = new float[variance.length];
+            for (int i = 0; i < variance.length; i++)
+                deviations[i] = (float) Math.sqrt(variance[i]);
+            
+            writeSlots(out, deviations, precision);
+        }else {
+            writeSlots(out, variance, precision);
+        }
+    }
+    
+    // Format written with a boolean for half precision can also be read
+    public static LearningRatioValuePredictor read(DataInput in) throws IOException {
+        float ratio = in.readFloat();
+        Period period = Period.valueOf(in.readUTF());
+        Precision precision = Precision.values()[in.readByte()];
+        
+        LearningRatioValuePredictor predictor = new LearningRatioValuePredictor(ratio, period);
+        readSlots(in, predictor.values, precision);
+        readSlots(in, predictor.variance, precision);
+        
+        if(precision == Precision.QUANTIZED)
+            for (int i = 0; i < predictor.variance.length; i++)
+                predictor.variance[i] *= predictor.variance[i];
+        
+        return predictor;
+    }
+
+    private static void writeSlots(DataOutput out, float[] slots, Precision precision) throws IOException {
+        long[] setSlots = new long[(slots.length + 63) / 64];
+        for (int i = 0; i < slots.length; i++)
+            if(!Float.isNaN(slots[i]))
+                setSlots[i / 64] |= 1L << (i % 64);
+        
+        writeBitmap(out, setSlots);
+        
+        if(precision == Precision.QUANTIZED) {
+            writeQuantized(out, slots);
+            return;
+        }
+        
+        for (int i = 0; i < slots.length; i++)
+            if(!Float.isNaN(slots[i]))
+                if(precision == Precision.HALF)
+                    out.writeShort(toHalf(slots[i]));
+                else
+                    out.writeFloat(slots[i]);
+    }
+    
+    private static void readSlots(DataInput in, float[] slots, Precision precision) throws IOException {
+        long[] setSlots = readBitmap(in, (slots.length + 63) / 64);
+        
+        if(precision == Precision.QUANTIZED) {
+            readQuantized(in, slots, setSlots);
+            return;
+        }
+        
+        for (int i = 0; i < slots.length; i++) {
+            if((setSlots[i / 64] & (1L << (i % 64))) == 0)
+                continue;
+            
+            if(precision == Precision.HALF)
+                slots[i] = fromHalf(in.readShort());
+            else
+                slots[i] = in.readFloat();
+        }
+    }
+    
+    // Every block of slots with set slots is written as its minimum and step, followed by one byte per set slot.
+    // Levels are rounded to nearest, so values read and written again do not change.
+    private static void writeQuantized(DataOutput out, float[] slots) throws IOException {
+        for (int from = 0; from < slots.length; from += QUANTIZED_BLOCK_SLOTS) {
+            int to = Math.min(slots.length, from + QUANTIZED_BLOCK_SLOTS);
+            
+            float min = Float.POSITIVE_INFINITY;
+            float max = Float.NEGATIVE_INFINITY;
+            for (int i = from; i < to; i++) {
+                if(!Float.isNaN(slots[i])) {
+                    min = Math.min(min, slots[i]);
+                    max = Math.max(max, slots[i]);
+                }
+            }
+            
+            if(min > max)
+                continue;
+            
+            float step = (max - min) / 255;
+            out.writeFloat(min);
+            out.writeFloat(step);
+            
+            for (int i = from; i < to; i++) {
+                if(Float.isNaN(slots[i]))
+                    continue;
+                
+                double level = step > 0 ? (slots[i] - min) / step : 0;
+                
+                out.writeByte((int) Math.min(255, Math.rint(level)));
+            }
+        }
+    }
+    
+    private static void readQuantized(DataInput in, float[] slots, long[] setSlots) throws IOException {
+        for (int from = 0; from < slots.length; from += QUANTIZED_BLOCK_SLOTS) {
+            int to = Math.min(slots.length, from + QUANTIZED_BLOCK_SLOTS);
+            
+            float min = Float.NaN;
+            float step = Float.NaN;
+            for (int i = from; i < to; i++) {
+                if((setSlots[i / 64] & (1L << (i % 64))) == 0)
+                    continue;
+                
+                if(Float.isNaN(min)) {
+                    min = in.readFloat();
+                    step = in.readFloat();
+                }
+                
+                slots[i] = min + in.readUnsignedByte() * step;
+            }
+        }
+    }
+    
+    // Only non empty words are written, preceded by a bitmap of them
+    private static void writeBitmap(DataOutput out, long[] words) throws IOException {
+        long[] nonEmptyWords = new long[(words.length + 63) / 64];
+        for (int i = 0; i < words.length; i++)
+            if(words[i] != 0)
+                nonEmptyWords[i / 64] |= 1L << (i % 64);
+        
+        for (long word : nonEmptyWords)
+            out.writeLong(word);
+        
+        for (long word : words)
+            if(word != 0)
+                out.writeLong(word);
+    }
+    
+    private static long[] readBitmap(DataInput in, int size) throws IOException {
+        long[] nonEmptyWords = new long[(size + 63) / 64];
+        for (int i = 0; i < nonEmptyWords.length; i++)
+            nonEmptyWords[i] = in.readLong();
+        
+        long[] words = new long[size];
+        for (int i = 0; i < size; i++)
+            if((nonEmptyWords[i / 64] & (1L << (i % 64))) != 0)
+                words[i] = in.readLong();
+        
+        return words;
+    }
+    
+    // Upper 16 bits of the float (bfloat16), rounded to nearest. Same range than float, 3 significant digits.
+    static short toHalf(float value) {
+        int bits = Float.floatToIntBits(value);
+        
+        return (short) ((bits + 0x7FFF + ((bits >>> 16) & 1)) >>> 16);
+    }
+    
+    static float fromHalf(short half) {
+        return Float.intBitsToFloat(half << 16);
+    }
+    
     @ClassNameAlias("learning-ratio")
     public static class Status_ extends StatusValue{
         private static final long serialVersionUID = 4807764662439943004L;
@@ -4,6 +4,7 @@ import java.io.Serializable;
 import java.text.ParseException;
 import java.util.HashMap;
 import java.util.Map;
+import java.util.Optional;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 import java.util.stream.Collectors;
@@ -79,6 +80,17 @@ public class AttributeDescriptor implements Serializable{
         return confResult;
     }
 
+    public Optional<String> getJSONKey() {
+        if(fixedValue != null || key == null || key.startsWith("#"))
+            return Optional.empty();
+
+        return Optional.of(key);
+    }
+
+    public boolean requiresAllJSONKeys() {
+        return fixedValue == null && key == null && keyPattern != null;
+    }
+
     public Map<String, String> extract(JSON jsonObject) throws ParseException {
         Map<String, String> atts = new HashMap<>();
         
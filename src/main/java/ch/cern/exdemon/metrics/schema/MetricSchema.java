@@ -5,6 +5,7 @@ import java.time.Instant;
 import java.util.Arrays;
 import java.util.Collections;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
@@ -14,6 +15,8 @@ import java.util.stream.Collectors;
 
 import org.apache.log4j.Logger;
 
+import com.codahale.metrics.Counter;
+
 import ch.cern.exdemon.components.Component;
 import ch.cern.exdemon.components.Component.Type;
 import ch.cern.exdemon.components.ComponentType;
@@ -24,11 +27,13 @@ import ch.cern.exdemon.metrics.filter.MetricsFilter;
 import ch.cern.exdemon.metrics.value.ExceptionValue;
 import ch.cern.exdemon.metrics.value.Value;
 import ch.cern.properties.Properties;
+import ch.cern.spark.JobMetricsSource;
 import ch.cern.utils.ExceptionsCache;
 import ch.cern.utils.Pair;
+import lombok.Getter;
 import lombok.ToString;
 
-@ToString
+@ToString(exclude={"parsedEventsCounter", "droppedEventsCounter", "metricsCounter"})
 @ComponentType(Type.SCHEMA)
 public final class MetricSchema extends Component {
 
@@ -37,6 +42,7 @@ public final class MetricSchema extends Component {
     private transient final static Logger LOG = Logger.getLogger(MetricSchema.class.getName());
 
     public static String SOURCES_PARAM = "sources";
+    @Getter
     private List<String> sources;
     
     public static String ATTRIBUTES_PARAM = "attributes";
@@ -53,6 +59,10 @@ public final class MetricSchema extends Component {
 
     private static transient ExceptionsCache exceptionsCache = new ExceptionsCache(Duration.ofMinutes(1));
     
+    private transient Counter parsedEventsCounter;
+    private transient Counter droppedEventsCounter;
+    private transient volatile Counter metricsCounter;
+    
     public MetricSchema() {
     }
     
@@ -131,7 +141,32 @@ public final class MetricSchema extends Component {
         return confResult.merge(null, properties.warningsIfNotAllPropertiesUsed());
     }
 
-    public List<Metric> call(JSON jsonObject) {        
+    public Set<String> getJSONKeys() {
+        Set<String> keys = new HashSet<>();
+        
+        for (AttributeDescriptor attributeDescriptor : attributes.values())
+            attributeDescriptor.getJSONKey().ifPresent(keys::add);
+        for (ValueDescriptor valueDescriptor : values)
+            keys.add(valueDescriptor.getKey());
+        if(timestampDescriptor.getKey() != null)
+            keys.add(timestampDescriptor.getKey());
+        
+        return keys;
+    }
+    
+    public boolean requiresAllJSONKeys() {
+        return attributes.values().stream().anyMatch(AttributeDescriptor::requiresAllJSONKeys);
+    }
+
+    public List<Metric> call(JSON jsonObject) {
+        List<Metric> metrics = parse(jsonObject);
+        
+        count(metrics);
+        
+        return metrics;
+    }
+
+    private List<Metric> parse(JSON jsonObject) {
         try {
             Map<String, String> attributesForMetric = new HashMap<>();
             for (AttributeDescriptor attributeDescriptor : attributes.values())
@@ -183,6 +218,22 @@ public final class MetricSchema extends Component {
         }
     }
 
+    // Events from which the schema does not generate any metric are counted as dropped
+    private void count(List<Metric> metrics) {
+        if(metricsCounter == null) {
+            parsedEventsCounter = JobMetricsSource.counter("schemas", getId(), "events_parsed");
+            droppedEventsCounter = JobMetricsSource.counter("schemas", getId(), "events_dropped");
+            metricsCounter = JobMetricsSource.counter("schemas", getId(), "metrics");
+        }
+        
+        if(metrics.isEmpty()) {
+            droppedEventsCounter.inc();
+        }else {
+            parsedEventsCounter.inc();
+            metricsCounter.inc(metrics.size());
+        }
+    }
+
     private Map<String, String> getFixedValueAttributes() {
         return attributes.values().stream().filter(att -> att.getFixedValue() != null)
                   .map(att -> new Pair<>(att.getAlias(), att.getFixedValue()))
@@ -1,24 +1,42 @@
 package ch.cern.exdemon.metrics.schema;
 
+import java.nio.charset.StandardCharsets;
+import java.util.Collections;
 import java.util.Iterator;
-import java.util.Map;
+import java.util.List;
+import java.util.Optional;
 import java.util.stream.Stream;
 
+import org.apache.log4j.Logger;
 import org.apache.spark.api.java.function.FlatMapFunction;
 
+import com.codahale.metrics.Counter;
+
 import ch.cern.exdemon.components.ComponentsCatalog;
-import ch.cern.exdemon.components.Component.Type;
+import ch.cern.exdemon.components.ComponentsCatalogSnapshot;
 import ch.cern.exdemon.json.JSON;
+import ch.cern.exdemon.json.PartialJSONParser;
 import ch.cern.exdemon.metrics.Metric;
 import ch.cern.properties.Properties;
+import ch.cern.spark.JobMetricsSource;
 
-public class MetricSchemasF implements FlatMapFunction<String, Metric> {
+public class MetricSchemasF implements FlatMapFunction<byte[], Metric> {
 
 	private static final long serialVersionUID = 116123198242814348L;
 	
+	private transient final static Logger LOG = Logger.getLogger(MetricSchemasF.class.getName());
+	
+	private static final int JSON_MAX_SIZE = 64000;
+	
 	private String sourceID;
 	
 	private Properties componentsSourceProperties;
+	
+	private transient Counter eventsCounter;
+	
+	private transient Counter withoutSchemaEventsCounter;
+	
+	private transient Counter droppedEventsCounter;
 
 	public MetricSchemasF(Properties componentsSourceProperties, String sourceId) {
 		this.sourceID = sourceId;
@@ -26,19 +44,41 @@ public class MetricSchemasF implements FlatMapFunction<String, Metric> {
 	}
 
 	@Override
-	public Iterator<Metric> call(String jsonString) throws Exception {
+	public Iterator<Metric> call(byte[] jsonBytes) throws Exception {
 		ComponentsCatalog.init(componentsSourceProperties);
 		
-		JSON jsonObject = new JSON(jsonString);
+		if(eventsCounter == null) {
+		    withoutSchemaEventsCounter = JobMetricsSource.counter("sources", sourceID, "events_without_schema");
+		    eventsCounter = JobMetricsSource.counter("sources", sourceID, "events");
+		    droppedEventsCounter = JobMetricsSource.counter("sources", sourceID, "events_dropped");
+		}
+		
+		if(jsonBytes.length > JSON_MAX_SIZE) {
+		    droppedEventsCounter.inc();
+		    
+		    LOG.warn("Event dropped because exceeds max size ("+JSON_MAX_SIZE+" bytes): " + new String(jsonBytes, 0, 10000, StandardCharsets.UTF_8) + "...");
+		    
+		    return Collections.emptyIterator();
+		}
+		
+		eventsCounter.inc();
+		
+		ComponentsCatalogSnapshot catalog = ComponentsCatalog.getSnapshot();
+		
+		List<MetricSchema> schemas = catalog.getSchemas(sourceID);
+		Optional<PartialJSONParser> parser = catalog.getSchemasJSONParser(sourceID);
+		if(schemas.isEmpty() || !parser.isPresent()) {
+		    withoutSchemaEventsCounter.inc();
+		    
+			return Collections.emptyIterator();
+		}
 		
-		Map<String, MetricSchema> schemas = ComponentsCatalog.get(Type.SCHEMA);
+		JSON jsonObject = parser.get().parse(jsonBytes);
 		
-		Stream<Metric> metrics = schemas.values().stream()
-											.filter(schema -> schema.containsSource(sourceID))
-											.flatMap(schema -> schema.call(jsonObject).stream());
+		Stream<Metric> metrics = schemas.stream().flatMap(schema -> schema.call(jsonObject).stream());
 		
 		return metrics.map(metric -> {
-								metric.getAttributes().put("$source", sourceID);
+								metric.addAttribute("$source", sourceID);
 								return metric;
 							}).iterator();
 	}
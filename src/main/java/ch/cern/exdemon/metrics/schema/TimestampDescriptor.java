@@ -19,6 +19,7 @@ import ch.cern.exdemon.json.JSON;
 import ch.cern.properties.ConfigurationException;
 import ch.cern.properties.Properties;
 import ch.cern.utils.DurationAndTruncate;
+import lombok.Getter;
 import lombok.ToString;
 
 @ToString
@@ -27,6 +28,7 @@ public class TimestampDescriptor {
     private static final Pattern INTEGER_NUMBER = Pattern.compile("\\d+");
 
     public static final String KEY_PARAM = "key";
+    @Getter
     protected String key;
     
     public static final String REGEX_PARAM = "regex";
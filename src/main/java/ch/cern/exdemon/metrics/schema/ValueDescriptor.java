@@ -38,6 +38,7 @@ public class ValueDescriptor implements Serializable{
     @Getter
     private String id;
 
+    @Getter
     private String key;
     public static final String KEY_PARAM = "key";
     
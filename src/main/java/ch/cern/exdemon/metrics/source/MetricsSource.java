@@ -25,18 +25,20 @@ public abstract class MetricsSource extends Component {
 		return ConfigurationResult.SUCCESSFUL();
 	}
 	
-	public JavaDStream<String> stream(JavaStreamingContext ssc){
-	    JavaDStream<String> stream = createJavaDStream(ssc);
+	public JavaDStream<byte[]> stream(JavaStreamingContext ssc){
+	    JavaDStream<byte[]> stream = createBytesJavaDStream(ssc);
 	    
 	    return partitions > 0 ? stream.repartition(partitions) : stream;
 	}
 
 	/**
-	 * Obtain metrics from external services as JSON strings.
+	 * Obtain metrics from external services as UTF-8 encoded JSON.
+	 * 
+	 * Sources receiving strings should extend StringMetricsSource.
 	 * 
 	 * @param ssc Spark context
-	 * @return DStream of valid JSON object strings.
+	 * @return DStream of valid JSON objects.
 	 */
-	protected abstract JavaDStream<String> createJavaDStream(JavaStreamingContext ssc);
+	protected abstract JavaDStream<byte[]> createBytesJavaDStream(JavaStreamingContext ssc);
     
 }
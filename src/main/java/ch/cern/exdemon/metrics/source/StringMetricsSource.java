@@ -0,0 +1,26 @@
+package ch.cern.exdemon.metrics.source;
+
+import java.nio.charset.StandardCharsets;
+
+import org.apache.spark.streaming.api.java.JavaDStream;
+import org.apache.spark.streaming.api.java.JavaStreamingContext;
+
+// Source receiving events as strings, they are encoded as UTF-8 before being parsed
+public abstract class StringMetricsSource extends MetricsSource {
+
+    private static final long serialVersionUID = 4851036914279541207L;
+
+    @Override
+    protected final JavaDStream<byte[]> createBytesJavaDStream(JavaStreamingContext ssc) {
+        return createJavaDStream(ssc).map(string -> string.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Obtain metrics from external services as JSON strings.
+     * 
+     * @param ssc Spark context
+     * @return DStream of valid JSON object strings.
+     */
+    protected abstract JavaDStream<String> createJavaDStream(JavaStreamingContext ssc);
+
+}
@@ -8,7 +8,7 @@ import java.util.Map.Entry;
 import java.util.Set;
 
 import org.apache.kafka.clients.consumer.ConsumerRecord;
-import org.apache.kafka.common.serialization.StringDeserializer;
+import org.apache.kafka.common.serialization.ByteArrayDeserializer;
 import org.apache.spark.streaming.api.java.JavaDStream;
 import org.apache.spark.streaming.api.java.JavaInputDStream;
 import org.apache.spark.streaming.api.java.JavaStreamingContext;
@@ -43,11 +43,11 @@ public class KafkaMetricsSource extends MetricsSource {
     }
     
     @Override
-	public JavaDStream<String> createJavaDStream(JavaStreamingContext ssc) {
-    		JavaInputDStream<ConsumerRecord<String, String>> inputStream = KafkaUtils.createDirectStream(
+	public JavaDStream<byte[]> createBytesJavaDStream(JavaStreamingContext ssc) {
+    		JavaInputDStream<ConsumerRecord<byte[], byte[]>> inputStream = KafkaUtils.createDirectStream(
                 ssc,
                 LocationStrategies.PreferConsistent(),
-                ConsumerStrategies.<String, String>Subscribe(kafkaTopics, kafkaParams));
+                ConsumerStrategies.<byte[], byte[]>Subscribe(kafkaTopics, kafkaParams));
         
         inputStream.foreachRDD(rdd -> {
         			OffsetRange[] offsetRanges = ((HasOffsetRanges) rdd.rdd()).offsetRanges();
@@ -61,8 +61,8 @@ public class KafkaMetricsSource extends MetricsSource {
     private Map<String, Object> getKafkaConsumerParams(Properties props) {
         Map<String, Object> kafkaParams = new HashMap<String, Object>();
         
-        kafkaParams.put("key.deserializer", StringDeserializer.class);
-        kafkaParams.put("value.deserializer", StringDeserializer.class);
+        kafkaParams.put("key.deserializer", ByteArrayDeserializer.class);
+        kafkaParams.put("value.deserializer", ByteArrayDeserializer.class);
         
         Properties kafkaPropertiesFromConf = props.getSubset("consumer");
         for (Entry<Object, Object> kafkaPropertyFromConf : kafkaPropertiesFromConf.entrySet()) {
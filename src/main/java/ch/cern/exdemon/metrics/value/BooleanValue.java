@@ -3,10 +3,13 @@ package ch.cern.exdemon.metrics.value;
 import java.time.Instant;
 import java.util.Optional;
 
+import com.esotericsoftware.kryo.DefaultSerializer;
+
 import ch.cern.exdemon.metrics.defined.equation.ValueComputable;
 import ch.cern.exdemon.metrics.defined.equation.var.VariableStatuses;
 import lombok.EqualsAndHashCode;
 
+@DefaultSerializer(Value.KryoSerializer.class)
 @EqualsAndHashCode(callSuper=false)
 public class BooleanValue extends Value implements ValueComputable{
 
@@ -23,6 +26,10 @@ public class BooleanValue extends Value implements ValueComputable{
 		return Optional.of(bool);
 	}
 
+	public boolean booleanValue() {
+		return bool;
+	}
+
 	public static BooleanValue from(String value_string) {
 		return new BooleanValue(Boolean.parseBoolean(value_string));
 	}
@@ -44,10 +51,9 @@ public class BooleanValue extends Value implements ValueComputable{
 	
 	@Override
 	public String getSource() {
-		if(source == null)
-			return toString();
-		else
-			return super.toString();
+		String source = super.getSource();
+		
+		return source != null ? source : toString();
 	}
 	
 }
@@ -3,11 +3,14 @@ package ch.cern.exdemon.metrics.value;
 import java.time.Instant;
 import java.util.Optional;
 
+import com.esotericsoftware.kryo.DefaultSerializer;
+
 import ch.cern.exdemon.metrics.defined.equation.ValueComputable;
 import ch.cern.exdemon.metrics.defined.equation.var.VariableStatuses;
 import lombok.EqualsAndHashCode;
 import lombok.NonNull;
 
+@DefaultSerializer(Value.KryoSerializer.class)
 @EqualsAndHashCode(callSuper=false)
 public class ExceptionValue extends Value implements ValueComputable{
 
@@ -41,10 +44,9 @@ public class ExceptionValue extends Value implements ValueComputable{
 	
 	@Override
 	public String getSource() {
-		if(source == null)
-			return toString();
-		else
-			return super.toString();
+		String source = super.getSource();
+		
+		return source != null ? source : toString();
 	}
 
 }
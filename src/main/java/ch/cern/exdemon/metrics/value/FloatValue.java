@@ -3,10 +3,13 @@ package ch.cern.exdemon.metrics.value;
 import java.time.Instant;
 import java.util.Optional;
 
+import com.esotericsoftware.kryo.DefaultSerializer;
+
 import ch.cern.exdemon.metrics.defined.equation.ValueComputable;
 import ch.cern.exdemon.metrics.defined.equation.var.VariableStatuses;
 import lombok.EqualsAndHashCode;
 
+@DefaultSerializer(Value.KryoSerializer.class)
 @EqualsAndHashCode(callSuper = false)
 public class FloatValue extends Value implements ValueComputable {
 
@@ -32,6 +35,10 @@ public class FloatValue extends Value implements ValueComputable {
         return Optional.of(this.num);
     }
 
+    public float floatValue() {
+        return num;
+    }
+
     public static FloatValue from(String value_string) {
         return new FloatValue(Float.parseFloat(value_string));
     }
@@ -48,10 +55,9 @@ public class FloatValue extends Value implements ValueComputable {
 
     @Override
     public String getSource() {
-        if (source == null)
-            return toString();
-        else
-            return super.toString();
+        String source = super.getSource();
+
+        return source != null ? source : toString();
     }
 
 }
@@ -3,12 +3,15 @@ package ch.cern.exdemon.metrics.value;
 import java.time.Instant;
 import java.util.Optional;
 
+import com.esotericsoftware.kryo.DefaultSerializer;
+
 import ch.cern.exdemon.metrics.defined.equation.ValueComputable;
 import ch.cern.exdemon.metrics.defined.equation.var.VariableStatuses;
 import ch.cern.properties.Properties;
 import lombok.EqualsAndHashCode;
 import lombok.NonNull;
 
+@DefaultSerializer(Value.KryoSerializer.class)
 @EqualsAndHashCode(callSuper=false)
 public class PropertiesValue extends Value implements ValueComputable{
 
@@ -1,21 +1,35 @@
 package ch.cern.exdemon.metrics.value;
 
+import java.io.IOException;
+import java.io.ObjectStreamException;
 import java.io.Serializable;
 import java.util.List;
 import java.util.Optional;
+import java.util.function.Supplier;
+
+import com.esotericsoftware.kryo.Kryo;
+import com.esotericsoftware.kryo.io.Output;
+import com.esotericsoftware.kryo.serializers.FieldSerializer;
+import com.google.gson.Gson;
+import com.google.gson.TypeAdapter;
+import com.google.gson.TypeAdapterFactory;
+import com.google.gson.reflect.TypeToken;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonWriter;
 
 import ch.cern.exdemon.metrics.Metric;
 import ch.cern.exdemon.monitor.analysis.results.AnalysisResult;
 import ch.cern.properties.Properties;
-import lombok.Getter;
 import lombok.Setter;
 
 public abstract class Value implements Serializable, Cloneable {
 
     private static final long serialVersionUID = -5082571575744839753L;
 
-    @Getter @Setter
     protected String source;
+
+    // Sources are expensive to build, so they can be built when requested or when the value is serialized
+    private transient Supplier<String> sourceSupplier;
     
     @Setter
     protected List<Metric> lastSourceMetrics;
@@ -48,9 +62,32 @@ public abstract class Value implements Serializable, Cloneable {
         return Optional.empty();
     }
 
+    public String getSource() {
+        if(source == null && sourceSupplier != null) {
+            source = sourceSupplier.get();
+            sourceSupplier = null;
+        }
+
+        return source;
+    }
+
+    public void setSource(String source) {
+        this.source = source;
+        this.sourceSupplier = null;
+    }
+
+    public void setSource(Supplier<String> sourceSupplier) {
+        this.source = null;
+        this.sourceSupplier = sourceSupplier;
+    }
+
+    public boolean hasSource() {
+        return source != null || sourceSupplier != null;
+    }
+
     @Override
     public String toString() {
-        return source;
+        return getSource();
     }
     
     public List<Metric> getLastSourceMetrics() {
@@ -60,6 +97,13 @@ public abstract class Value implements Serializable, Cloneable {
         return lastSourceMetrics;
     }
 
+    // Builds the source before Java serialization without a custom writeObject, which would add a marker per value
+    protected Object writeReplace() throws ObjectStreamException {
+        getSource();
+
+        return this;
+    }
+
     @Override
     public Value clone() {
         if (getAsFloat().isPresent())
@@ -81,4 +125,50 @@ public abstract class Value implements Serializable, Cloneable {
         throw new RuntimeException("Value is not any of the expected types");
     }
 
+    // Field serializer writing the source, built if it was not yet
+    public static class KryoSerializer<T extends Value> extends FieldSerializer<T> {
+
+        public KryoSerializer(Kryo kryo, Class<T> type) {
+            super(kryo, type);
+        }
+
+        @Override
+        public void write(Kryo kryo, Output output, T value) {
+            value.getSource();
+
+            super.write(kryo, output, value);
+        }
+
+    }
+
+    // Builds the source of values before Gson serializes them
+    public static class GsonAdapterFactory implements TypeAdapterFactory {
+
+        @Override
+        public <T> TypeAdapter<T> create(Gson gson, TypeToken<T> type) {
+            if(!Value.class.isAssignableFrom(type.getRawType()))
+                return null;
+
+            TypeAdapter<T> delegate = gson.getDelegateAdapter(this, type);
+
+            return new TypeAdapter<T>() {
+
+                @Override
+                public void write(JsonWriter out, T value) throws IOException {
+                    if(value != null)
+                        ((Value) value).getSource();
+
+                    delegate.write(out, value);
+                }
+
+                @Override
+                public T read(JsonReader in) throws IOException {
+                    return delegate.read(in);
+                }
+
+            };
+        }
+
+    }
+
 }
@@ -1,12 +1,11 @@
 package ch.cern.exdemon.monitor;
 
+import java.util.Collection;
 import java.util.Iterator;
-import java.util.Map;
 
 import org.apache.spark.api.java.function.PairFlatMapFunction;
 
 import ch.cern.exdemon.components.ComponentsCatalog;
-import ch.cern.exdemon.components.Component.Type;
 import ch.cern.exdemon.metrics.Metric;
 import ch.cern.properties.Properties;
 import scala.Tuple2;
@@ -25,9 +24,9 @@ public class ComputeMonitorKeysF implements PairFlatMapFunction<Metric, MonitorS
     public Iterator<Tuple2<MonitorStatusKey, Metric>> call(Metric metric) throws Exception {
         ComponentsCatalog.init(componentsSourceProperties);
     	
-        Map<String, Monitor> monitors = ComponentsCatalog.get(Type.MONITOR);
+        Collection<Monitor> monitors = ComponentsCatalog.getSnapshot().getMonitorsCandidates(metric.getAttributes());
         
-        return monitors.values().stream()
+        return monitors.stream()
 	        		.filter(monitor -> monitor.getFilter().test(metric))
 	        		.map(monitor -> new MonitorStatusKey(monitor.getId(), monitor.getMetricIDs(metric)))
 	        		.map(ids -> new Tuple2<MonitorStatusKey, Metric>(ids, metric))
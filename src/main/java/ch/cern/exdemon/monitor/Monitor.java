@@ -1,14 +1,19 @@
 package ch.cern.exdemon.monitor;
 
+import java.util.Collections;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.Optional;
 import java.util.Set;
+import java.util.function.Function;
 import java.util.stream.Collectors;
 
 import org.apache.log4j.Logger;
 import org.apache.spark.streaming.State;
 
+import com.codahale.metrics.Counter;
+
 import ch.cern.exdemon.components.Component;
 import ch.cern.exdemon.components.Component.Type;
 import ch.cern.exdemon.components.ComponentBuildResult;
@@ -19,18 +24,20 @@ import ch.cern.exdemon.components.RegisterComponentType;
 import ch.cern.exdemon.metrics.Metric;
 import ch.cern.exdemon.metrics.filter.MetricsFilter;
 import ch.cern.exdemon.monitor.analysis.Analysis;
+import ch.cern.exdemon.monitor.analysis.StatefulNumericAnalysis;
 import ch.cern.exdemon.monitor.analysis.results.AnalysisResult;
 import ch.cern.exdemon.monitor.analysis.results.AnalysisResult.Status;
 import ch.cern.exdemon.monitor.analysis.types.NoneAnalysis;
 import ch.cern.exdemon.monitor.trigger.Trigger;
 import ch.cern.properties.Properties;
+import ch.cern.spark.JobMetricsSource;
 import ch.cern.spark.status.HasStatus;
 import ch.cern.spark.status.StatusValue;
 import ch.cern.utils.Pair;
 import lombok.Getter;
 import lombok.ToString;
 
-@ToString
+@ToString(exclude="metricsCounter")
 @ComponentType(Type.MONITOR)
 public class Monitor extends Component{
     
@@ -50,6 +57,8 @@ public class Monitor extends Component{
 
     private Map<String, String> fixedValueAttributes;
     
+    private transient Counter metricsCounter;
+    
     public Monitor(){
     }
     
@@ -97,29 +106,58 @@ public class Monitor extends Component{
     }
 
     public Optional<AnalysisResult> process(State<StatusValue> status, Metric metric) {
+        return Optional.of(process(status, Collections.singletonList(metric)).get(0));
+    }
+    
+    // Metrics of the same series sorted by time, the status is loaded and updated once
+    public List<AnalysisResult> process(State<StatusValue> status, List<Metric> metrics) {
+        if(metricsCounter == null)
+            metricsCounter = JobMetricsSource.counter("monitors", getId(), "metrics");
+        metricsCounter.inc(metrics.size());
+        
+        if(analysis instanceof StatefulNumericAnalysis)
+            return apply((StatefulNumericAnalysis<?>) analysis, status, metrics);
+        
+        if(analysis.hasStatus() && status.exists())
+            ((HasStatus) analysis).load(status.get());
+        
+        List<AnalysisResult> results = metrics.stream().map(metric -> apply(analysis, metric)).collect(Collectors.toList());
+        
+        if(analysis.hasStatus())
+            analysis.getStatus().ifPresent(s -> status.update(s));
+        
+        return results;
+    }
+    
+    // State of the series is updated in place, the analysis is shared
+    private <S extends StatusValue> List<AnalysisResult> apply(StatefulNumericAnalysis<S> analysis, State<StatusValue> status, List<Metric> metrics) {
+        S state = analysis.getState(status.exists() ? status.get() : null);
+        
+        List<AnalysisResult> results = metrics.stream().map(metric -> apply(m -> analysis.apply(state, m), metric)).collect(Collectors.toList());
+        
+        status.update(state);
+        
+        return results;
+    }
+    
+    private AnalysisResult apply(Function<Metric, AnalysisResult> analysisF, Metric metric) {
     	AnalysisResult result = null;
 
         try{
-            if(analysis.hasStatus() && status.exists())
-                ((HasStatus) analysis).load(status.get());
-        		
-            result = analysis.apply(metric);
+            result = analysisF.apply(metric);
             
             result.addAnalysisParam("type", analysis.getClass().getAnnotation(RegisterComponentType.class).value());
-            
-            if(analysis.hasStatus())
-                analysis.getStatus().ifPresent(s -> status.update(s));
         }catch(Throwable e){
             result = AnalysisResult.buildWithStatus(Status.EXCEPTION, e.getClass().getSimpleName() + ": " + e.getMessage());
             LOG.error(e.getMessage(), e);
         }
         
-        metric.getAttributes().putAll(fixedValueAttributes);
+        metric.addAttributes(fixedValueAttributes);
         result.addAnalysisParam("monitor.name", getId());
         result.setAnalyzedMetric(metric);
         result.setTags(tags);
 
-        return Optional.of(result);
+        return result;
     }
     
     public Map<String, String> getMetricIDs(Metric metric) {
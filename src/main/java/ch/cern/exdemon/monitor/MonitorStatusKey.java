@@ -2,6 +2,7 @@ package ch.cern.exdemon.monitor;
 
 import java.util.Map;
 
+import ch.cern.exdemon.metrics.Attributes;
 import ch.cern.spark.status.IDStatusKey;
 import ch.cern.spark.status.storage.ClassNameAlias;
 import lombok.EqualsAndHashCode;
@@ -22,7 +23,7 @@ public class MonitorStatusKey implements IDStatusKey{
     
     public MonitorStatusKey(String monitorID, Map<String, String> metricIDs){
         this.id = monitorID;
-        this.metric_attributes = metricIDs;
+        this.metric_attributes = Attributes.of(metricIDs);
     }
 
     public String getID() {
@@ -15,6 +15,7 @@ import ch.cern.exdemon.monitor.trigger.UpdateTriggerStatusesF;
 import ch.cern.exdemon.monitor.trigger.action.Action;
 import ch.cern.properties.ConfigurationException;
 import ch.cern.properties.Properties;
+import ch.cern.spark.BatchClock;
 import ch.cern.spark.status.Status;
 import ch.cern.spark.status.StatusOperation;
 import ch.cern.spark.status.StatusValue;
@@ -27,17 +28,17 @@ public class Monitors {
 	        Optional<JavaDStream<StatusOperation<MonitorStatusKey, Metric>>> operationsOpt) 
 	                throws Exception {
 	    
-	    JavaPairDStream<MonitorStatusKey, Metric> metricsKeyed = metrics.flatMapToPair(new ComputeMonitorKeysF(propertiesSourceProps));
+	    ComputeMonitorKeysF computeKeys = new ComputeMonitorKeysF(propertiesSourceProps);
+	    JavaPairDStream<MonitorStatusKey, Metric> metricsKeyed = metrics.transformToPair((rdd, time) -> BatchClock.setForTasks(rdd, time).flatMapToPair(computeKeys));
 	    
 	    JavaDStream<StatusOperation<MonitorStatusKey, Metric>> operations = metricsKeyed.map(mk -> new StatusOperation<>(mk._1, mk._2));
-	    
-	    if(operationsOpt.isPresent())
-	        operations = operations.union(operationsOpt.get());
 
 	    return Status.<MonitorStatusKey, Metric, StatusValue, AnalysisResult>map(
 	                    MonitorStatusKey.class, 
 	                    StatusValue.class, 
 	                    operations, 
+	                    operationsOpt,
+	                    Metric::getTimestamp,
 	                    new UpdateMonitorStatusesF(propertiesSourceProps)).values();
 	}
 
@@ -47,17 +48,17 @@ public class Monitors {
 	        Optional<JavaDStream<StatusOperation<TriggerStatusKey, AnalysisResult>>> operationsOpt) 
 	                throws IOException, ClassNotFoundException, ConfigurationException {
 	    
-        JavaPairDStream<TriggerStatusKey, AnalysisResult> resultsKeyed = results.flatMapToPair(new ComputeTriggerKeysF(propertiesSourceProps));
+        ComputeTriggerKeysF computeKeys = new ComputeTriggerKeysF(propertiesSourceProps);
+        JavaPairDStream<TriggerStatusKey, AnalysisResult> resultsKeyed = results.transformToPair((rdd, time) -> BatchClock.setForTasks(rdd, time).flatMapToPair(computeKeys));
 
         JavaDStream<StatusOperation<TriggerStatusKey, AnalysisResult>> operations = resultsKeyed.map(mk -> new StatusOperation<>(mk._1, mk._2));
-
-        if(operationsOpt.isPresent())
-            operations = operations.union(operationsOpt.get());
 	    
 	    return Status.<TriggerStatusKey, AnalysisResult, TriggerStatus, Action>map(
 	                    TriggerStatusKey.class, 
 	                    TriggerStatus.class, 
 	                    operations, 
+	                    operationsOpt,
+	                    result -> result.getAnalyzed_metric().getTimestamp(),
                         new UpdateTriggerStatusesF(propertiesSourceProps)).values();
 	}
 
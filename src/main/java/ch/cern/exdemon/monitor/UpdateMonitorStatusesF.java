@@ -1,5 +1,7 @@
 package ch.cern.exdemon.monitor;
 
+import java.util.Collections;
+import java.util.List;
 import java.util.Optional;
 
 import org.apache.spark.streaming.State;
@@ -25,16 +27,24 @@ public class UpdateMonitorStatusesF extends UpdateStatusFunction<MonitorStatusKe
     @Override
     protected Optional<AnalysisResult> update(MonitorStatusKey ids, Metric metric, State<StatusValue> status)
             throws Exception {
+        List<AnalysisResult> results = update(ids, Collections.singletonList(metric), status);
+        
+        return results.isEmpty() ? Optional.empty() : Optional.of(results.get(0));
+    }
+    
+    @Override
+    protected List<AnalysisResult> update(MonitorStatusKey ids, List<Metric> metrics, State<StatusValue> status)
+            throws Exception {
         ComponentsCatalog.init(componentsSourceProperties);
         
         Optional<Monitor> monitorOpt = ComponentsCatalog.get(Type.MONITOR, ids.getID());
         if(!monitorOpt.isPresent()) {
             status.remove();
             
-            return Optional.empty();
+            return Collections.emptyList();
         }
 
-        return monitorOpt.get().process(status, metric);
+        return monitorOpt.get().process(status, metrics);
     }
 
 }
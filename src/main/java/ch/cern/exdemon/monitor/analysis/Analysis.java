@@ -2,19 +2,29 @@ package ch.cern.exdemon.monitor.analysis;
 
 import java.util.function.Function;
 
+import com.codahale.metrics.Histogram;
+
 import ch.cern.exdemon.components.Component;
 import ch.cern.exdemon.components.ComponentType;
 import ch.cern.exdemon.components.Component.Type;
+import ch.cern.exdemon.components.RegisterComponentType;
 import ch.cern.exdemon.metrics.Metric;
 import ch.cern.exdemon.monitor.analysis.results.AnalysisResult;
 import ch.cern.exdemon.monitor.analysis.results.AnalysisResult.Status;
+import ch.cern.spark.JobMetricsSource;
 
 @ComponentType(Type.ANAYLSIS)
 public abstract class Analysis extends Component implements Function<Metric, AnalysisResult> {
 
     private static final long serialVersionUID = -1822474093334300773L;
     
+    private transient Histogram processingTime;
+    
 	public final AnalysisResult apply(Metric metric) {
+		return apply(metric, this::process);
+	}
+	
+	protected final AnalysisResult apply(Metric metric, Function<Metric, AnalysisResult> processor) {
 		if(metric.getValue().getAsException().isPresent()) {
 			AnalysisResult result = AnalysisResult.buildWithStatus(Status.EXCEPTION, "Metric of type excpetion."); 
 			result.setAnalyzedMetric(metric);
@@ -22,7 +32,18 @@ public abstract class Analysis extends Component implements Function<Metric, Ana
 	        return result;
 		}
 		
-		return process(metric);
+		if(processingTime == null) {
+		    RegisterComponentType type = getClass().getAnnotation(RegisterComponentType.class);
+		    
+		    processingTime = JobMetricsSource.histogram("analysis", type != null ? type.value() : getClass().getSimpleName(), "time_ns");
+		}
+		
+		long start = System.nanoTime();
+		try {
+		    return processor.apply(metric);
+		} finally {
+		    processingTime.update(System.nanoTime() - start);
+		}
 	}
 	
     protected abstract AnalysisResult process(Metric metric);
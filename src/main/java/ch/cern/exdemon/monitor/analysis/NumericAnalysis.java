@@ -1,6 +1,7 @@
 package ch.cern.exdemon.monitor.analysis;
 
 import java.time.Instant;
+import java.util.function.BiFunction;
 
 import ch.cern.exdemon.metrics.Metric;
 import ch.cern.exdemon.monitor.analysis.results.AnalysisResult;
@@ -12,6 +13,10 @@ public abstract class NumericAnalysis extends Analysis {
 
 	@Override
 	public AnalysisResult process(Metric metric) {
+		return process(metric, this::process);
+	}
+	
+	protected AnalysisResult process(Metric metric, BiFunction<Instant, Double, AnalysisResult> processor) {
 		if(!metric.getValue().getAsFloat().isPresent()) {
 			AnalysisResult result = AnalysisResult.buildWithStatus(Status.EXCEPTION, "Current analysis requires metrics of float type."); 
 			result.setAnalyzedMetric(metric);
@@ -19,7 +24,7 @@ public abstract class NumericAnalysis extends Analysis {
 			return result;
 		}
 		
-		return process(metric.getTimestamp(), metric.getValue().getAsFloat().get());
+		return processor.apply(metric.getTimestamp(), metric.getValue().getAsFloat().get().doubleValue());
 	}
 
     public abstract AnalysisResult process(Instant timestamp, double value);
@@ -0,0 +1,37 @@
+package ch.cern.exdemon.monitor.analysis;
+
+import java.time.Instant;
+
+import ch.cern.exdemon.metrics.Metric;
+import ch.cern.exdemon.monitor.analysis.results.AnalysisResult;
+import ch.cern.spark.status.StatusValue;
+
+// Analysis with a state per analyzed series. The analysis only keeps configuration and it is shared by
+// all series (and concurrent tasks), the state is kept by the caller and updated in place when processing.
+public abstract class StatefulNumericAnalysis<S extends StatusValue> extends NumericAnalysis {
+
+    private static final long serialVersionUID = -3054616397411863542L;
+    
+    // State of the analysis used as a single series
+    private transient S state;
+
+    public abstract S newState();
+    
+    // Stored status could be null, from a previous version or from another type of analysis
+    public abstract S getState(StatusValue status);
+    
+    public final AnalysisResult apply(S state, Metric metric) {
+        return apply(metric, m -> process(m, (timestamp, value) -> process(state, timestamp, value)));
+    }
+    
+    public abstract AnalysisResult process(S state, Instant timestamp, double value);
+    
+    @Override
+    public synchronized AnalysisResult process(Instant timestamp, double value) {
+        if(state == null)
+            state = newState();
+        
+        return process(state, timestamp, value);
+    }
+
+}
@@ -7,9 +7,11 @@ import static org.numenta.nupic.algorithms.Anomaly.KEY_USE_MOVING_AVG;
 import static org.numenta.nupic.algorithms.Anomaly.KEY_WINDOW_SIZE;
 import static org.numenta.nupic.algorithms.Anomaly.VALUE_NONE;
 
+import java.time.Duration;
 import java.time.Instant;
 import java.util.HashMap;
 import java.util.Map;
+import java.util.UUID;
 
 import org.apache.commons.net.util.Base64;
 import org.numenta.nupic.FieldMetaType;
@@ -26,6 +28,7 @@ import org.numenta.nupic.network.Network;
 import org.numenta.nupic.network.Persistence;
 import org.numenta.nupic.network.PersistenceAPI;
 
+import com.codahale.metrics.Counter;
 import com.google.gson.JsonDeserializationContext;
 import com.google.gson.JsonDeserializer;
 import com.google.gson.JsonElement;
@@ -36,20 +39,22 @@ import com.google.gson.JsonSerializer;
 
 import ch.cern.exdemon.components.ConfigurationResult;
 import ch.cern.exdemon.components.RegisterComponentType;
-import ch.cern.exdemon.monitor.analysis.NumericAnalysis;
+import ch.cern.exdemon.monitor.analysis.StatefulNumericAnalysis;
 import ch.cern.exdemon.monitor.analysis.results.AnalysisResult;
 import ch.cern.exdemon.monitor.analysis.results.AnalysisResult.Status;
 import ch.cern.exdemon.monitor.analysis.types.htm.AnomaliesResults;
+import ch.cern.exdemon.monitor.analysis.types.htm.HTMModelsCache;
+import ch.cern.exdemon.monitor.analysis.types.htm.HTMModelsCache.Model;
 import ch.cern.exdemon.monitor.analysis.types.htm.HTMParameters;
 import ch.cern.properties.ConfigurationException;
 import ch.cern.properties.Properties;
-import ch.cern.spark.status.HasStatus;
+import ch.cern.spark.JobMetricsSource;
 import ch.cern.spark.status.StatusValue;
 import ch.cern.spark.status.storage.ClassNameAlias;
 import lombok.ToString;
 
 @RegisterComponentType("htm")
-public class HTMAnalysis extends NumericAnalysis implements HasStatus {
+public class HTMAnalysis extends StatefulNumericAnalysis<HTMAnalysis.Status_> {
 
 	private static final long serialVersionUID = 1015850481683037208L;
 	//TODO: check naming convention
@@ -81,11 +86,19 @@ public class HTMAnalysis extends NumericAnalysis implements HasStatus {
 	public static final float WARNING_THRESHOLD_DEFAULT = (float) 0.9;
 	public double warningThreshold;
 
-	private transient Network network;
-	private transient AnomalyLikelihood anomalyLikelihood;
-	private transient int learningPhaseCounter;
+	public static final String CACHE_SIZE_PARAMS = "htm.cache.size";
+	public static final int CACHE_SIZE_DEFAULT = 1000;
+	
+	public static final String CHECKPOINT_PERIOD_PARAMS = "htm.checkpoint.period";
+	public static final Duration CHECKPOINT_PERIOD_DEFAULT = Duration.ofMinutes(10);
+	private Duration checkpointPeriod;
+
 	private transient DateEncoder dateEncoder;
 	
+	private transient Counter cacheHitsCounter;
+	private transient Counter cacheMissesCounter;
+	private transient Counter checkpointsCounter;
+	
 	private PersistenceAPI persistance;
 
 	@Override
@@ -118,39 +131,91 @@ public class HTMAnalysis extends NumericAnalysis implements HasStatus {
 		warningThreshold = properties.getFloat(WARNING_THRESHOLD_PARAMS, WARNING_THRESHOLD_DEFAULT);
 		if(errorThreshold < warningThreshold)
 			confResult.withError(ERROR_THRESHOLD_PARAMS, "Error Threshold is lower than the warning treshold");
-		else {
-			anomalyLikelihood = initAnomalyLikelihood(HTMParameters.getAnomalyLikelihoodParams());
-			network = buildNetwork();
+		
+		HTMModelsCache.ensureCapacity((int) properties.getLong(CACHE_SIZE_PARAMS, CACHE_SIZE_DEFAULT));
+		
+		checkpointPeriod = CHECKPOINT_PERIOD_DEFAULT;
+		try {
+			checkpointPeriod = properties.getPeriod(CHECKPOINT_PERIOD_PARAMS, CHECKPOINT_PERIOD_DEFAULT);
+		} catch (ConfigurationException e) {
+			confResult.withError(null, e);
 		}
-		learningPhaseCounter = 0;
 		
 		return confResult.merge(null, properties.warningsIfNotAllPropertiesUsed());
 	}
 	
 	@Override
-	public void load(StatusValue store) {
-		if(store != null && (store instanceof Status_)) {
-			Status_ status_ = ((Status_) store);
+	public Status_ newState() {
+		Status_ state = new Status_();
+		state.modelId = UUID.randomUUID().toString();
+		
+		return state;
+	}
+	
+	@Override
+	public Status_ getState(StatusValue status) {
+		if(status == null || !(status instanceof Status_))
+			return newState();
+		
+		Status_ state = (Status_) status;
+		if(state.modelId == null)
+			state.modelId = UUID.randomUUID().toString();
+		
+		return state;
+	}
+	
+	// Live models are taken from the cache, serialized models are only restored if not cached (new executor or evicted)
+	private Model getModel(Status_ state) {
+		initMetrics();
+		
+		Model model = HTMModelsCache.get(state.modelId, state.version);
+		if(model != null) {
+			cacheHitsCounter.inc();
 			
-			network = (Network) byteToPersistable(Base64.decodeBase64(status_.networkBase64));
-			anomalyLikelihood = (AnomalyLikelihood) byteToPersistable(Base64.decodeBase64(status_.anomalyLikelihoodBase64));
-			learningPhaseCounter = status_.learningPhaseCounter;
+			return model;
+		}
+		
+		if(state.networkBase64 != null) {
+			cacheMissesCounter.inc();
 			
+			Network network = (Network) byteToPersistable(Base64.decodeBase64(state.networkBase64));
 			network.restart();
+			
+			return new Model(network, 
+			                 (AnomalyLikelihood) byteToPersistable(Base64.decodeBase64(state.anomalyLikelihoodBase64)), 
+			                 state.learningPhaseCounter, 
+			                 state.version);
 		}
 		
-		if(network == null)
-			network = buildNetwork();
+		return new Model(buildNetwork(), initAnomalyLikelihood(HTMParameters.getAnomalyLikelihoodParams()), 0, state.version);
 	}
 
-	@Override
-	public StatusValue save() {
-        Status_ status = new Status_();
-        status.networkBase64 = Base64.encodeBase64String(persistableToByte(network));
-        status.anomalyLikelihoodBase64 = Base64.encodeBase64String(persistableToByte(anomalyLikelihood));
-        status.learningPhaseCounter = learningPhaseCounter;
-        
-        return status;
+	// Models are serialized into the state once per checkpoint period, in between the state refers to the cached model
+	// and it is not stored, so stored states always contain the model of their version
+	private void update(Status_ state, Network network, AnomalyLikelihood anomalyLikelihood, int learningPhaseCounter) {
+		state.version++;
+		
+		long now = System.currentTimeMillis();
+		state.checkpoint = state.networkBase64 == null || now - state.checkpointTime >= checkpointPeriod.toMillis();
+		if(state.checkpoint) {
+			state.networkBase64 = Base64.encodeBase64String(persistableToByte(network));
+			state.anomalyLikelihoodBase64 = Base64.encodeBase64String(persistableToByte(anomalyLikelihood));
+			state.learningPhaseCounter = learningPhaseCounter;
+			state.checkpointTime = now;
+			
+			checkpointsCounter.inc();
+		}
+		
+		HTMModelsCache.put(state.modelId, new Model(network, anomalyLikelihood, learningPhaseCounter, state.version));
+	}
+	
+	private void initMetrics() {
+		if(cacheHitsCounter != null)
+			return;
+		
+		cacheHitsCounter = JobMetricsSource.counter("analysis", "htm", "model_cache_hits");
+		cacheMissesCounter = JobMetricsSource.counter("analysis", "htm", "model_cache_misses");
+		checkpointsCounter = JobMetricsSource.counter("analysis", "htm", "model_checkpoints");
 	}
 	
 	private byte[] persistableToByte(Persistable pers) {
@@ -171,18 +236,25 @@ public class HTMAnalysis extends NumericAnalysis implements HasStatus {
 	}
 
 	@Override
-	public AnalysisResult process(Instant timestamp, double value) {
+	public AnalysisResult process(Status_ state, Instant timestamp, double value) {
+		Model model = getModel(state);
+		Network network = model.getNetwork();
+		AnomalyLikelihood anomalyLikelihood = model.getAnomalyLikelihood();
+		int learningPhaseCounter = model.getLearningPhaseCounter();
+		
 		AnalysisResult results = new AnalysisResult();
 		double likelihood;
 		
+		DateEncoder dateEncoder = getDateEncoder(network);
+		
 		Map<String, Object> m = new HashMap<>();
 		m.put("timestamp", dateEncoder.parse(timestamp.toString()));
 		m.put("value", value);
 		Inference i = network.computeImmediate(m);
-		learningPhaseCounter = isLearningPhase() ? learningPhaseCounter+1 : -1;
+		learningPhaseCounter = isLearningPhase(learningPhaseCounter) ? learningPhaseCounter+1 : -1;
 		if(i == null)
 			results.setStatus(Status.EXCEPTION, "Inference is null");
-		else if(isLearningPhase()) {
+		else if(isLearningPhase(learningPhaseCounter)) {
 			anomalyLikelihood.anomalyProbability((double)m.get("value"), i.getAnomalyScore(),dateEncoder.parse(timestamp.toString()));
 			results.setStatus(Status.EXCEPTION, "Algorithm is in the learning phase");
 		} else {
@@ -203,10 +275,20 @@ public class HTMAnalysis extends NumericAnalysis implements HasStatus {
 			results.addAnalysisParam("anomaly.score", i.getAnomalyScore());
 		}
 		
+		update(state, network, anomalyLikelihood, learningPhaseCounter);
+		
 		return results;
 	}
 	
-	private boolean isLearningPhase() {
+	// All models have the same encoders, the one of the first processed model is kept (also after deserialization)
+	private DateEncoder getDateEncoder(Network network) {
+		if(dateEncoder == null)
+			dateEncoder = network.lookup("Region 1").lookup("Layer 2/3").getEncoder().getEncoderOfType(FieldMetaType.DATETIME);
+		
+		return dateEncoder;
+	}
+	
+	private boolean isLearningPhase(int learningPhaseCounter) {
 		Map<String, Object> anomalyLikelihoodParams = HTMParameters.getAnomalyLikelihoodParams();
 		return  learningPhaseCounter >= 0 && learningPhaseCounter <= 
 				((int)anomalyLikelihoodParams.get(KEY_LEARNING_PERIOD) + (int)anomalyLikelihoodParams.get(KEY_ESTIMATION_SAMPLES));
@@ -235,8 +317,6 @@ public class HTMAnalysis extends NumericAnalysis implements HasStatus {
 		
 		network.lookup("Region 1").lookup("Layer 2/3").add(me);
 		
-		dateEncoder = me.getEncoderOfType(FieldMetaType.DATETIME);
-		
     	return network;
 	}
 	
@@ -260,9 +340,20 @@ public class HTMAnalysis extends NumericAnalysis implements HasStatus {
     @ClassNameAlias("anomaly-likelihood")
     public static class Status_ extends StatusValue{
 		private static final long serialVersionUID = 1921682817162401606L;
+        public String modelId;
+        public long version;
+        // Serialized model as of the last checkpoint
         public String networkBase64;
         public String anomalyLikelihoodBase64;
         public int learningPhaseCounter;
+        public long checkpointTime;
+        // Model has been serialized in the last update
+        public transient boolean checkpoint;
+        
+        @Override
+        public boolean isStorable() {
+            return checkpoint;
+        }
     }
     
 	public static class PersistableJsonAdapter implements JsonSerializer<Persistable>, JsonDeserializer<Persistable> {
@@ -2,6 +2,8 @@ package ch.cern.exdemon.monitor.analysis.types;
 
 import java.time.Duration;
 import java.time.Instant;
+import java.util.TreeMap;
+import java.util.function.DoubleUnaryOperator;
 
 import org.apache.commons.math3.stat.descriptive.DescriptiveStatistics;
 
@@ -9,19 +11,21 @@ import ch.cern.exdemon.components.ConfigurationResult;
 import ch.cern.exdemon.components.RegisterComponentType;
 import ch.cern.exdemon.metrics.ValueHistory;
 import ch.cern.exdemon.metrics.value.FloatValue;
-import ch.cern.exdemon.monitor.analysis.NumericAnalysis;
+import ch.cern.exdemon.monitor.analysis.StatefulNumericAnalysis;
 import ch.cern.exdemon.monitor.analysis.results.AnalysisResult;
 import ch.cern.exdemon.monitor.analysis.results.AnalysisResult.Status;
 import ch.cern.properties.ConfigurationException;
 import ch.cern.properties.Properties;
-import ch.cern.spark.status.HasStatus;
 import ch.cern.spark.status.StatusValue;
+import ch.cern.spark.status.storage.ClassNameAlias;
+import ch.cern.utils.TDigest;
+import lombok.EqualsAndHashCode;
 import lombok.Getter;
 import lombok.ToString;
 
 @ToString
 @RegisterComponentType("percentile")
-public class PercentileAnalysis extends NumericAnalysis implements HasStatus{
+public class PercentileAnalysis extends StatefulNumericAnalysis<StatusValue>{
     
     private static final long serialVersionUID = 5419076430764447352L;
     
@@ -46,7 +50,18 @@ public class PercentileAnalysis extends NumericAnalysis implements HasStatus{
     @Getter
     private boolean error_lowerbound = false;
     
-    private ValueHistory history;
+    public static String MODE_PARAM = "mode";
+    public static String MODE_DEFAULT = "exact";
+    @Getter
+    private boolean sketchMode = false;
+    
+    public static String SKETCH_BUCKETS_PARAM = "sketch.buckets";
+    public static int SKETCH_BUCKETS_DEFAULT = 10;
+    private Duration bucketPeriod;
+    
+    public static String SKETCH_COMPRESSION_PARAM = "sketch.compression";
+    public static float SKETCH_COMPRESSION_DEFAULT = 100;
+    private float compression;
 
     public static String ERROR_PERCENTILE_PARAM = "error.percentile";
     public static float ERROR_PERCENTILE_DEFAULT = 99;
@@ -108,31 +123,64 @@ public class PercentileAnalysis extends NumericAnalysis implements HasStatus{
         } catch (ConfigurationException e) {
             configResult.withError(null, e);
         }
-        history = new ValueHistory();
+        String mode = properties.getProperty(MODE_PARAM, MODE_DEFAULT);
+        if(mode.equals("sketch"))
+            sketchMode = true;
+        else if(!mode.equals("exact"))
+            configResult.withError(MODE_PARAM, "must be exact or sketch");
+        
+        int buckets = (int) properties.getFloat(SKETCH_BUCKETS_PARAM, SKETCH_BUCKETS_DEFAULT);
+        if(buckets < 1)
+            configResult.withError(SKETCH_BUCKETS_PARAM, "must be bigger than 0");
+        if(period != null)
+            bucketPeriod = Duration.ofMillis(Math.max(1, period.toMillis() / Math.max(1, buckets)));
+        
+        compression = properties.getFloat(SKETCH_COMPRESSION_PARAM, SKETCH_COMPRESSION_DEFAULT);
+        if(compression < 10)
+            configResult.withError(SKETCH_COMPRESSION_PARAM, "must be at least 10");
         
         return configResult.merge(null, properties.warningsIfNotAllPropertiesUsed());
     }
     
+    // History of values (exact mode) or sketches (sketch mode)
     @Override
-    public void load(StatusValue store) {
-        if(store == null){
-            history = new ValueHistory();
-        }else{
-            history = ((ValueHistory.Status) store).history;
+    public StatusValue newState() {
+        if(sketchMode) {
+            Status_ state = new Status_();
+            state.sketches = new TreeMap<>();
+            
+            return state;
         }
+        
+        return new ValueHistory.Status();
     }
     
     @Override
-    public StatusValue save() {
-        ValueHistory.Status store = new ValueHistory.Status();
+    public StatusValue getState(StatusValue status) {
+        if(!sketchMode && status instanceof ValueHistory.Status)
+            return status;
+        
+        if(sketchMode && status instanceof Status_)
+            return status;
         
-        store.history = history;
+        StatusValue state = newState();
         
-        return store;
+        // Values kept in exact mode are added to the sketches
+        if(sketchMode && status instanceof ValueHistory.Status)
+            ((ValueHistory.Status) status).history.getValues().stream()
+                                   .filter(value -> value.getValue().getAsFloat().isPresent())
+                                   .forEach(value -> addToSketches(((Status_) state).sketches, value.getTime(), value.getValue().getAsFloat().get()));
+        
+        return state;
     }
 
     @Override
-    public AnalysisResult process(Instant timestamp, double value) {
+    public AnalysisResult process(StatusValue state, Instant timestamp, double value) {
+        if(sketchMode)
+            return processWithSketches(((Status_) state).sketches, timestamp, value);
+        
+        ValueHistory history = ((ValueHistory.Status) state).history;
+        
         if(period != null)
             history.purge(timestamp.minus(period));
         
@@ -143,9 +191,36 @@ public class PercentileAnalysis extends NumericAnalysis implements HasStatus{
         if(history.size() < 5)
             return AnalysisResult.buildWithStatus(Status.EXCEPTION, "Not enought historic data (min 5 points)");
         
+        return process(value, stats::getPercentile);
+    }
+    
+    private AnalysisResult processWithSketches(TreeMap<Long, TDigest> sketches, Instant timestamp, double value) {
+        // Buckets are removed once all their values are older than period
+        if(period != null)
+            sketches.headMap(timestamp.minus(period).minus(bucketPeriod).toEpochMilli(), true).clear();
+        
+        TDigest digest = new TDigest(compression);
+        sketches.values().forEach(digest::add);
+        
+        addToSketches(sketches, timestamp, value);
+        
+        if(digest.getCount() + 1 < 5)
+            return AnalysisResult.buildWithStatus(Status.EXCEPTION, "Not enought historic data (min 5 points)");
+        
+        return process(value, percentile -> digest.quantile(percentile / 100));
+    }
+
+    private void addToSketches(TreeMap<Long, TDigest> sketches, Instant timestamp, double value) {
+        long bucketMillis = bucketPeriod.toMillis();
+        long bucket = Math.floorDiv(timestamp.toEpochMilli(), bucketMillis) * bucketMillis;
+        
+        sketches.computeIfAbsent(bucket, b -> new TDigest(compression)).add(value);
+    }
+
+    private AnalysisResult process(double value, DoubleUnaryOperator stats) {
         AnalysisResult result = new AnalysisResult();
 
-        double median = stats.getPercentile(50);
+        double median = stats.applyAsDouble(50);
         
         processErrorUpperbound(result, value, stats, median); 
         processWarningUpperbound(result, value, stats, median);
@@ -158,11 +233,11 @@ public class PercentileAnalysis extends NumericAnalysis implements HasStatus{
         return result;
     }
     
-    private void processErrorLowerbound(AnalysisResult result, double value, DescriptiveStatistics stats, double median) {
+    private void processErrorLowerbound(AnalysisResult result, double value, DoubleUnaryOperator stats, double median) {
         if(!error_lowerbound)
             return;
         
-        double percentile = stats.getPercentile(100 - error_percentile);
+        double percentile = stats.applyAsDouble(100 - error_percentile);
         double diff = Math.abs(median - percentile);
         double threshold = percentile - diff * error_ratio;
         
@@ -180,11 +255,11 @@ public class PercentileAnalysis extends NumericAnalysis implements HasStatus{
         }
     }
 
-    private void processWarningLowerbound(AnalysisResult result, double value, DescriptiveStatistics stats, double median) {
+    private void processWarningLowerbound(AnalysisResult result, double value, DoubleUnaryOperator stats, double median) {
         if(!warning_lowerbound)
             return;
         
-        double percentile = stats.getPercentile(100 - warn_percentile);
+        double percentile = stats.applyAsDouble(100 - warn_percentile);
         double diff = Math.abs(median - percentile);
         double threshold = percentile - diff * warn_ratio;
 
@@ -202,11 +277,11 @@ public class PercentileAnalysis extends NumericAnalysis implements HasStatus{
         }
     }
 
-    private void processWarningUpperbound(AnalysisResult result, double value, DescriptiveStatistics stats, double median) {
+    private void processWarningUpperbound(AnalysisResult result, double value, DoubleUnaryOperator stats, double median) {
         if(!warning_upperbound)
             return;
         
-        double percentile = stats.getPercentile(warn_percentile);
+        double percentile = stats.applyAsDouble(warn_percentile);
         double diff = Math.abs(median - percentile);
         double threshold = percentile + diff * warn_ratio;
         
@@ -224,11 +299,11 @@ public class PercentileAnalysis extends NumericAnalysis implements HasStatus{
         }
     }
 
-    private void processErrorUpperbound(AnalysisResult result, double value, DescriptiveStatistics stats, double median) {
+    private void processErrorUpperbound(AnalysisResult result, double value, DoubleUnaryOperator stats, double median) {
         if(!error_upperbound)
             return;
         
-        double percentile = stats.getPercentile(error_percentile);
+        double percentile = stats.applyAsDouble(error_percentile);
         double diff = Math.abs(median - percentile);
         double threshold = percentile + diff * error_ratio;
         
@@ -245,5 +320,17 @@ public class PercentileAnalysis extends NumericAnalysis implements HasStatus{
                             + " * error.ratio (" + error_ratio + ") " + " (=" + threshold + ")");
         }
     }
+    
+    @ToString
+    @EqualsAndHashCode(callSuper=false)
+    @ClassNameAlias("percentile-analysis-sketches")
+    public static class Status_ extends StatusValue {
+        
+        private static final long serialVersionUID = -5366386929467425787L;
+        
+        // Digests of values by start of the bucket (epoch milliseconds)
+        public TreeMap<Long, TDigest> sketches;
+        
+    }
 
 }
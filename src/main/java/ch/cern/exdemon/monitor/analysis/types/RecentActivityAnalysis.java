@@ -9,12 +9,11 @@ import ch.cern.exdemon.components.ConfigurationResult;
 import ch.cern.exdemon.components.RegisterComponentType;
 import ch.cern.exdemon.metrics.ValueHistory;
 import ch.cern.exdemon.metrics.value.FloatValue;
-import ch.cern.exdemon.monitor.analysis.NumericAnalysis;
+import ch.cern.exdemon.monitor.analysis.StatefulNumericAnalysis;
 import ch.cern.exdemon.monitor.analysis.results.AnalysisResult;
 import ch.cern.exdemon.monitor.analysis.results.AnalysisResult.Status;
 import ch.cern.properties.ConfigurationException;
 import ch.cern.properties.Properties;
-import ch.cern.spark.status.HasStatus;
 import ch.cern.spark.status.StatusValue;
 import ch.cern.spark.status.storage.ClassNameAlias;
 import lombok.Getter;
@@ -22,7 +21,7 @@ import lombok.ToString;
 
 @ToString
 @RegisterComponentType("recent")
-public class RecentActivityAnalysis extends NumericAnalysis implements HasStatus {
+public class RecentActivityAnalysis extends StatefulNumericAnalysis<RecentActivityAnalysis.Status_> {
 
     private static final long serialVersionUID = 5419076430764447352L;
 
@@ -47,10 +46,6 @@ public class RecentActivityAnalysis extends NumericAnalysis implements HasStatus
     @Getter
     private boolean error_lowerbound = false;
 
-    private ValueHistory history;
-    private double mean = Double.MIN_VALUE;
-    private double variance = 0;
-    
     public static String ERROR_RATIO_PARAM = "error.ratio";
     public static float ERROR_RATIO_DEFAULT = 1.8f;
     @Getter
@@ -71,8 +66,6 @@ public class RecentActivityAnalysis extends NumericAnalysis implements HasStatus
     public static String LEARNING_LOWERBOUND_RATIO_PARAM = "learning.lowerbound.ratio";
     private Float learning_lowerbound_ratio;
 
-    private long count = 0;
-
     @Override
     public ConfigurationResult config(Properties properties) {
         ConfigurationResult configResult = ConfigurationResult.SUCCESSFUL();
@@ -111,85 +104,81 @@ public class RecentActivityAnalysis extends NumericAnalysis implements HasStatus
         } catch (ConfigurationException e) {
             configResult.withError(null, e);
         }
-        history = new ValueHistory();
-
         return configResult.merge(null, properties.warningsIfNotAllPropertiesUsed());
     }
 
     @Override
-    public void load(StatusValue status) {
-        if (status != null && (status instanceof Status_)) {
-            Status_ status_ = ((Status_) status);
-            
-            history = status_.history;
-            count = status_.count;
-            mean = status_.mean;
-            variance = status_.variance;
-        }
+    public Status_ newState() {
+        Status_ state = new Status_();
+        state.history = new ValueHistory();
+        state.mean = Double.MIN_VALUE;
         
-        if(history == null)
-            history = new ValueHistory();
+        return state;
     }
 
     @Override
-    public StatusValue save() {
-        Status_ status = new Status_();
-
-        status.history = history;
-        status.count = count;
-        status.mean = mean;
-        status.variance = variance;
-
-        return status;
+    public Status_ getState(StatusValue status) {
+        if (status != null && (status instanceof Status_)) {
+            Status_ state = (Status_) status;
+            
+            if(state.history == null)
+                state.history = new ValueHistory();
+            
+            return state;
+        }
+        
+        return newState();
     }
 
     @Override
-    public AnalysisResult process(Instant timestamp, double value) {
+    public AnalysisResult process(Status_ state, Instant timestamp, double value) {
         AnalysisResult result = new AnalysisResult();
         
-        if(mean == Double.MIN_VALUE) {
+        if(state.mean == Double.MIN_VALUE) {
             result.setStatus(Status.EXCEPTION, "History is empty.");
         }else {
-            result.addAnalysisParam("mean", mean);
-            result.addAnalysisParam("variance", variance);
+            result.addAnalysisParam("mean", state.mean);
+            result.addAnalysisParam("variance", state.variance);
 
-            processErrorUpperbound(result, value);
-            processWarningUpperbound(result, value);
-            processErrorLowerbound(result, value);
-            processWarningLowerbound(result, value);
+            processErrorUpperbound(result, state, value);
+            processWarningUpperbound(result, state, value);
+            processErrorLowerbound(result, state, value);
+            processWarningLowerbound(result, state, value);
         }
 
         if (!result.hasStatus())
             result.setStatus(AnalysisResult.Status.OK, "Metric between thresholds");
         
-        learnValue(result, timestamp, value);
+        learnValue(result, state, timestamp, value);
 
         return result;
     }
 
-    private void learnValue(AnalysisResult result, Instant timestamp, double value) {
+    private void learnValue(AnalysisResult result, Status_ state, Instant timestamp, double value) {
         if(isLearningRatioConfigured()) {
-            if(mean == Double.MIN_VALUE) {
-                mean = value;
-                variance = 0;
+            if(state.mean == Double.MIN_VALUE) {
+                state.mean = value;
+                state.variance = 0;
                 
-                count++;
+                state.count++;
             }else{
-                if(count < 10 || isBetweenLearningRatio(result, value)) {
-                    double diff = Math.abs(value - mean);
+                if(state.count < 10 || isBetweenLearningRatio(result, state, value)) {
+                    double diff = Math.abs(value - state.mean);
                     
-                    if(mean != value)
-                        mean = mean * (1 - learning_ratio) + value * learning_ratio;
+                    if(state.mean != value)
+                        state.mean = state.mean * (1 - learning_ratio) + value * learning_ratio;
                     
-                    if(variance == 0f)
-                        variance = diff;
-                    variance = variance * (1 - learning_ratio) + diff * learning_ratio;
+                    if(state.variance == 0f)
+                        state.variance = diff;
+                    state.variance = state.variance * (1 - learning_ratio) + diff * learning_ratio;
                     
-                    count++;
+                    state.count++;
                 }
             }
-        }else {            
-            if(history.size() < 10 || isBetweenLearningRatio(result, value)) {
+        }else {
+            ValueHistory history = state.history;
+            
+            if(history.size() < 10 || isBetweenLearningRatio(result, state, value)) {
                 history.add(timestamp, new FloatValue(value));
             }
             
@@ -198,11 +187,11 @@ public class RecentActivityAnalysis extends NumericAnalysis implements HasStatus
                 
                 DescriptiveStatistics stats = history.getStatistics();
 
-                mean = stats.getMean();
-                variance = stats.getStandardDeviation();
+                state.mean = stats.getMean();
+                state.variance = stats.getStandardDeviation();
             }
             
-            count = history.size();
+            state.count = history.size();
         }
     }
 
@@ -210,7 +199,10 @@ public class RecentActivityAnalysis extends NumericAnalysis implements HasStatus
         return learning_ratio != null;
     }
 
-    private boolean isBetweenLearningRatio(AnalysisResult resultvalue, double value) {
+    private boolean isBetweenLearningRatio(AnalysisResult resultvalue, Status_ state, double value) {
+        double mean = state.mean;
+        double variance = state.variance;
+        
         Double learning_upperbound = null;
         if(learning_upperbound_ratio != null) {
             learning_upperbound = mean + variance * learning_upperbound_ratio;
@@ -229,10 +221,13 @@ public class RecentActivityAnalysis extends NumericAnalysis implements HasStatus
                 (learning_lowerbound == null || value > learning_lowerbound);
     }
 
-    private void processErrorLowerbound(AnalysisResult result, double value) {
+    private void processErrorLowerbound(AnalysisResult result, Status_ state, double value) {
         if (!error_lowerbound)
             return;
 
+        double mean = state.mean;
+        double variance = state.variance;
+        
         double error_lowerbound_value = mean - variance * error_ratio;
         result.addAnalysisParam("error_lowerbound", error_lowerbound_value);
 
@@ -247,10 +242,13 @@ public class RecentActivityAnalysis extends NumericAnalysis implements HasStatus
         }
     }
 
-    private void processWarningLowerbound(AnalysisResult result, double value) {
+    private void processWarningLowerbound(AnalysisResult result, Status_ state, double value) {
         if (!warning_lowerbound)
             return;
 
+        double mean = state.mean;
+        double variance = state.variance;
+        
         double warning_lowerbound_value = mean - variance * warn_ratio;
         result.addAnalysisParam("warning_lowerbound", warning_lowerbound_value);
 
@@ -265,10 +263,13 @@ public class RecentActivityAnalysis extends NumericAnalysis implements HasStatus
         }
     }
 
-    private void processWarningUpperbound(AnalysisResult result, double value) {
+    private void processWarningUpperbound(AnalysisResult result, Status_ state, double value) {
         if (!warning_upperbound)
             return;
 
+        double mean = state.mean;
+        double variance = state.variance;
+        
         double warning_upperbound_value = mean + variance * warn_ratio;
         result.addAnalysisParam("warning_upperbound", warning_upperbound_value);
 
@@ -283,10 +284,13 @@ public class RecentActivityAnalysis extends NumericAnalysis implements HasStatus
         }
     }
 
-    private void processErrorUpperbound(AnalysisResult result, double value) {
+    private void processErrorUpperbound(AnalysisResult result, Status_ state, double value) {
         if (!error_upperbound)
             return;
 
+        double mean = state.mean;
+        double variance = state.variance;
+        
         double error_upperbound_value = mean + variance * error_ratio;
         result.addAnalysisParam("error_upperbound", error_upperbound_value);
 
@@ -1,19 +1,30 @@
 package ch.cern.exdemon.monitor.analysis.types;
 
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
 import java.time.Instant;
 
+import com.esotericsoftware.kryo.DefaultSerializer;
+import com.esotericsoftware.kryo.serializers.JavaSerializer;
+
 import ch.cern.exdemon.components.ConfigurationResult;
 import ch.cern.exdemon.components.RegisterComponentType;
 import ch.cern.exdemon.metrics.predictor.LearningRatioValuePredictor;
 import ch.cern.exdemon.metrics.predictor.Prediction;
-import ch.cern.exdemon.monitor.analysis.NumericAnalysis;
+import ch.cern.exdemon.monitor.analysis.StatefulNumericAnalysis;
 import ch.cern.exdemon.monitor.analysis.results.AnalysisResult;
 import ch.cern.properties.Properties;
-import ch.cern.spark.status.HasStatus;
 import ch.cern.spark.status.StatusValue;
+import ch.cern.spark.status.storage.ClassNameAlias;
+import lombok.Getter;
 
 @RegisterComponentType("seasonal")
-public class SeasonalAnalysis extends NumericAnalysis implements HasStatus{
+public class SeasonalAnalysis extends StatefulNumericAnalysis<SeasonalAnalysis.Status_>{
 
     private static final long serialVersionUID = 6395895250358427351L;
 
@@ -25,8 +36,6 @@ public class SeasonalAnalysis extends NumericAnalysis implements HasStatus{
     public static final float LEARNING_RATIO_DEFAULT = 0.5f;
     private float learning_ratio;
     
-    private LearningRatioValuePredictor predictor;
-    
     public static String ERROR_RATIO_PARAM = "error.ratio";
     public static Float ERROR_RATIO_DEFAULT = 4f;
     private Float error_ratio;
@@ -34,6 +43,10 @@ public class SeasonalAnalysis extends NumericAnalysis implements HasStatus{
     public static String WARNING_RATIO_PARAM = "warn.ratio";
     public static Float WARNING_RATIO_DEFAULT = 2f;
     private Float warning_ratio;
+    
+    public static String PRECISION_PARAM = "precision";
+    public static String PRECISION_DEFAULT = "full";
+    private LearningRatioValuePredictor.Precision precision;
 
     public ConfigurationResult config(Properties properties) {
         ConfigurationResult confResult = ConfigurationResult.SUCCESSFUL();
@@ -41,36 +54,51 @@ public class SeasonalAnalysis extends NumericAnalysis implements HasStatus{
         learning_ratio = properties.getFloat(LEARNING_RATIO_PARAM, LEARNING_RATIO_DEFAULT);
         season = properties.getProperty(SEASON_PARAM, SEASON_DEFAULT).toUpperCase();    
         
-        predictor = new LearningRatioValuePredictor(learning_ratio, LearningRatioValuePredictor.Period.valueOf(season));
-        
         error_ratio = properties.getFloat(ERROR_RATIO_PARAM, ERROR_RATIO_DEFAULT);
         warning_ratio = properties.getFloat(WARNING_RATIO_PARAM, WARNING_RATIO_DEFAULT);
         
+        precision = LearningRatioValuePredictor.Precision.FULL;
+        try {
+            precision = LearningRatioValuePredictor.Precision.valueOf(properties.getProperty(PRECISION_PARAM, PRECISION_DEFAULT).toUpperCase());
+        }catch(IllegalArgumentException e) {
+            confResult.withError(PRECISION_PARAM, "must be full, half or quantized");
+        }
+        
         return confResult.merge(null, properties.warningsIfNotAllPropertiesUsed());
     }
     
     @Override
-    public void load(StatusValue store) {
-        if(store == null){
-            predictor = new LearningRatioValuePredictor(learning_ratio, LearningRatioValuePredictor.Period.valueOf(season));
-        }else{
-            predictor = ((LearningRatioValuePredictor.Status_) store).predictor;
-            predictor.setLearningRatio(learning_ratio);
-            predictor.setPeriod(LearningRatioValuePredictor.Period.valueOf(season));
-        }
+    public Status_ newState() {
+        Status_ state = new Status_();
+        state.predictor = new LearningRatioValuePredictor(learning_ratio, LearningRatioValuePredictor.Period.valueOf(season));
+        
+        return state;
     }
     
     @Override
-    public StatusValue save() {
-        LearningRatioValuePredictor.Status_ store = new LearningRatioValuePredictor.Status_();
+    public Status_ getState(StatusValue status) {
+        if(status instanceof Status_)
+            return (Status_) status;
         
-        store.predictor = predictor;
+        // Stored with the previous format
+        if(status instanceof LearningRatioValuePredictor.Status_) {
+            Status_ state = new Status_();
+            state.predictor = ((LearningRatioValuePredictor.Status_) status).predictor;
+            
+            return state;
+        }
         
-        return store;
+        return newState();
     }
 
     @Override
-    public AnalysisResult process(Instant timestamp, double value) {
+    public AnalysisResult process(Status_ state, Instant timestamp, double value) {
+        // Configuration may have changed since the state was created
+        state.precision = precision;
+        LearningRatioValuePredictor predictor = state.predictor;
+        predictor.setLearningRatio(learning_ratio);
+        predictor.setPeriod(LearningRatioValuePredictor.Period.valueOf(season));
+        
         AnalysisResult result = new AnalysisResult();
         try{
             Prediction prediction = predictor.getPredictionForTime(timestamp);
@@ -145,4 +173,46 @@ public class SeasonalAnalysis extends NumericAnalysis implements HasStatus{
         }
     }
 
+    // Predictor is stored with a compact format, only set slots are stored
+    @ClassNameAlias("seasonal")
+    @DefaultSerializer(JavaSerializer.class)
+    public static class Status_ extends StatusValue {
+        private static final long serialVersionUID = -1938261047326851462L;
+        
+        public transient LearningRatioValuePredictor predictor;
+        
+        @Getter
+        private LearningRatioValuePredictor.Precision precision = LearningRatioValuePredictor.Precision.FULL;
+        
+        public byte[] getPredictorBytes() throws IOException {
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+            
+            try(DataOutputStream out = new DataOutputStream(bytes)) {
+                predictor.write(out, precision != null ? precision : LearningRatioValuePredictor.Precision.FULL);
+            }
+            
+            return bytes.toByteArray();
+        }
+        
+        public void setPredictorBytes(byte[] bytes) throws IOException {
+            predictor = LearningRatioValuePredictor.read(new DataInputStream(new ByteArrayInputStream(bytes)));
+        }
+        
+        private void writeObject(ObjectOutputStream out) throws IOException {
+            out.defaultWriteObject();
+            
+            byte[] bytes = getPredictorBytes();
+            out.writeInt(bytes.length);
+            out.write(bytes);
+        }
+        
+        private void readObject(ObjectInputStream in) throws IOException, ClassNotFoundException {
+            in.defaultReadObject();
+            
+            byte[] bytes = new byte[in.readInt()];
+            in.readFully(bytes);
+            setPredictorBytes(bytes);
+        }
+    }
+
 }
@@ -0,0 +1,64 @@
+package ch.cern.exdemon.monitor.analysis.types.htm;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import org.numenta.nupic.algorithms.AnomalyLikelihood;
+import org.numenta.nupic.network.Network;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+// Executor local cache of live models, least recently used models are evicted.
+// Models are identified by the ID kept in the status and only returned for the version of the status.
+public class HTMModelsCache {
+    
+    private static int maxSize = 0;
+    
+    private static final Map<String, Model> MODELS = new LinkedHashMap<String, Model>(16, 0.75f, true) {
+        private static final long serialVersionUID = 2938470217430398624L;
+
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, Model> eldest) {
+            return size() > maxSize;
+        }
+    };
+    
+    // Shared by all HTM analysis of the executor, the biggest configured size applies
+    public static synchronized void ensureCapacity(int size) {
+        maxSize = Math.max(maxSize, size);
+    }
+    
+    public static synchronized Model get(String id, long version) {
+        Model model = MODELS.get(id);
+        
+        return model != null && model.version == version ? model : null;
+    }
+    
+    public static synchronized void put(String id, Model model) {
+        MODELS.put(id, model);
+    }
+    
+    public static synchronized int size() {
+        return MODELS.size();
+    }
+    
+    public static synchronized void clear() {
+        MODELS.clear();
+    }
+    
+    @Getter
+    @AllArgsConstructor
+    public static class Model {
+        
+        private Network network;
+        
+        private AnomalyLikelihood anomalyLikelihood;
+        
+        private int learningPhaseCounter;
+        
+        private long version;
+        
+    }
+
+}
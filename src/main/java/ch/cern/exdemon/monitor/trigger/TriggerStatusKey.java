@@ -2,6 +2,7 @@ package ch.cern.exdemon.monitor.trigger;
 
 import java.util.Map;
 
+import ch.cern.exdemon.metrics.Attributes;
 import ch.cern.spark.status.IDStatusKey;
 import ch.cern.spark.status.storage.ClassNameAlias;
 import lombok.EqualsAndHashCode;
@@ -28,7 +29,7 @@ public class TriggerStatusKey implements IDStatusKey{
     public TriggerStatusKey(@NonNull String monitorID, @NonNull String triggerID, @NonNull Map<String, String> metric_attributes){
         this.monitor_id = monitorID;
         this.id = triggerID;
-        this.metric_attributes = metric_attributes;
+        this.metric_attributes = Attributes.of(metric_attributes);
     }
     
     public String getNotificatorID() {
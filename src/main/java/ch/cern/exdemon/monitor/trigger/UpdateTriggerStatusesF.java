@@ -2,11 +2,16 @@ package ch.cern.exdemon.monitor.trigger;
 
 import java.time.Duration;
 import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
 import java.util.Map;
 import java.util.Optional;
 
 import org.apache.spark.streaming.State;
 
+import com.codahale.metrics.Counter;
+
 import ch.cern.exdemon.components.Component.Type;
 import ch.cern.exdemon.components.ComponentsCatalog;
 import ch.cern.exdemon.monitor.Monitor;
@@ -14,6 +19,7 @@ import ch.cern.exdemon.monitor.analysis.results.AnalysisResult;
 import ch.cern.exdemon.monitor.trigger.action.Action;
 import ch.cern.exdemon.monitor.trigger.action.template.Template;
 import ch.cern.properties.Properties;
+import ch.cern.spark.JobMetricsSource;
 import ch.cern.spark.status.HasStatus;
 import ch.cern.spark.status.UpdateStatusFunction;
 
@@ -23,6 +29,8 @@ public class UpdateTriggerStatusesF
     private static final long serialVersionUID = 1540971922358997509L;
 
     private Properties componentsSourceProperties;
+    
+    private transient Counter emittedActionsCounter;
 
     public UpdateTriggerStatusesF(Properties componentsSourceProperties) {
         this.componentsSourceProperties = componentsSourceProperties;
@@ -30,17 +38,44 @@ public class UpdateTriggerStatusesF
 
     @Override
     protected Optional<Action> update(TriggerStatusKey ids, AnalysisResult result, State<TriggerStatus> state) throws Exception {
+        List<Action> actions = update(ids, Collections.singletonList(result), state);
+        
+        return actions.isEmpty() ? Optional.empty() : Optional.of(actions.get(0));
+    }
+    
+    // Trigger and its status are obtained and stored once for all results of the batch
+    @Override
+    protected List<Action> update(TriggerStatusKey ids, List<AnalysisResult> results, State<TriggerStatus> state) throws Exception {
         Optional<Monitor> monitorOpt = getMonitor(ids.getMonitor_id());
         if (!monitorOpt.isPresent())
-            return Optional.empty();
+            return Collections.emptyList();
         Monitor monitor = monitorOpt.get();
         
         Trigger trigger = monitor.getTriggers().get(ids.getNotificatorID());
         if (trigger == null)
-            return Optional.empty();
+            return Collections.emptyList();
         
         TriggerStatus status = getStatus(state);
         
+        boolean updated = false;
+        List<Action> actions = new ArrayList<>();
+        for (AnalysisResult result : results) {
+            //Status is not updated by results in silent period if there is no trigger for it
+            if(isSilentPeriod(status, trigger.getSilentPeriod(), result.getAnalyzed_metric().getTimestamp()) 
+                    && trigger.getSilentPeriodTrigger() == null)
+                continue;
+            
+            update(ids, trigger, status, result).ifPresent(actions::add);
+            updated = true;
+        }
+        
+        if(updated)
+            state.update(status);
+        
+        return actions;
+    }
+    
+    private Optional<Action> update(TriggerStatusKey ids, Trigger trigger, TriggerStatus status, AnalysisResult result) {
         Optional<Action> actionOpt = Optional.empty();
         
         if(!isSilentPeriod(status, trigger.getSilentPeriod(), result.getAnalyzed_metric().getTimestamp())) {
@@ -54,12 +89,8 @@ public class UpdateTriggerStatusesF
 
             if (trigger.hasStatus())
                 status.setActiveStatus(((HasStatus) trigger).save());
-            
-            state.update(status);
         }else {
             Trigger silentPeriodTrigger = trigger.getSilentPeriodTrigger();
-            if(silentPeriodTrigger == null)
-                return Optional.empty();
             
             if (silentPeriodTrigger.hasStatus())
                 ((HasStatus) silentPeriodTrigger).load(status.getSailentStatus());
@@ -75,8 +106,12 @@ public class UpdateTriggerStatusesF
                 else
                     status.setSailentStatus(((HasStatus) silentPeriodTrigger).save());
             }
-            
-            state.update(status);
+        }
+
+        if(actionOpt.isPresent()) {
+            if(emittedActionsCounter == null)
+                emittedActionsCounter = JobMetricsSource.counter("actions", "emitted");
+            emittedActionsCounter.inc();
         }
 
         actionOpt.ifPresent(a -> {
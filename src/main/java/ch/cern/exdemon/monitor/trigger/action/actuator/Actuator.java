@@ -1,9 +1,21 @@
 package ch.cern.exdemon.monitor.trigger.action.actuator;
 
+import java.time.Duration;
+import java.util.List;
+
+import org.apache.log4j.Logger;
+
+import com.codahale.metrics.Counter;
+import com.codahale.metrics.Histogram;
+
 import ch.cern.exdemon.components.Component;
 import ch.cern.exdemon.components.ComponentType;
+import ch.cern.exdemon.components.ConfigurationResult;
 import ch.cern.exdemon.components.Component.Type;
 import ch.cern.exdemon.monitor.trigger.action.Action;
+import ch.cern.properties.ConfigurationException;
+import ch.cern.properties.Properties;
+import ch.cern.spark.JobMetricsSource;
 import lombok.Getter;
 import lombok.Setter;
 
@@ -12,13 +24,79 @@ public abstract class Actuator extends Component {
 
     private static final long serialVersionUID = 8984201586179047078L;
     
+    private transient final static Logger LOG = Logger.getLogger(Actuator.class.getName());
+    
     @Getter @Setter
     private String id;
+    
+    public static final String RUN_TIMEOUT_PARAM = "run.timeout";
+    public static final Duration RUN_TIMEOUT_DEFAULT = Duration.ofMinutes(1);
+    @Getter
+    private Duration runTimeout = RUN_TIMEOUT_DEFAULT;
+    
+    private transient volatile Counter actionsCounter;
+    private transient Counter failuresCounter;
+    private transient Histogram runTime;
+
+    protected ConfigurationResult configRunTimeout(Properties properties) {
+        try {
+            runTimeout = properties.getPeriod(RUN_TIMEOUT_PARAM, RUN_TIMEOUT_DEFAULT);
+        } catch (ConfigurationException e) {
+            return ConfigurationResult.SUCCESSFUL().withError(null, e);
+        }
+        
+        return ConfigurationResult.SUCCESSFUL();
+    }
 
 	protected boolean shouldBeProcess(Action action) {
         return action.getActuatorIDs().contains(id) || action.getActuatorIDs().contains("ALL");
     }
 
+    // Runs all the actions of a partition, a failing action does not prevent the rest from running
+    // Actions not started before the deadline (epoch ms) are not run
+    protected void run(List<Action> actions, long deadline) throws InterruptedException {
+        initMetrics();
+        
+        for (Action action : actions) {
+            if(Thread.interrupted())
+                throw new InterruptedException();
+            if(System.currentTimeMillis() >= deadline)
+                return;
+            
+            try {
+                run(action);
+            } catch (InterruptedException e) {
+                throw e;
+            } catch (Exception e) {
+                failuresCounter.inc();
+                
+                LOG.error("Actuator ID=" + id + ": problem when running action=" + action, e);
+            }
+        }
+    }
+    
+    final void runAndMeasure(List<Action> actions, long deadline) throws InterruptedException {
+        initMetrics();
+        
+        actionsCounter.inc(actions.size());
+        
+        long start = System.nanoTime();
+        try {
+            run(actions, deadline);
+        } finally {
+            runTime.update(System.nanoTime() - start);
+        }
+    }
+
+    private void initMetrics() {
+        if(actionsCounter != null)
+            return;
+        
+        failuresCounter = JobMetricsSource.counter("actuators", id, "failures");
+        runTime = JobMetricsSource.histogram("actuators", id, "run_time_ns");
+        actionsCounter = JobMetricsSource.counter("actuators", id, "actions");
+    }
+
     protected abstract void run(Action action) throws Exception;
 	
 }
@@ -8,7 +8,7 @@ import ch.cern.properties.Properties;
 public class Actuators {
 
     public static void run(JavaDStream<Action> actions, Properties propertiesSourceProps) {
-        actions.foreachRDD(rdd -> rdd.foreach(new RunActuatorsF(propertiesSourceProps)));
+        actions.foreachRDD(rdd -> rdd.foreachPartition(new RunActuatorsF(propertiesSourceProps)));
     }
 
 }
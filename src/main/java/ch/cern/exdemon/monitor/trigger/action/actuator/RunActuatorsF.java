@@ -1,6 +1,17 @@
 package ch.cern.exdemon.monitor.trigger.action.actuator;
 
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
 
 import org.apache.log4j.Logger;
 import org.apache.spark.api.java.function.VoidFunction;
@@ -10,34 +21,79 @@ import ch.cern.exdemon.components.Component.Type;
 import ch.cern.exdemon.monitor.trigger.action.Action;
 import ch.cern.properties.Properties;
 
-public class RunActuatorsF implements VoidFunction<Action> {
+public class RunActuatorsF implements VoidFunction<Iterator<Action>> {
 
     private static final long serialVersionUID = -7248445923365556277L;
     
     private transient final static Logger LOG = Logger.getLogger(RunActuatorsF.class.getName());
     
+    private static final ExecutorService RUNNERS = Executors.newCachedThreadPool(runnable -> {
+        Thread thread = new Thread(runnable, "actuator-runner");
+        thread.setDaemon(true);
+        return thread;
+    });
+    
     private Properties componentsSourceProperties;
 
     public RunActuatorsF(Properties componentsSourceProperties) {
         this.componentsSourceProperties = componentsSourceProperties;
     }
 
+    // Actuators run concurrently, each one with all its actions of the partition and within its time budget
     @Override
-    public void call(Action action) throws Exception {
+    public void call(Iterator<Action> actions) throws Exception {
         ComponentsCatalog.init(componentsSourceProperties);
         
-        action.getActuatorIDs().stream().forEach(actuatorID -> {
+        Map<String, List<Action>> actionsPerActuator = new LinkedHashMap<>();
+        while(actions.hasNext()) {
+            Action action = actions.next();
+            
+            for (String actuatorID : action.getActuatorIDs())
+                actionsPerActuator.computeIfAbsent(actuatorID, id -> new ArrayList<>()).add(action);
+        }
+        
+        long start = System.currentTimeMillis();
+        
+        Map<Actuator, Future<?>> runs = new LinkedHashMap<>();
+        for (Map.Entry<String, List<Action>> actuatorActions : actionsPerActuator.entrySet()) {
+            String actuatorID = actuatorActions.getKey();
+            
             try {
                 Optional<Actuator> actuatorOpt = ComponentsCatalog.get(Type.ACTUATOR, actuatorID);
                 
-                if(actuatorOpt.isPresent())
-                    actuatorOpt.get().run(action);
-                else
-                    LOG.error("Action " + action + " could not be run because actuator with id " + actuatorID + " does not exist.");
+                if(actuatorOpt.isPresent()) {
+                    Actuator actuator = actuatorOpt.get();
+                    long deadline = start + actuator.getRunTimeout().toMillis();
+                    
+                    runs.put(actuator, RUNNERS.submit(() -> {
+                        actuator.runAndMeasure(actuatorActions.getValue(), deadline);
+                        
+                        return null;
+                    }));
+                } else {
+                    for (Action action : actuatorActions.getValue())
+                        LOG.error("Action " + action + " could not be run because actuator with id " + actuatorID + " does not exist.");
+                }
             } catch (Exception e) {
-                LOG.error("Actuator ID=" +actuatorID + ": problem when running action=" + action, e);
+                LOG.error("Actuator ID=" + actuatorID + ": problem when running " + actuatorActions.getValue().size() + " actions", e);
+            }
+        }
+        
+        for (Map.Entry<Actuator, Future<?>> run : runs.entrySet()) {
+            Actuator actuator = run.getKey();
+            long remaining = start + actuator.getRunTimeout().toMillis() - System.currentTimeMillis();
+            
+            try {
+                run.getValue().get(Math.max(0, remaining), TimeUnit.MILLISECONDS);
+            } catch (TimeoutException e) {
+                run.getValue().cancel(true);
+                
+                LOG.error("Actuator ID=" + actuator.getId() + ": actions not completed within " + actuator.getRunTimeout() 
+                            + ", not completed actions are discarded");
+            } catch (ExecutionException e) {
+                LOG.error("Actuator ID=" + actuator.getId() + ": problem when running " + actionsPerActuator.get(actuator.getId()).size() + " actions", e.getCause());
             }
-        });
+        }
     }
 
 }
@@ -1,8 +1,13 @@
 package ch.cern.exdemon.monitor.trigger.action.actuator.types;
 
 import java.text.ParseException;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Map;
 
+import org.apache.log4j.LogManager;
+import org.apache.log4j.Logger;
+
 import ch.cern.exdemon.components.ConfigurationResult;
 import ch.cern.exdemon.components.RegisterComponentType;
 import ch.cern.exdemon.http.HTTPSink;
@@ -20,6 +25,8 @@ import lombok.ToString;
 public class CERNGNIActuator extends Actuator {
 
 	private static final long serialVersionUID = 6416955181811280312L;
+
+	private final static Logger LOG = LogManager.getLogger(CERNGNIActuator.class);
 	
 	private Properties contentProperties;
 	
@@ -35,7 +42,21 @@ public class CERNGNIActuator extends Actuator {
 		
 		propertiesToAdd = properties.getSubset("add").toStringMap();
 		
-		return sink.config(properties);
+		return sink.config(properties).merge(null, configRunTimeout(properties));
+	}
+	
+	@Override
+	protected void run(List<Action> actions, long deadline) throws InterruptedException {
+	    List<JsonPOSTRequest> requests = new ArrayList<>(actions.size());
+	    for (Action action : actions) {
+	        try {
+	            requests.add(toJsonPOSTRequest(GNINotification.from(contentProperties, action)));
+	        } catch (Exception e) {
+	            LOG.error("Actuator ID=" + getId() + ": problem when running action=" + action, e);
+	        }
+	    }
+	    
+	    sink.sink(requests.iterator(), deadline);
 	}
 	
 	@Override
@@ -56,7 +56,7 @@ public class EmailActuator extends Actuator {
 		subjectProp = properties.getProperty("subject", "<tags:email.subject>");
 		textProp = properties.getProperty("text", "<tags:email.text>");
 		
-		return confResult;
+		return confResult.merge(null, configRunTimeout(properties));
 	}
 
     @Override
@@ -1,8 +1,13 @@
 package ch.cern.exdemon.monitor.trigger.action.actuator.types;
 
 import java.text.ParseException;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Map;
 
+import org.apache.log4j.LogManager;
+import org.apache.log4j.Logger;
+
 import ch.cern.exdemon.components.ConfigurationResult;
 import ch.cern.exdemon.components.RegisterComponentType;
 import ch.cern.exdemon.http.HTTPSink;
@@ -22,6 +27,8 @@ public class HTTPActuator extends Actuator {
 
 	private static final long serialVersionUID = 6368509840922047167L;
 
+	private final static Logger LOG = LogManager.getLogger(HTTPActuator.class);
+
 	private HTTPSink sink = new HTTPSink();
 
     private Map<String, String> propertiesToAdd;
@@ -46,7 +53,21 @@ public class HTTPActuator extends Actuator {
         }
 		propertiesToAdd = properties.getSubset("add").toStringMap();
 		
-		return sink.config(properties).merge(null, confResult);
+		return sink.config(properties).merge(null, confResult).merge(null, configRunTimeout(properties));
+	}
+
+	@Override
+	protected void run(List<Action> actions, long deadline) throws InterruptedException {
+	    List<JsonPOSTRequest> requests = new ArrayList<>(actions.size());
+	    for (Action action : actions) {
+	        try {
+	            requests.add(toJsonPOSTRequest(action));
+	        } catch (Exception e) {
+	            LOG.error("Actuator ID=" + getId() + ": problem when running action=" + action, e);
+	        }
+	    }
+	    
+	    sink.sink(requests.iterator(), deadline);
 	}
 
 	@Override
@@ -5,17 +5,22 @@ import java.util.Optional;
 
 import org.apache.spark.api.java.function.Function;
 
+import com.codahale.metrics.Counter;
+
 import ch.cern.exdemon.components.Component.Type;
 import ch.cern.exdemon.components.ComponentsCatalog;
 import ch.cern.exdemon.json.JSONParser;
 import ch.cern.exdemon.monitor.trigger.action.Action;
 import ch.cern.properties.Properties;
+import ch.cern.spark.JobMetricsSource;
 
 public class SilencesFilterF implements Function<Action, Boolean> {
 
     private static final long serialVersionUID = 7712606037271217706L;
 
     private Properties componentsSourceProperties;
+    
+    private transient Counter silencedActionsCounter;
 
     public SilencesFilterF(Properties componentsSourceProps) {
         this.componentsSourceProperties = componentsSourceProps;
@@ -32,7 +37,15 @@ public class SilencesFilterF implements Function<Action, Boolean> {
                                                           .map(silence -> shouldSilentAndReport(action, silence))
                                                           .reduce((a, b) -> a && b);
         
-        return filterResult.orElse(true);
+        boolean allowed = filterResult.orElse(true);
+        
+        if(!allowed) {
+            if(silencedActionsCounter == null)
+                silencedActionsCounter = JobMetricsSource.counter("actions", "silenced");
+            silencedActionsCounter.inc();
+        }
+        
+        return allowed;
     }
 
     private boolean shouldSilentAndReport(Action action, Silence silence) {
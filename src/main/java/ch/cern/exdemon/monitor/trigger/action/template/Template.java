@@ -4,21 +4,19 @@ import java.time.Duration;
 import java.time.Instant;
 import java.time.ZoneId;
 import java.time.format.DateTimeFormatter;
-import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
-import java.util.Map.Entry;
-import java.util.regex.Matcher;
-import java.util.regex.Pattern;
-import java.util.stream.Collectors;
+import java.util.concurrent.ConcurrentHashMap;
 
 import com.esotericsoftware.minlog.Log;
 
 import ch.cern.exdemon.metrics.Metric;
-import ch.cern.exdemon.metrics.filter.MetricsFilter;
 import ch.cern.exdemon.monitor.analysis.results.AnalysisResult;
 import ch.cern.exdemon.monitor.trigger.action.Action;
-import ch.cern.properties.Properties;
+import ch.cern.exdemon.monitor.trigger.action.template.TemplateString.Container;
+import ch.cern.exdemon.monitor.trigger.action.template.TemplateString.Part;
+import ch.cern.exdemon.monitor.trigger.action.template.TemplateString.Placeholder;
+import ch.cern.exdemon.monitor.trigger.action.template.TemplateString.Text;
 import ch.cern.utils.StringUtils;
 import ch.cern.utils.TimeUtils;
 import lombok.NonNull;
@@ -27,187 +25,177 @@ public class Template {
     
     public static DateTimeFormatter dateFormatter = DateTimeFormatter.ofPattern("YYYY-MM-dd hh:mm:ss").withZone(ZoneId.systemDefault());
     
-    public static synchronized String apply(String templateAsString, @NonNull Action action) {
+    private static final int MAX_PARSED_TEMPLATES = 1000;
+    
+    private static final Map<String, TemplateString> parsedTemplates = new ConcurrentHashMap<>();
+    
+    public static String apply(String templateAsString, @NonNull Action action) {
         if(templateAsString == null)
             return null;
         
-        TemplateString template = new TemplateString(templateAsString);
-        
-        template.replace("monitor_id", action.getMonitor_id());
-        template.replace("trigger_id", action.getTrigger_id());
-        
-        //TODO DEPRECATED
-        template.replaceContainer("agg_metrics", new AggregatedMetricsSupplier(action.getTriggeringResult()));
-        //TODO DEPRECATED
-        template.replaceContainer("source_metrics", new AggregatedMetricsSupplier(action.getTriggeringResult()));
-        
-        template.replaceKeys("attribute_value", action.getMetric_attributes());
-        template.replaceKeys("attributes", new AttributesSupplier(action.getMetric_attributes()));
-        
-        template.replace("reason", action.getReason());
-        
-        Map<String, String> tags = action.getTags() != null ? action.getTags() : new HashMap<>();
-         
-        String tags_attributes = "";
-        for(Map.Entry<String, String> tag: tags.entrySet())
-            tags_attributes += "\n" + tag.getKey() + " = " + tag.getValue();
-        if(tags.size() != 0)
-            template.replace("tags", tags_attributes);
-        else
-            template.replace("tags", "(empty)");
-        
-        template.replaceKeys("tags", new TagsSupplier(action));
+        StringBuilder output = new StringBuilder(templateAsString.length() * 2);
         
-        AnalysisResult triggeringResult = action.getTriggeringResult();
-        template.replace("triggering_value", triggeringResult.getAnalyzed_metric().getValue());
-        template.replace("analysis_status", triggeringResult.getStatus().toString().toLowerCase());
-        template.replaceKeys("analysis_param", triggeringResult.getAnalysisParams());
-        template.replace("datetime", dateFormatter.format(action.getCreation_timestamp()));
-        template.replaceKeys("datetime", new DateSupplier(action));
+        render(parse(templateAsString), action, null, output);
         
-        return template.toString();
+        return output.toString();
     }
 
-    private static class AttributesSupplier implements ValueSupplier {
-
-        private Map<String, String> attributes;
-
-        public AttributesSupplier(Map<String, String> attributes) {
-            this.attributes = attributes;
+    private static TemplateString parse(String templateAsString) {
+        TemplateString template = parsedTemplates.get(templateAsString);
+        
+        if(template == null) {
+            if(parsedTemplates.size() >= MAX_PARSED_TEMPLATES)
+                parsedTemplates.clear();
+            
+            template = TemplateString.parse(templateAsString);
+            parsedTemplates.put(templateAsString, template);
         }
+        
+        return template;
+    }
 
-        @Override
-        public Object get(String keyPatternAsString) {
-            Pattern keyPattern = Pattern.compile(keyPatternAsString);
-            
-            List<Entry<String, String>> matchingAttributes = attributes.entrySet().stream()
-                                                                        .filter(entry -> keyPattern.matcher(entry.getKey()).matches())
-                                                                        .collect(Collectors.toList());
-            
-            if(!matchingAttributes.isEmpty()) {
-                StringBuilder sb = new StringBuilder();
+    // Inside containers, placeholders are first replaced with the values of each metric
+    private static void render(TemplateString template, Action action, Metric metric, StringBuilder output) {
+        for (Part part : template.getParts()) {
+            if(part instanceof Text) {
+                output.append(((Text) part).getText());
+            }else if(part instanceof Container) {
+                renderContainer((Container) part, action, output);
+            }else {
+                Placeholder placeholder = (Placeholder) part;
                 
-                for(Map.Entry<String, String> att: matchingAttributes)
-                    sb.append("\n" + att.getKey() + " = " + StringUtils.removeTrailingZerosIfNumber(att.getValue()));
+                Object value = metric != null ? getValue(placeholder, metric) : null;
+                if(value == null)
+                    value = getValue(placeholder, action);
                 
-                return sb.toString();
-            }else {
-                return "";
+                if(value != null)
+                    output.append(StringUtils.removeTrailingZerosIfNumber(String.valueOf(value)));
+                else
+                    output.append(placeholder.getText());
             }
         }
-        
     }
-    
-    private static class TagsSupplier implements ValueSupplier {
-
-        private Action action;
 
-        public TagsSupplier(Action action) {
-            this.action = action;
-        }
-
-        @Override
-        public Object get(String key) {
-            Object value = action.getTags() != null ? action.getTags().get(key) : null;
-            
-            return apply(String.valueOf(value), action);
-        }
+    private static void renderContainer(Container container, Action action, StringBuilder output) {
+        List<Metric> lastSourceMetrics = action.getTriggeringResult().getAnalyzed_metric().getValue().getLastSourceMetrics();
         
+        boolean anyMetric = false;
+        if(lastSourceMetrics != null)
+            for (Metric metric : lastSourceMetrics)
+                if(container.getFilter().test(metric)) {
+                    render(container.getBody(), action, metric, output);
+                    
+                    anyMetric = true;
+                }
+        
+        if(!anyMetric)
+            output.append("No aggregated metrics.");
     }
-    
-    private static class DateSupplier implements ValueSupplier {
-
-        private Action action;
 
-        public DateSupplier(Action action) {
-            this.action = action;
+    private static Object getValue(Placeholder placeholder, Metric metric) {
+        String key = placeholder.getKey();
+        
+        switch (placeholder.getName()) {
+        case "attribute_value":
+            return key != null ? getValue(metric.getAttributes(), key) : null;
+        case "attributes":
+            return key != null ? getAttributes(metric.getAttributes(), placeholder) : null;
+        case "datetime":
+            return key == null ? dateFormatter.format(metric.getTimestamp()) : null;
+        case "value":
+            return key == null ? String.valueOf(metric.getValue()) : null;
+        case "filter_expr":
+            return key != null ? "" : null;
+        default:
+            return null;
         }
+    }
 
-        @Override
-        public Object get(String paramsAsString) {
-            String[] params = paramsAsString.split(":");
-            String format = params[0];
-            
-            Instant time = action.getCreation_timestamp();
-            if(params.length > 1) {
-                try {
-                    Duration period = TimeUtils.parsePeriod(params[1]);
-                    
-                    time = time.plus(period);
-                } catch (Exception e) {
-                    Log.error("When parsing period for <datetime:" + paramsAsString + ">", e);
-                }
-            }
-            
-            String value = null;
-            
-            if(format.equals("utc"))
-                value = String.valueOf(time);
-            if(format.equals("ms"))
-                value = String.valueOf(time.toEpochMilli());
-            else
-                value = String.valueOf(time);
-            
-            return value;
-        }
+    private static Object getValue(Placeholder placeholder, Action action) {
+        String key = placeholder.getKey();
         
+        switch (placeholder.getName()) {
+        case "monitor_id":
+            return key == null ? action.getMonitor_id() : null;
+        case "trigger_id":
+            return key == null ? action.getTrigger_id() : null;
+        case "reason":
+            return key == null ? action.getReason() : null;
+        case "attribute_value":
+            return key != null ? getValue(action.getMetric_attributes(), key) : null;
+        case "attributes":
+            return key != null ? getAttributes(action.getMetric_attributes(), placeholder) : null;
+        case "tags":
+            return key != null ? getTag(action, key) : getTags(action);
+        case "triggering_value":
+            return key == null ? action.getTriggeringResult().getAnalyzed_metric().getValue() : null;
+        case "analysis_status":
+            return key == null ? action.getTriggeringResult().getStatus().toString().toLowerCase() : null;
+        case "analysis_param":
+            return key != null ? getValue(action.getTriggeringResult().getAnalysisParams(), key) : null;
+        case "datetime":
+            return key != null ? getDatetime(action, key) : dateFormatter.format(action.getCreation_timestamp());
+        default:
+            return null;
+        }
     }
     
-    private static class AggregatedMetricsSupplier implements ValueSupplier {
+    private static Object getValue(Map<String, ?> values, String key) {
+        Object value = values != null ? values.get(key) : null;
+        
+        return value != null ? value.toString() : null;
+    }
 
-        private AnalysisResult triggeringResult;
+    private static String getAttributes(Map<String, String> attributes, Placeholder placeholder) {
+        if(attributes == null)
+            return "";
+        
+        StringBuilder sb = new StringBuilder();
+        for(Map.Entry<String, String> att: attributes.entrySet())
+            if(placeholder.getKeyPattern().matcher(att.getKey()).matches())
+                sb.append("\n").append(att.getKey()).append(" = ").append(StringUtils.removeTrailingZerosIfNumber(att.getValue()));
+        
+        return sb.toString();
+    }
 
-        public AggregatedMetricsSupplier(AnalysisResult triggeringResult) {
-            this.triggeringResult = triggeringResult;
-        }
+    private static String getTags(Action action) {
+        Map<String, String> tags = action.getTags();
+        if(tags == null || tags.isEmpty())
+            return "(empty)";
+        
+        StringBuilder sb = new StringBuilder();
+        for(Map.Entry<String, String> tag: tags.entrySet())
+            sb.append("\n").append(tag.getKey()).append(" = ").append(tag.getValue());
+        
+        return sb.toString();
+    }
 
-        @Override
-        public Object get(String metricTemplateAsString) {
-            TemplateString globalMetricTemplate = new TemplateString(metricTemplateAsString);
-            
-            List<Metric> lastSourceMetrics = triggeringResult.getAnalyzed_metric().getValue().getLastSourceMetrics();
-            if(lastSourceMetrics == null)
-                return "No aggregated metrics.";
-            
-            MetricsFilter metricsFilter = getMetricsFilter(globalMetricTemplate);
-            List<Metric> metrics = lastSourceMetrics.stream().filter(metricsFilter::test).collect(Collectors.toList());
-            
-            if(metrics.isEmpty())
-                return "No aggregated metrics.";
-                
-            String finalText = "";
-            for (Metric metric : metrics) {
-                TemplateString metricTemplate = globalMetricTemplate.clone();
-                
-                metricTemplate.replaceKeys("attribute_value", metric.getAttributes());
-                metricTemplate.replaceKeys("attributes", new AttributesSupplier(metric.getAttributes()));
-                metricTemplate.replace("datetime", dateFormatter.format(metric.getTimestamp()));
-                metricTemplate.replace("value", String.valueOf(metric.getValue()));
-                
-                finalText = finalText.concat(metricTemplate.toString());
-            }
-            
-            return finalText;
-        }
+    // Tags can contain templates
+    private static String getTag(Action action, String key) {
+        Object value = action.getTags() != null ? action.getTags().get(key) : null;
+        
+        return apply(String.valueOf(value), action);
+    }
 
-        private MetricsFilter getMetricsFilter(TemplateString template) {
-            MetricsFilter filter = new MetricsFilter();
-            
-            Properties props = new Properties();
-           
-            Matcher filter_exprMatcher = Pattern.compile("\\<filter_expr:([^>]+)\\>").matcher(template.toString());     
-            if(filter_exprMatcher.find()) {
-                String filterExpression = filter_exprMatcher.group(1);
-                props.setProperty("expr", filterExpression);
+    private static String getDatetime(Action action, String paramsAsString) {
+        String[] params = paramsAsString.split(":");
+        String format = params[0];
+        
+        Instant time = action.getCreation_timestamp();
+        if(params.length > 1) {
+            try {
+                Duration period = TimeUtils.parsePeriod(params[1]);
                 
-                template.replace("filter_expr:"+filterExpression, "");
+                time = time.plus(period);
+            } catch (Exception e) {
+                Log.error("When parsing period for <datetime:" + paramsAsString + ">", e);
             }
-            
-            filter.config(props);
-            
-            return filter;
         }
         
+        if(format.equals("ms"))
+            return String.valueOf(time.toEpochMilli());
+        else
+            return String.valueOf(time);
     }
     
 }
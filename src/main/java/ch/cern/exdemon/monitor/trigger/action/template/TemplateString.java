@@ -1,78 +1,165 @@
 package ch.cern.exdemon.monitor.trigger.action.template;
 
-import java.util.Map;
-import java.util.regex.Matcher;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
 import java.util.regex.Pattern;
 
-import ch.cern.utils.StringUtils;
-import scala.util.matching.Regex;
+import ch.cern.exdemon.metrics.filter.MetricsFilter;
+import ch.cern.properties.Properties;
+import lombok.Getter;
 
+// Template parsed into text, placeholders (<name> or <name:key>) and containers (<name>...</name>)
 public class TemplateString {
 
-    private String template;
+    private static final Pattern NAME_PATTERN = Pattern.compile("[a-z_]+");
 
-    public TemplateString(String template) {
-        this.template = template;
-    }
+    public static final String[] CONTAINERS = {"agg_metrics", "source_metrics"};
+
+    @Getter
+    private List<Part> parts;
 
-    @Override
-    public String toString() {
-        return template;
+    private TemplateString(List<Part> parts) {
+        this.parts = parts;
     }
 
-    public void replace(String key, Object value) {
-        key = "<".concat(key).concat(">");
-        
-        template = template.replaceAll(Regex.quote(key), StringUtils.removeTrailingZerosIfNumber(Matcher.quoteReplacement(String.valueOf(value))));
+    public static TemplateString parse(String template) {
+        return new TemplateString(parse(template, 0, template.length()));
     }
 
-    public void replaceKeys(String mainKey, Map<String, ?> attributes) {
-        replaceKeys(mainKey, new ValueSupplier() {
-            @Override
-            public Object get(String key) {
-                if(attributes == null || !attributes.containsKey(key))
-                    return null;
-                
-                return StringUtils.removeTrailingZerosIfNumber(attributes.get(key).toString());
+    private static List<Part> parse(String template, int from, int to) {
+        List<Part> parts = new ArrayList<>();
+        StringBuilder text = new StringBuilder();
+
+        int index = from;
+        while (index < to) {
+            char character = template.charAt(index);
+
+            int end = character == '<' ? template.indexOf('>', index) : -1;
+            if(end < 0 || end >= to) {
+                text.append(character);
+                index++;
+                continue;
             }
-        });
-    }
-    
-    public void replaceKeys(String mainKey, ValueSupplier valueSupplier) {
-        Matcher matcher = Pattern.compile("\\<"+mainKey+":([^>]+)\\>").matcher(template);        
-        
-        while (matcher.find()) {
-            String key = matcher.group(1);
-            
-            if(valueSupplier != null && valueSupplier.get(key) != null) {
-                String value = StringUtils.removeTrailingZerosIfNumber(valueSupplier.get(key).toString());
-                
-                replace(mainKey + ":" + key, value);
+
+            String inner = template.substring(index + 1, end);
+
+            Part part = null;
+            int next = end + 1;
+
+            int closingStart = isContainer(inner) ? template.indexOf("</" + inner + ">", next) : -1;
+            if(closingStart >= 0 && closingStart + inner.length() + 3 <= to) {
+                part = new Container(inner, parse(template, next, closingStart));
+                next = closingStart + inner.length() + 3;
+            }else {
+                part = Placeholder.from(inner, template.substring(index, end + 1));
+            }
+
+            if(part != null) {
+                if(text.length() > 0)
+                    parts.add(new Text(text.toString()));
+                text.setLength(0);
+
+                parts.add(part);
+                index = next;
+            }else {
+                text.append(character);
+                index++;
             }
         }
+
+        if(text.length() > 0)
+            parts.add(new Text(text.toString()));
+
+        return Collections.unmodifiableList(parts);
+    }
+
+    private static boolean isContainer(String name) {
+        for (String container : CONTAINERS)
+            if(container.equals(name))
+                return true;
+
+        return false;
+    }
+
+    public static interface Part {
+    }
+
+    public static class Text implements Part {
+
+        @Getter
+        private String text;
+
+        private Text(String text) {
+            this.text = text;
+        }
+
     }
 
-    public void replaceContainer(String key, ValueSupplier valueSupplier) {
-        int startKey = template.indexOf("<"+key+">");
-        
-        while (startKey > -1){
-            int endKey = template.indexOf("</"+key+">", startKey);
-            
-            String preText = template.substring(0, startKey);
-            String subTemplate = template.substring(startKey + 13, endKey);
-            String postText = template.substring(endKey + 14);
-        
-            Object newValue = valueSupplier.get(subTemplate);
-            
-            template = preText + newValue + postText;
-
-            startKey = template.indexOf("<agg_metrics>", endKey);
+    public static class Placeholder implements Part {
+
+        @Getter
+        private String name;
+
+        @Getter
+        private String key;
+
+        // As written in the template, used when there is no value
+        @Getter
+        private String text;
+
+        @Getter
+        private Pattern keyPattern;
+
+        private Placeholder(String name, String key, String text) {
+            this.name = name;
+            this.key = key;
+            this.text = text;
+
+            if(name.equals("attributes") && key != null)
+                keyPattern = Pattern.compile(key);
+        }
+
+        private static Placeholder from(String inner, String text) {
+            int separator = inner.indexOf(':');
+
+            String name = separator < 0 ? inner : inner.substring(0, separator);
+            String key = separator < 0 ? null : inner.substring(separator + 1);
+
+            if(!NAME_PATTERN.matcher(name).matches() || (key != null && key.isEmpty()))
+                return null;
+
+            return new Placeholder(name, key, text);
         }
-        
+
     }
-    
-    protected TemplateString clone() {
-        return new TemplateString(template);
+
+    public static class Container implements Part {
+
+        @Getter
+        private String name;
+
+        @Getter
+        private TemplateString body;
+
+        @Getter
+        private MetricsFilter filter;
+
+        private Container(String name, List<Part> body) {
+            this.name = name;
+            this.body = new TemplateString(body);
+
+            Properties props = new Properties();
+            body.stream().filter(part -> part instanceof Placeholder)
+                         .map(part -> (Placeholder) part)
+                         .filter(placeholder -> placeholder.getName().equals("filter_expr") && placeholder.getKey() != null)
+                         .findFirst()
+                         .ifPresent(placeholder -> props.setProperty("expr", placeholder.getKey()));
+
+            filter = new MetricsFilter();
+            filter.config(props);
+        }
+
     }
-    
+
 }
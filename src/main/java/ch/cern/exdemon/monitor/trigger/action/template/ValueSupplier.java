@@ -1,7 +0,0 @@
-package ch.cern.exdemon.monitor.trigger.action.template;
-
-public interface ValueSupplier {
-
-    Object get(String key);
-
-}
@@ -1,9 +1,210 @@
 package ch.cern.exdemon.struct;
 
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+
+import org.apache.log4j.Logger;
+import org.apache.spark.sql.Dataset;
+import org.apache.spark.sql.Encoders;
+import org.apache.spark.sql.SparkSession;
+import org.apache.spark.sql.streaming.DataStreamReader;
+import org.apache.spark.sql.streaming.StreamingQuery;
+import org.apache.spark.sql.streaming.Trigger;
+
+import ch.cern.exdemon.components.ConfigurationResult;
+import ch.cern.exdemon.components.source.ComponentsSource;
+import ch.cern.exdemon.metrics.Metric;
+import ch.cern.exdemon.metrics.defined.ComputeDefinedMetricKeysF;
+import ch.cern.exdemon.metrics.defined.DefinedMetricStatuskey;
+import ch.cern.exdemon.metrics.defined.UpdateDefinedMetricStatusesF;
+import ch.cern.exdemon.metrics.defined.equation.var.VariableStatuses;
+import ch.cern.exdemon.monitor.ComputeMonitorKeysF;
+import ch.cern.exdemon.monitor.MonitorStatusKey;
+import ch.cern.exdemon.monitor.UpdateMonitorStatusesF;
+import ch.cern.exdemon.monitor.analysis.results.AnalysisResult;
+import ch.cern.exdemon.monitor.trigger.ComputeTriggerKeysF;
+import ch.cern.exdemon.monitor.trigger.TriggerStatus;
+import ch.cern.exdemon.monitor.trigger.TriggerStatusKey;
+import ch.cern.exdemon.monitor.trigger.UpdateTriggerStatusesF;
+import ch.cern.exdemon.monitor.trigger.action.Action;
+import ch.cern.exdemon.monitor.trigger.action.silence.SilencesFilterF;
+import ch.cern.exdemon.struct.schema.MetricSchema;
+import ch.cern.exdemon.struct.status.StructStatus;
+import ch.cern.properties.ConfigurationException;
+import ch.cern.properties.Properties;
+import ch.cern.spark.SparkConf;
+import ch.cern.spark.status.Status;
+import ch.cern.spark.status.StatusValue;
+
+// Structured Streaming engine: schemas, defined metrics, monitors and triggers with event time watermarks.
+// Schemas are configured statically, the rest of components are obtained from the components source.
 public class Driver {
 
-    public static void main(String[] args) {
-        
+    private transient final static Logger LOG = Logger.getLogger(Driver.class.getName());
+
+    public static String WATERMARK_DELAY_PARAM = "struct.watermark.delay";
+    public static Duration WATERMARK_DELAY_DEFAULT = Duration.ofMinutes(10);
+
+    public static String SCHEMAS_PARAM = "metrics.schema";
+
+    // Managed by the Kafka source of Structured Streaming
+    private static final List<String> KAFKA_UNSUPPORTED_PARAMS = Arrays.asList(
+            "group.id", "auto.offset.reset", "key.deserializer", "value.deserializer", "enable.auto.commit", "interceptor.classes");
+
+    private SparkSession session;
+
+    private Properties properties;
+
+    private String watermarkDelay;
+
+    private Long statusesTimeout_ms;
+
+    public Driver(Properties properties) throws ConfigurationException {
+        this.properties = properties;
+
+        watermarkDelay = properties.getPeriod(WATERMARK_DELAY_PARAM, WATERMARK_DELAY_DEFAULT).getSeconds() + " seconds";
+
+        Optional<Duration> statusesTimeout = properties.getPeriod(Status.STATUSES_EXPIRATION_PERIOD_PARAM);
+        statusesTimeout_ms = statusesTimeout.isPresent() ? statusesTimeout.get().toMillis() : null;
+
+        session = newSparkSession(properties);
+    }
+
+    public static void main(String[] args) throws Exception {
+
+        if (args.length != 1)
+            throw new ConfigurationException("[ARGUMENTS]", "A single argument must be specified with the path to the configuration file.");
+
+        run(Properties.fromFile(args[0]));
+    }
+
+    public static void run(Properties properties) throws Exception {
+        Driver driver = new Driver(properties);
+
+        Properties componentsSourceProps = properties.getSubset(ComponentsSource.PARAM);
+        long batchInterval = properties.getPeriod(ch.cern.exdemon.Driver.BATCH_INTERVAL_PARAM, Duration.ofMinutes(1)).getSeconds();
+        componentsSourceProps.setProperty("static." + ch.cern.exdemon.Driver.BATCH_INTERVAL_PARAM, Long.toString(batchInterval));
+
+        StreamingQuery query = driver.start(componentsSourceProps, batchInterval);
+
+        query.awaitTermination();
+    }
+
+    public StreamingQuery start(Properties componentsSourceProps, long batchInterval) throws ConfigurationException {
+        Dataset<Metric> metrics = getMetrics();
+
+        Dataset<Metric> definedMetrics = StructStatus.map(
+                metrics,
+                new ComputeDefinedMetricKeysF(componentsSourceProps),
+                Metric::getTimestamp,
+                DefinedMetricStatuskey.class, Metric.class, VariableStatuses.class, Metric.class,
+                new UpdateDefinedMetricStatusesF(componentsSourceProps),
+                watermarkDelay, statusesTimeout_ms);
+
+        metrics = metrics.union(definedMetrics);
+
+        Dataset<AnalysisResult> results = StructStatus.map(
+                metrics,
+                new ComputeMonitorKeysF(componentsSourceProps),
+                Metric::getTimestamp,
+                MonitorStatusKey.class, Metric.class, StatusValue.class, AnalysisResult.class,
+                new UpdateMonitorStatusesF(componentsSourceProps),
+                watermarkDelay, statusesTimeout_ms);
+
+        Dataset<Action> actions = StructStatus.map(
+                results,
+                new ComputeTriggerKeysF(componentsSourceProps),
+                result -> result.getAnalyzed_metric().getTimestamp(),
+                TriggerStatusKey.class, AnalysisResult.class, TriggerStatus.class, Action.class,
+                new UpdateTriggerStatusesF(componentsSourceProps),
+                watermarkDelay, statusesTimeout_ms);
+
+        actions = actions.filter(new SilencesFilterF(componentsSourceProps)::call);
+
+        String checkpointDir = properties.getProperty(ch.cern.exdemon.Driver.CHECKPOINT_DIR_PARAM, ch.cern.exdemon.Driver.CHECKPOINT_DIR_DEFAULT);
+
+        return actions.writeStream()
+                      .queryName("actions")
+                      .option("checkpointLocation", checkpointDir + "/struct-checkpoint/")
+                      .trigger(Trigger.ProcessingTime(batchInterval * 1000))
+                      .foreach(new RunActuatorsWriter(componentsSourceProps))
+                      .start();
+    }
+
+    private Dataset<Metric> getMetrics() throws ConfigurationException {
+        Map<String, Dataset<String>> sources = getSources();
+
+        Dataset<ch.cern.exdemon.struct.Metric> metrics = null;
+
+        Properties schemasProperties = properties.getSubset(SCHEMAS_PARAM);
+        for (String id : schemasProperties.getIDs()) {
+            MetricSchema schema = new MetricSchema(id);
+
+            ConfigurationResult configResult = schema.config(schemasProperties.getSubset(id));
+            if(!configResult.getErrors().isEmpty())
+                throw new ConfigurationException(SCHEMAS_PARAM + "." + id, configResult.toString());
+
+            org.apache.spark.api.java.Optional<Dataset<ch.cern.exdemon.struct.Metric>> schemaMetrics = schema.apply(sources);
+            if(!schemaMetrics.isPresent())
+                continue;
+
+            metrics = metrics == null ? schemaMetrics.get() : metrics.union(schemaMetrics.get());
+        }
+
+        if(metrics == null)
+            throw new ConfigurationException(SCHEMAS_PARAM, "At least one schema with a valid source must be configured");
+
+        return metrics.map(metric -> metric.toMetric(), Encoders.kryo(Metric.class));
+    }
+
+    private Map<String, Dataset<String>> getSources() throws ConfigurationException {
+        Map<String, Dataset<String>> sources = new HashMap<>();
+
+        Properties sourcesProperties = properties.getSubset("metrics.source");
+
+        Set<String> ids = sourcesProperties.getIDs();
+        for (String id : ids) {
+            Properties sourceProperties = sourcesProperties.getSubset(id);
+
+            String type = sourceProperties.getProperty("type");
+            if(!"kafka".equals(type))
+                throw new ConfigurationException("metrics.source." + id + ".type", "only kafka sources are supported by the structured engine");
+
+            DataStreamReader reader = session.readStream()
+                                             .format("kafka")
+                                             .option("subscribe", sourceProperties.getProperty("topics"));
+
+            Properties consumerProperties = sourceProperties.getSubset("consumer");
+            for (String key : consumerProperties.stringPropertyNames())
+                if(KAFKA_UNSUPPORTED_PARAMS.contains(key))
+                    LOG.warn("Source " + id + ": consumer." + key + " is ignored, it is managed by the structured engine");
+                else
+                    reader = reader.option("kafka." + key, consumerProperties.getProperty(key));
+
+            sources.put(id, reader.load().selectExpr("CAST(value AS STRING) AS value").as(Encoders.STRING()));
+        }
+
+        if (sources.isEmpty())
+            throw new ConfigurationException("Metric sources", "At least one metric source must be configured");
+
+        return sources;
+    }
+
+    private SparkSession newSparkSession(Properties properties) {
+        SparkConf sparkConf = new SparkConf();
+        sparkConf.setAppName("ExDeMon");
+        sparkConf.runLocallyIfMasterIsNotConfigured();
+        sparkConf.addProperties(properties, "spark.");
+
+        sparkConf.set("spark.serializer", "org.apache.spark.serializer.KryoSerializer");
+        sparkConf.set("spark.kryo.registrator", "ch.cern.exdemon.SparkKryoRegistrator");
+
+        return SparkSession.builder().config(sparkConf).getOrCreate();
     }
 
 }
@@ -2,8 +2,13 @@ package ch.cern.exdemon.struct;
 
 import java.io.Serializable;
 import java.sql.Timestamp;
+import java.util.HashMap;
 import java.util.Map;
 
+import ch.cern.exdemon.metrics.value.BooleanValue;
+import ch.cern.exdemon.metrics.value.FloatValue;
+import ch.cern.exdemon.metrics.value.StringValue;
+
 public class Metric implements Serializable {
     
     private static final long serialVersionUID = -2090504797500130224L;
@@ -39,6 +44,21 @@ public class Metric implements Serializable {
         this.value = value;
     }
     
+    // Metric processed by defined metrics and monitors, numeric values take precedence
+    public ch.cern.exdemon.metrics.Metric toMetric() {
+        ch.cern.exdemon.metrics.value.Value metricValue;
+        if(value.getNum() != null)
+            metricValue = new FloatValue(value.getNum());
+        else if(value.getBool() != null)
+            metricValue = new BooleanValue(value.getBool());
+        else
+            metricValue = new StringValue(value.getStr());
+        
+        Map<String, String> attributes = att != null ? new HashMap<>(att) : new HashMap<>();
+        
+        return new ch.cern.exdemon.metrics.Metric(timestamp.toInstant(), metricValue, attributes);
+    }
+    
     public static class Value implements Serializable {
         
         private static final long serialVersionUID = -23682055119611586L;
@@ -0,0 +1,52 @@
+package ch.cern.exdemon.struct;
+
+import java.util.LinkedList;
+import java.util.List;
+
+import org.apache.log4j.Logger;
+import org.apache.spark.sql.ForeachWriter;
+
+import ch.cern.exdemon.monitor.trigger.action.Action;
+import ch.cern.exdemon.monitor.trigger.action.actuator.RunActuatorsF;
+import ch.cern.properties.Properties;
+
+// Actions of a partition are run together once the partition has been processed
+public class RunActuatorsWriter extends ForeachWriter<Action> {
+
+    private static final long serialVersionUID = 2581497265389823015L;
+
+    private transient final static Logger LOG = Logger.getLogger(RunActuatorsWriter.class.getName());
+
+    private RunActuatorsF runActuatorsF;
+    
+    private transient List<Action> actions;
+
+    public RunActuatorsWriter(Properties componentsSourceProperties) {
+        runActuatorsF = new RunActuatorsF(componentsSourceProperties);
+    }
+
+    @Override
+    public boolean open(long partitionId, long version) {
+        actions = new LinkedList<>();
+        
+        return true;
+    }
+
+    @Override
+    public void process(Action action) {
+        actions.add(action);
+    }
+
+    @Override
+    public void close(Throwable errorOrNull) {
+        if(errorOrNull != null || actions.isEmpty())
+            return;
+        
+        try {
+            runActuatorsF.call(actions.iterator());
+        } catch (Exception e) {
+            LOG.error("Problem when running " + actions.size() + " actions", e);
+        }
+    }
+
+}
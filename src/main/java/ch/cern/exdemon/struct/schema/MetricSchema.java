@@ -134,7 +134,7 @@ public class MetricSchema {
                 if(metrics == null)
                     metrics = metricsFromSource.get();
                 else
-                    metrics.union(metricsFromSource.get());
+                    metrics = metrics.union(metricsFromSource.get());
         }
         
         if(metrics == null) {
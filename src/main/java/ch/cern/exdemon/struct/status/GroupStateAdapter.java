@@ -0,0 +1,40 @@
+package ch.cern.exdemon.struct.status;
+
+import org.apache.spark.sql.streaming.GroupState;
+import org.apache.spark.streaming.State;
+
+// Exposes the state of a group as the state used by update statuses functions
+public class GroupStateAdapter<S> extends State<S> {
+
+    private GroupState<S> groupState;
+
+    public GroupStateAdapter(GroupState<S> groupState) {
+        this.groupState = groupState;
+    }
+
+    @Override
+    public boolean exists() {
+        return groupState.exists();
+    }
+
+    @Override
+    public S get() {
+        return groupState.get();
+    }
+
+    @Override
+    public void update(S newState) {
+        groupState.update(newState);
+    }
+
+    @Override
+    public void remove() {
+        groupState.remove();
+    }
+
+    @Override
+    public boolean isTimingOut() {
+        return groupState.hasTimedOut();
+    }
+
+}
@@ -0,0 +1,71 @@
+package ch.cern.exdemon.struct.status;
+
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.util.Iterator;
+
+import org.apache.spark.api.java.function.FlatMapFunction;
+import org.apache.spark.api.java.function.Function;
+import org.apache.spark.api.java.function.PairFlatMapFunction;
+import org.apache.spark.sql.Dataset;
+import org.apache.spark.sql.Encoder;
+import org.apache.spark.sql.Encoders;
+import org.apache.spark.sql.streaming.GroupStateTimeout;
+import org.apache.spark.sql.streaming.OutputMode;
+
+import ch.cern.spark.status.StatusKey;
+import ch.cern.spark.status.StatusValue;
+import ch.cern.spark.status.UpdateStatusFunction;
+import scala.Tuple2;
+import scala.Tuple3;
+
+// Structured Streaming counterpart of Status, statuses are kept in the state store of the query
+public class StructStatus {
+
+    public static <K extends StatusKey, V, S extends StatusValue, R> Dataset<R> map(
+            Dataset<V> values,
+            PairFlatMapFunction<V, K, V> computeKeys,
+            Function<V, Instant> eventTime,
+            Class<K> keyClass,
+            Class<V> valueClass,
+            Class<S> statusClass,
+            Class<R> resultClass,
+            UpdateStatusFunction<K, V, S, R> updateStatusFunction,
+            String watermarkDelay,
+            Long timeout_ms) {
+        
+        Encoder<Tuple3<K, V, Timestamp>> keyedEncoder = Encoders.tuple(Encoders.kryo(keyClass), Encoders.kryo(valueClass), Encoders.TIMESTAMP());
+        
+        FlatMapFunction<V, Tuple3<K, V, Timestamp>> keyF = value -> {
+            Iterator<Tuple2<K, V>> keys = computeKeys.call(value);
+            Timestamp timestamp = Timestamp.from(eventTime.call(value));
+            
+            return new Iterator<Tuple3<K, V, Timestamp>>() {
+                @Override
+                public boolean hasNext() {
+                    return keys.hasNext();
+                }
+                
+                @Override
+                public Tuple3<K, V, Timestamp> next() {
+                    Tuple2<K, V> keyAndValue = keys.next();
+                    
+                    return new Tuple3<>(keyAndValue._1, keyAndValue._2, timestamp);
+                }
+            };
+        };
+        
+        //Watermark on the event time column of the keyed values, required by event time timeouts
+        Dataset<Tuple3<K, V, Timestamp>> keyed = values.flatMap(keyF, keyedEncoder);
+        keyed = keyed.withWatermark(keyed.columns()[2], watermarkDelay);
+        
+        return keyed.groupByKey(keyedValue -> keyedValue._1(), Encoders.kryo(keyClass))
+                    .flatMapGroupsWithState(
+                            new UpdateGroupsWithStateF<>(updateStatusFunction, timeout_ms),
+                            OutputMode.Append(),
+                            Encoders.kryo(statusClass),
+                            Encoders.kryo(resultClass),
+                            GroupStateTimeout.EventTimeTimeout());
+    }
+
+}
@@ -0,0 +1,76 @@
+package ch.cern.exdemon.struct.status;
+
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import org.apache.spark.api.java.Optional;
+import org.apache.spark.api.java.function.FlatMapGroupsWithStateFunction;
+import org.apache.spark.sql.streaming.GroupState;
+import org.apache.spark.streaming.Time;
+
+import ch.cern.spark.status.RemoveAndValue;
+import ch.cern.spark.status.StatusKey;
+import ch.cern.spark.status.StatusOperation;
+import ch.cern.spark.status.StatusValue;
+import ch.cern.spark.status.UpdateStatusFunction;
+import scala.Tuple3;
+
+// Applies an update statuses function to the values of a group, in event time order.
+// Statuses not updated within the timeout (in event time) are timed out once the watermark passes.
+public class UpdateGroupsWithStateF<K extends StatusKey, V, S extends StatusValue, R> 
+        implements FlatMapGroupsWithStateFunction<K, Tuple3<K, V, Timestamp>, S, R> {
+
+    private static final long serialVersionUID = -3466781374939412617L;
+    
+    private UpdateStatusFunction<K, V, S, R> updateStatusFunction;
+    
+    private Long timeout_ms;
+
+    public UpdateGroupsWithStateF(UpdateStatusFunction<K, V, S, R> updateStatusFunction, Long timeout_ms) {
+        this.updateStatusFunction = updateStatusFunction;
+        this.timeout_ms = timeout_ms;
+    }
+
+    @Override
+    public Iterator<R> call(K key, Iterator<Tuple3<K, V, Timestamp>> values, GroupState<S> groupState) throws Exception {
+        GroupStateAdapter<S> state = new GroupStateAdapter<>(groupState);
+        Time time = new Time(groupState.getCurrentProcessingTimeMs());
+        
+        List<R> results = new LinkedList<>();
+        
+        if(groupState.hasTimedOut()) {
+            add(results, updateStatusFunction.call(time, key, Optional.empty(), state));
+            
+            groupState.remove();
+            
+            return results.iterator();
+        }
+        
+        List<Tuple3<K, V, Timestamp>> sortedValues = new ArrayList<>();
+        values.forEachRemaining(sortedValues::add);
+        sortedValues.sort(Comparator.comparing(Tuple3::_3));
+        
+        List<V> batch = sortedValues.stream().map(Tuple3::_2).collect(Collectors.toList());
+        
+        add(results, updateStatusFunction.call(time, key, Optional.of(new StatusOperation<>(key, batch)), state));
+        
+        if(timeout_ms != null && groupState.exists() && !sortedValues.isEmpty()) {
+            long lastEventTime = sortedValues.get(sortedValues.size() - 1)._3().getTime();
+            
+            groupState.setTimeoutTimestamp(Math.max(lastEventTime, groupState.getCurrentWatermarkMs()) + timeout_ms);
+        }
+        
+        return results.iterator();
+    }
+
+    private void add(List<R> results, Optional<RemoveAndValue<K, R>> removeAndValue) {
+        if(removeAndValue.isPresent())
+            results.addAll(removeAndValue.get().getValues());
+    }
+
+}
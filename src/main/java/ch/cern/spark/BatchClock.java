@@ -0,0 +1,57 @@
+package ch.cern.spark;
+
+import java.time.Instant;
+import java.util.Iterator;
+
+import org.apache.spark.TaskContext;
+import org.apache.spark.api.java.JavaRDD;
+import org.apache.spark.streaming.Time;
+import org.apache.spark.util.TaskCompletionListener;
+
+// Time of the batch being processed by the current thread.
+// Set for the tasks of a batch and while statuses are updated, so components read the same time for all the values of a batch.
+public class BatchClock {
+
+    private static final ThreadLocal<Instant> BATCH_TIME = new ThreadLocal<>();
+
+    // Current time if no batch is being processed by this thread
+    public static Instant now() {
+        Instant batchTime = BATCH_TIME.get();
+
+        return batchTime != null ? batchTime : Instant.now();
+    }
+
+    // Returns the previous batch time, null if it was not set
+    public static Instant set(Instant batchTime) {
+        Instant previous = BATCH_TIME.get();
+
+        if(batchTime != null)
+            BATCH_TIME.set(batchTime);
+        else
+            BATCH_TIME.remove();
+
+        return previous;
+    }
+
+    public static void clear() {
+        BATCH_TIME.remove();
+    }
+
+    // Tasks computing the returned RDD have the clock set to the batch time until they complete
+    public static <T> JavaRDD<T> setForTasks(JavaRDD<T> rdd, Time time) {
+        long batchTime = time.milliseconds();
+
+        return rdd.mapPartitions(partition -> setForTask(batchTime, partition), true);
+    }
+
+    private static <T> Iterator<T> setForTask(long batchTime, Iterator<T> partition) {
+        set(Instant.ofEpochMilli(batchTime));
+
+        TaskContext context = TaskContext.get();
+        if(context != null)
+            context.addTaskCompletionListener((TaskCompletionListener) taskContext -> clear());
+
+        return partition;
+    }
+
+}
@@ -0,0 +1,98 @@
+package ch.cern.spark;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+import org.apache.spark.SparkEnv;
+import org.apache.spark.metrics.MetricsSystem;
+import org.apache.spark.metrics.source.Source;
+
+import com.codahale.metrics.Counter;
+import com.codahale.metrics.Gauge;
+import com.codahale.metrics.Histogram;
+import com.codahale.metrics.Metric;
+import com.codahale.metrics.MetricRegistry;
+import com.codahale.metrics.SlidingWindowReservoir;
+
+// Operational metrics of the job, reported by the sinks configured for the Spark metrics system (metrics.properties).
+// Callers keep the returned metrics, updating them does not allocate.
+public class JobMetricsSource implements Source {
+
+    public static final String NAME = "exdemon";
+
+    private static final int RESERVOIR_SIZE = 1024;
+
+    private static final JobMetricsSource INSTANCE = new JobMetricsSource();
+
+    private final MetricRegistry registry = new MetricRegistry();
+
+    private MetricsSystem metricsSystem = null;
+
+    private JobMetricsSource() {
+    }
+
+    @Override
+    public String sourceName() {
+        return NAME;
+    }
+
+    @Override
+    public MetricRegistry metricRegistry() {
+        return registry;
+    }
+
+    public static Counter counter(String name, String... names) {
+        return INSTANCE.getOrAdd(MetricRegistry.name(name, names), Counter.class, Counter::new);
+    }
+
+    // Sliding window reservoir, exponentially decaying reservoirs allocate on every update
+    public static Histogram histogram(String name, String... names) {
+        return INSTANCE.getOrAdd(MetricRegistry.name(name, names), Histogram.class, () -> new Histogram(new SlidingWindowReservoir(RESERVOIR_SIZE)));
+    }
+
+    // Value set by the caller, for measures computed once per batch
+    public static AtomicLong gauge(String name, String... names) {
+        return INSTANCE.getOrAdd(MetricRegistry.name(name, names), LongGauge.class, LongGauge::new).value;
+    }
+
+    public static MetricRegistry getRegistry() {
+        return INSTANCE.registry;
+    }
+
+    private synchronized <M extends Metric> M getOrAdd(String name, Class<M> type, Supplier<M> builder) {
+        Metric metric = registry.getMetrics().get(name);
+
+        if(metric == null) {
+            metric = registry.register(name, builder.get());
+
+            publish();
+        }
+
+        return type.cast(metric);
+    }
+
+    // Metrics of a source are copied when registering it, so it is registered again with every new metric
+    private void publish() {
+        SparkEnv env = SparkEnv.get();
+        if(env == null)
+            return;
+
+        if(metricsSystem == env.metricsSystem())
+            metricsSystem.removeSource(this);
+
+        metricsSystem = env.metricsSystem();
+        metricsSystem.registerSource(this);
+    }
+
+    private static class LongGauge implements Gauge<Long> {
+
+        private final AtomicLong value = new AtomicLong();
+
+        @Override
+        public Long getValue() {
+            return value.get();
+        }
+
+    }
+
+}
@@ -1,6 +1,8 @@
 package ch.cern.spark.status;
 
 import java.io.Serializable;
+import java.util.Collections;
+import java.util.List;
 
 import org.apache.spark.api.java.Optional;
 
@@ -10,11 +12,23 @@ public class RemoveAndValue<K, V> implements Serializable{
     
     private K key;
     
-    private V value;
+    private List<V> values;
+    
+    private StatusOperationResult operationResult;
     
     public RemoveAndValue(K key, Optional<V> value) {
         this.key = key;
-        this.value = value.isPresent() ? value.get() : null;
+        this.values = value.isPresent() ? Collections.singletonList(value.get()) : Collections.emptyList();
+    }
+    
+    public RemoveAndValue(K key, List<V> values) {
+        this.key = key;
+        this.values = values;
+    }
+    
+    public RemoveAndValue(StatusOperationResult operationResult) {
+        this.operationResult = operationResult;
+        this.values = Collections.emptyList();
     }
 
     public boolean isRemoveAction() {
@@ -25,8 +39,12 @@ public class RemoveAndValue<K, V> implements Serializable{
         return key;
     }
 
-    public Optional<V> getValue() {
-        return Optional.fromNullable(value);
+    public List<V> getValues() {
+        return values;
+    }
+
+    public StatusOperationResult getOperationResult() {
+        return operationResult;
     }
 
 }
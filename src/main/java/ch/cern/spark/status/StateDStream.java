@@ -13,7 +13,7 @@ public class StateDStream<K extends StatusKey, V, S extends StatusValue, R> {
     }
     
     public JavaDStream<R> values() {
-        return stream.filter(av -> av.getValue().isPresent()).map(av -> av.getValue().get());
+        return stream.flatMap(av -> av.getValues().iterator());
     }
     
     public JavaPairDStream<K, S> statuses() {
@@ -1,10 +1,19 @@
 package ch.cern.spark.status;
 
 import java.io.IOException;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Optional;
 
+import org.apache.spark.HashPartitioner;
+import org.apache.spark.Partitioner;
 import org.apache.spark.SparkConf;
 import org.apache.spark.api.java.JavaPairRDD;
 import org.apache.spark.api.java.JavaSparkContext;
+import org.apache.spark.api.java.function.Function;
 import org.apache.spark.streaming.Duration;
 import org.apache.spark.streaming.StateSpec;
 import org.apache.spark.streaming.api.java.JavaDStream;
@@ -20,6 +29,7 @@ import ch.cern.spark.status.StatusOperation.Op;
 import ch.cern.spark.status.storage.StatusesStorage;
 import ch.cern.spark.status.storage.manager.ZookeeperStatusesOperationsReceiver;
 import ch.cern.spark.status.storage.manager.ZookeeperStatusesOpertaionsF;
+import ch.cern.spark.status.storage.manager.ZookeeperStatusesResultsWriter;
 import ch.cern.utils.TimeUtils;
 import scala.Option;
 import scala.Tuple2;
@@ -27,31 +37,50 @@ import scala.Tuple2;
 public class Status {
 	
 	public static final String STATUSES_EXPIRATION_PERIOD_PARAM = "spark.cern.streaming.status.timeout";
+	
+	public static final String BATCH_UPDATES_PARAM = "spark.cern.streaming.status.batch-updates";
 
 	public static<K extends StatusKey, V, S extends StatusValue, R> StateDStream<K, V, S, R> map(
 			Class<K> keyClass,
 			Class<S> statusClass,
-			JavaDStream<StatusOperation<K, V>> operations,
+			JavaDStream<StatusOperation<K, V>> updates,
+			Optional<JavaDStream<StatusOperation<K, V>>> receivedOperations,
+			Function<V, Instant> timestamp,
 			UpdateStatusFunction<K, V, S, R> updateStatusFunction) 
 					throws ClassNotFoundException, IOException, ConfigurationException {
 		
-		JavaSparkContext context = JavaSparkContext.fromSparkContext(operations.context().sparkContext());
+		JavaSparkContext context = JavaSparkContext.fromSparkContext(updates.context().sparkContext());
+		
+		JavaDStream<StatusOperation<K, V>> operations = receivedOperations.map(updates::union).orElse(updates);
 		
 		StatusesStorage storage = getStorage(context);
 
+        StatusesBudget budget = new StatusesBudget(context.getConf(), keyClass);
+        
         JavaDStream<StatusOperation<K, V>> opsWithKey = operations.filter(op -> op.getOp().equals(Op.UPDATE) 
                                                                              || op.getOp().equals(Op.REMOVE)
                                                                              || op.getOp().equals(Op.SHOW));
+        
+        //Evictions of statuses over budget, computed in previous batch
+        opsWithKey = opsWithKey.transform(rdd -> budget.addEvictions(rdd));
         JavaPairDStream<K, StatusOperation<K, V>> opsKeyed = opsWithKey.mapToPair(op -> new Tuple2<>(op.getKey(), op));
         
+        //Same partitioner than the one used by default for mapping with states, so batched updates are not shuffled again
+        Partitioner partitioner = new HashPartitioner(context.defaultParallelism());
+        
+        //All updates of a key in the batch are applied in a single call, sorted by time
+        if(context.getConf().getBoolean(BATCH_UPDATES_PARAM, true))
+            opsKeyed = opsKeyed.transformToPair(rdd -> batchUpdates(rdd, timestamp, partitioner));
+        
         Properties zooStatusesOpFProps = Properties.from(context.getConf().getAll()).getSubset(ZookeeperStatusesOperationsReceiver.PARAM);
-        updateStatusFunction.configStatusesOp(zooStatusesOpFProps);
         
         //Load initial state from external storage
 		JavaPairRDD<K, S> initialStates = storage.load(context, keyClass, statusClass);
         
 		//Map values and remove states
-        StateSpec<K, StatusOperation<K, V>, S, RemoveAndValue<K, R>> statusSpec = StateSpec.function(updateStatusFunction).initialState(initialStates.rdd());
+        StateSpec<K, StatusOperation<K, V>, S, RemoveAndValue<K, R>> statusSpec = StateSpec.function(updateStatusFunction)
+                                                                                       .initialState(initialStates.rdd())
+                                                                                       .partitioner(partitioner);
         
         Option<Duration> timeout = getStatusExpirationPeriod(context);
         if(timeout.isDefined())
@@ -67,17 +96,71 @@ public class Status {
         keysToRemove = keysToRemove.union(requestedRemoves.map(op -> op.getKey()));
         
         //Remove all from external storage
-        keysToRemove.foreachRDD(rdd -> storage.remove(rdd));    
+        keysToRemove.foreachRDD((rdd, time) -> storage.remove(rdd, time));
         
         //Save statuses
         statusStream.stateSnapshots().foreachRDD((rdd, time) -> storage.save(rdd, time));
         
-        //Statuses operations (list)
-        ZookeeperStatusesOpertaionsF.apply(context, statusStream.stateSnapshots(), operations);
+        //Track size of statuses and compute evictions
+        statusStream.stateSnapshots().foreachRDD(rdd -> budget.check(rdd));
+        
+        //Statuses operations results (show and remove), written once per partition
+        if(zooStatusesOpFProps.size() > 0) {
+            ZookeeperStatusesResultsWriter resultsWriter = new ZookeeperStatusesResultsWriter(zooStatusesOpFProps);
+            
+            statusStream.filter(rv -> rv.getOperationResult() != null)
+                        .map(rv -> rv.getOperationResult())
+                        .foreachRDD(rdd -> rdd.foreachPartition(results -> resultsWriter.write(results)));
+        }
+        
+        //Statuses operations (list), only received ones
+        if(receivedOperations.isPresent())
+            ZookeeperStatusesOpertaionsF.apply(context, statusStream.stateSnapshots(), receivedOperations.get());
 		
 		return new StateDStream<>(statusStream);
 	}
 
+    private static <K, V> JavaPairRDD<K, StatusOperation<K, V>> batchUpdates(
+            JavaPairRDD<K, StatusOperation<K, V>> operations, 
+            Function<V, Instant> timestamp, 
+            Partitioner partitioner) {
+        
+        JavaPairRDD<K, StatusOperation<K, V>> updates = operations
+                .filter(op -> op._2.getOp().equals(Op.UPDATE))
+                .combineByKey(
+                        op -> new ArrayList<>(op.getValues()), 
+                        (values, op) -> { values.addAll(op.getValues()); return values; }, 
+                        (values, otherValues) -> { values.addAll(otherValues); return values; }, 
+                        partitioner)
+                .mapPartitionsToPair(keyedValues -> {
+                    List<Tuple2<K, StatusOperation<K, V>>> batchedUpdates = new LinkedList<>();
+                    
+                    while(keyedValues.hasNext()) {
+                        Tuple2<K, ArrayList<V>> values = keyedValues.next();
+                        values._2.sort(Comparator.comparing(value -> getTimestamp(timestamp, value)));
+                        
+                        batchedUpdates.add(new Tuple2<>(values._1, new StatusOperation<>(values._1, values._2)));
+                    }
+                    
+                    return batchedUpdates.iterator();
+                }, true);
+        
+        JavaPairRDD<K, StatusOperation<K, V>> others = operations
+                .filter(op -> !op._2.getOp().equals(Op.UPDATE))
+                .partitionBy(partitioner);
+        
+        //Union of RDDs with same partitioner keeps the partitioner
+        return updates.union(others);
+    }
+    
+    private static <V> Instant getTimestamp(Function<V, Instant> timestamp, V value) {
+        try {
+            return timestamp.call(value);
+        } catch (Exception e) {
+            throw new RuntimeException(e);
+        }
+    }
+
     private static Option<Duration> getStatusExpirationPeriod(JavaSparkContext context) throws ConfigurationException {
 		SparkConf conf = context.getConf();
 		
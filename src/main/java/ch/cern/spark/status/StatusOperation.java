@@ -1,6 +1,7 @@
 package ch.cern.spark.status;
 
 import java.io.Serializable;
+import java.util.Collections;
 import java.util.List;
 
 import org.apache.spark.api.java.function.Function;
@@ -26,6 +27,9 @@ public class StatusOperation<K, V> implements Serializable{
     private K key;
     
     private V value;
+    
+    // Batched updates, values of the key sorted by time
+    private List<V> values;
 
 	private List<Function<Tuple2<StatusKey, StatusValue>, Boolean>> filters;
     
@@ -36,6 +40,14 @@ public class StatusOperation<K, V> implements Serializable{
         this.value = value;
     }
 
+    public StatusOperation(K key, @NonNull List<V> values) {
+        this.id = null;
+        this.op = Op.UPDATE;
+        this.key = key;
+        this.value = null;
+        this.values = values;
+    }
+
     public StatusOperation(@NonNull String id, K key, @NonNull Op op) {
     	this.id = id;
         this.op = op;
@@ -76,6 +88,13 @@ public class StatusOperation<K, V> implements Serializable{
     public V getValue() {
         return value;
     }
+    
+    public List<V> getValues() {
+        if(values != null)
+            return values;
+        
+        return value != null ? Collections.singletonList(value) : Collections.emptyList();
+    }
 
     public Op getOp() {
         return op;
@@ -0,0 +1,27 @@
+package ch.cern.spark.status;
+
+import java.io.Serializable;
+
+import lombok.AllArgsConstructor;
+import lombok.EqualsAndHashCode;
+import lombok.Getter;
+import lombok.ToString;
+
+@ToString
+@EqualsAndHashCode(callSuper=false)
+@AllArgsConstructor
+public class StatusOperationResult implements Serializable {
+
+    private static final long serialVersionUID = -5317380431526357120L;
+
+    @Getter
+    private String id;
+
+    // Where the result is written: keys, values or keys_removed
+    @Getter
+    private String target;
+
+    @Getter
+    private String line;
+
+}
@@ -24,6 +24,11 @@ public abstract class StatusValue implements Serializable {
 		
 		status.update((T) this);
 	}
+	
+	// Values may only need to be stored at some of their updates, the previously stored value is kept in between
+	public boolean isStorable() {
+	    return true;
+	}
 
     @Override
     public int hashCode() {
@@ -0,0 +1,259 @@
+package ch.cern.spark.status;
+
+import java.io.Serializable;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.apache.log4j.Logger;
+import org.apache.spark.SparkConf;
+import org.apache.spark.api.java.JavaPairRDD;
+import org.apache.spark.api.java.JavaRDD;
+import org.apache.spark.storage.StorageLevel;
+
+import ch.cern.properties.Properties;
+import ch.cern.spark.JobMetricsSource;
+import ch.cern.spark.status.StatusOperation.Op;
+import ch.cern.spark.status.storage.ClassNameAlias;
+import ch.cern.spark.status.storage.JavaStatusSerializer;
+import ch.cern.spark.status.storage.StatusSerializer;
+import lombok.ToString;
+import scala.Tuple2;
+
+// Tracks number of keys and estimated size of the statuses per component (ID of the key).
+// Components over their budget get the statuses with the oldest update time evicted in the next batch.
+@ToString
+public class StatusesBudget implements Serializable {
+
+    private static final long serialVersionUID = -4431915606406744398L;
+
+    private transient final static Logger LOG = Logger.getLogger(StatusesBudget.class.getName());
+
+    public static final String PARAM = "spark.cern.streaming.status.budget";
+
+    public static final String EVICTION_OP_ID = "budget_eviction";
+
+    // One of every SAMPLING statuses is serialized for estimating the size
+    private static final int SAMPLING = 100;
+
+    // Driver side, evictions computed in the last batch, per statuses stream
+    private static final Map<String, JavaRDD<?>> PENDING_EVICTIONS = new ConcurrentHashMap<>();
+    private static final Map<String, JavaRDD<?>> APPLIED_EVICTIONS = new ConcurrentHashMap<>();
+
+    private String streamId = UUID.randomUUID().toString();
+
+    private String type;
+
+    private Properties properties;
+
+    private transient Set<String> publishedIDs;
+
+    public StatusesBudget(SparkConf sparkConf, Class<?> keyClass) {
+        properties = Properties.from(sparkConf.getAll()).getSubset(PARAM);
+
+        ClassNameAlias alias = keyClass.getAnnotation(ClassNameAlias.class);
+        type = alias != null ? alias.value() : keyClass.getSimpleName();
+    }
+
+    @SuppressWarnings("unchecked")
+    public <K, V> JavaRDD<StatusOperation<K, V>> addEvictions(JavaRDD<StatusOperation<K, V>> operations) {
+        JavaRDD<StatusOperation<K, V>> evictions = (JavaRDD<StatusOperation<K, V>>) PENDING_EVICTIONS.remove(streamId);
+        if(evictions == null)
+            return operations;
+
+        APPLIED_EVICTIONS.put(streamId, evictions);
+
+        return operations.union(evictions);
+    }
+
+    public <K extends StatusKey, S extends StatusValue> void check(JavaPairRDD<K, S> statuses) {
+        JavaRDD<?> applied = APPLIED_EVICTIONS.remove(streamId);
+        if(applied != null)
+            applied.unpersist(false);
+
+        Map<String, Usage> usages = statuses.mapPartitionsToPair(StatusesBudget::usage)
+                                            .reduceByKey(Usage::merge)
+                                            .collectAsMap();
+
+        publish(usages);
+
+        Map<String, Eviction> evictions = new HashMap<>();
+        for (Map.Entry<String, Usage> usage : usages.entrySet()) {
+            String id = usage.getKey();
+
+            long toEvict = usage.getValue().toEvict(getBudget(id, "keys"), getBudget(id, "bytes"));
+            if(toEvict > 0)
+                evictions.put(id, usage.getValue().eviction(toEvict));
+        }
+
+        if(evictions.isEmpty())
+            return;
+
+        JavaRDD<StatusOperation<K, StatusValue>> evictionOps = statuses
+                .filter(status -> evictions.containsKey(getID(status._1)) && evictions.get(getID(status._1)).test(status))
+                .map(status -> new StatusOperation<K, StatusValue>(EVICTION_OP_ID, status._1, Op.REMOVE))
+                .persist(StorageLevel.MEMORY_AND_DISK());
+
+        long evicted = evictionOps.count();
+
+        for (Map.Entry<String, Eviction> eviction : evictions.entrySet())
+            LOG.warn("Statuses of type " + type + " with id=" + eviction.getKey() + " over budget " + usages.get(eviction.getKey())
+                        + ", evicting " + eviction.getValue());
+        LOG.warn(evicted + " statuses of type " + type + " will be evicted in next batch");
+
+        PENDING_EVICTIONS.put(streamId, evictionOps);
+    }
+
+    private void publish(Map<String, Usage> usages) {
+        if(publishedIDs == null)
+            publishedIDs = new HashSet<>();
+
+        publishedIDs.addAll(usages.keySet());
+
+        for (String id : publishedIDs) {
+            Usage usage = usages.get(id);
+
+            JobMetricsSource.gauge("statuses", type, "id", id, "keys").set(usage != null ? usage.keys : 0);
+            JobMetricsSource.gauge("statuses", type, "id", id, "bytes").set(usage != null ? usage.getEstimatedBytes() : 0);
+        }
+
+        publishedIDs.retainAll(usages.keySet());
+
+        JobMetricsSource.gauge("statuses", type, "keys").set(usages.values().stream().mapToLong(usage -> usage.keys).sum());
+    }
+
+    private Long getBudget(String id, String name) {
+        Long budget = properties.getLong("id." + id + "." + name);
+
+        return budget != null ? budget : properties.getLong(name);
+    }
+
+    private static <K extends StatusKey, S extends StatusValue> Iterator<Tuple2<String, Usage>> usage(Iterator<Tuple2<K, S>> statuses) throws Exception {
+        StatusSerializer serializer = new JavaStatusSerializer();
+
+        Map<String, Usage> usages = new HashMap<>();
+        while(statuses.hasNext()) {
+            Tuple2<K, S> status = statuses.next();
+
+            Usage usage = usages.computeIfAbsent(getID(status._1), id -> new Usage());
+
+            if(usage.keys % SAMPLING == 0) {
+                usage.sampledKeys++;
+                usage.sampledBytes += serializer.fromKey(status._1).length;
+                if(status._2 != null)
+                    usage.sampledBytes += serializer.fromValue(status._2).length;
+            }
+
+            usage.keys++;
+            usage.keysPerUpdateTime.merge(getUpdateTime(status._2), 1L, Long::sum);
+        }
+
+        return usages.entrySet().stream().map(entry -> new Tuple2<>(entry.getKey(), entry.getValue())).iterator();
+    }
+
+    private static String getID(StatusKey key) {
+        if(key instanceof IDStatusKey)
+            return ((IDStatusKey) key).getID();
+
+        return key.getClass().getSimpleName();
+    }
+
+    private static long getUpdateTime(StatusValue value) {
+        return value != null ? value.getStatus_update_time() : 0;
+    }
+
+    @ToString(exclude="keysPerUpdateTime")
+    private static class Usage implements Serializable {
+
+        private static final long serialVersionUID = 4817436187396542069L;
+
+        private long keys = 0;
+
+        private long sampledKeys = 0;
+
+        private long sampledBytes = 0;
+
+        private TreeMap<Long, Long> keysPerUpdateTime = new TreeMap<>();
+
+        private Usage merge(Usage other) {
+            keys += other.keys;
+            sampledKeys += other.sampledKeys;
+            sampledBytes += other.sampledBytes;
+            other.keysPerUpdateTime.forEach((time, count) -> keysPerUpdateTime.merge(time, count, Long::sum));
+
+            return this;
+        }
+
+        private long getEstimatedBytes() {
+            return sampledKeys > 0 ? keys * sampledBytes / sampledKeys : 0;
+        }
+
+        private long toEvict(Long maxKeys, Long maxBytes) {
+            long toEvict = 0;
+
+            if(maxKeys != null && keys > maxKeys)
+                toEvict = keys - maxKeys;
+
+            long estimatedBytes = getEstimatedBytes();
+            if(maxBytes != null && estimatedBytes > maxBytes) {
+                long bytesPerKey = Math.max(1, estimatedBytes / keys);
+
+                toEvict = Math.max(toEvict, (estimatedBytes - maxBytes + bytesPerKey - 1) / bytesPerKey);
+            }
+
+            return Math.min(toEvict, keys);
+        }
+
+        // Oldest first, statuses updated at the same time than the last one to evict are evicted partially
+        private Eviction eviction(long toEvict) {
+            long evicted = 0;
+
+            for (Map.Entry<Long, Long> keysAtTime : keysPerUpdateTime.entrySet()) {
+                long time = keysAtTime.getKey();
+                long count = keysAtTime.getValue();
+
+                if(evicted + count >= toEvict)
+                    return new Eviction(time, (float) (toEvict - evicted) / count);
+
+                evicted += count;
+            }
+
+            return new Eviction(Long.MAX_VALUE, 1f);
+        }
+
+    }
+
+    @ToString
+    private static class Eviction implements Serializable {
+
+        private static final long serialVersionUID = -1650211706311598564L;
+
+        private static final int BUCKETS = 10000;
+
+        // All statuses updated before, and a ratio of them updated at this time
+        private long updateTime;
+
+        private float ratio;
+
+        private Eviction(long updateTime, float ratio) {
+            this.updateTime = updateTime;
+            this.ratio = ratio;
+        }
+
+        private boolean test(Tuple2<? extends StatusKey, ? extends StatusValue> status) {
+            long time = getUpdateTime(status._2);
+
+            if(time != updateTime)
+                return time < updateTime;
+
+            return Math.floorMod(status._1.hashCode(), BUCKETS) < ratio * BUCKETS;
+        }
+
+    }
+
+}
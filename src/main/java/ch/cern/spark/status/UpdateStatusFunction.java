@@ -1,19 +1,23 @@
 package ch.cern.spark.status;
 
-import org.apache.curator.framework.CuratorFramework;
-import org.apache.curator.framework.CuratorFrameworkFactory;
-import org.apache.curator.retry.ExponentialBackoffRetry;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+
 import org.apache.log4j.Logger;
 import org.apache.spark.api.java.Optional;
 import org.apache.spark.api.java.function.Function4;
 import org.apache.spark.streaming.State;
 import org.apache.spark.streaming.Time;
-import org.bouncycastle.util.Arrays;
 
-import ch.cern.properties.Properties;
+import com.codahale.metrics.Counter;
+import com.codahale.metrics.Histogram;
+
+import ch.cern.spark.BatchClock;
+import ch.cern.spark.JobMetricsSource;
 import ch.cern.spark.status.StatusOperation.Op;
+import ch.cern.spark.status.storage.ClassNameAlias;
 import ch.cern.spark.status.storage.JSONStatusSerializer;
-import ch.cern.utils.StringUtils;
 
 public abstract class UpdateStatusFunction<K extends StatusKey, V, S extends StatusValue, R>
     implements Function4<Time, K, Optional<StatusOperation<K, V>>, State<S>, Optional<RemoveAndValue<K, R>>> {
@@ -23,12 +27,15 @@ public abstract class UpdateStatusFunction<K extends StatusKey, V, S extends Sta
     private transient final static Logger LOG = Logger.getLogger(UpdateStatusFunction.class.getName());
     
     private static JSONStatusSerializer derializer = new JSONStatusSerializer();
-    private static CuratorFramework client = null;
-    private String zkConnString;
-    private int timeout_ms;
+    
+    private transient Counter updatesCounter;
+    private transient Histogram updateTime;
     
     @Override
     public Optional<RemoveAndValue<K, R>> call(Time time, K key, Optional<StatusOperation<K, V>> actionOrValue, State<S> state) throws Exception {
+        if(updatesCounter == null)
+            initMetrics(key);
+        
         if(state.isTimingOut()) {
             Optional<R> result = timingOut(time, key, state.get());
             
@@ -38,18 +45,29 @@ public abstract class UpdateStatusFunction<K extends StatusKey, V, S extends Sta
         try {
             if(actionOrValue.get().getOp().equals(Op.REMOVE)) {
                 state.remove();
-                writeResult(actionOrValue.get().getId(), "keys_removed", key, null);
+                
+                return result(actionOrValue.get().getId(), "keys_removed", key, null);
             }else if(actionOrValue.get().getOp().equals(Op.SHOW)) {
-                writeResult(actionOrValue.get().getId(), "values", key, state.get());
+                return result(actionOrValue.get().getId(), "values", key, state.get());
             }else if(actionOrValue.get().getOp().equals(Op.UPDATE)) {
                 StatusImpl<S> status = new StatusImpl<S>(state, time);
                 
-                Optional<R> result = toOptional(update(key, actionOrValue.get().getValue(), status));
+                List<V> values = actionOrValue.get().getValues();
                 
-                if(status.isRemoved())
-                    return Optional.of(new RemoveAndValue<>(key, result));
-                else
-                    return Optional.of(new RemoveAndValue<>(null, result));
+                long start = System.nanoTime();
+                
+                List<R> results;
+                Instant previousBatchTime = BatchClock.set(Instant.ofEpochMilli(time.milliseconds()));
+                try {
+                    results = update(key, values, status);
+                }finally {
+                    BatchClock.set(previousBatchTime);
+                }
+                
+                updateTime.update(System.nanoTime() - start);
+                updatesCounter.inc(values.size());
+                
+                return Optional.of(new RemoveAndValue<>(status.isRemoved() ? key : null, results));
             }
         }catch(Exception e) {
             LOG.error("When appliying operation " + actionOrValue.get(), e);
@@ -58,86 +76,53 @@ public abstract class UpdateStatusFunction<K extends StatusKey, V, S extends Sta
         return Optional.absent();
     }
 
+    // Metrics per type of status, named as the alias of the key class
+    private void initMetrics(K key) {
+        ClassNameAlias alias = key.getClass().getAnnotation(ClassNameAlias.class);
+        String type = alias != null ? alias.value() : key.getClass().getSimpleName();
+        
+        updatesCounter = JobMetricsSource.counter("statuses", type, "updates");
+        updateTime = JobMetricsSource.histogram("statuses", type, "update_time_ns");
+    }
+
     protected abstract java.util.Optional<R> update(K key, V value, State<S> status) throws Exception;
     
-    protected Optional<R> timingOut(Time time, K key, S state) {
-        return Optional.empty();
+    // Values of the key in the batch, sorted by time if updates are batched.
+    // Implementations can override it for applying all values in one pass over the status.
+    protected List<R> update(K key, List<V> values, State<S> status) throws Exception {
+        List<R> results = new ArrayList<>(values.size());
+        
+        for (V value : values) {
+            try {
+                update(key, value, status).ifPresent(results::add);
+            }catch(Exception e) {
+                LOG.error("When updating " + key + " with " + value, e);
+            }
+        }
+        
+        return results;
     }
     
-    private Optional<R> toOptional(java.util.Optional<R> result) {
-        return result.isPresent() ? Optional.of(result.get()) : Optional.empty();
-    }
-
-    public void configStatusesOp(Properties props) {
-        zkConnString = props.getProperty("connection_string");
-        timeout_ms = (int) props.getLong("timeout_ms", 20000);
+    protected Optional<R> timingOut(Time time, K key, S state) {
+        return Optional.empty();
     }
     
-    private void writeResult(String id, String targetPath, StatusKey key, StatusValue value) throws Exception {
-        if(id.equals("old_remove"))
-            return;
-        
-        getClient();
-        
-        String path = "/id="+id+"/" + targetPath;
+    private Optional<RemoveAndValue<K, R>> result(String id, String target, StatusKey key, StatusValue value) throws Exception {
+        if(id.equals("old_remove") || id.equals(StatusesBudget.EVICTION_OP_ID))
+            return Optional.absent();
         
         String keyAsString = new String(derializer.fromKey(key));
         
-        String result;
+        String line;
         if(value != null) {
             String valueAsString = new String(derializer.fromValue(value));
-            String keyValueAsString = "{\"key\":"+keyAsString+",\"value\":"+valueAsString+"}\n";
             
-            result = keyValueAsString;
+            line = "{\"key\":"+keyAsString+",\"value\":"+valueAsString+"}\n";
         }else {
-            result = keyAsString;
-        }
-        
-        if(client.checkExists().forPath(path) != null) {
-            byte[] currentData = client.getData().forPath(path);
-            
-            if(currentData.length > 1000000) {
-                client.setData().forPath("/id="+id+"/status", "WARNING results maximun size reached".getBytes());
-                return;
-            }
-            
-            client.setData().forPath(path, Arrays.concatenate(currentData, result.getBytes()));
-            
-            finishOperation(id, targetPath);
-        }else{
-            client.create().forPath(path, result.getBytes());
-            
-            finishOperation(id, targetPath);
+            line = keyAsString + "\n";
         }
-    }
-    
-    private void finishOperation(String id, String targetPath) throws Exception {
-        byte[] keysData = client.getData().forPath("/id="+id+"/keys");
-        byte[] targetData = client.getData().forPath("/id="+id+"/" + targetPath);
-        
-        int numKeys = StringUtils.countLines(new String(keysData));
-        int numTargets = StringUtils.countLines(new String(targetData));
-        
-        if(numKeys == numTargets)
-            client.setData().forPath("/id="+id+"/status", "DONE".getBytes());
-    }
-
-    public CuratorFramework getClient() {
-        if(client == null)
-            initClient();
-        
-        return client;
-    }
-    
-    private void initClient() {
-        client = CuratorFrameworkFactory.builder()
-                        .connectString(zkConnString)
-                        .retryPolicy(new ExponentialBackoffRetry(1000, 3))
-                        .sessionTimeoutMs(timeout_ms)
-                        .build();
-        client.start();
         
-        LOG.info("Client started. Connection string: " + zkConnString);
+        return Optional.of(new RemoveAndValue<>(new StatusOperationResult(id, target, line)));
     }
 
 }
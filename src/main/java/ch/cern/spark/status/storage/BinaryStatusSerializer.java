@@ -0,0 +1,313 @@
+package ch.cern.spark.status.storage;
+
+import java.io.IOException;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.TreeMap;
+
+import org.objenesis.strategy.StdInstantiatorStrategy;
+
+import com.esotericsoftware.kryo.Kryo;
+import com.esotericsoftware.kryo.KryoException;
+import com.esotericsoftware.kryo.Serializer;
+import com.esotericsoftware.kryo.io.Input;
+import com.esotericsoftware.kryo.io.Output;
+import com.esotericsoftware.kryo.serializers.FieldSerializer;
+import com.esotericsoftware.kryo.serializers.VersionFieldSerializer;
+
+import ch.cern.exdemon.metrics.Attributes;
+import ch.cern.exdemon.metrics.DatedValue;
+import ch.cern.exdemon.metrics.Metric;
+import ch.cern.exdemon.metrics.ValueHistory;
+import ch.cern.exdemon.metrics.ValueHistoryKryoSerializer;
+import ch.cern.exdemon.metrics.defined.DefinedMetricStatuskey;
+import ch.cern.exdemon.metrics.defined.equation.functions.analysis.AnalysisFunc;
+import ch.cern.exdemon.metrics.defined.equation.var.AttributeVariable;
+import ch.cern.exdemon.metrics.defined.equation.var.ValueVariable;
+import ch.cern.exdemon.metrics.defined.equation.var.Variable;
+import ch.cern.exdemon.metrics.defined.equation.var.VariableStatuses;
+import ch.cern.exdemon.metrics.defined.equation.var.agg.AggregationValues;
+import ch.cern.exdemon.metrics.defined.equation.var.agg.AvgAggregation;
+import ch.cern.exdemon.metrics.defined.equation.var.agg.CountAgregation;
+import ch.cern.exdemon.metrics.defined.equation.var.agg.CountBoolsAgregation;
+import ch.cern.exdemon.metrics.defined.equation.var.agg.CountFalsesAgregation;
+import ch.cern.exdemon.metrics.defined.equation.var.agg.CountFloatsAgregation;
+import ch.cern.exdemon.metrics.defined.equation.var.agg.CountStringsAgregation;
+import ch.cern.exdemon.metrics.defined.equation.var.agg.CountTruesAgregation;
+import ch.cern.exdemon.metrics.defined.equation.var.agg.DiffAggregation;
+import ch.cern.exdemon.metrics.defined.equation.var.agg.LastValueAggregation;
+import ch.cern.exdemon.metrics.defined.equation.var.agg.MaxAggregation;
+import ch.cern.exdemon.metrics.defined.equation.var.agg.MinAggregation;
+import ch.cern.exdemon.metrics.defined.equation.var.agg.SuccessiveCountAgregation;
+import ch.cern.exdemon.metrics.defined.equation.var.agg.SumAggregation;
+import ch.cern.exdemon.metrics.defined.equation.var.agg.WAvgAggregation;
+import ch.cern.exdemon.metrics.predictor.LearningRatioValuePredictor;
+import ch.cern.exdemon.metrics.value.AggregatedValue;
+import ch.cern.exdemon.metrics.value.BooleanValue;
+import ch.cern.exdemon.metrics.value.ExceptionValue;
+import ch.cern.exdemon.metrics.value.FloatValue;
+import ch.cern.exdemon.metrics.value.PropertiesValue;
+import ch.cern.exdemon.metrics.value.StringValue;
+import ch.cern.exdemon.metrics.value.Value;
+import ch.cern.exdemon.monitor.MonitorStatusKey;
+import ch.cern.exdemon.monitor.analysis.types.HTMAnalysis;
+import ch.cern.exdemon.monitor.analysis.types.PercentileAnalysis;
+import ch.cern.exdemon.monitor.analysis.types.RecentActivityAnalysis;
+import ch.cern.exdemon.monitor.analysis.types.SeasonalAnalysis;
+import ch.cern.exdemon.monitor.trigger.TriggerStatus;
+import ch.cern.exdemon.monitor.trigger.TriggerStatusKey;
+import ch.cern.exdemon.monitor.trigger.types.ConstantTrigger;
+import ch.cern.exdemon.monitor.trigger.types.PercentageTrigger;
+import ch.cern.properties.Properties;
+import ch.cern.spark.status.StatusKey;
+import ch.cern.spark.status.StatusValue;
+import ch.cern.utils.LimitedQueue;
+import ch.cern.utils.Pair;
+import ch.cern.utils.TDigest;
+
+public class BinaryStatusSerializer implements StatusSerializer {
+
+    private static final long serialVersionUID = -4744946017936452431L;
+
+    // JSON records start with '{' and Java serialized records with 0xAC
+    public static final byte MAGIC = (byte) 0xE7;
+
+    // Types are written with versioned field serializers, so fields added to a type are annotated with @Since
+    // and records written before can still be read. Version 1 records were written with plain field serializers.
+    public static final byte SCHEMA_VERSION = 2;
+
+    private static final byte FIELDS_SCHEMA_VERSION = 1;
+
+    private static final int FIRST_REGISTRATION_ID = 100;
+
+    // Registration IDs are given by the position in this list, new types must be appended at the end
+    private static final List<Class<?>> REGISTERED_TYPES = Arrays.asList(
+            DefinedMetricStatuskey.class,
+            MonitorStatusKey.class,
+            TriggerStatusKey.class,
+            VariableStatuses.class,
+            Variable.Status_.class,
+            ValueVariable.Status_.class,
+            AttributeVariable.Status_.class,
+            AnalysisFunc.AnalysisStatus.class,
+            ValueHistory.Status.class,
+            ValueHistory.class,
+            AggregationValues.class,
+            DatedValue.class,
+            Metric.class,
+            FloatValue.class,
+            StringValue.class,
+            BooleanValue.class,
+            ExceptionValue.class,
+            AggregatedValue.class,
+            PropertiesValue.class,
+            Properties.class,
+            TriggerStatus.class,
+            ConstantTrigger.Status_.class,
+            PercentageTrigger.Status_.class,
+            RecentActivityAnalysis.Status_.class,
+            HTMAnalysis.Status_.class,
+            LearningRatioValuePredictor.Status_.class,
+            LearningRatioValuePredictor.class,
+            Instant.class,
+            ChronoUnit.class,
+            HashMap.class,
+            LinkedHashMap.class,
+            LinkedList.class,
+            ArrayList.class,
+            HashSet.class,
+            LimitedQueue.class,
+            Pair.class,
+            float[].class,
+            AvgAggregation.class,
+            CountAgregation.class,
+            CountBoolsAgregation.class,
+            CountFalsesAgregation.class,
+            CountFloatsAgregation.class,
+            CountStringsAgregation.class,
+            CountTruesAgregation.class,
+            DiffAggregation.class,
+            LastValueAggregation.class,
+            MaxAggregation.class,
+            MinAggregation.class,
+            SuccessiveCountAgregation.class,
+            SumAggregation.class,
+            WAvgAggregation.class,
+            PercentileAnalysis.Status_.class,
+            TDigest.class,
+            TreeMap.class,
+            double[].class,
+            SeasonalAnalysis.Status_.class,
+            Attributes.class);
+
+    private transient static ThreadLocal<Kryo> kryos = ThreadLocal.withInitial(() -> newKryo(SCHEMA_VERSION));
+
+    private transient static ThreadLocal<Kryo> fieldsKryos = ThreadLocal.withInitial(() -> newKryo(FIELDS_SCHEMA_VERSION));
+
+    private JSONStatusSerializer jsonSerializer = new JSONStatusSerializer();
+
+    private JavaStatusSerializer javaSerializer = new JavaStatusSerializer();
+
+    @Override
+    public byte[] fromKey(StatusKey key) throws IOException {
+        return write(key);
+    }
+
+    @Override
+    public StatusKey toKey(byte[] bytes) throws IOException {
+        if(!isBinary(bytes))
+            return isJava(bytes) ? javaSerializer.toKey(bytes) : jsonSerializer.toKey(bytes);
+
+        return read(bytes);
+    }
+
+    @Override
+    public byte[] fromValue(StatusValue value) throws IOException {
+        return write(value);
+    }
+
+    @Override
+    public StatusValue toValue(byte[] bytes) throws IOException {
+        if(!isBinary(bytes))
+            return isJava(bytes) ? javaSerializer.toValue(bytes) : jsonSerializer.toValue(bytes);
+
+        return read(bytes);
+    }
+
+    private byte[] write(Object object) throws IOException {
+        Output output = new Output(256, -1);
+
+        try {
+            output.writeByte(MAGIC);
+            output.writeByte(SCHEMA_VERSION);
+            kryos.get().writeClassAndObject(output, object);
+        }catch(KryoException e) {
+            throw new IOException(e);
+        }
+
+        return output.toBytes();
+    }
+
+    @SuppressWarnings("unchecked")
+    private <T> T read(byte[] bytes) throws IOException {
+        Input input = new Input(bytes);
+        input.skip(1);
+
+        Kryo kryo;
+        byte version = input.readByte();
+        if(version == SCHEMA_VERSION)
+            kryo = kryos.get();
+        else if(version == FIELDS_SCHEMA_VERSION)
+            kryo = fieldsKryos.get();
+        else
+            throw new IOException("Binary status with schema version " + version + " cannot be read, supported versions: "
+                                        + FIELDS_SCHEMA_VERSION + " and " + SCHEMA_VERSION);
+
+        try {
+            return (T) kryo.readClassAndObject(input);
+        }catch(KryoException e) {
+            throw new IOException(e);
+        }
+    }
+
+    private static boolean isBinary(byte[] bytes) {
+        return bytes != null && bytes.length > 1 && bytes[0] == MAGIC;
+    }
+
+    private static boolean isJava(byte[] bytes) {
+        return bytes != null && bytes.length > 1 && bytes[0] == (byte) 0xAC && bytes[1] == (byte) 0xED;
+    }
+
+    @SuppressWarnings({ "rawtypes", "unchecked" })
+    private static Kryo newKryo(byte version) {
+        Kryo kryo = new Kryo();
+        kryo.setRegistrationRequired(false);
+        kryo.setReferences(false);
+        kryo.setInstantiatorStrategy(new Kryo.DefaultInstantiatorStrategy(new StdInstantiatorStrategy()));
+        if(version != FIELDS_SCHEMA_VERSION)
+            kryo.setDefaultSerializer(VersionedFieldSerializer.class);
+
+        int id = FIRST_REGISTRATION_ID;
+        for (Class<?> type : REGISTERED_TYPES) {
+            Serializer serializer = kryo.getDefaultSerializer(type);
+
+            // Like values, with their own field serializer
+            if(version != FIELDS_SCHEMA_VERSION && serializer instanceof FieldSerializer && !(serializer instanceof VersionFieldSerializer))
+                serializer = new VersionedFieldSerializer<>(kryo, type);
+
+            kryo.register(type, serializer, id++);
+        }
+
+        kryo.register(Instant.class, new InstantSerializer(), REGISTERED_TYPES.indexOf(Instant.class) + FIRST_REGISTRATION_ID);
+        kryo.register(ValueHistory.class, new ValueHistoryKryoSerializer(), REGISTERED_TYPES.indexOf(ValueHistory.class) + FIRST_REGISTRATION_ID);
+        kryo.register(LimitedQueue.class, new LimitedQueueSerializer(), REGISTERED_TYPES.indexOf(LimitedQueue.class) + FIRST_REGISTRATION_ID);
+
+        return kryo;
+    }
+
+    // Sources of values are built before writing them
+    public static class VersionedFieldSerializer<T> extends VersionFieldSerializer<T> {
+
+        public VersionedFieldSerializer(Kryo kryo, Class<T> type) {
+            super(kryo, type);
+        }
+
+        @Override
+        public void write(Kryo kryo, Output output, T object) {
+            if(object instanceof Value)
+                ((Value) object).getSource();
+
+            super.write(kryo, output, object);
+        }
+
+    }
+
+    private static class InstantSerializer extends Serializer<Instant> {
+
+        @Override
+        public void write(Kryo kryo, Output output, Instant instant) {
+            output.writeVarLong(instant.toEpochMilli(), false);
+            output.writeVarInt(instant.getNano() % 1000000, true);
+        }
+
+        @Override
+        public Instant read(Kryo kryo, Input input, Class<Instant> type) {
+            return Instant.ofEpochMilli(input.readVarLong(false)).plusNanos(input.readVarInt(true));
+        }
+
+    }
+
+    @SuppressWarnings("rawtypes")
+    private static class LimitedQueueSerializer extends Serializer<LimitedQueue> {
+
+        @Override
+        public void write(Kryo kryo, Output output, LimitedQueue queue) {
+            output.writeVarInt(queue.getLimit(), true);
+            output.writeVarInt(queue.size(), true);
+
+            for (Object element : queue)
+                kryo.writeClassAndObject(output, element);
+        }
+
+        @SuppressWarnings("unchecked")
+        @Override
+        public LimitedQueue read(Kryo kryo, Input input, Class<LimitedQueue> type) {
+            LimitedQueue queue = new LimitedQueue<>(input.readVarInt(true));
+
+            int size = input.readVarInt(true);
+            for (int i = 0; i < size; i++)
+                queue.add(kryo.readClassAndObject(input));
+
+            return queue;
+        }
+
+    }
+
+}
@@ -3,8 +3,11 @@ package ch.cern.spark.status.storage;
 import java.io.IOException;
 import java.lang.reflect.Type;
 import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.Base64;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.List;
 import java.util.Map;
 import java.util.Set;
 
@@ -20,7 +23,12 @@ import com.google.gson.JsonParseException;
 import com.google.gson.JsonPrimitive;
 import com.google.gson.JsonSerializationContext;
 import com.google.gson.JsonSerializer;
+import com.google.gson.reflect.TypeToken;
 
+import ch.cern.exdemon.metrics.DatedValue;
+import ch.cern.exdemon.metrics.Metric;
+import ch.cern.exdemon.metrics.ValueHistory;
+import ch.cern.exdemon.metrics.defined.equation.var.ValueVariable;
 import ch.cern.exdemon.metrics.defined.equation.var.VariableStatus;
 import ch.cern.exdemon.metrics.defined.equation.var.agg.Aggregation;
 import ch.cern.exdemon.metrics.defined.equation.var.agg.CountAgregation;
@@ -35,6 +43,7 @@ import ch.cern.exdemon.metrics.value.FloatValue;
 import ch.cern.exdemon.metrics.value.PropertiesValue;
 import ch.cern.exdemon.metrics.value.StringValue;
 import ch.cern.exdemon.metrics.value.Value;
+import ch.cern.exdemon.monitor.analysis.types.SeasonalAnalysis;
 import ch.cern.exdemon.monitor.trigger.TriggerStatus;
 import ch.cern.exdemon.monitor.trigger.TriggerStatusKey;
 import ch.cern.exdemon.monitor.trigger.types.ConstantTrigger;
@@ -48,6 +57,9 @@ public class JSONStatusSerializer implements StatusSerializer {
 
     private static Gson parser = new GsonBuilder().registerTypeAdapter(Instant.class, new InstantAdapter())
                                                     .registerTypeAdapter(Value.class, new ValueAdapter())
+                                                    .registerTypeAdapterFactory(new Value.GsonAdapterFactory())
+                                                    .registerTypeAdapter(ValueHistory.class, new ValueHistoryAdapter())
+                                                    .registerTypeAdapter(SeasonalAnalysis.Status_.class, new SeasonalStatusAdapter())
                                                     .registerTypeAdapter(Aggregation.class, new HierarchyAdapter<Aggregation>())
                                                     .registerTypeAdapter(VariableStatus.class, new HierarchyAdapter<Aggregation>())
                                                     .registerTypeAdapter(StatusKey.class, new HierarchyAdapter<StatusKey>())
@@ -119,6 +131,92 @@ public class JSONStatusSerializer implements StatusSerializer {
 
     }
 
+    // Keeps the format of when values were stored as a list of dated values
+    public static class ValueHistoryAdapter implements JsonSerializer<ValueHistory>, JsonDeserializer<ValueHistory> {
+
+        private static final Type DATED_VALUES_TYPE = new TypeToken<List<DatedValue>>(){}.getType();
+        private static final Type METRICS_TYPE = new TypeToken<List<Metric>>(){}.getType();
+
+        @Override
+        public ValueHistory deserialize(JsonElement json, Type type, JsonDeserializationContext context)
+                throws JsonParseException {
+            JsonObject jsonObject = json.getAsJsonObject();
+
+            // Values are added before limits are set, so they are not summarized or removed
+            ValueHistory history = new ValueHistory(Long.MAX_VALUE, 0, null, null);
+
+            if(jsonObject.has("values")) {
+                List<DatedValue> values = context.deserialize(jsonObject.get("values"), DATED_VALUES_TYPE);
+
+                values.forEach(value -> history.add(value.getTime(), value.getValue()));
+            }
+
+            history.setMax_size(jsonObject.has("max_size") ? jsonObject.get("max_size").getAsLong() : ValueVariable.MAX_SIZE_DEFAULT);
+            if(jsonObject.has("granularity"))
+                history.setGranularity(context.deserialize(jsonObject.get("granularity"), ChronoUnit.class));
+            if(jsonObject.has("aggregation"))
+                history.setAggregation(context.deserialize(jsonObject.get("aggregation"), Aggregation.class));
+            if(jsonObject.has("lastAggregatedMetrics"))
+                history.setLastAggregatedMetrics(context.deserialize(jsonObject.get("lastAggregatedMetrics"), METRICS_TYPE));
+            if(jsonObject.has("max_lastAggregatedMetrics_size"))
+                history.setMax_lastAggregatedMetrics_size(jsonObject.get("max_lastAggregatedMetrics_size").getAsInt());
+
+            return history;
+        }
+
+        @Override
+        public JsonElement serialize(ValueHistory history, Type type, JsonSerializationContext context) {
+            JsonObject json = new JsonObject();
+
+            json.add("values", context.serialize(history.getValues(), DATED_VALUES_TYPE));
+            json.addProperty("max_size", history.getMax_size());
+            if(history.getGranularity() != null)
+                json.add("granularity", context.serialize(history.getGranularity()));
+            if(history.getAggregation() != null)
+                json.add("aggregation", context.serialize(history.getAggregation(), Aggregation.class));
+            if(history.getLastAggregatedMetrics() != null)
+                json.add("lastAggregatedMetrics", context.serialize(history.getLastAggregatedMetrics(), METRICS_TYPE));
+            json.addProperty("max_lastAggregatedMetrics_size", history.getMax_lastAggregatedMetrics_size());
+
+            return json;
+        }
+
+    }
+
+    // Predictor is stored with its compact format as base64
+    public static class SeasonalStatusAdapter implements JsonSerializer<SeasonalAnalysis.Status_>, JsonDeserializer<SeasonalAnalysis.Status_> {
+
+        private static final Gson DEFAULT = new Gson();
+
+        @Override
+        public SeasonalAnalysis.Status_ deserialize(JsonElement json, Type type, JsonDeserializationContext context)
+                throws JsonParseException {
+            SeasonalAnalysis.Status_ status = DEFAULT.fromJson(json, SeasonalAnalysis.Status_.class);
+
+            try {
+                status.setPredictorBytes(Base64.getDecoder().decode(json.getAsJsonObject().get("predictor").getAsString()));
+            } catch (IOException e) {
+                throw new JsonParseException(e);
+            }
+
+            return status;
+        }
+
+        @Override
+        public JsonElement serialize(SeasonalAnalysis.Status_ status, Type type, JsonSerializationContext context) {
+            JsonObject json = DEFAULT.toJsonTree(status).getAsJsonObject();
+
+            try {
+                json.addProperty("predictor", Base64.getEncoder().encodeToString(status.getPredictorBytes()));
+            } catch (IOException e) {
+                throw new JsonParseException(e);
+            }
+
+            return json;
+        }
+
+    }
+
     public static class HierarchyAdapter<T> implements JsonSerializer<T>, JsonDeserializer<T> {
 
         private static String KEY_TYPE = "fqcn";
@@ -45,4 +45,16 @@ public abstract class StatusesStorage extends Component {
 
     public abstract <K extends StatusKey> void remove(JavaRDD<K> rdd);
 
+    // Keys removed in the batch of the given time
+    public <K extends StatusKey> void remove(JavaRDD<K> rdd, Time time) {
+        remove(rdd);
+    }
+
+    // Statuses that have been updated in the batch of the given time (or were never processed) and need to be stored
+    protected static <K extends StatusKey, V extends StatusValue> boolean isUpdatedState(Tuple2<K, V> tuple, Time time) {
+        return tuple._2 == null 
+                || ((tuple._2.getStatus_update_time() == time.milliseconds() || tuple._2.getStatus_update_time() == 0l)
+                        && tuple._2.isStorable());
+    }
+
 }
\ No newline at end of file
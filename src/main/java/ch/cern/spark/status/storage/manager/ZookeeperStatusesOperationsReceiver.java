@@ -196,7 +196,9 @@ public class ZookeeperStatusesOperationsReceiver extends Receiver<StatusOperatio
     	
         switch(operation) {
 		case REMOVE:
-			getKeys(rootPath).stream().forEach(key -> storeOperation(new StatusOperation<>(id, key, Op.REMOVE)));
+		    List<StatusKey> keysToRemove = getKeys(rootPath);
+		    setNodeData(rootPath + ZookeeperStatusesResultsWriter.PENDING_NODE, String.valueOf(keysToRemove.size()).getBytes());
+		    keysToRemove.stream().forEach(key -> storeOperation(new StatusOperation<>(id, key, Op.REMOVE)));
 			setNodeData(rootPath + "status", "RECEIVED".getBytes());
 			break;
 		case LIST:
@@ -204,7 +206,9 @@ public class ZookeeperStatusesOperationsReceiver extends Receiver<StatusOperatio
 			setNodeData(rootPath + "status", "RECEIVED".getBytes());
 			break;
 		case SHOW:
-		    getKeys(rootPath).stream().forEach(key -> storeOperation(new StatusOperation<>(id, key, Op.SHOW)));
+		    List<StatusKey> keysToShow = getKeys(rootPath);
+		    setNodeData(rootPath + ZookeeperStatusesResultsWriter.PENDING_NODE, String.valueOf(keysToShow.size()).getBytes());
+		    keysToShow.stream().forEach(key -> storeOperation(new StatusOperation<>(id, key, Op.SHOW)));
             setNodeData(rootPath + "status", "RECEIVED".getBytes());
             break;
 		case UPDATE:
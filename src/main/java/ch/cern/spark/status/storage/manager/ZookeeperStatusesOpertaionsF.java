@@ -1,29 +1,36 @@
 package ch.cern.spark.status.storage.manager;
 
+import java.io.Serializable;
+import java.util.HashSet;
 import java.util.Iterator;
+import java.util.LinkedList;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Collectors;
 
 import org.apache.curator.framework.CuratorFramework;
 import org.apache.curator.framework.CuratorFrameworkFactory;
 import org.apache.curator.retry.ExponentialBackoffRetry;
 import org.apache.log4j.Logger;
-import org.apache.spark.api.java.JavaFutureAction;
 import org.apache.spark.api.java.JavaPairRDD;
+import org.apache.spark.api.java.JavaRDD;
 import org.apache.spark.api.java.JavaSparkContext;
-import org.apache.spark.api.java.function.VoidFunction;
+import org.apache.spark.broadcast.Broadcast;
 import org.apache.spark.streaming.api.java.JavaDStream;
 import org.apache.spark.streaming.api.java.JavaPairDStream;
-import org.bouncycastle.util.Arrays;
 
 import ch.cern.properties.Properties;
 import ch.cern.spark.status.StatusKey;
 import ch.cern.spark.status.StatusOperation;
 import ch.cern.spark.status.StatusOperation.Op;
+import ch.cern.spark.status.StatusOperationResult;
 import ch.cern.spark.status.StatusValue;
 import ch.cern.spark.status.storage.JSONStatusSerializer;
 import scala.Tuple2;
 
-public class ZookeeperStatusesOpertaionsF<K extends StatusKey, V, S extends StatusValue> implements VoidFunction<JavaPairRDD<Tuple2<K,S>,StatusOperation<K,V>>> {
+public class ZookeeperStatusesOpertaionsF<K extends StatusKey, V, S extends StatusValue> implements Serializable {
 
 	private static final long serialVersionUID = 4641310780508591435L;
 	
@@ -32,36 +39,60 @@ public class ZookeeperStatusesOpertaionsF<K extends StatusKey, V, S extends Stat
 	private static CuratorFramework client = null;
 	
 	private static JSONStatusSerializer derializer = new JSONStatusSerializer();
+	
+	// Broadcast operations by ID of the RDD evaluating them, destroyed once finished (driver only)
+	private static final Map<Integer, Broadcast<?>> broadcasts = new ConcurrentHashMap<>();
 
 	private String zkConnString;
 
 	private int timeout_ms;
 	
+	private ZookeeperStatusesResultsWriter resultsWriter;
+	
 	public ZookeeperStatusesOpertaionsF(Properties props) {
         zkConnString = props.getProperty("connection_string");
         timeout_ms = (int) props.getLong("timeout_ms", 20000);
         initClient();
+        
+        resultsWriter = new ZookeeperStatusesResultsWriter(props);
 		
 		derializer = new JSONStatusSerializer();
 	}
 	
-	@Override
-	public void call(JavaPairRDD<Tuple2<K, S>, StatusOperation<K, V>> rdd) throws Exception {
-		JavaFutureAction<Void> foreachFuture = rdd.foreachPartitionAsync(rddPart -> call(rddPart));
-		JavaFutureAction<List<String>> distinctFuture = rdd.map(o -> o._2.getId()).distinct().collectAsync();
-		
-		new Thread() {
-			public void run() {
-				try {
-					foreachFuture.get();
-
-					for (String id : distinctFuture.get())
-						finishOperation(id);
-				} catch (Exception e) {
-					LOG.error(e);
-				}
-			}
-		}.start();
+	// List operations are broadcast and evaluated against every partition of the statuses, without shuffling them.
+	// Returned RDD contains the IDs of the evaluated operations, it is empty if there are no operations.
+	public JavaRDD<String> list(JavaPairRDD<K, S> statuses, JavaRDD<StatusOperation<K, V>> operations) {
+	    // Received blocks are known by the driver, no job is run if nothing was received
+	    if(operations.getNumPartitions() == 0)
+	        return JavaSparkContext.fromSparkContext(statuses.context()).emptyRDD();
+	    
+	    // Only a few operations per batch, collected to the driver
+	    List<StatusOperation<K, V>> listOperations = operations.collect();
+	    if(listOperations.isEmpty())
+	        return JavaSparkContext.fromSparkContext(statuses.context()).emptyRDD();
+	    
+	    Broadcast<List<StatusOperation<K, V>>> broadcastOperations = JavaSparkContext.fromSparkContext(statuses.context()).broadcast(listOperations);
+	    
+	    JavaRDD<String> evaluatedIds = statuses.mapPartitions(partition -> list(partition, broadcastOperations.value()).iterator());
+	    broadcasts.put(evaluatedIds.id(), broadcastOperations);
+	    
+	    return evaluatedIds;
+	}
+	
+	// Nothing to finish if the batch had no list operations
+	public void finish(JavaRDD<String> evaluatedIds) {
+	    Broadcast<?> broadcastOperations = broadcasts.remove(evaluatedIds.id());
+	    if(broadcastOperations == null)
+	        return;
+	    
+	    try {
+	        for (String id : new HashSet<>(evaluatedIds.collect()))
+	            finishOperation(id);
+	    } catch (Exception e) {
+	        LOG.error(e);
+	    } finally {
+	        broadcastOperations.destroy();
+	    }
 	}
 
 	private void finishOperation(String id) throws Exception {
@@ -82,45 +113,29 @@ public class ZookeeperStatusesOpertaionsF<K extends StatusKey, V, S extends Stat
 		}
 	}
 	
-	public void call(Iterator<Tuple2<Tuple2<K, S>, StatusOperation<K, V>>> tuples) {
-		while (tuples.hasNext()) {
-		    try {
-    			Tuple2<Tuple2<K, S>, StatusOperation<K, V>> tuple = tuples.next();
-    			
-    			@SuppressWarnings("unchecked")
-    			Tuple2<StatusKey, StatusValue> keyValue = (Tuple2<StatusKey, StatusValue>) tuple._1;
-    			StatusOperation<K, V> op = tuple._2;
-    			
-    			if(op.getOp().equals(Op.LIST)) {
+	public Set<String> list(Iterator<Tuple2<K, S>> statuses, List<StatusOperation<K, V>> operations) {
+	    List<StatusOperationResult> results = new LinkedList<>();
+	    
+		while (statuses.hasNext()) {
+		    @SuppressWarnings("unchecked")
+		    Tuple2<StatusKey, StatusValue> keyValue = (Tuple2<StatusKey, StatusValue>) statuses.next();
+		    
+		    for (StatusOperation<K, V> op : operations) {
+    		    try {
     				if(op.filter(keyValue)) {
-    					writeListResult(op.getId(), keyValue._1);
+    				    String keyAsString = new String(derializer.fromKey(keyValue._1)).concat("\n");
+    				    
+    					results.add(new StatusOperationResult(op.getId(), "keys", keyAsString));
     				}
-    			}
-		    } catch (Exception e) {
-                LOG.error(e);
-            }
+    		    } catch (Exception e) {
+    		        LOG.error(e);
+    		    }
+		    }
 		}
-	}
-
-    private void writeListResult(String id, StatusKey key) throws Exception {
-		getClient();
 		
-		String path = "/id="+id+"/keys";
+		resultsWriter.write(results.iterator());
 		
-		String keyAsString = new String(derializer.fromKey(key)).concat("\n");
-		
-		if(client.checkExists().forPath(path) != null) {
-			byte[] currentData = client.getData().forPath(path);
-			
-			if(currentData.length > 100000) {
-				client.setData().forPath("/id="+id+"/status", "WARNING results maximun size reached".getBytes());
-				return;
-			}
-			
-			client.setData().forPath(path, Arrays.concatenate(currentData, keyAsString.getBytes()));
-		}else{
-			client.create().forPath(path, keyAsString.getBytes());
-		}
+		return operations.stream().map(StatusOperation::getId).collect(Collectors.toSet());
 	}
 
 	public CuratorFramework getClient() {
@@ -142,18 +157,16 @@ public class ZookeeperStatusesOpertaionsF<K extends StatusKey, V, S extends Stat
 	}
 
 	public static <K extends StatusKey, V, S extends StatusValue> void apply(JavaSparkContext context, JavaPairDStream<K, S> statuses, JavaDStream<StatusOperation<K, V>> operations) {
-        JavaPairDStream<String, StatusOperation<K, V>> listOperations = operations
-				.filter(op -> op.getOp().equals(Op.LIST))
-				.mapToPair(op -> new Tuple2<>("filter", op));
-
 		Properties zooStatusesOpFProps = Properties.from(context.getConf().getAll()).getSubset(ZookeeperStatusesOperationsReceiver.PARAM);
-		if(zooStatusesOpFProps.size() > 0)
-			statuses.mapToPair(s -> new Tuple2<>("filter", s))
-				.leftOuterJoin(listOperations)
-				.filter(t -> t._2._2.isPresent())
-				.mapToPair(t -> new Tuple2<>(t._2._1, t._2._2.get()))
-				.foreachRDD(new ZookeeperStatusesOpertaionsF<K, V, S>(zooStatusesOpFProps));
+		if(zooStatusesOpFProps.size() <= 0)
+		    return;
+		
+		JavaDStream<StatusOperation<K, V>> listOperations = operations.filter(op -> op.getOp().equals(Op.LIST));
+		
+		ZookeeperStatusesOpertaionsF<K, V, S> operationsF = new ZookeeperStatusesOpertaionsF<K, V, S>(zooStatusesOpFProps);
 		
+		statuses.transformWith(listOperations, (statusesRDD, operationsRDD, time) -> operationsF.list(statusesRDD, operationsRDD))
+		        .foreachRDD(evaluatedIds -> operationsF.finish(evaluatedIds));
 	}
 
 }
@@ -0,0 +1,186 @@
+package ch.cern.spark.status.storage.manager;
+
+import java.io.Serializable;
+import java.nio.charset.StandardCharsets;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import org.apache.curator.framework.CuratorFramework;
+import org.apache.curator.framework.CuratorFrameworkFactory;
+import org.apache.curator.retry.ExponentialBackoffRetry;
+import org.apache.log4j.Logger;
+import org.apache.zookeeper.KeeperException;
+import org.apache.zookeeper.data.Stat;
+
+import ch.cern.properties.Properties;
+import ch.cern.spark.status.StatusOperationResult;
+import scala.Tuple2;
+
+// Results of a partition are appended once per operation and target, completion is tracked with the pending counter
+public class ZookeeperStatusesResultsWriter implements Serializable {
+
+    private static final long serialVersionUID = 7467925532470806181L;
+
+    private transient final static Logger LOG = Logger.getLogger(ZookeeperStatusesResultsWriter.class.getName());
+
+    public static final String PENDING_NODE = "pending";
+
+    private static final int MAX_KEYS_SIZE = 100000;
+    private static final int MAX_VALUES_SIZE = 1000000;
+
+    private static final String MAX_SIZE_WARNING = "WARNING results maximun size reached";
+
+    // Attempts on concurrent modifications, waiting longer after every attempt
+    private static final int MAX_ATTEMPTS = 10;
+    private static final long BACKOFF_MS = 10;
+
+    private static CuratorFramework client = null;
+
+    private String zkConnString;
+
+    private int timeout_ms;
+
+    public ZookeeperStatusesResultsWriter(Properties props) {
+        zkConnString = props.getProperty("connection_string");
+        timeout_ms = (int) props.getLong("timeout_ms", 20000);
+    }
+
+    public void write(Iterator<StatusOperationResult> results) {
+        Map<Tuple2<String, String>, StringBuilder> grouped = new LinkedHashMap<>();
+        Map<Tuple2<String, String>, Integer> counts = new LinkedHashMap<>();
+
+        while(results.hasNext()) {
+            StatusOperationResult result = results.next();
+            Tuple2<String, String> idAndTarget = new Tuple2<>(result.getId(), result.getTarget());
+
+            grouped.computeIfAbsent(idAndTarget, k -> new StringBuilder()).append(result.getLine());
+            counts.merge(idAndTarget, 1, Integer::sum);
+        }
+
+        for (Map.Entry<Tuple2<String, String>, StringBuilder> group : grouped.entrySet()) {
+            String id = group.getKey()._1;
+            String target = group.getKey()._2;
+
+            try {
+                append(id, target, group.getValue().toString());
+
+                if(!target.equals("keys"))
+                    decreasePending(id, counts.get(group.getKey()));
+            } catch (Exception e) {
+                LOG.error("Error writing results of operation id=" + id + " at " + target, e);
+            }
+        }
+    }
+
+    // Optimistic concurrency, other partitions may be appending to the same node
+    private void append(String id, String target, String lines) throws Exception {
+        CuratorFramework client = getClient();
+
+        String path = "/id=" + id + "/" + target;
+        int maxSize = target.equals("keys") ? MAX_KEYS_SIZE : MAX_VALUES_SIZE;
+        byte[] linesBytes = lines.getBytes(StandardCharsets.UTF_8);
+
+        for (int attempt = 1; attempt <= MAX_ATTEMPTS; attempt++) {
+            try {
+                if(client.checkExists().forPath(path) == null) {
+                    if(client.checkExists().forPath("/id=" + id) == null) {
+                        LOG.warn("Operation id=" + id + " was removed, results are not written");
+                        return;
+                    }
+
+                    client.create().forPath(path, linesBytes);
+                    return;
+                }
+
+                Stat stat = new Stat();
+                byte[] currentData = client.getData().storingStatIn(stat).forPath(path);
+                if(currentData.length > maxSize) {
+                    client.setData().forPath("/id=" + id + "/status", MAX_SIZE_WARNING.getBytes());
+                    return;
+                }
+
+                byte[] newData = new byte[currentData.length + linesBytes.length];
+                System.arraycopy(currentData, 0, newData, 0, currentData.length);
+                System.arraycopy(linesBytes, 0, newData, currentData.length, linesBytes.length);
+
+                client.setData().withVersion(stat.getVersion()).forPath(path, newData);
+                return;
+            } catch (KeeperException.NodeExistsException | KeeperException.NoNodeException | KeeperException.BadVersionException e) {
+                // Concurrent modification, try again
+                backoff(attempt);
+            }
+        }
+
+        throw new IllegalStateException("Results could not be appended to " + path + " after " + MAX_ATTEMPTS + " attempts");
+    }
+
+    // Status is not set to DONE if a warning was written
+    private void decreasePending(String id, int count) throws Exception {
+        CuratorFramework client = getClient();
+
+        String path = "/id=" + id + "/" + PENDING_NODE;
+
+        for (int attempt = 1; attempt <= MAX_ATTEMPTS; attempt++) {
+            Stat stat = new Stat();
+            byte[] data;
+            try {
+                data = client.getData().storingStatIn(stat).forPath(path);
+            } catch (KeeperException.NoNodeException e) {
+                return;
+            }
+
+            long pending = Long.parseLong(new String(data).trim()) - count;
+
+            try {
+                client.setData().withVersion(stat.getVersion()).forPath(path, String.valueOf(pending).getBytes());
+            } catch (KeeperException.BadVersionException e) {
+                backoff(attempt);
+                continue;
+            }
+
+            if(pending <= 0) {
+                String statusPath = "/id=" + id + "/status";
+
+                Stat statusStat = new Stat();
+                String status = new String(client.getData().storingStatIn(statusStat).forPath(statusPath));
+                try {
+                    if(!status.startsWith("WARNING"))
+                        client.setData().withVersion(statusStat.getVersion()).forPath(statusPath, "DONE".getBytes());
+                } catch (KeeperException.BadVersionException e) {
+                    // Status changed meanwhile (like a warning), it is kept
+                }
+            }
+
+            return;
+        }
+
+        throw new IllegalStateException("Pending results of operation id=" + id + " could not be updated after " + MAX_ATTEMPTS + " attempts");
+    }
+
+    private static void backoff(int attempt) throws InterruptedException {
+        Thread.sleep(BACKOFF_MS << Math.min(attempt, 6));
+    }
+
+    public CuratorFramework getClient() {
+        if(client == null)
+            initClient(zkConnString, timeout_ms);
+
+        return client;
+    }
+
+    private static synchronized void initClient(String zkConnString, int timeout_ms) {
+        if(client != null)
+            return;
+
+        client = CuratorFrameworkFactory.builder()
+                        .connectString(zkConnString)
+                        .retryPolicy(new ExponentialBackoffRetry(1000, 3))
+                        .sessionTimeoutMs(timeout_ms)
+                        .build();
+        client.start();
+
+        LOG.info("Client started. Connection string: " + zkConnString);
+    }
+
+}
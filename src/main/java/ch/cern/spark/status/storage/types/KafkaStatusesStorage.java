@@ -15,6 +15,7 @@ import java.util.concurrent.atomic.LongAccumulator;
 import java.util.stream.Collectors;
 
 import org.apache.kafka.clients.consumer.ConsumerConfig;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
 import org.apache.kafka.clients.consumer.ConsumerRecords;
 import org.apache.kafka.clients.consumer.KafkaConsumer;
 import org.apache.kafka.clients.producer.Callback;
@@ -30,9 +31,11 @@ import org.apache.log4j.Logger;
 import org.apache.spark.api.java.JavaPairRDD;
 import org.apache.spark.api.java.JavaRDD;
 import org.apache.spark.api.java.JavaSparkContext;
+import org.apache.spark.api.java.function.FlatMapFunction;
 import org.apache.spark.api.java.function.VoidFunction;
 import org.apache.spark.storage.StorageLevel;
 import org.apache.spark.streaming.Time;
+import org.apache.spark.streaming.kafka010.OffsetRange;
 
 import com.google.common.annotations.VisibleForTesting;
 import com.google.common.collect.Sets;
@@ -43,6 +46,7 @@ import ch.cern.properties.ConfigurationException;
 import ch.cern.properties.Properties;
 import ch.cern.spark.status.StatusKey;
 import ch.cern.spark.status.StatusValue;
+import ch.cern.spark.status.storage.BinaryStatusSerializer;
 import ch.cern.spark.status.storage.JSONStatusSerializer;
 import ch.cern.spark.status.storage.JavaStatusSerializer;
 import ch.cern.spark.status.storage.StatusSerializer;
@@ -71,6 +75,8 @@ public class KafkaStatusesStorage extends StatusesStorage {
     private Duration timeout;
 
     private boolean ignoreExceptionsDuringSerialization;
+
+    private boolean distributedLoad;
 	
 	public ConfigurationResult config(Properties properties) {
 	    ConfigurationResult confResult = ConfigurationResult.SUCCESSFUL();
@@ -96,6 +102,9 @@ public class KafkaStatusesStorage extends StatusesStorage {
 		case "java":
 			serializer = new JavaStatusSerializer();
 			break;
+		case "binary":
+			serializer = new BinaryStatusSerializer();
+			break;
 		default:
 		    confResult.withError("serialization.type", "serialization type " + serializationType + " is not available.");
 		}
@@ -105,18 +114,38 @@ public class KafkaStatusesStorage extends StatusesStorage {
         } catch (ConfigurationException e) {
             confResult.withError(null, e);
         }
+		
+		String loadMode = properties.getProperty("load.mode", "driver");
+		switch (loadMode) {
+        case "driver":
+            distributedLoad = false;
+            break;
+        case "distributed":
+            distributedLoad = true;
+            break;
+        default:
+            confResult.withError("load.mode", "load mode " + loadMode + " is not available.");
+        }
         
 		return confResult.merge(null, properties.warningsIfNotAllPropertiesUsed());
 	}
 	
 	@Override
 	public JavaRDD<Tuple2<StatusKey, StatusValue>> load(JavaSparkContext context) throws IOException, ConfigurationException {
-
-	    JavaRDD<ConsumerRecordSer> kafkaContent = context.parallelize(getAllRecords());
+	    JavaRDD<Tuple2<StatusKey, StatusValue>> parsed;
 	    
-		JavaRDD<Tuple2<ByteArray, ByteArray>> latestRecords = getLatestRecords(kafkaContent);
-		
-		JavaRDD<Tuple2<StatusKey, StatusValue>> parsed = parseRecords(latestRecords);
+	    if(distributedLoad) {
+	        List<OffsetRange> offsetRanges = getOffsetRanges();
+	        
+	        parsed = context.parallelize(offsetRanges, Math.max(offsetRanges.size(), 1))
+	                        .mapPartitions(new KafkaPartitionLoaderFunc(kafkaConsumerParams, serializer, timeout, ignoreExceptionsDuringSerialization));
+	    }else {
+    	    JavaRDD<ConsumerRecordSer> kafkaContent = context.parallelize(getAllRecords());
+    	    
+    		JavaRDD<Tuple2<ByteArray, ByteArray>> latestRecords = getLatestRecords(kafkaContent);
+    		
+    		parsed = parseRecords(latestRecords);
+	    }
 		
 		LOG.info("Statuses loaded from Kafka topic " + topic);
 		
@@ -181,6 +210,31 @@ public class KafkaStatusesStorage extends StatusesStorage {
         return new LinkedList<>(latestRecords.values());
     }
     
+    protected List<OffsetRange> getOffsetRanges() {
+        kafkaConsumerParams.put(ConsumerConfig.GROUP_ID_CONFIG, UUID.randomUUID().toString());
+        
+        consumer = new KafkaConsumer<Bytes, Bytes>(kafkaConsumerParams);
+        
+        List<TopicPartition> partitions = consumer.partitionsFor(topic).stream().map(part -> new TopicPartition(topic, part.partition())).collect(Collectors.toList());
+        consumer.assign(partitions);
+        
+        Map<TopicPartition, Long> fromOffsets = new HashMap<>();
+        consumer.seekToBeginning(partitions);
+        for (TopicPartition partition : partitions)
+            fromOffsets.put(partition, consumer.position(partition));
+        
+        List<OffsetRange> offsetRanges = new LinkedList<>();
+        consumer.seekToEnd(partitions);
+        for (TopicPartition partition : partitions)
+            offsetRanges.add(OffsetRange.create(partition, fromOffsets.get(partition), consumer.position(partition)));
+        
+        consumer.close();
+        
+        LOG.info("Statuses will be loaded from offset ranges: " + offsetRanges);
+        
+        return offsetRanges;
+    }
+    
     private int getNumberOfPartitions() {
         return consumer.partitionsFor(topic).size();
     }
@@ -239,6 +293,14 @@ public class KafkaStatusesStorage extends StatusesStorage {
         return new Tuple2<ByteArray, ByteArray>(key, latestValue._2);
     }
 
+    @VisibleForTesting
+    protected static void addToLatestRecords(Map<Bytes, Bytes> latestRecords, ConsumerRecord<Bytes, Bytes> record) {
+        if(record.value() != null)
+            latestRecords.put(record.key(), record.value());
+        else
+            latestRecords.remove(record.key());
+    }
+
     private JavaRDD<Tuple2<StatusKey, StatusValue>> parseRecords(JavaRDD<Tuple2<ByteArray, ByteArray>> latestRecords) {
 		return latestRecords.flatMap(binaryRecord -> { 
 		                                            byte[] keyBytes = binaryRecord._1.get();
@@ -270,12 +332,6 @@ public class KafkaStatusesStorage extends StatusesStorage {
 		rdd.foreachPartitionAsync(new KafkaProducerFunc<K, V>(kafkaProducerParams, serializer, topic, ignoreExceptionsDuringSerialization));
 	}
 	
-    private <K extends StatusKey, V extends StatusValue> boolean isUpdatedState(Tuple2<K, V> tuple, Time time) {
-        return tuple._2 == null 
-                || tuple._2.getStatus_update_time() == time.milliseconds() 
-                || tuple._2.getStatus_update_time() == 0l;
-    }
-
     @Override
     public <K extends StatusKey> void remove(JavaRDD<K> rdd) {
         JavaRDD<Tuple2<K, StatusValue>> keyWithNulls = rdd.map(key -> new Tuple2<K, StatusValue>(key, null));
@@ -321,6 +377,102 @@ public class KafkaStatusesStorage extends StatusesStorage {
         return kafkaParams;
     }
     
+    private static class KafkaPartitionLoaderFunc implements FlatMapFunction<Iterator<OffsetRange>, Tuple2<StatusKey, StatusValue>>{
+
+        private static final long serialVersionUID = -3386522254838925012L;
+
+        private Map<String, Object> props;
+
+        private StatusSerializer serializer;
+
+        private Duration timeout;
+
+        private boolean ignoreExceptionsDuringSerialization;
+
+        protected KafkaPartitionLoaderFunc(Map<String, Object> props, StatusSerializer serializer, Duration timeout, boolean ignoreExceptionsDuringSerialization) {
+            this.props = props;
+            this.serializer = serializer;
+            this.timeout = timeout;
+            this.ignoreExceptionsDuringSerialization = ignoreExceptionsDuringSerialization;
+        }
+
+        @Override
+        public Iterator<Tuple2<StatusKey, StatusValue>> call(Iterator<OffsetRange> offsetRanges) throws Exception {
+            List<Tuple2<StatusKey, StatusValue>> statuses = new LinkedList<>();
+            
+            while(offsetRanges.hasNext()) {
+                Map<Bytes, Bytes> latestRecords = getLatestRecords(offsetRanges.next());
+                
+                for (Entry<Bytes, Bytes> record : latestRecords.entrySet()) {
+                    byte[] keyBytes = record.getKey() != null ? record.getKey().get() : null;
+                    byte[] valueBytes = record.getValue().get();
+                    
+                    try {
+                        statuses.add(new Tuple2<>(serializer.toKey(keyBytes), serializer.toValue(valueBytes)));
+                    }catch(Throwable e) {
+                        LOG.error("Deserialization error with key=" + (keyBytes != null ? new String(keyBytes) : "null") + 
+                                                            " value=" + new String(valueBytes), e);
+                        
+                        if(!ignoreExceptionsDuringSerialization)
+                            throw e;
+                    }
+                }
+            }
+            
+            return statuses.iterator();
+        }
+
+        private Map<Bytes, Bytes> getLatestRecords(OffsetRange offsetRange) {
+            Map<Bytes, Bytes> latestRecords = new HashMap<>();
+            
+            if(offsetRange.fromOffset() >= offsetRange.untilOffset())
+                return latestRecords;
+            
+            Map<String, Object> consumerProps = new HashMap<>(props);
+            consumerProps.put(ConsumerConfig.GROUP_ID_CONFIG, UUID.randomUUID().toString());
+            
+            TopicPartition partition = offsetRange.topicPartition();
+            
+            KafkaConsumer<Bytes, Bytes> consumer = new KafkaConsumer<Bytes, Bytes>(consumerProps);
+            try {
+                consumer.assign(Collections.singletonList(partition));
+                consumer.seek(partition, offsetRange.fromOffset());
+                
+                long processed_records_count = 0;
+                
+                while(consumer.position(partition) < offsetRange.untilOffset()) {
+                    ConsumerRecords<Bytes, Bytes> records = consumer.poll(timeout.toMillis());
+                    if(records.isEmpty())
+                        break;
+                    
+                    for (ConsumerRecord<Bytes, Bytes> record : records) {
+                        // Records produced after loading started are not part of the range
+                        if(record.offset() >= offsetRange.untilOffset())
+                            break;
+                        
+                        addToLatestRecords(latestRecords, record);
+                        
+                        processed_records_count++;
+                    }
+                }
+                
+                if(consumer.position(partition) < offsetRange.untilOffset()) {
+                    LOG.error("Partition " + partition + " was not completelly consumed when reading the state, consumed till offset " 
+                                    + consumer.position(partition) + " from range " + offsetRange);
+                    
+                    throw new RuntimeException("Topic has not been completelly consumed.");
+                }
+                
+                LOG.info(processed_records_count + " records processed, " + latestRecords.size() + " uniques keys (partition " + partition + ")");
+            }finally {
+                consumer.close();
+            }
+            
+            return latestRecords;
+        }
+        
+    }
+    
     private static class KafkaProducerFunc<K extends StatusKey, V extends StatusValue> implements VoidFunction<Iterator<Tuple2<K, V>>>{
 
 		private static final long serialVersionUID = 3712180876662835316L;
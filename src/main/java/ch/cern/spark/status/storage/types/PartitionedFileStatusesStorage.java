@@ -0,0 +1,335 @@
+package ch.cern.spark.status.storage.types;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.stream.Collectors;
+
+import org.apache.hadoop.conf.Configuration;
+import org.apache.hadoop.fs.FileStatus;
+import org.apache.hadoop.fs.FileSystem;
+import org.apache.hadoop.fs.Path;
+import org.apache.log4j.Logger;
+import org.apache.spark.api.java.JavaPairRDD;
+import org.apache.spark.api.java.JavaRDD;
+import org.apache.spark.api.java.JavaSparkContext;
+import org.apache.spark.storage.StorageLevel;
+import org.apache.spark.streaming.Time;
+
+import com.google.common.annotations.VisibleForTesting;
+
+import ch.cern.exdemon.components.ConfigurationResult;
+import ch.cern.exdemon.components.RegisterComponentType;
+import ch.cern.properties.ConfigurationException;
+import ch.cern.properties.Properties;
+import ch.cern.spark.status.StatusKey;
+import ch.cern.spark.status.StatusValue;
+import ch.cern.spark.status.storage.BinaryStatusSerializer;
+import ch.cern.spark.status.storage.JSONStatusSerializer;
+import ch.cern.spark.status.storage.JavaStatusSerializer;
+import ch.cern.spark.status.storage.StatusSerializer;
+import ch.cern.spark.status.storage.StatusesStorage;
+import ch.cern.utils.ByteArray;
+import scala.Tuple2;
+
+// Every partition writes a segment file with the statuses updated in the batch (removed keys as tombstones).
+// When loading, the latest record of every key wins. Segments are compacted in the background
+// after a number of batches, into a bounded number of segments.
+// Segments are ordered by batch time, and for the same time: compacted, updated and then removed.
+@RegisterComponentType("partitioned-file")
+public class PartitionedFileStatusesStorage extends StatusesStorage {
+
+    private static final long serialVersionUID = -2633532036622385457L;
+
+    private transient final static Logger LOG = Logger.getLogger(PartitionedFileStatusesStorage.class.getName());
+
+    private static final String SEGMENT_SUFFIX = ".seg";
+
+    private static final int TOMBSTONE = -1;
+
+    private static final int COMPACTED_SEGMENT = 0;
+    private static final int UPDATED_SEGMENT = 1;
+    private static final int REMOVED_SEGMENT = 2;
+
+    private static transient FileSystem fs = null;
+
+    private static transient ExecutorService compactor = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "statuses-compactor");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private static transient AtomicBoolean compacting = new AtomicBoolean(false);
+
+    private String path;
+
+    private StatusSerializer serializer;
+
+    private int compactionBatches;
+
+    private int compactedSegments;
+
+    @Override
+    public ConfigurationResult config(Properties properties) {
+        ConfigurationResult confResult = ConfigurationResult.SUCCESSFUL();
+
+        path = properties.getProperty("path", "/tmp/metrics-monitor-statuses/");
+
+        String serializationType = properties.getProperty("serialization.type", "binary");
+        switch (serializationType) {
+        case "json":
+            serializer = new JSONStatusSerializer();
+            break;
+        case "java":
+            serializer = new JavaStatusSerializer();
+            break;
+        case "binary":
+            serializer = new BinaryStatusSerializer();
+            break;
+        default:
+            confResult.withError("serialization.type", "serialization type " + serializationType + " is not available.");
+        }
+
+        compactionBatches = (int) properties.getFloat("compaction.batches", 50);
+        compactedSegments = (int) properties.getFloat("compaction.output.segments", 4);
+
+        return confResult.merge(null, properties.warningsIfNotAllPropertiesUsed());
+    }
+
+    @Override
+    public <K extends StatusKey, V extends StatusValue> void save(JavaPairRDD<K, V> rdd, Time time)
+            throws IllegalArgumentException, IOException, ConfigurationException {
+
+        String segmentsPath = path;
+        StatusSerializer serializer = this.serializer;
+        long segmentTime = time.milliseconds();
+
+        rdd.filter(tuple -> isUpdatedState(tuple, time))
+           .map(tuple -> new Tuple2<>(serializer.fromKey(tuple._1), tuple._2 != null ? serializer.fromValue(tuple._2) : null))
+           .foreachPartition(records -> writeSegment(segmentsPath, segmentTime, UPDATED_SEGMENT, records));
+
+        compactIfNeeded(JavaSparkContext.fromSparkContext(rdd.context()));
+    }
+
+    @Override
+    public <K extends StatusKey> void remove(JavaRDD<K> rdd, Time time) {
+        writeTombstones(rdd, time.milliseconds());
+    }
+
+    // Removed out of a batch, after the latest segment
+    @Override
+    public <K extends StatusKey> void remove(JavaRDD<K> rdd) {
+        List<String> segments;
+        try {
+            segments = listSegments();
+        } catch (IOException e) {
+            throw new RuntimeException(e);
+        }
+
+        writeTombstones(rdd, segments.isEmpty() ? 0 : getTime(segments.get(segments.size() - 1)) + 1);
+    }
+
+    private <K extends StatusKey> void writeTombstones(JavaRDD<K> rdd, long segmentTime) {
+        String segmentsPath = path;
+        StatusSerializer serializer = this.serializer;
+
+        rdd.map(key -> new Tuple2<byte[], byte[]>(serializer.fromKey(key), null))
+           .foreachPartition(tombstones -> writeSegment(segmentsPath, segmentTime, REMOVED_SEGMENT, tombstones));
+    }
+
+    // Records are serialized key and value (null for tombstones)
+    private static void writeSegment(String path, long time, int type, Iterator<Tuple2<byte[], byte[]>> records) throws IOException {
+        if(!records.hasNext())
+            return;
+
+        Path segment = new Path(path, String.format("%013d-%d-%s%s", time, type, UUID.randomUUID(), SEGMENT_SUFFIX));
+        Path tmpSegment = segment.suffix(".tmp");
+
+        FileSystem fs = getFileSystem();
+        fs.mkdirs(segment.getParent());
+
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(fs.create(tmpSegment, true)))) {
+            while(records.hasNext()) {
+                Tuple2<byte[], byte[]> record = records.next();
+
+                writeBytes(out, record._1);
+                writeBytes(out, record._2);
+            }
+        }
+
+        fs.rename(tmpSegment, segment);
+    }
+
+    @Override
+    public JavaRDD<Tuple2<StatusKey, StatusValue>> load(JavaSparkContext context) throws IOException, ConfigurationException {
+        List<String> segments = listSegments();
+
+        StatusSerializer serializer = this.serializer;
+
+        JavaRDD<Tuple2<StatusKey, StatusValue>> statuses = latestRecords(context, segments)
+                                                            .filter(record -> record._2 != null)
+                                                            .map(record -> new Tuple2<>(record._1, serializer.toValue(record._2.get())));
+
+        LOG.info("Statuses loaded from " + segments.size() + " segments at " + path);
+
+        return statuses.persist(StorageLevel.MEMORY_AND_DISK());
+    }
+
+    // Latest serialized value of every key (null if removed), segments are read in parallel
+    private JavaPairRDD<StatusKey, ByteArray> latestRecords(JavaSparkContext context, List<String> segments) {
+        StatusSerializer serializer = this.serializer;
+
+        List<Tuple2<Integer, String>> indexedSegments = new LinkedList<>();
+        for (int i = 0; i < segments.size(); i++)
+            indexedSegments.add(new Tuple2<>(i, segments.get(i)));
+
+        return context.parallelize(indexedSegments, Math.max(indexedSegments.size(), 1))
+                      .flatMapToPair(segment -> readSegment(segment._1, segment._2, serializer).iterator())
+                      .reduceByKey((record1, record2) -> record1._1 > record2._1 ? record1 : record2)
+                      .mapToPair(record -> new Tuple2<>(record._1, record._2._2));
+    }
+
+    private static List<Tuple2<StatusKey, Tuple2<Integer, ByteArray>>> readSegment(
+            int order, String segment, StatusSerializer serializer) throws IOException {
+
+        List<Tuple2<StatusKey, Tuple2<Integer, ByteArray>>> records = new LinkedList<>();
+
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(getFileSystem().open(new Path(segment))))) {
+            while(true) {
+                byte[] keyBytes;
+                try {
+                    keyBytes = readBytes(in);
+                } catch (EOFException e) {
+                    break;
+                }
+                byte[] valueBytes = readBytes(in);
+
+                StatusKey key = serializer.toKey(keyBytes);
+
+                records.add(new Tuple2<>(key, new Tuple2<>(order, valueBytes != null ? new ByteArray(valueBytes) : null)));
+            }
+        }
+
+        return records;
+    }
+
+    private void compactIfNeeded(JavaSparkContext context) throws IOException {
+        List<String> segments = listSegments();
+        if(!needsCompaction(segments) || !compacting.compareAndSet(false, true))
+            return;
+
+        compactor.execute(() -> {
+            try {
+                compact(context, segments);
+            } catch (Exception e) {
+                LOG.error("Error when compacting statuses segments at " + path, e);
+            } finally {
+                compacting.set(false);
+            }
+        });
+    }
+
+    // Batches are counted by the distinct times of the segments written since the last compaction
+    @VisibleForTesting
+    protected boolean needsCompaction(List<String> segments) {
+        long batches = segments.stream()
+                               .filter(segment -> getType(segment) != COMPACTED_SEGMENT)
+                               .mapToLong(PartitionedFileStatusesStorage::getTime)
+                               .distinct()
+                               .count();
+
+        return batches >= compactionBatches;
+    }
+
+    // Segments are replaced by new segments with only the latest value of every key and without tombstones
+    @VisibleForTesting
+    protected void compact(JavaSparkContext context, List<String> segments) throws IOException {
+        if(segments.isEmpty())
+            return;
+
+        String segmentsPath = path;
+        StatusSerializer serializer = this.serializer;
+        long lastSegmentTime = getTime(segments.get(segments.size() - 1));
+
+        // Sorted before segments of the same time written while compacting
+        latestRecords(context, segments)
+            .filter(record -> record._2 != null)
+            .map(record -> new Tuple2<>(serializer.fromKey(record._1), record._2.get()))
+            .coalesce(compactedSegments)
+            .foreachPartition(records -> writeSegment(segmentsPath, lastSegmentTime, COMPACTED_SEGMENT, records));
+
+        // Oldest first, so a removed key can not come back if it fails in between
+        FileSystem fs = getFileSystem();
+        for (String segment : segments)
+            fs.delete(new Path(segment), false);
+
+        LOG.info(segments.size() + " statuses segments compacted at " + path);
+    }
+
+    // Sorted from oldest to latest
+    @VisibleForTesting
+    protected List<String> listSegments() throws IOException {
+        FileSystem fs = getFileSystem();
+
+        Path segmentsPath = new Path(path);
+        if(!fs.exists(segmentsPath))
+            return Collections.emptyList();
+
+        FileStatus[] files = fs.listStatus(segmentsPath, file -> file.getName().endsWith(SEGMENT_SUFFIX));
+
+        return Arrays.stream(files)
+                     .map(file -> file.getPath())
+                     .sorted((p1, p2) -> p1.getName().compareTo(p2.getName()))
+                     .map(Path::toString)
+                     .collect(Collectors.toList());
+    }
+
+    private static long getTime(String segment) {
+        return Long.parseLong(new Path(segment).getName().split("-")[0]);
+    }
+
+    private static int getType(String segment) {
+        return Integer.parseInt(new Path(segment).getName().split("-")[1]);
+    }
+
+    private static void writeBytes(DataOutputStream out, byte[] bytes) throws IOException {
+        if(bytes == null) {
+            out.writeInt(TOMBSTONE);
+            return;
+        }
+
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+    private static byte[] readBytes(DataInputStream in) throws IOException {
+        int length = in.readInt();
+        if(length == TOMBSTONE)
+            return null;
+
+        byte[] bytes = new byte[length];
+        in.readFully(bytes);
+
+        return bytes;
+    }
+
+    private static FileSystem getFileSystem() throws IOException {
+        if (fs == null)
+            fs = FileSystem.get(new Configuration());
+
+        return fs;
+    }
+
+}
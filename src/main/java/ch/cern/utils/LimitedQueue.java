@@ -20,5 +20,9 @@ public class LimitedQueue<E> extends LinkedList<E> {
         }
         return added;
     }
+
+    public int getLimit() {
+        return limit;
+    }
     
 }
@@ -0,0 +1,190 @@
+package ch.cern.utils;
+
+import java.io.Serializable;
+import java.util.Arrays;
+
+import lombok.EqualsAndHashCode;
+import lombok.Getter;
+
+@EqualsAndHashCode
+public class TDigest implements Serializable {
+
+    private static final long serialVersionUID = -1420813578429009245L;
+
+    private double compression;
+
+    // Centroids sorted by mean
+    private double[] means = new double[0];
+    private double[] weights = new double[0];
+
+    // Values not yet merged into centroids
+    private double[] buffer;
+    private int bufferSize = 0;
+
+    @Getter
+    private double count = 0;
+
+    private double min = 0;
+    private double max = 0;
+
+    public TDigest(double compression) {
+        this.compression = compression;
+    }
+
+    public void add(double value) {
+        if(count == 0) {
+            min = value;
+            max = value;
+        }else {
+            min = Math.min(min, value);
+            max = Math.max(max, value);
+        }
+        count++;
+
+        if(buffer == null)
+            buffer = new double[(int) Math.ceil(compression) * 2];
+
+        buffer[bufferSize++] = value;
+        if(bufferSize == buffer.length)
+            compress();
+    }
+
+    public void add(TDigest other) {
+        if(other.count == 0)
+            return;
+
+        other.compress();
+        compress();
+
+        if(count == 0) {
+            min = other.min;
+            max = other.max;
+        }else {
+            min = Math.min(min, other.min);
+            max = Math.max(max, other.max);
+        }
+        count += other.count;
+
+        merge(other.means, other.weights, other.means.length);
+    }
+
+    public void compress() {
+        if(bufferSize == 0)
+            return;
+
+        Arrays.sort(buffer, 0, bufferSize);
+
+        double[] bufferWeights = new double[bufferSize];
+        Arrays.fill(bufferWeights, 1);
+
+        merge(buffer, bufferWeights, bufferSize);
+
+        buffer = null;
+        bufferSize = 0;
+    }
+
+    // Merges sorted centroids with the current ones, count must already include them
+    private void merge(double[] otherMeans, double[] otherWeights, int otherSize) {
+        int total = means.length + otherSize;
+        double[] newMeans = new double[total];
+        double[] newWeights = new double[total];
+
+        int size = 0;
+        double weightSoFar = 0;
+        double qLimit = qLimit(0);
+        double currentMean = 0;
+        double currentWeight = 0;
+
+        int i = 0, j = 0;
+        while(i < means.length || j < otherSize) {
+            double mean, weight;
+            if(j >= otherSize || (i < means.length && means[i] <= otherMeans[j])) {
+                mean = means[i];
+                weight = weights[i++];
+            }else {
+                mean = otherMeans[j];
+                weight = otherWeights[j++];
+            }
+
+            if(currentWeight == 0) {
+                currentMean = mean;
+                currentWeight = weight;
+                continue;
+            }
+
+            double proposedWeight = currentWeight + weight;
+
+            if((weightSoFar + proposedWeight) / count <= qLimit) {
+                currentMean += (mean - currentMean) * weight / proposedWeight;
+                currentWeight = proposedWeight;
+            }else {
+                newMeans[size] = currentMean;
+                newWeights[size++] = currentWeight;
+                weightSoFar += currentWeight;
+                qLimit = qLimit(weightSoFar / count);
+
+                currentMean = mean;
+                currentWeight = weight;
+            }
+        }
+
+        if(currentWeight > 0) {
+            newMeans[size] = currentMean;
+            newWeights[size++] = currentWeight;
+        }
+
+        means = Arrays.copyOf(newMeans, size);
+        weights = Arrays.copyOf(newWeights, size);
+    }
+
+    // Highest quantile a centroid starting at q can reach, given by the scale function k(q) = compression / (2 * PI) * asin(2q - 1)
+    private double qLimit(double q) {
+        double k = compression / (2 * Math.PI) * Math.asin(2 * q - 1) + 1;
+        if(k >= compression / 4)
+            return 1;
+
+        return (Math.sin(k * 2 * Math.PI / compression) + 1) / 2;
+    }
+
+    public int getCentroidsCount() {
+        compress();
+
+        return means.length;
+    }
+
+    // q between 0 and 1, values between centroids are linearly interpolated
+    public double quantile(double q) {
+        if(count == 0)
+            return Double.NaN;
+
+        compress();
+
+        if(means.length == 1 || q <= 0)
+            return q <= 0 ? min : means[0];
+        if(q >= 1)
+            return max;
+
+        double index = q * count;
+
+        if(index < weights[0] / 2)
+            return min + (means[0] - min) * index / (weights[0] / 2);
+
+        double center = weights[0] / 2;
+        for (int i = 0; i < means.length - 1; i++) {
+            double nextCenter = center + (weights[i] + weights[i + 1]) / 2;
+
+            if(index < nextCenter)
+                return means[i] + (means[i + 1] - means[i]) * (index - center) / (nextCenter - center);
+
+            center = nextCenter;
+        }
+
+        int last = means.length - 1;
+        double remaining = count - center;
+        if(remaining <= 0)
+            return max;
+
+        return means[last] + (max - means[last]) * (index - center) / remaining;
+    }
+
+}
@@ -5,13 +5,20 @@ import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertSame;
 import static org.junit.Assert.assertTrue;
 
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
+import java.util.stream.Collectors;
 
 import org.junit.Before;
 import org.junit.Test;
 
 import ch.cern.exdemon.components.Component.Type;
 import ch.cern.exdemon.components.ComponentRegistrationResult.Status;
+import ch.cern.exdemon.monitor.Monitor;
 import ch.cern.properties.Properties;
 
 public class ComponentsCatalogTest {
@@ -83,4 +90,50 @@ public class ComponentsCatalogTest {
         assertSame(componentRegistrationResult.getComponent().get(), componentRegistrationResult2.getComponent().get());
     }
     
+    @Test
+    public void snapshotIsReusedUntilCatalogChanges() throws Exception {
+        ComponentsCatalog.reset();
+        
+        ComponentsCatalogSnapshot snapshot = ComponentsCatalog.getSnapshot();
+        assertSame(snapshot, ComponentsCatalog.getSnapshot());
+        
+        Properties properties = new Properties();
+        properties.setProperty("filter.attribute.dummy", "dummy");
+        ComponentsCatalog.register(Type.MONITOR, "id", properties);
+        
+        ComponentsCatalogSnapshot newSnapshot = ComponentsCatalog.getSnapshot();
+        assertTrue(newSnapshot.getVersion() > snapshot.getVersion());
+        assertFalse(snapshot.get(Type.MONITOR, "id").isPresent());
+        assertTrue(newSnapshot.get(Type.MONITOR, "id").isPresent());
+        
+        ComponentsCatalog.register(Type.MONITOR, "id", properties);
+        assertSame(newSnapshot, ComponentsCatalog.getSnapshot());
+    }
+    
+    @Test
+    public void monitorsCandidates() throws Exception {
+        ComponentsCatalog.reset();
+        
+        Properties properties = new Properties();
+        properties.setProperty("filter.attribute.HOST", "host1");
+        ComponentsCatalog.register(Type.MONITOR, "host1", properties);
+        
+        properties = new Properties();
+        properties.setProperty("filter.attribute.HOST", "host.*");
+        ComponentsCatalog.register(Type.MONITOR, "regex", properties);
+        
+        Map<String, String> attributes = new HashMap<>();
+        attributes.put("HOST", "host2");
+        Set<String> ids = ComponentsCatalog.getSnapshot().getMonitorsCandidates(attributes).stream()
+                                                                                           .map(Monitor::getId)
+                                                                                           .collect(Collectors.toSet());
+        assertEquals(new HashSet<>(Arrays.asList("regex")), ids);
+        
+        attributes.put("HOST", "host1");
+        ids = ComponentsCatalog.getSnapshot().getMonitorsCandidates(attributes).stream()
+                                                                               .map(Monitor::getId)
+                                                                               .collect(Collectors.toSet());
+        assertEquals(new HashSet<>(Arrays.asList("host1", "regex")), ids);
+    }
+    
 }
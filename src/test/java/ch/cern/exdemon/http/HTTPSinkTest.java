@@ -1,6 +1,8 @@
 package ch.cern.exdemon.http;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Matchers.any;
 import static org.mockito.Matchers.anyObject;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.times;
@@ -8,12 +10,18 @@ import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 import static org.mockito.Mockito.withSettings;
 
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.nio.charset.StandardCharsets;
 import java.text.SimpleDateFormat;
 import java.time.Instant;
 import java.util.Arrays;
 import java.util.Date;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.zip.GZIPInputStream;
+import java.util.stream.Collectors;
 
 import org.apache.commons.io.IOUtils;
 import org.apache.http.HttpException;
@@ -21,9 +29,11 @@ import org.apache.http.HttpResponse;
 import org.apache.http.StatusLine;
 import org.apache.http.client.HttpClient;
 import org.apache.http.client.methods.HttpPost;
+import org.apache.http.client.methods.HttpUriRequest;
 import org.junit.Test;
 import org.mockito.ArgumentCaptor;
 
+import ch.cern.exdemon.json.JSON;
 import ch.cern.exdemon.json.JSONParser;
 import ch.cern.exdemon.monitor.analysis.results.AnalysisResult;
 import ch.cern.properties.ConfigurationException;
@@ -67,4 +77,110 @@ public class HTTPSinkTest {
     					+ "\"tags\":{}}]", IOUtils.toString(receivedEntity.getEntity().getContent(), StandardCharsets.UTF_8));
 	} 
 
+    @Test
+    public void sinkBatchedPerUrlConcurrently() throws ConfigurationException, HttpException, IOException, InterruptedException {
+        HttpClient httpClient = mock(HttpClient.class, withSettings().serializable());
+        HttpResponse response = mock(HttpResponse.class, withSettings().serializable());
+        StatusLine statusLine = mock(StatusLine.class, withSettings().serializable());
+        when(statusLine.getStatusCode()).thenReturn(201);
+        when(response.getStatusLine()).thenReturn(statusLine);
+        when(httpClient.execute(anyObject())).thenReturn(response);
+        
+        HTTPSink.setHTTPClient(httpClient);
+        
+        Properties properties = new Properties();
+        properties.setProperty("url", "http://localhost:1234");
+        properties.setProperty(HTTPSink.PARALLELIZATION_PARAM, "2");
+        properties.setProperty(HTTPSink.BATCH_SIZE_PARAM, "3");
+        HTTPSink sink = new HTTPSink();
+        sink.config(properties);
+        
+        sink.sink(Arrays.asList(new JsonPOSTRequest("http://a", new JSON("{\"a\":1}")),
+                                new JsonPOSTRequest("http://b", new JSON("{\"b\":1}")),
+                                new JsonPOSTRequest("http://a", new JSON("{\"a\":2}")),
+                                new JsonPOSTRequest("http://a", new JSON("{\"a\":3}"))).iterator());
+        
+        ArgumentCaptor<HttpPost> methodCaptor = ArgumentCaptor.forClass(HttpPost.class);
+        verify(httpClient, times(3)).execute(methodCaptor.capture());
+        
+        List<String> received = methodCaptor.getAllValues().stream().map(post -> {
+                                        try {
+                                            return post.getURI() + " " + IOUtils.toString(post.getEntity().getContent(), StandardCharsets.UTF_8);
+                                        } catch (IOException e) {
+                                            throw new RuntimeException(e);
+                                        }
+                                    }).sorted().collect(Collectors.toList());
+        
+        assertEquals(Arrays.asList("http://a [{\"a\":1},{\"a\":2}]", 
+                                   "http://a [{\"a\":3}]", 
+                                   "http://b [{\"b\":1}]"), received);
+    }
+
+    @Test
+    public void gzipCompression() throws ConfigurationException, HttpException, IOException {
+        HttpClient httpClient = mock(HttpClient.class, withSettings().serializable());
+        HttpResponse response = mock(HttpResponse.class, withSettings().serializable());
+        StatusLine statusLine = mock(StatusLine.class, withSettings().serializable());
+        when(statusLine.getStatusCode()).thenReturn(200);
+        when(response.getStatusLine()).thenReturn(statusLine);
+        when(httpClient.execute(anyObject())).thenReturn(response);
+        
+        HTTPSink.setHTTPClient(httpClient);
+        
+        Properties properties = new Properties();
+        properties.setProperty("url", "http://localhost:1234");
+        properties.setProperty(HTTPSink.COMPRESSION_PARAM, "gzip");
+        HTTPSink sink = new HTTPSink();
+        sink.config(properties);
+        
+        sink.batchAndSend(Arrays.asList(new JsonPOSTRequest(null, new JSON("{\"a\":\"<b>\",\"c\":null}")),
+                                        new JsonPOSTRequest(null, new JSON("{\"a\":2}"))).iterator());
+        
+        ArgumentCaptor<HttpPost> methodCaptor = ArgumentCaptor.forClass(HttpPost.class);
+        verify(httpClient, times(1)).execute(methodCaptor.capture());
+        
+        HttpPost post = methodCaptor.getValue();
+        assertEquals("gzip", post.getEntity().getContentEncoding().getValue());
+        
+        ByteArrayOutputStream compressed = new ByteArrayOutputStream();
+        post.getEntity().writeTo(compressed);
+        GZIPInputStream body = new GZIPInputStream(new ByteArrayInputStream(compressed.toByteArray()));
+        
+        assertEquals("[{\"a\":\"<b>\",\"c\":null},{\"a\":2}]", IOUtils.toString(body, StandardCharsets.UTF_8));
+    }
+
+    @Test(timeout=10000)
+    public void requestsInFlightAreAbortedAtDeadline() throws ConfigurationException, HttpException, IOException, InterruptedException {
+        HttpClient httpClient = mock(HttpClient.class, withSettings().serializable());
+        AtomicBoolean aborted = new AtomicBoolean();
+        // Like a blocked socket read, only stops when the request is aborted
+        when(httpClient.execute(any(HttpUriRequest.class))).thenAnswer(invocation -> {
+            HttpPost post = (HttpPost) invocation.getArguments()[0];
+            while(!post.isAborted())
+                Thread.sleep(10);
+            aborted.set(true);
+            
+            throw new IOException("aborted");
+        });
+        
+        HTTPSink.setHTTPClient(httpClient);
+        
+        Properties properties = new Properties();
+        properties.setProperty("url", "http://localhost:1234");
+        properties.setProperty(HTTPSink.BATCH_SIZE_PARAM, "1");
+        HTTPSink sink = new HTTPSink();
+        sink.config(properties);
+        
+        long deadline = System.currentTimeMillis() + 200;
+        sink.sink(Arrays.asList(new JsonPOSTRequest(null, new JSON("{\"a\":1}")),
+                                new JsonPOSTRequest(null, new JSON("{\"a\":2}"))).iterator(), deadline);
+        
+        ArgumentCaptor<HttpPost> methodCaptor = ArgumentCaptor.forClass(HttpPost.class);
+        verify(httpClient, times(1)).execute(methodCaptor.capture());
+        
+        assertTrue(aborted.get());
+        assertTrue(methodCaptor.getValue().getConfig().getSocketTimeout() <= 200);
+        assertTrue(System.currentTimeMillis() - deadline < 2000);
+    }
+
 }
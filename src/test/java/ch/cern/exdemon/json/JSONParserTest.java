@@ -11,6 +11,7 @@ import org.junit.Assert;
 import org.junit.Test;
 
 import ch.cern.exdemon.metrics.Metric;
+import ch.cern.exdemon.metrics.value.FloatValue;
 import ch.cern.exdemon.monitor.analysis.results.AnalysisResult;
 
 public class JSONParserTest{
@@ -50,6 +51,18 @@ public class JSONParserTest{
         Assert.assertEquals("IT_DB", jsonObject.getProperty("tags.group"));
     }
     
+    @Test
+    public void parseValueWithSourceBuiltWhenRequested() throws Exception{
+        
+        FloatValue value = new FloatValue(3f);
+        value.setSource(() -> "(1.0 + 2.0)=3.0");
+        Metric metric = new Metric(Instant.now(), value, new HashMap<>());
+        
+        JSON jsonObject = JSONParser.parse(metric);
+        
+        Assert.assertEquals("(1.0 + 2.0)=3.0", jsonObject.getProperty("value.source"));
+    }
+    
     @Test
     public void parseNullValue() throws Exception{
         
@@ -0,0 +1,72 @@
+package ch.cern.exdemon.json;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+import java.nio.charset.StandardCharsets;
+import java.text.ParseException;
+import java.util.Arrays;
+import java.util.Collections;
+
+import org.junit.Test;
+
+import com.google.gson.JsonSyntaxException;
+
+public class PartialJSONParserTest {
+
+    private static final String JSON_STRING = "{\"a\": 1, \"b\": {\"c\": \"x\", \"d\": [1, 2], \"e\": {\"f\": true}}, \"g\": [\"y\"], \"h\": null, \"i\": {\"j\": 2}}";
+
+    @Test
+    public void onlyRequestedKeys() throws ParseException {
+        PartialJSONParser parser = new PartialJSONParser(Arrays.asList("b.c", "b.e.f", "h", "i", "z.y"), false);
+
+        JSON json = parser.parse(JSON_STRING);
+
+        assertEquals("x", json.getProperty("b.c"));
+        assertEquals("true", json.getProperty("b.e.f"));
+        assertEquals("2", json.getProperty("i.j"));
+        assertNull(json.getProperty("h"));
+        assertNull(json.getProperty("a"));
+        assertNull(json.getElement("b.d"));
+        assertNull(json.getElement("g"));
+        assertNull(json.getProperty("z.y"));
+    }
+
+    @Test
+    public void allPrimitives() throws ParseException {
+        PartialJSONParser parser = new PartialJSONParser(Collections.singleton("g"), true);
+
+        JSON json = parser.parse(JSON_STRING);
+        JSON fullJson = new JSON(JSON_STRING);
+
+        assertArrayEquals(fullJson.getAllKeys(), json.getAllKeys());
+        assertEquals("y", json.getProperty("g"));
+        assertNull(json.getElement("b.d"));
+    }
+
+    @Test
+    public void utf8Bytes() throws ParseException {
+        PartialJSONParser parser = new PartialJSONParser(Arrays.asList("a", "b.c"), false);
+
+        JSON json = parser.parse("{\"a\": \"\u00e9t\u00e9\", \"b\": {\"c\": \"\u65e5\"}}".getBytes(StandardCharsets.UTF_8));
+
+        assertEquals("\u00e9t\u00e9", json.getProperty("a"));
+        assertEquals("\u65e5", json.getProperty("b.c"));
+        assertNull(parser.parse("[\"\u00e9\"]".getBytes(StandardCharsets.UTF_8)).getProperty("a"));
+    }
+
+    @Test
+    public void notObjectDocuments() throws ParseException {
+        PartialJSONParser parser = new PartialJSONParser(Collections.singleton("a"), false);
+
+        assertNull(parser.parse("[1, 2]").getProperty("a"));
+        assertNull(parser.parse("").getProperty("a"));
+    }
+
+    @Test(expected = JsonSyntaxException.class)
+    public void malformedDocument() {
+        new PartialJSONParser(Collections.singleton("a"), false).parse("{\"a\": 1, \"b\": {\"c\": }");
+    }
+
+}
@@ -0,0 +1,122 @@
+package ch.cern.exdemon.metrics;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.Test;
+
+import com.esotericsoftware.kryo.Kryo;
+import com.esotericsoftware.kryo.io.Input;
+import com.esotericsoftware.kryo.io.Output;
+
+public class AttributesTest {
+
+    @Test
+    public void sameEntriesAndHashThanOtherMaps() {
+        Map<String, String> map = new HashMap<>();
+        map.put("host", "host1");
+        map.put("cluster", "c1");
+
+        Attributes attributes = Attributes.of(map);
+
+        assertEquals(map, attributes);
+        assertEquals(attributes, map);
+        assertEquals(map.hashCode(), attributes.hashCode());
+        assertEquals("{cluster=c1, host=host1}", attributes.toString());
+        assertEquals("host1", attributes.get("host"));
+        assertNull(attributes.get("none"));
+    }
+
+    @Test
+    public void stringsAreShared() {
+        Attributes attributes1 = Attributes.of(map("host", new String("host1")));
+        Attributes attributes2 = Attributes.of(map(new String("host"), new String("host1")));
+
+        assertSame(attributes1.keySet().iterator().next(), attributes2.keySet().iterator().next());
+        assertSame(attributes1.get("host"), attributes2.get("host"));
+    }
+
+    @Test
+    public void deriveWithoutModifying() {
+        Attributes attributes = Attributes.of(map("b", "2"));
+
+        Attributes derived = attributes.with("a", "1").with("c", "3").with("b", "22");
+
+        assertEquals(map("b", "2"), attributes);
+        assertEquals("{a=1, b=22, c=3}", derived.toString());
+        assertEquals(Attributes.of(map("a", "1", "b", "22", "c", "3")), derived);
+        assertSame(attributes, attributes.with("b", "2"));
+
+        assertEquals(map("b", "22"), derived.without(Arrays.asList("a", "c")));
+        assertSame(Attributes.EMPTY, derived.without(Arrays.asList("a", "b", "c")));
+    }
+
+    @Test(expected=UnsupportedOperationException.class)
+    public void immutable() {
+        Attributes.of(map("a", "1")).put("b", "2");
+    }
+
+    @Test
+    public void kryoWritesRepeatedStringsOnce() {
+        Kryo kryo = new Kryo();
+        kryo.register(Attributes.class);
+        kryo.register(ArrayList.class);
+
+        List<Attributes> list = new ArrayList<>(Arrays.asList(
+                Attributes.of(map("host", "host1", "cluster", "cluster1")),
+                Attributes.of(map("host", "host1", "cluster", "cluster1")),
+                Attributes.of(map("host", "host2", "cluster", "cluster1"))));
+
+        Output output = new Output(256, -1);
+        kryo.writeClassAndObject(output, list);
+        byte[] bytes = output.toBytes();
+
+        output = new Output(256, -1);
+        kryo.writeClassAndObject(output, new ArrayList<>(list.subList(0, 1)));
+
+        // Only "host2" is written again
+        assertTrue(bytes.length < output.toBytes().length + 20);
+
+        @SuppressWarnings("unchecked")
+        List<Attributes> read = (List<Attributes>) kryo.readClassAndObject(new Input(bytes));
+
+        assertEquals(list, read);
+        assertSame(list.get(0).get("cluster"), read.get(2).get("cluster"));
+    }
+
+    @Test
+    public void javaSerialization() throws Exception {
+        Attributes attributes = Attributes.of(map("host", "host1"));
+
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        new ObjectOutputStream(bytes).writeObject(attributes);
+        Object read = new ObjectInputStream(new ByteArrayInputStream(bytes.toByteArray())).readObject();
+
+        assertNotSame(attributes, read);
+        assertEquals(attributes, read);
+        assertEquals(attributes.hashCode(), read.hashCode());
+        assertSame(attributes.get("host"), ((Attributes) read).get("host"));
+    }
+
+    private static Map<String, String> map(String... keyValues) {
+        Map<String, String> map = new HashMap<>();
+        for (int i = 0; i < keyValues.length; i += 2)
+            map.put(keyValues[i], keyValues[i + 1]);
+
+        return map;
+    }
+
+}
@@ -398,4 +398,50 @@ public class ValueHistoryTest {
         Assert.assertEquals(expected, returnedValues);
     }
     
+    @Test
+    public void valuesShouldBeSortedByTime() throws ComputationException {
+        ValueHistory history = new ValueHistory();
+        
+        Instant now = Instant.parse("2017-04-01T10:00:00.00Z");
+        history.add(now.plusSeconds(20), 2f);
+        history.add(now, 0f);
+        history.add(now.plusSeconds(30), new StringValue("a"));
+        history.add(now.plusSeconds(10), 1f);
+        history.add(now.plusNanos(10), 0.5f);
+        
+        List<DatedValue> expected = Arrays.asList(
+                new DatedValue(now, new FloatValue(0f)),
+                new DatedValue(now.plusNanos(10), new FloatValue(0.5f)),
+                new DatedValue(now.plusSeconds(10), new FloatValue(1f)),
+                new DatedValue(now.plusSeconds(20), new FloatValue(2f)),
+                new DatedValue(now.plusSeconds(30), new StringValue("a")));
+        assertEquals(expected, history.getDatedValues());
+    }
+    
+    @Test
+    public void shouldKeepOrderWhenOldestValuesAreRemoved() throws ComputationException {
+        ValueHistory history = new ValueHistory(20, 0, null, null);
+        
+        Instant now = Instant.parse("2017-04-01T10:00:00.00Z");
+        for (int i = 0; i < 100; i++) {
+            history.add(now.plusSeconds(i), i);
+            
+            if(i % 7 == 0)
+                history.purge(now.plusSeconds(i - 10));
+        }
+        
+        assertEquals(12, history.size());
+        List<DatedValue> values = history.getValues();
+        for (int i = 0; i < values.size(); i++)
+            assertEquals(new DatedValue(now.plusSeconds(88 + i), new FloatValue(88 + i)), values.get(i));
+        
+        history.purge(now.plusSeconds(95));
+        assertEquals(5, history.size());
+        assertEquals(new DatedValue(now.plusSeconds(95), new FloatValue(95)), history.getDatedValues().get(0));
+        
+        history.purge(now.plusSeconds(1000));
+        assertEquals(0, history.size());
+        assertEquals(0, history.getStatistics().getN());
+    }
+    
 }
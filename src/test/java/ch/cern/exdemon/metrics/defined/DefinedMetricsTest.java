@@ -51,6 +51,28 @@ public class DefinedMetricsTest extends StreamTestHelper<Metric, Metric> {
         assertExpected(results);
 	}
 	
+	@Test
+	public void shouldApplyMetricsOfBatchSortedByTime() throws Exception {
+        addInput(0,    Metric(2, 20f, "HOSTNAME=host1"));
+        addInput(0,    Metric(1, 10f, "HOSTNAME=host1"));
+        addExpected(0, Metric(1, 10f, "$defined_metric=dm1"));
+        addExpected(0, Metric(2, 20f, "$defined_metric=dm1"));
+        
+        addInput(1,    Metric(3, 30f, "HOSTNAME=host1"));
+        addExpected(1, Metric(3, 30f, "$defined_metric=dm1"));
+        
+        Properties properties = DefinedMetricTest.newProperties();
+        properties.setProperty("value", "a");
+        properties.setProperty("variables.a.filter.attribute.HOSTNAME", ".*");
+        ComponentsCatalog.register(Type.METRIC, "dm1", properties);
+        
+        JavaDStream<Metric> metricsStream = createStream(Metric.class);
+        
+        JavaDStream<Metric> results = DefinedMetrics.generate(metricsStream, null, Optional.empty());
+        
+        assertExpected(results);
+	}
+	
 	@Test
 	public void shouldApplyDefinedMetricFilter() throws Exception {
         addInput(0,    Metric(1, 10f, "CLUSTER=c1", "HOSTNAME=host1"));
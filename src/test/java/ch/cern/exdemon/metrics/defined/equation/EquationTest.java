@@ -189,4 +189,35 @@ public class EquationTest {
 		assertEquals(2.57f, new Equation("sin(x) + cos(x) + sqrt(y)", props).compute(stores, time).getAsFloat().get(), 0.01f);
 	}
 
+	@Test
+	public void sourceOfCompiledFormulas() throws ParseException, ConfigurationException {
+		Instant time = Instant.now();
+		Properties props = new Properties();
+		props.setProperty("x.filter.attribute.A", "A");
+		props.setProperty("y.filter.attribute.A", "A");
+		
+		VariableStatuses stores = new VariableStatuses();
+		ValueHistory valHistoryX = new ValueHistory(100, 0, null, null);
+		stores.put("x", new ValueVariable.Status_(valHistoryX));
+		ValueHistory valHistoryY = new ValueHistory(100, 0, null, null);
+		stores.put("y", new ValueVariable.Status_(valHistoryY));
+		
+		valHistoryX.add(time, new FloatValue(5));
+		valHistoryY.add(time, new FloatValue(10));
+		Value result = new Equation("(x + y) * 2", props).compute(stores, time);
+		assertEquals(30f, result.getAsFloat().get(), 0f);
+		valHistoryX.add(time.plusSeconds(1), new FloatValue(6));
+		assertEquals("((last(var(x))=5.0 + last(var(y))=10.0)=15.0 * 2.0)=30.0", result.getSource());
+		
+		result = new Equation("if_bool(x > 1, !(y < 3), false)", props).compute(stores, time);
+		assertTrue(result.getAsBoolean().get());
+		assertEquals("if_bool((last(var(x))=6.0 > 1.0)=true, !((last(var(y))=10.0 < 3.0)=false)=true, false)=true", result.getSource());
+		
+		valHistoryY.add(time, new StringValue("10"));
+		result = new Equation("if_float(x > 1, x, y) + 1", props).compute(stores, time);
+		assertEquals("Function \"if_float\": argument 3: requires float value", result.getAsException().get());
+		assertEquals("(if_float((last(var(x))=6.0 > 1.0)=true, last(var(x))=6.0, last(var(y))=\"10\")={Error: argument 3: requires float value} + 1.0)={Error: in arguments}", 
+		             result.getSource());
+	}
+
 }
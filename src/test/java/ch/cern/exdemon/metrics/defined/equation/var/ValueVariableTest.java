@@ -5,7 +5,10 @@ import static org.junit.Assert.assertNull;
 
 import java.time.Duration;
 import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.Map;
 import java.util.Optional;
 
@@ -52,6 +55,33 @@ public class ValueVariableTest  {
         assertEquals(size - outOfPeriod, var.compute(variableStatuses, Instant.parse("2007-12-03T11:15:30.00Z")).getAsFloat().get(), 0f);
     }
     
+    @Test
+    public void aggregationSelectAttributesHashIndependentOfOrder() throws ConfigurationException {
+        ValueVariable var = new ValueVariable("", new HashMap<>(), new Properties());
+        Properties properties = new Properties();
+        properties.setProperty("aggregate.type", "count");
+        properties.setProperty("aggregate.attributes", "host cluster zone");
+        properties.setProperty("aggregate.latest-metrics.max-size", "5");
+        var.config(properties, Optional.empty());
+        
+        Map<String, String> att = new HashMap<>();
+        att.put("zone", "z1");
+        att.put("host", "host1");
+        att.put("cluster", "cluster1");
+        att.put("other", "o1");
+        Metric metric = new Metric(Instant.now(), 10f, att);
+        ValueVariable.Status_ status = (ValueVariable.Status_) var.updateStatus(Optional.empty(), metric, metric);
+        
+        // Hash of previous versions, entries of a hash map with the selected attributes
+        Map<String, String> selected = new HashMap<>();
+        selected.put("host", "host1");
+        selected.put("zone", "z1");
+        selected.put("cluster", "cluster1");
+        int hash = new ArrayList<>(selected.entrySet()).hashCode();
+        
+        assertEquals(new HashSet<>(Arrays.asList(hash)), status.aggregationValues.getLastAggregatedMetrics().keySet());
+    }
+    
     @Test
     public void aggregationSelectAttributes() throws ConfigurationException {
         ValueVariable var = new ValueVariable("", new HashMap<>(), new Properties());
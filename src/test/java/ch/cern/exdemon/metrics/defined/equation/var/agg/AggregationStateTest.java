@@ -0,0 +1,132 @@
+package ch.cern.exdemon.metrics.defined.equation.var.agg;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.time.Instant;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.Test;
+
+import ch.cern.exdemon.metrics.ValueHistory;
+import ch.cern.exdemon.metrics.defined.equation.ComputationException;
+import ch.cern.exdemon.metrics.value.FloatValue;
+import ch.cern.exdemon.metrics.value.StringValue;
+import ch.cern.exdemon.metrics.value.Value;
+
+public class AggregationStateTest {
+    
+    private List<Aggregation> aggregations = Arrays.asList(new SumAggregation(), new AvgAggregation(), new CountAgregation(),
+                                                           new CountFloatsAgregation(), new MinAggregation(), new MaxAggregation());
+    
+    @Test
+    public void valueHistoryShouldProvideSameResultsAsAggregatingAllValues() throws ComputationException {
+        Random random = new Random(1);
+        Instant now = Instant.parse("2017-04-01T10:00:00.00Z");
+        
+        for (Aggregation aggregation : aggregations) {
+            ValueHistory history = new ValueHistory(50, 0, null, aggregation);
+            
+            for (int i = 0; i < 500; i++) {
+                Instant time = now.plusSeconds(i - random.nextInt(5));
+                
+                if(random.nextInt(10) == 0)
+                    history.add(time, new StringValue("a"));
+                else
+                    history.add(time, random.nextInt(100));
+                
+                if(i % 13 == 0)
+                    history.purge(time.minusSeconds(30));
+                
+                assertEquals(aggregation.getClass().getSimpleName(), 
+                             aggregation.aggregateValues(history.getDatedValues(), time), 
+                             history.getAggregatedValue().get());
+            }
+        }
+    }
+    
+    @Test
+    public void aggregationValuesShouldProvideSameResultsAsAggregatingAllValues() throws ComputationException {
+        Random random = new Random(1);
+        Instant now = Instant.parse("2017-04-01T10:00:00.00Z");
+        
+        for (Aggregation aggregation : aggregations) {
+            AggregationValues values = new AggregationValues(50, 0);
+            
+            for (int i = 0; i < 500; i++) {
+                Instant time = now.plusSeconds(i);
+                
+                Value value = random.nextInt(10) == 0 ? new StringValue("a") : new FloatValue(random.nextInt(100));
+                values.add(random.nextInt(60), value, time);
+                
+                if(i % 13 == 0)
+                    values.purge(time.minusSeconds(30));
+                
+                if(values.getDatedValues().size() <= 50)
+                    assertEquals(aggregation.getClass().getSimpleName(), 
+                                 aggregation.aggregateValues(values.getDatedValues(), time), 
+                                 values.getAggregatedValue(aggregation).get());
+            }
+        }
+    }
+    
+    @Test
+    public void sumShouldRecoverWhenNonFiniteValuesLeave() throws ComputationException {
+        Instant now = Instant.parse("2017-04-01T10:00:00.00Z");
+        float[] values = {1f, Float.NaN, 2f, Float.POSITIVE_INFINITY, 3f, Float.NEGATIVE_INFINITY, 4f, 5f, 6f, 7f};
+        
+        for (Aggregation aggregation : Arrays.asList(new SumAggregation(), new AvgAggregation())) {
+            ValueHistory history = new ValueHistory(50, 0, null, aggregation);
+            
+            for (int i = 0; i < values.length; i++) {
+                Instant time = now.plusSeconds(i);
+                
+                history.add(time, values[i]);
+                history.purge(time.minusSeconds(3));
+                
+                assertEquals(aggregation.getClass().getSimpleName() + " at " + i, 
+                             aggregation.aggregateValues(history.getDatedValues(), time), 
+                             history.getAggregatedValue().get());
+            }
+        }
+    }
+    
+    @Test
+    public void sumShouldNotDriftWhenRemovingValues() throws ComputationException {
+        Random random = new Random(1);
+        Instant now = Instant.parse("2017-04-01T10:00:00.00Z");
+        
+        for (Aggregation aggregation : Arrays.asList(new SumAggregation(), new AvgAggregation())) {
+            ValueHistory history = new ValueHistory(100000, 0, null, aggregation);
+            
+            for (int i = 0; i < 20000; i++) {
+                Instant time = now.plusSeconds(i);
+                
+                history.add(time, i % 100 == 0 ? 1e20f : random.nextFloat());
+                history.purge(time.minusSeconds(50));
+                
+                // State is kept up to date once built
+                history.getAggregatedValue();
+            }
+            
+            assertEquals(aggregation.getClass().getSimpleName(), 
+                         aggregation.aggregateValues(history.getDatedValues(), now.plusSeconds(20000)), 
+                         history.getAggregatedValue().get());
+        }
+    }
+    
+    @Test
+    public void notIncrementalAggregations() throws ComputationException {
+        ValueHistory history = new ValueHistory(50, 0, null, new DiffAggregation());
+        history.add(Instant.now(), 1f);
+        
+        assertFalse(history.getAggregatedValue().isPresent());
+        
+        history.setAggregation(new SumAggregation());
+        assertTrue(history.getAggregatedValue().isPresent());
+    }
+
+}
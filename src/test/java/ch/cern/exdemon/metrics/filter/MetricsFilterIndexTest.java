@@ -0,0 +1,99 @@
+package ch.cern.exdemon.metrics.filter;
+
+import static org.junit.Assert.assertEquals;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.Test;
+
+import ch.cern.properties.Properties;
+
+public class MetricsFilterIndexTest {
+
+    @Test
+    public void candidatesByRequiredValues() {
+        Map<String, MetricsFilter> filters = new HashMap<>();
+        filters.put("schema1", filter("expr", "$schema=s1 & HOST=.*"));
+        filters.put("schema1or2", filter("attribute.$schema", "'s1' 's2'"));
+        filters.put("regex", filter("attribute.$schema", "s.*"));
+        filters.put("host", filter("attribute.HOST", "h1"));
+        filters.put("none", filter("attribute.HOST", "!h1"));
+
+        MetricsFilterIndex<String> index = new MetricsFilterIndex<>(filters.keySet(), filters::get);
+
+        assertEquals(new HashSet<>(Arrays.asList("schema1", "schema1or2", "regex", "none")),
+                     new HashSet<>(index.getCandidates(attributes("$schema", "s1"))));
+        assertEquals(new HashSet<>(Arrays.asList("schema1or2", "regex", "none")),
+                     new HashSet<>(index.getCandidates(attributes("$schema", "s2"))));
+        assertEquals(new HashSet<>(Arrays.asList("regex", "none", "host")),
+                     new HashSet<>(index.getCandidates(attributes("$schema", "s3", "HOST", "h1"))));
+        assertEquals(new HashSet<>(Arrays.asList("regex", "none")),
+                     new HashSet<>(index.getCandidates(attributes())));
+    }
+
+    @Test
+    public void valuesWithoutRegexMetacharactersAreIndexed() {
+        Map<String, MetricsFilter> filters = new HashMap<>();
+        filters.put("dash", filter("attribute.HOST", "host-1"));
+        filters.put("regex", filter("attribute.HOST", "host-[12]"));
+
+        MetricsFilterIndex<String> index = new MetricsFilterIndex<>(filters.keySet(), filters::get);
+
+        assertEquals(new HashSet<>(Arrays.asList("dash", "regex")),
+                     new HashSet<>(index.getCandidates(attributes("HOST", "host-1"))));
+        assertEquals(new HashSet<>(Arrays.asList("regex")),
+                     new HashSet<>(index.getCandidates(attributes("HOST", "host-2"))));
+    }
+
+    @Test
+    public void sameResultsAsTestingAll() {
+        Map<String, MetricsFilter> filters = new HashMap<>();
+        filters.put("1", filter("expr", "(A=1 & B=2) | (A=2 & C=3)"));
+        filters.put("2", filter("expr", "A=1 | B=2"));
+        filters.put("3", filter("expr", "A=1 & A=2"));
+        filters.put("4", filter("expr", "B=2 & C=3"));
+
+        MetricsFilterIndex<String> index = new MetricsFilterIndex<>(filters.keySet(), filters::get);
+
+        List<Map<String, String>> attributesList = new LinkedList<>();
+        attributesList.add(attributes("A", "1", "B", "2", "C", "3"));
+        attributesList.add(attributes("A", "2", "B", "2", "C", "3"));
+        attributesList.add(attributes("B", "2"));
+        attributesList.add(attributes("A", "1"));
+
+        for (Map<String, String> attributes : attributesList) {
+            HashSet<String> expected = new HashSet<>();
+            filters.forEach((id, filter) -> { if(filter.test(attributes)) expected.add(id); });
+
+            HashSet<String> actual = new HashSet<>();
+            index.getCandidates(attributes).forEach(id -> { if(filters.get(id).test(attributes)) actual.add(id); });
+
+            assertEquals(expected, actual);
+        }
+    }
+
+    private MetricsFilter filter(String key, String value) {
+        Properties props = new Properties();
+        props.setProperty(key, value);
+
+        MetricsFilter filter = new MetricsFilter();
+        filter.config(props);
+
+        return filter;
+    }
+
+    private Map<String, String> attributes(String... keyValues) {
+        Map<String, String> attributes = new HashMap<>();
+
+        for (int i = 0; i < keyValues.length; i += 2)
+            attributes.put(keyValues[i], keyValues[i + 1]);
+
+        return attributes;
+    }
+
+}
@@ -8,10 +8,16 @@ import static org.junit.Assert.assertTrue;
 import java.text.ParseException;
 import java.time.Duration;
 import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 
 import org.junit.Assert;
 import org.junit.Test;
@@ -19,6 +25,7 @@ import org.junit.Test;
 import ch.cern.exdemon.metrics.Metric;
 import ch.cern.properties.ConfigurationException;
 import ch.cern.properties.Properties;
+import ch.cern.spark.BatchClock;
 
 public class MetricsFilterTest {
     
@@ -275,4 +282,146 @@ public class MetricsFilterTest {
         assertEquals(expected, filter.getAttributesValuesWithEqualsForKey("$schema"));
     }
     
+    @Test
+    public void getRequiredAttributesValues() throws ParseException, ConfigurationException {
+        Properties props = new Properties();
+        props.setProperty("expr", "($schema=1 & K1b=.*) | ($schema=2 & K2=a)");
+        props.setProperty("attribute.K3", "'3' '4'");
+        props.setProperty("attribute.K4", "V.*");
+        props.setProperty("attribute.K5", "!V5");
+        MetricsFilter filter = new MetricsFilter();
+        filter.config(props);
+    
+        Map<String, Set<String>> expected = new HashMap<>();
+        expected.put("$schema", new HashSet<>(Arrays.asList("1", "2")));
+        expected.put("K3", new HashSet<>(Arrays.asList("3", "4")));
+        
+        assertEquals(expected, filter.getRequiredAttributesValues());
+    }
+    
+    @Test
+    public void matchLiteralsAndSimplePatternsAsRegex() throws ParseException {
+        MetricsFilter filter = new MetricsFilter();
+        filter.addAttributesPredicate("K1", "host-1.*");
+        filter.addAttributesPredicate("K2", ".*.cern.ch");
+        filter.addAttributesPredicate("K3", "!.*test.*");
+        filter.addAttributesPredicate("K4", "a=b");
+
+        Map<String, String> attributes = new HashMap<>();
+        attributes.put("K1", "host-123");
+        attributes.put("K2", "host.cern.ch");
+        attributes.put("K3", "prod");
+        attributes.put("K4", "a=b");
+        assertTrue(filter.test(attributes));
+
+        attributes.put("K1", "host-2");
+        assertFalse(filter.test(attributes));
+        attributes.put("K1", "host-1\n2");
+        assertFalse(filter.test(attributes));
+        attributes.put("K1", "host-1");
+        assertTrue(filter.test(attributes));
+
+        attributes.put("K2", "hostXcern.ch");
+        assertTrue(filter.test(attributes));
+        attributes.put("K2", "host.cern.com");
+        assertFalse(filter.test(attributes));
+        attributes.put("K2", "host.cern.ch");
+
+        attributes.put("K3", "pre-test");
+        assertFalse(filter.test(attributes));
+        attributes.put("K3", "line\ntest");
+        assertTrue(filter.test(attributes));
+        attributes.put("K3", "prod");
+
+        attributes.put("K4", "a=bb");
+        assertFalse(filter.test(attributes));
+        attributes.remove("K4");
+        assertFalse(filter.test(attributes));
+    }
+
+    @Test
+    public void sameResultsAfterReorderingByPassRatio() throws ParseException, ConfigurationException {
+        Properties props = new Properties();
+        props.setProperty("expr", "(K1=common & K2=rare.*) | K3=.*x");
+        MetricsFilter filter = new MetricsFilter();
+        filter.config(props);
+
+        for (int i = 0; i < 5 * CompiledAttributesPredicate.REORDER_INTERVAL; i++) {
+            Map<String, String> attributes = new HashMap<>();
+            attributes.put("K1", "common");
+            attributes.put("K2", i % 100 == 0 ? "rare" : "often");
+            if(i % 7 == 0)
+                attributes.put("K3", "x");
+
+            assertEquals(i % 100 == 0 || i % 7 == 0, filter.test(attributes));
+        }
+    }
+
+    @Test
+    public void operandsDecidingMoreOftenAreEvaluatedFirst() throws ParseException {
+        CompiledAttributesPredicate predicate = CompiledAttributesPredicate.compile(AttributesPredicateParser.parse("K1=common & K2=rare"));
+        assertEquals("(K1 == \"common\" & K2 == \"rare\")", predicate.toString());
+
+        Map<String, String> attributes = new HashMap<>();
+        attributes.put("K1", "common");
+        attributes.put("K2", "often");
+        for (int i = 0; i < 20 * CompiledAttributesPredicate.REORDER_INTERVAL; i++)
+            assertFalse(predicate.test(attributes));
+
+        assertEquals("(K2 == \"rare\" & K1 == \"common\")", predicate.toString());
+    }
+
+    @Test
+    public void sameResultsWhenSharedByThreads() throws Exception {
+        Properties props = new Properties();
+        props.setProperty("expr", "(K1=common & K2=rare.*) | K3=.*x");
+        MetricsFilter filter = new MetricsFilter();
+        filter.config(props);
+
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            List<Future<Boolean>> results = new ArrayList<>();
+            for (int thread = 0; thread < 4; thread++) {
+                results.add(executor.submit(() -> {
+                    for (int i = 0; i < 20 * CompiledAttributesPredicate.REORDER_INTERVAL; i++) {
+                        Map<String, String> attributes = new HashMap<>();
+                        attributes.put("K1", "common");
+                        attributes.put("K2", i % 100 == 0 ? "rare" : "often");
+                        if(i % 7 == 0)
+                            attributes.put("K3", "x");
+
+                        if(filter.test(attributes) != (i % 100 == 0 || i % 7 == 0))
+                            return false;
+                    }
+
+                    return true;
+                }));
+            }
+
+            for (Future<Boolean> result : results)
+                assertTrue(result.get());
+        }finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    public void timestampExpireWithBatchTime() throws ConfigurationException {
+        Properties props = new Properties();
+        props.setProperty("timestamp.expire", "1h");
+        MetricsFilter filter = new MetricsFilter();
+        filter.config(props);
+
+        Instant batchTime = Instant.parse("2018-01-01T10:00:00Z");
+        BatchClock.set(batchTime);
+        try {
+            assertTrue(filter.test(Metric(batchTime.minus(Duration.ofMinutes(59)), 0)));
+            assertFalse(filter.test(Metric(batchTime.minus(Duration.ofMinutes(61)), 0)));
+        }finally {
+            BatchClock.clear();
+        }
+
+        assertFalse(filter.test(Metric(batchTime, 0)));
+    }
+    
 }
@@ -7,17 +7,23 @@ import static org.junit.Assert.fail;
 
 import java.io.ByteArrayInputStream;
 import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
 import java.io.IOException;
 import java.io.ObjectInputStream;
 import java.io.ObjectOutput;
 import java.io.ObjectOutputStream;
 import java.text.ParseException;
 import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.temporal.ChronoField;
 import java.util.Arrays;
 
 import org.junit.Test;
 
 import ch.cern.exdemon.metrics.predictor.LearningRatioValuePredictor.Period;
+import ch.cern.exdemon.metrics.predictor.LearningRatioValuePredictor.Precision;
 import ch.cern.exdemon.metrics.predictor.LearningRatioValuePredictor.Status_;
 
 public class LearningRatioValuePredictorTest {
@@ -63,6 +69,158 @@ public class LearningRatioValuePredictorTest {
         assertTrue(Arrays.equals(store.predictor.getVariance(), restoredStore.predictor.getVariance()));
     }
 
+    @Test
+    public void positionFollowsLocalTime() {
+        LearningRatioValuePredictor predictor = new LearningRatioValuePredictor(0.5f, Period.WEEK);
+        
+        // Two years in steps that cover all minutes and daylight saving changes
+        Instant start = Instant.parse("2017-01-01T00:00:00Z");
+        for (long seconds = 0; seconds < 2 * 365 * 24 * 3600; seconds += 7919) {
+            Instant time = start.plusSeconds(seconds);
+            LocalDateTime dateTime = LocalDateTime.ofInstant(time, ZoneId.systemDefault());
+            
+            int expected = dateTime.get(ChronoField.MINUTE_OF_HOUR) 
+                            + dateTime.get(ChronoField.HOUR_OF_DAY) * 60 
+                            + (dateTime.get(ChronoField.DAY_OF_WEEK) - 1) * 24 * 60;
+            
+            assertEquals(time.toString(), expected, predictor.getCorrespondingPosition(time));
+        }
+    }
+    
+    @Test
+    public void compactFormat() throws IOException {
+        LearningRatioValuePredictor predictor = new LearningRatioValuePredictor(0.5f, Period.WEEK);
+        Instant time = Instant.parse("2018-01-01T00:00:00Z");
+        for (int i = 0; i < 100; i++) {
+            predictor.addValue(time.plusSeconds(i * 600), 1000 + i);
+            predictor.addValue(time.plusSeconds(i * 600), 1010 + i);
+        }
+        
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        predictor.write(new DataOutputStream(bytes), Precision.FULL);
+        LearningRatioValuePredictor restored = LearningRatioValuePredictor.read(new DataInputStream(new ByteArrayInputStream(bytes.toByteArray())));
+        
+        assertEquals(Period.WEEK, restored.getPeriod());
+        assertTrue(Arrays.equals(predictor.getValues(), restored.getValues()));
+        assertTrue(Arrays.equals(predictor.getVariance(), restored.getVariance()));
+        
+        ByteArrayOutputStream halfBytes = new ByteArrayOutputStream();
+        predictor.write(new DataOutputStream(halfBytes), Precision.HALF);
+        restored = LearningRatioValuePredictor.read(new DataInputStream(new ByteArrayInputStream(halfBytes.toByteArray())));
+        
+        for (int i = 0; i < 100; i++) {
+            Prediction prediction = restored.getPredictionForTime(time.plusSeconds(i * 600));
+            assertEquals(1005 + i, prediction.getValue(), (1005 + i) * 0.005f);
+        }
+        assertTrue(Float.isNaN(restored.getValues()[5]));
+        
+        ByteArrayOutputStream quantizedBytes = new ByteArrayOutputStream();
+        predictor.write(new DataOutputStream(quantizedBytes), Precision.QUANTIZED);
+        restored = LearningRatioValuePredictor.read(new DataInputStream(new ByteArrayInputStream(quantizedBytes.toByteArray())));
+        
+        for (int i = 0; i < 100; i++) {
+            Prediction expected = predictor.getPredictionForTime(time.plusSeconds(i * 600));
+            Prediction prediction = restored.getPredictionForTime(time.plusSeconds(i * 600));
+            assertEquals(expected.getValue(), prediction.getValue(), 100f / 255);
+            assertEquals(expected.getStandardDeviation(), prediction.getStandardDeviation(), 100f / 255);
+        }
+        assertTrue(Float.isNaN(restored.getValues()[5]));
+        
+        // Full arrays of a week take 80KB
+        assertTrue(bytes.size() < 8 * 1024);
+        assertTrue(halfBytes.size() < bytes.size());
+        assertTrue(quantizedBytes.size() < halfBytes.size());
+    }
+    
+    @Test
+    public void compactFormatOfFullWeek() throws IOException {
+        LearningRatioValuePredictor predictor = new LearningRatioValuePredictor(0.5f, Period.WEEK);
+        Instant time = Instant.parse("2018-01-01T00:00:00Z");
+        for (int i = 0; i < 60 * 24 * 7; i++) {
+            predictor.addValue(time.plusSeconds(i * 60), i % 1000);
+            predictor.addValue(time.plusSeconds(i * 60), i % 1000 + 10);
+        }
+        
+        int[] sizes = new int[Precision.values().length];
+        for (Precision precision : Precision.values()) {
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+            predictor.write(new DataOutputStream(bytes), precision);
+            sizes[precision.ordinal()] = bytes.size();
+        }
+        
+        assertTrue(sizes[Precision.FULL.ordinal()] < 84 * 1024);
+        assertTrue(sizes[Precision.HALF.ordinal()] < 44 * 1024);
+        assertTrue(sizes[Precision.QUANTIZED.ordinal()] < 24 * 1024);
+    }
+    
+    @Test
+    public void quantizedFormatKeepsResolutionAndIsStableAfterManyRoundTrips() throws IOException {
+        LearningRatioValuePredictor predictor = new LearningRatioValuePredictor(0.5f, Period.WEEK);
+        Instant time = Instant.parse("2018-01-01T00:00:00Z");
+        for (int i = 0; i < 60 * 24 * 7; i++) {
+            Instant minute = time.plusSeconds(i * 60);
+            
+            // Low values for some hours, a million times higher for the next ones
+            float value = isLow(predictor, minute) ? 1 + (i % 60) / 60f : 1000000 + i;
+            
+            predictor.addValue(minute, value);
+            predictor.addValue(minute, value * 1.1f);
+        }
+        
+        LearningRatioValuePredictor restored = roundTrip(predictor, Precision.QUANTIZED);
+        
+        for (int i = 0; i < 60 * 24 * 7; i++) {
+            Instant minute = time.plusSeconds(i * 60);
+            if(!isLow(predictor, minute))
+                continue;
+            
+            Prediction expected = predictor.getPredictionForTime(minute);
+            Prediction prediction = restored.getPredictionForTime(minute);
+            
+            assertEquals(expected.getValue(), prediction.getValue(), expected.getValue() * 0.01f);
+            assertEquals(expected.getStandardDeviation(), prediction.getStandardDeviation(), expected.getStandardDeviation() * 0.05f);
+        }
+        
+        LearningRatioValuePredictor again = restored;
+        for (int i = 0; i < 100; i++)
+            again = roundTrip(again, Precision.QUANTIZED);
+        
+        assertTrue(Arrays.equals(restored.getValues(), again.getValues()));
+        assertTrue(Arrays.equals(restored.getVariance(), again.getVariance()));
+    }
+    
+    private static boolean isLow(LearningRatioValuePredictor predictor, Instant time) {
+        return predictor.getCorrespondingPosition(time) / 256 % 2 == 0;
+    }
+    
+    private static LearningRatioValuePredictor roundTrip(LearningRatioValuePredictor predictor, Precision precision) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        predictor.write(new DataOutputStream(bytes), precision);
+        
+        return LearningRatioValuePredictor.read(new DataInputStream(new ByteArrayInputStream(bytes.toByteArray())));
+    }
+    
+    @Test
+    public void readFormatWithHalfPrecisionFlag() throws IOException {
+        LearningRatioValuePredictor predictor = new LearningRatioValuePredictor(0.5f, Period.HOUR);
+        predictor.addValue(Instant.ofEpochSecond(60), 10f);
+        
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        DataOutputStream out = new DataOutputStream(bytes);
+        out.writeFloat(0.5f);
+        out.writeUTF(Period.HOUR.name());
+        out.writeBoolean(true);
+        out.writeLong(1);
+        out.writeLong(1L << predictor.getCorrespondingPosition(Instant.ofEpochSecond(60)));
+        out.writeShort(LearningRatioValuePredictor.toHalf(10f));
+        out.writeLong(0);
+        
+        LearningRatioValuePredictor restored = LearningRatioValuePredictor.read(new DataInputStream(new ByteArrayInputStream(bytes.toByteArray())));
+        
+        assertTrue(Arrays.equals(predictor.getValues(), restored.getValues()));
+        assertTrue(Arrays.equals(predictor.getVariance(), restored.getVariance()));
+    }
+
     @Test
     public void noPrediction(){
         
@@ -17,6 +17,8 @@ import java.lang.management.ManagementFactory;
 import java.text.ParseException;
 import java.time.Duration;
 import java.time.Instant;
+import java.util.Arrays;
+import java.util.HashSet;
 import java.util.Iterator;
 import java.util.concurrent.atomic.LongAccumulator;
 
@@ -25,6 +27,7 @@ import org.junit.Test;
 
 import ch.cern.exdemon.components.ConfigurationResult;
 import ch.cern.exdemon.json.JSON;
+import ch.cern.exdemon.json.PartialJSONParser;
 import ch.cern.exdemon.metrics.Metric;
 import ch.cern.properties.ConfigurationException;
 import ch.cern.properties.Properties;
@@ -65,6 +68,33 @@ public class MetricSchemaTest {
         System.out.println("Took " + TimeUtils.toString(Duration.ofNanos(threadCpuTime.get())) + " ns");
     }
     
+    @Test
+    public void jsonKeys() {
+        Properties props = new Properties();
+        props.setProperty(SOURCES_PARAM, "test");
+        props.setProperty(ATTRIBUTES_PARAM + ".version.key", "metadata.version");
+        props.setProperty(ATTRIBUTES_PARAM + ".env.value", "prod");
+        props.setProperty(TIMESTAMP_PARAM + "." + KEY_PARAM, "metadata.time");
+        props.setProperty("value.type_prefix.key", "metadata.type_prefix");
+        schema.config(props);
+        
+        assertEquals(new HashSet<>(Arrays.asList("metadata.version", "metadata.time", "metadata.type_prefix")), schema.getJSONKeys());
+        assertFalse(schema.requiresAllJSONKeys());
+        
+        props.setProperty(ATTRIBUTES_PARAM + ".+.key", "metadata.(.*)");
+        schema.config(props);
+        
+        assertTrue(schema.requiresAllJSONKeys());
+        
+        String jsonString = "{\"metadata\":{\"type_prefix\":\"raw\",\"version\":\"001\",\"list\":[1]}}";
+        JSON jsonObject = new PartialJSONParser(schema.getJSONKeys(), schema.requiresAllJSONKeys()).parse(jsonString);
+        Metric metric = schema.call(jsonObject).get(0);
+        
+        assertEquals("raw", metric.getAttributes().get("type_prefix"));
+        assertEquals("001", metric.getAttributes().get("version"));
+        assertEquals("prod", metric.getAttributes().get("env"));
+    }
+    
     @Test
     public void shouldFilter() throws ParseException, ConfigurationException {
         Properties props = new Properties();
@@ -0,0 +1,46 @@
+package ch.cern.exdemon.metrics.value;
+
+import static org.junit.Assert.assertEquals;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+
+import org.junit.Test;
+import org.objenesis.strategy.StdInstantiatorStrategy;
+
+import com.esotericsoftware.kryo.Kryo;
+import com.esotericsoftware.kryo.io.Input;
+import com.esotericsoftware.kryo.io.Output;
+
+public class ValueTest {
+
+    @Test
+    public void sourceIsBuiltWhenJavaSerialized() throws Exception {
+        Value value = new FloatValue(3);
+        value.setSource(() -> "(1.0 + 2.0)=3.0");
+
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        new ObjectOutputStream(bytes).writeObject(value);
+        Value read = (Value) new ObjectInputStream(new ByteArrayInputStream(bytes.toByteArray())).readObject();
+
+        assertEquals("(1.0 + 2.0)=3.0", read.getSource());
+    }
+
+    @Test
+    public void sourceIsBuiltWhenKryoSerialized() {
+        Kryo kryo = new Kryo();
+        kryo.setInstantiatorStrategy(new Kryo.DefaultInstantiatorStrategy(new StdInstantiatorStrategy()));
+
+        Value value = new BooleanValue(true);
+        value.setSource(() -> "(1.0 < 2.0)=true");
+
+        Output output = new Output(256, -1);
+        kryo.writeClassAndObject(output, value);
+        Value read = (Value) kryo.readClassAndObject(new Input(output.toBytes()));
+
+        assertEquals("(1.0 < 2.0)=true", read.getSource());
+    }
+
+}
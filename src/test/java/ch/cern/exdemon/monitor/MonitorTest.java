@@ -43,6 +43,31 @@ public class MonitorTest {
         assertEquals("other_value", result.getAnalyzed_metric().getAttributes().get("other"));
     }
 
+    @Test
+    public void statefulAnalysisShouldKeepStatePerSeries() throws Exception {
+        Properties properties = new Properties();
+        properties.setProperty("analysis.type", "recent");
+        properties.setProperty("analysis.error.upperbound", "true");
+        Monitor monitor = new Monitor("test");
+        monitor.config(properties);
+
+        State<StatusValue> store1 = new StateImpl<>();
+        State<StatusValue> store2 = new StateImpl<>();
+
+        for (int i = 0; i < 10; i++) {
+            monitor.process(store1, new Metric(Instant.ofEpochSecond(i), 10f, new HashMap<>()));
+            monitor.process(store2, new Metric(Instant.ofEpochSecond(i), 1000f, new HashMap<>()));
+        }
+
+        AnalysisResult result = monitor.process(store1, new Metric(Instant.ofEpochSecond(10), 10f, new HashMap<>())).get();
+        assertEquals(AnalysisResult.Status.OK, result.getStatus());
+        assertEquals(10d, (double) result.getAnalysisParams().get("mean"), 0);
+
+        result = monitor.process(store2, new Metric(Instant.ofEpochSecond(10), 1000f, new HashMap<>())).get();
+        assertEquals(AnalysisResult.Status.OK, result.getStatus());
+        assertEquals(1000d, (double) result.getAnalysisParams().get("mean"), 0);
+    }
+
     @Test
     public void tagsShouldBePropagated() throws Exception {
 
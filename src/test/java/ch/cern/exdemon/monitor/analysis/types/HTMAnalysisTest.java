@@ -3,7 +3,11 @@ package ch.cern.exdemon.monitor.analysis.types;
 import static org.numenta.nupic.algorithms.Anomaly.KEY_ESTIMATION_SAMPLES;
 import static org.numenta.nupic.algorithms.Anomaly.KEY_LEARNING_PERIOD;
 
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
 import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
 import java.time.Instant;
 import java.time.temporal.ChronoUnit;
 import java.util.HashMap;
@@ -16,6 +20,7 @@ import org.junit.Test;
 import ch.cern.exdemon.components.ConfigurationResult;
 import ch.cern.exdemon.metrics.Metric;
 import ch.cern.exdemon.monitor.analysis.results.AnalysisResult;
+import ch.cern.exdemon.monitor.analysis.types.htm.HTMModelsCache;
 import ch.cern.exdemon.monitor.analysis.types.htm.HTMParameters;
 import ch.cern.exdemon.monitor.analysis.types.htm.MetricsFromFileReader;
 import ch.cern.exdemon.monitor.analysis.types.htm.ResultsToFileWriter;
@@ -58,17 +63,15 @@ public class HTMAnalysisTest {
 		reader.skipHeader();
 		Metric metric = reader.next();
 		
-		htm.load(null);
-		htm.process(metric.getTimestamp(), metric.getValue().getAsFloat().get());
-		StatusValue status = htm.save();
+		HTMAnalysis.Status_ status = htm.getState(null);
+		htm.process(status, metric.getTimestamp(), metric.getValue().getAsFloat().get());
 		byte[] barray = serializer.fromValue(status);
 		
 		while(reader.hasNext()) {
-			status = serializer.toValue(barray);
-			htm.load(status);
+			status = htm.getState(serializer.toValue(barray));
 			
 			metric = reader.next();
-			AnalysisResult results = htm.process(metric.getTimestamp(), metric.getValue().getAsFloat().get());
+			AnalysisResult results = htm.process(status, metric.getTimestamp(), metric.getValue().getAsFloat().get());
 			if(results.getStatus() == AnalysisResult.Status.WARNING)
 				nWarnings++;
 			
@@ -76,7 +79,6 @@ public class HTMAnalysisTest {
 				nErrors++;
 			
 			writer.write(results);
-			status = htm.save();
 			barray = serializer.fromValue(status);
 			System.out.println(i);
 			i++;
@@ -149,6 +151,82 @@ public class HTMAnalysisTest {
 		}
 	}
 	
+	@Test
+	public void liveModelsReusedBetweenCheckpoints() throws ConfigurationException {
+		HTMModelsCache.clear();
+		
+		HTMAnalysis htm = new HTMAnalysis();
+		Properties prop = new Properties();
+		prop.setProperty(HTMAnalysis.CHECKPOINT_PERIOD_PARAMS, "1h");
+		htm.config(prop);
+		
+		HTMAnalysis.Status_ state = htm.getState(null);
+		htm.process(state, Instant.now().truncatedTo(ChronoUnit.SECONDS), 0.5);
+		String checkpoint = state.networkBase64;
+		Assert.assertNotNull(checkpoint);
+		Assert.assertTrue(state.isStorable());
+		
+		//Not stored till next checkpoint
+		htm.process(state, Instant.now().truncatedTo(ChronoUnit.SECONDS), 0.5);
+		Assert.assertEquals(2, state.version);
+		Assert.assertSame(checkpoint, state.networkBase64);
+		Assert.assertFalse(state.isStorable());
+		Assert.assertNotNull(HTMModelsCache.get(state.modelId, 2));
+		
+		//Model not cached in this executor, restored from last checkpoint
+		HTMModelsCache.clear();
+		htm.process(state, Instant.now().truncatedTo(ChronoUnit.SECONDS), 0.5);
+		Assert.assertEquals(3, state.version);
+		Assert.assertNotNull(HTMModelsCache.get(state.modelId, 3));
+	}
+	
+	@Test
+	public void modelsSerializedEveryTimeWithoutCheckpointPeriod() throws ConfigurationException {
+		HTMAnalysis htm = new HTMAnalysis();
+		Properties prop = new Properties();
+		prop.setProperty(HTMAnalysis.CHECKPOINT_PERIOD_PARAMS, "0");
+		htm.config(prop);
+		
+		HTMAnalysis.Status_ state = htm.getState(null);
+		htm.process(state, Instant.now().truncatedTo(ChronoUnit.SECONDS), 0.5);
+		String checkpoint = state.networkBase64;
+		
+		htm.process(state, Instant.now().truncatedTo(ChronoUnit.SECONDS), 0.5);
+		Assert.assertNotSame(checkpoint, state.networkBase64);
+	}
+	
+	@Test
+	public void processAfterDeserialization() throws Exception {
+		HTMAnalysis htm = new HTMAnalysis();
+		htm.config(new Properties());
+		
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		new ObjectOutputStream(bytes).writeObject(htm);
+		htm = (HTMAnalysis) new ObjectInputStream(new ByteArrayInputStream(bytes.toByteArray())).readObject();
+		
+		HTMAnalysis.Status_ state = htm.getState(null);
+		AnalysisResult result = htm.process(state, Instant.now().truncatedTo(ChronoUnit.SECONDS), 0.5);
+		Assert.assertEquals(AnalysisResult.Status.EXCEPTION, result.getStatus());
+		Assert.assertEquals("Algorithm is in the learning phase", result.getStatus_reason());
+	}
+	
+	@Test
+	public void statesOfDifferentSeriesAreIndependent() throws ConfigurationException {
+		HTMAnalysis htm = new HTMAnalysis();
+		htm.config(new Properties());
+		
+		HTMAnalysis.Status_ state1 = htm.getState(null);
+		HTMAnalysis.Status_ state2 = htm.getState(null);
+		
+		htm.process(state1, Instant.now().truncatedTo(ChronoUnit.SECONDS), 0.5);
+		htm.process(state1, Instant.now().truncatedTo(ChronoUnit.SECONDS), 0.5);
+		htm.process(state2, Instant.now().truncatedTo(ChronoUnit.SECONDS), 0.5);
+		
+		Assert.assertNotEquals(state1.modelId, state2.modelId);
+		Assert.assertEquals(2, state1.version);
+		Assert.assertEquals(1, state2.version);
+	}
+	
 	@Test
 	public void thresholdCheckingTest() throws ConfigurationException {
 		HTMAnalysis htm = new HTMAnalysis();
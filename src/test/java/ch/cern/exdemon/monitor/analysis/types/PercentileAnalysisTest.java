@@ -5,12 +5,16 @@ import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertTrue;
 
 import java.time.Instant;
+import java.util.Random;
 
 import org.junit.Assert;
 import org.junit.Test;
 
 import ch.cern.exdemon.monitor.analysis.results.AnalysisResult;
 import ch.cern.properties.Properties;
+import ch.cern.spark.status.StatusValue;
+import ch.cern.spark.status.storage.JavaStatusSerializer;
+import ch.cern.spark.status.storage.StatusSerializer;
 
 public class PercentileAnalysisTest {
 
@@ -186,4 +190,61 @@ public class PercentileAnalysisTest {
         Assert.assertEquals(AnalysisResult.Status.ERROR,  analysis.process(Instant.ofEpochSecond(9), 14f).getStatus());
     }
     
+    @Test
+    public void sketchModeShouldComputeSimilarThresholds() throws Exception{
+        Properties properties = new Properties();
+        properties.put(PercentileAnalysis.PERIOD_PARAM, "1h");
+        properties.put(PercentileAnalysis.ERROR_UPPERBOUND_PARAM, Boolean.TRUE.toString());
+        properties.put(PercentileAnalysis.ERROR_LOWERBOUND_PARAM, Boolean.TRUE.toString());
+        
+        PercentileAnalysis exact = new PercentileAnalysis();
+        exact.config(properties);
+        
+        properties.put(PercentileAnalysis.MODE_PARAM, "sketch");
+        PercentileAnalysis sketch = new PercentileAnalysis();
+        sketch.config(properties);
+        assertTrue(sketch.isSketchMode());
+        
+        StatusSerializer serializer = new JavaStatusSerializer();
+        StatusValue sketchState = sketch.getState(null);
+        
+        Random random = new Random(1);
+        for (int i = 0; i < 5000; i++) {
+            Instant time = Instant.ofEpochSecond(i);
+            double value = random.nextGaussian() * 10 + 100;
+            
+            AnalysisResult exactResult = exact.process(time, value);
+            AnalysisResult sketchResult = sketch.process(sketchState, time, value);
+            
+            if(i > 1000) {
+                assertEquals((double) exactResult.getAnalysisParams().get("error_upperbound"), 
+                             (double) sketchResult.getAnalysisParams().get("error_upperbound"), 2);
+                assertEquals((double) exactResult.getAnalysisParams().get("error_lowerbound"), 
+                             (double) sketchResult.getAnalysisParams().get("error_lowerbound"), 2);
+            }
+            
+            if(i % 100 == 0)
+                sketchState = sketch.getState(serializer.toValue(serializer.fromValue(sketchState)));
+        }
+    }
+    
+    @Test
+    public void sketchModeShouldForgetValuesOlderThanPeriod() throws Exception{
+        Properties properties = new Properties();
+        properties.put(PercentileAnalysis.PERIOD_PARAM, "100s");
+        properties.put(PercentileAnalysis.MODE_PARAM, "sketch");
+        properties.put(PercentileAnalysis.ERROR_UPPERBOUND_PARAM, Boolean.TRUE.toString());
+        PercentileAnalysis analysis = new PercentileAnalysis();
+        analysis.config(properties);
+        
+        for (int i = 0; i < 100; i++)
+            analysis.process(Instant.ofEpochSecond(i), 1000);
+        for (int i = 100; i < 300; i++)
+            analysis.process(Instant.ofEpochSecond(i), 10);
+        
+        AnalysisResult result = analysis.process(Instant.ofEpochSecond(300), 10);
+        assertEquals(10d, (double) result.getAnalysisParams().get("error_upperbound"), 0);
+        assertEquals(AnalysisResult.Status.OK, result.getStatus());
+    }
+
 }
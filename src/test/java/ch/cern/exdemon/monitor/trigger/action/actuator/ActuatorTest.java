@@ -9,10 +9,13 @@ import java.time.Instant;
 import java.util.Arrays;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.LinkedList;
+import java.util.List;
 import java.util.Map;
 
 import org.junit.Test;
 
+import ch.cern.exdemon.monitor.analysis.results.AnalysisResult;
 import ch.cern.exdemon.monitor.trigger.action.Action;
 import ch.cern.exdemon.monitor.trigger.action.ActionTest;
 import ch.cern.exdemon.monitor.trigger.action.template.Template;
@@ -42,6 +45,18 @@ public class ActuatorTest {
         assertTrue(actuator.shouldBeProcess(action));
     }
     
+    @Test
+    public void runAllActionsOfPartitionEvenIfSomeFail() throws InterruptedException {
+        TestActuator actuator = new TestActuator();
+        
+        Action action1 = new Action("m", "t", new HashMap<>(), "fail", new HashSet<>(), new HashMap<>(), new AnalysisResult());
+        Action action2 = new Action("m", "t", new HashMap<>(), "ok", new HashSet<>(), new HashMap<>(), new AnalysisResult());
+        
+        actuator.run(Arrays.asList(action1, action2, action1), Long.MAX_VALUE);
+        
+        assertEquals(Arrays.asList(action2), actuator.ran);
+    }
+    
     @Test
     public void template() {
         String template = "<monitor_id> <trigger_id> <attributes:.*> <attribute_value:a> <datetime> <reason> <tags> <tags:b>";
@@ -87,9 +102,14 @@ public class ActuatorTest {
             setId("test");
         }
 
+        private List<Action> ran = new LinkedList<>();
+
         @Override
         protected void run(Action action) {
+            if(action.getReason().equals("fail"))
+                throw new RuntimeException("failing action");
             
+            ran.add(action);
         }
 
     }
@@ -4,6 +4,7 @@ import static org.junit.Assert.assertEquals;
 
 import java.io.IOException;
 import java.time.Instant;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.LinkedList;
 import java.util.List;
@@ -138,4 +139,25 @@ public class TemplateTest {
         		Template.apply("Some text: <agg_metrics>A</agg_metrics> Other text.", action));
     }
 
+    @Test
+    public void sourceMetrics() {
+        Action action = ActionTest.DUMMY;
+        action.setMonitor_id("MONITOR_ID");
+        Map<String, String> metric_attributes = new HashMap<>();
+        metric_attributes.put("host", "host1");
+        action.setMetric_attributes(metric_attributes);
+
+        AnalysisResult triggeringResult = new AnalysisResult();
+        Value value = new StringValue("VALUE");
+        Map<String, String> ids = new HashMap<>();
+        ids.put("a", "1");
+        value.setLastSourceMetrics(Collections.singletonList(new Metric(Instant.EPOCH, new FloatValue(2), ids)));
+        triggeringResult.setAnalyzedMetric(new Metric(Instant.EPOCH, value, new HashMap<>()));
+        triggeringResult.setStatus(Status.OK, "");
+        action.setTriggeringResult(triggeringResult);
+
+        assertEquals("<unknown> [MONITOR_ID a=1 host=host1 value=2 <value:x>] <value> < <attribute_value:none>",
+                Template.apply("<unknown> [<source_metrics><monitor_id> a=<attribute_value:a> host=<attribute_value:host> value=<value> <value:x></source_metrics>] <value> < <attribute_value:none>", action));
+    }
+
 }
@@ -0,0 +1,130 @@
+package ch.cern.exdemon.struct.status;
+
+import static org.junit.Assert.assertEquals;
+
+import java.time.Instant;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+
+import org.apache.spark.api.java.function.MapFunction;
+import org.apache.spark.sql.Dataset;
+import org.apache.spark.sql.Encoders;
+import org.apache.spark.sql.SparkSession;
+import org.apache.spark.sql.execution.streaming.MemoryStream;
+import org.apache.spark.sql.streaming.OutputMode;
+import org.apache.spark.sql.streaming.StreamingQuery;
+import org.apache.spark.streaming.State;
+import org.apache.spark.streaming.Time;
+import org.junit.After;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import ch.cern.exdemon.metrics.Metric;
+import ch.cern.exdemon.metrics.value.FloatValue;
+import ch.cern.exdemon.monitor.MonitorStatusKey;
+import ch.cern.spark.status.StatusValue;
+import ch.cern.spark.status.UpdateStatusFunction;
+import scala.Tuple2;
+import scala.collection.JavaConversions;
+
+public class StructStatusTest {
+
+    private static SparkSession spark;
+
+    @BeforeClass
+    public static void setUpClass() throws Exception {
+        spark = SparkSession.builder()
+                        .appName("StructStatusTest")
+                        .master("local[2]")
+                        .getOrCreate();
+        
+        spark.conf().set("spark.sql.shuffle.partitions", "2");
+    }
+
+    private StreamingQuery query;
+
+    @Test
+    public void updateAndTimeoutStatusesInEventTime() {
+        MemoryStream<Metric> input = new MemoryStream<Metric>(10, spark.sqlContext(), Encoders.kryo(Metric.class));
+
+        Dataset<String> results = StructStatus.map(
+                input.toDS(),
+                metric -> Arrays.asList(new Tuple2<>(new MonitorStatusKey("m", metric.getAttributes()), metric)).iterator(),
+                Metric::getTimestamp,
+                MonitorStatusKey.class, Metric.class, CountStatus.class, String.class,
+                new CountF(),
+                "0 seconds",
+                60000L);
+
+        query = results.map((MapFunction<String, String>) result -> result, Encoders.STRING())
+                    .writeStream()
+                    .format("memory")
+                    .queryName("StructStatusTestOutput")
+                    .outputMode(OutputMode.Append())
+                    .start();
+
+        addAndProcess(input, metric("h1", 1000));
+        addAndProcess(input, metric("h2", 601000));
+        addAndProcess(input, metric("h2", 602000));
+
+        List<String> output = spark.sql("select * from StructStatusTestOutput").as(Encoders.STRING()).collectAsList();
+
+        Set<String> expected = new HashSet<>(Arrays.asList("h1:1", "h2:1", "h1:timedout", "h2:2"));
+        assertEquals(expected, new HashSet<>(output));
+        assertEquals(4, output.size());
+    }
+
+    private void addAndProcess(MemoryStream<Metric> input, Metric metric) {
+        input.addData(JavaConversions.asScalaBuffer(Arrays.asList(metric)));
+
+        query.processAllAvailable();
+    }
+
+    private Metric metric(String host, long time) {
+        Map<String, String> attributes = new HashMap<>();
+        attributes.put("host", host);
+
+        return new Metric(Instant.ofEpochMilli(time), new FloatValue(1), attributes);
+    }
+
+    @After
+    public void tearDown() {
+        if(query != null)
+            query.stop();
+    }
+
+    public static class CountStatus extends StatusValue {
+
+        private static final long serialVersionUID = -5290734183346049245L;
+
+        private int count = 0;
+
+    }
+
+    public static class CountF extends UpdateStatusFunction<MonitorStatusKey, Metric, CountStatus, String> {
+
+        private static final long serialVersionUID = 4062409614186307126L;
+
+        @Override
+        protected Optional<String> update(MonitorStatusKey key, Metric value, State<CountStatus> state) throws Exception {
+            CountStatus status = state.exists() ? state.get() : new CountStatus();
+            status.count++;
+
+            state.update(status);
+
+            return Optional.of(key.getMetric_attributes().get("host") + ":" + status.count);
+        }
+
+        @Override
+        protected org.apache.spark.api.java.Optional<String> timingOut(Time time, MonitorStatusKey key, CountStatus state) {
+            return org.apache.spark.api.java.Optional.of(key.getMetric_attributes().get("host") + ":timedout");
+        }
+
+    }
+
+}
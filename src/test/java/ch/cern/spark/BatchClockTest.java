@@ -0,0 +1,48 @@
+package ch.cern.spark;
+
+import static org.junit.Assert.assertEquals;
+
+import java.time.Instant;
+import java.util.Arrays;
+import java.util.List;
+
+import org.apache.spark.api.java.JavaSparkContext;
+import org.apache.spark.streaming.Time;
+import org.junit.Test;
+
+public class BatchClockTest {
+
+    @Test
+    public void batchTimeForTasksAndUpdates() {
+        SparkConf sparkConf = new SparkConf();
+        sparkConf.setAppName("BatchClockTest");
+        sparkConf.setMaster("local[2]");
+        sparkConf.set("spark.driver.host", "localhost");
+        sparkConf.set("spark.driver.allowMultipleContexts", "true");
+
+        JavaSparkContext context = new JavaSparkContext(sparkConf);
+        try {
+            List<Instant> times = BatchClock.setForTasks(context.parallelize(Arrays.asList(1, 2, 3, 4), 2), new Time(1000))
+                                            .map(number -> {
+                                                // Updates set and restore the batch time
+                                                Instant previous = BatchClock.set(Instant.ofEpochMilli(2000));
+                                                BatchClock.set(previous);
+
+                                                return BatchClock.now();
+                                            })
+                                            .collect();
+
+            assertEquals(Arrays.asList(Instant.ofEpochMilli(1000), Instant.ofEpochMilli(1000), Instant.ofEpochMilli(1000), Instant.ofEpochMilli(1000)), times);
+
+            // Not set once tasks complete
+            List<Boolean> notSet = context.parallelize(Arrays.asList(1, 2, 3, 4), 2)
+                                          .map(number -> BatchClock.now().isAfter(Instant.ofEpochMilli(1000)))
+                                          .collect();
+
+            assertEquals(Arrays.asList(true, true, true, true), notSet);
+        }finally {
+            context.close();
+        }
+    }
+
+}
@@ -0,0 +1,43 @@
+package ch.cern.spark;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import org.apache.spark.SparkConf;
+import org.apache.spark.SparkContext;
+import org.apache.spark.SparkEnv;
+import org.junit.Test;
+
+import com.codahale.metrics.Counter;
+import com.codahale.metrics.Histogram;
+
+public class JobMetricsSourceTest {
+
+    @Test
+    public void sameMetricForSameName() {
+        Counter counter = JobMetricsSource.counter("test", "same", "counter");
+        counter.inc(2);
+
+        assertSame(counter, JobMetricsSource.counter("test", "same", "counter"));
+        assertEquals(2, JobMetricsSource.getRegistry().getCounters().get("test.same.counter").getCount());
+
+        Histogram histogram = JobMetricsSource.histogram("test", "same", "histogram");
+        histogram.update(10);
+        histogram.update(20);
+
+        assertSame(histogram, JobMetricsSource.histogram("test", "same", "histogram"));
+        assertEquals(2, histogram.getCount());
+        assertEquals(20, histogram.getSnapshot().getMax());
+    }
+
+    @Test
+    public void registeredInSparkMetricsSystem() {
+        SparkContext.getOrCreate(new SparkConf().setMaster("local[1]").setAppName("JobMetricsSourceTest"));
+
+        JobMetricsSource.counter("test", "registered", "counter").inc();
+
+        assertTrue(SparkEnv.get().metricsSystem().getSourcesByName(JobMetricsSource.NAME).nonEmpty());
+    }
+
+}
@@ -0,0 +1,112 @@
+package ch.cern.spark.status;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Mockito.mock;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+import org.apache.spark.api.java.JavaPairRDD;
+import org.apache.spark.api.java.JavaSparkContext;
+import org.apache.spark.streaming.State;
+import org.apache.spark.streaming.Time;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import ch.cern.exdemon.monitor.MonitorStatusKey;
+import ch.cern.spark.JobMetricsSource;
+import ch.cern.spark.SparkConf;
+import ch.cern.spark.status.StatusOperation.Op;
+import scala.Tuple2;
+
+public class StatusesBudgetTest {
+
+    private transient JavaSparkContext context = null;
+
+    @Before
+    public void setUp() throws Exception {
+        SparkConf sparkConf = new SparkConf();
+        sparkConf.setAppName("Test");
+        sparkConf.setMaster("local[2]");
+        sparkConf.set("spark.driver.host", "localhost");
+        sparkConf.set("spark.driver.allowMultipleContexts", "true");
+        sparkConf.set(StatusesBudget.PARAM + ".keys", "10");
+        sparkConf.set(StatusesBudget.PARAM + ".id.m1.keys", "2");
+
+        context = new JavaSparkContext(sparkConf);
+    }
+
+    @Test
+    public void evictOldestStatusesOfComponentsOverBudget() {
+        StatusesBudget budget = new StatusesBudget(context.getConf(), MonitorStatusKey.class);
+
+        JavaPairRDD<MonitorStatusKey, StatusValue> statuses = context.parallelizePairs(Arrays.asList(
+                status("m1", "h1", 4000),
+                status("m1", "h2", 1000),
+                status("m1", "h3", 3000),
+                status("m1", "h4", 2000),
+                status("m2", "h1", 1000)), 2);
+
+        budget.check(statuses);
+
+        assertEquals(4L, JobMetricsSource.getRegistry().getGauges().get("statuses.monitor-key.id.m1.keys").getValue());
+        assertEquals(1L, JobMetricsSource.getRegistry().getGauges().get("statuses.monitor-key.id.m2.keys").getValue());
+        assertEquals(5L, JobMetricsSource.getRegistry().getGauges().get("statuses.monitor-key.keys").getValue());
+        assertTrue((long) JobMetricsSource.getRegistry().getGauges().get("statuses.monitor-key.id.m1.bytes").getValue() > 0);
+
+        List<StatusOperation<MonitorStatusKey, Object>> operations = budget.<MonitorStatusKey, Object>addEvictions(context.emptyRDD()).collect();
+
+        Set<MonitorStatusKey> evictedKeys = operations.stream().map(StatusOperation::getKey).collect(Collectors.toSet());
+        assertEquals(new HashSet<>(Arrays.asList(key("m1", "h2"), key("m1", "h4"))), evictedKeys);
+        assertTrue(operations.stream().allMatch(op -> op.getOp().equals(Op.REMOVE) && op.getId().equals(StatusesBudget.EVICTION_OP_ID)));
+
+        assertEquals(0, budget.<MonitorStatusKey, Object>addEvictions(context.emptyRDD()).count());
+    }
+
+    @Test
+    public void noEvictionsWithinBudget() {
+        StatusesBudget budget = new StatusesBudget(context.getConf(), MonitorStatusKey.class);
+
+        JavaPairRDD<MonitorStatusKey, StatusValue> statuses = context.parallelizePairs(Arrays.asList(
+                status("m2", "h1", 1000),
+                status("m2", "h2", 2000)), 2);
+
+        budget.check(statuses);
+
+        assertEquals(0, budget.<MonitorStatusKey, Object>addEvictions(context.emptyRDD()).count());
+    }
+
+    private Tuple2<MonitorStatusKey, StatusValue> status(String id, String host, long updateTime) {
+        TestStatus status = new TestStatus(1);
+        status.update(state(), new Time(updateTime));
+
+        return new Tuple2<>(key(id, host), status);
+    }
+
+    @SuppressWarnings("unchecked")
+    private static State<StatusValue> state() {
+        return mock(State.class);
+    }
+
+    private MonitorStatusKey key(String id, String host) {
+        Map<String, String> attributes = new HashMap<>();
+        attributes.put("host", host);
+
+        return new MonitorStatusKey(id, attributes);
+    }
+
+    @After
+    public void tearDown() {
+        if(context != null)
+            context.stop();
+        context = null;
+    }
+
+}
@@ -92,6 +92,7 @@ public class ZookeeperStatusesOperationsReceiverTest {
         List<StatusOperation<StatusKey, ?>> ops = receiver.getStoredOps();
         
         assertEquals("RECEIVED", new String(client.getData().forPath("/exdemon/operations/qa/id=1234/status")));
+        assertEquals("2", new String(client.getData().forPath("/exdemon/operations/qa/id=1234/pending")));
         assertEquals(new StatusOperation<>("1234", key1, Op.REMOVE), ops.get(0));
         assertEquals(new StatusOperation<>("1234", key2, Op.REMOVE), ops.get(1));
         
@@ -3,6 +3,8 @@ package ch.cern.spark.status.storage.manager;
 import static org.junit.Assert.assertEquals;
 
 import java.io.IOException;
+import java.util.Arrays;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.LinkedList;
 import java.util.List;
@@ -54,18 +56,18 @@ public class ZookeeperStatusesOpertaionsFTest {
         properties.setProperty("connection_string", "localhost:2182/exdemon/operations/env=qa");
     	ZookeeperStatusesOpertaionsF<MonitorStatusKey, Metric, StatusValue> f = new ZookeeperStatusesOpertaionsF<>(properties);
     	
-    	List<Tuple2<Tuple2<MonitorStatusKey, StatusValue>, StatusOperation<MonitorStatusKey, Metric>>> tuples = new LinkedList<>();
+    	List<Tuple2<MonitorStatusKey, StatusValue>> tuples = new LinkedList<>();
     	List<Function<Tuple2<StatusKey, StatusValue>, Boolean>> filters = new LinkedList<>();
     	filters.add(new ToStringPatternStatusKeyFilter(".*tpsrv100.*"));
 		StatusOperation<MonitorStatusKey, Metric> op = new StatusOperation<>("1122", filters);
 		Map<String, String> atts1 = new HashMap<>();
 		atts1.put("host", "tpsrv100");
-		tuples.add(new Tuple2<>(new Tuple2<>(new MonitorStatusKey("m1", atts1), null), op));
+		tuples.add(new Tuple2<>(new MonitorStatusKey("m1", atts1), null));
 		Map<String, String> atts2 = new HashMap<>();
 		atts2.put("host", "tpsrv102");
-		tuples.add(new Tuple2<>(new Tuple2<>(new MonitorStatusKey("m2", atts2), null), op));
+		tuples.add(new Tuple2<>(new MonitorStatusKey("m2", atts2), null));
     	
-		f.call(tuples.iterator());
+		assertEquals(Collections.singleton("1122"), f.list(tuples.iterator(), Arrays.asList(op)));
 		
 		assertEquals("{\"id\":\"m1\",\"metric_attributes\":{\"host\":\"tpsrv100\"},\"fqcn-alias\":\"monitor-key\"}\n", 
 					 new String(client.getData().forPath("/exdemon/operations/env=qa/id=1122/keys")));
@@ -0,0 +1,95 @@
+package ch.cern.spark.status.storage.manager;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+import java.io.IOException;
+import java.util.Arrays;
+
+import org.apache.curator.framework.CuratorFramework;
+import org.apache.curator.framework.CuratorFrameworkFactory;
+import org.apache.curator.retry.ExponentialBackoffRetry;
+import org.apache.curator.test.TestingServer;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import ch.cern.properties.Properties;
+import ch.cern.spark.status.StatusOperationResult;
+
+public class ZookeeperStatusesResultsWriterTest {
+    
+    private TestingServer zkTestServer;
+    private CuratorFramework client;
+    
+    @Before
+    public void startZookeeper() throws Exception {
+        zkTestServer = new TestingServer(2182);
+        
+        client = CuratorFrameworkFactory.builder()
+                .connectString(zkTestServer.getConnectString())
+                .retryPolicy(new ExponentialBackoffRetry(1000, 3))
+                .sessionTimeoutMs(20000)
+                .build();
+        client.start();
+        
+        client.create().creatingParentsIfNeeded().forPath("/exdemon/operations/env=qa/id=1122");
+        client.create().forPath("/exdemon/operations/env=qa/id=1122/pending", "3".getBytes());
+        client.create().forPath("/exdemon/operations/env=qa/id=1122/status", "RECEIVED".getBytes());
+    }
+    
+    @Test
+    public void resultsOfPartitionsAreAppendedAndOperationIsDoneWhenAllArrived() throws Exception {
+        Properties properties = new Properties();
+        properties.setProperty("connection_string", "localhost:2182/exdemon/operations/env=qa");
+        ZookeeperStatusesResultsWriter writer = new ZookeeperStatusesResultsWriter(properties);
+        
+        writer.write(Arrays.asList(new StatusOperationResult("1122", "values", "a\n"),
+                                   new StatusOperationResult("1122", "values", "b\n")).iterator());
+        
+        assertEquals("1", new String(client.getData().forPath("/exdemon/operations/env=qa/id=1122/pending")));
+        assertEquals("RECEIVED", new String(client.getData().forPath("/exdemon/operations/env=qa/id=1122/status")));
+        
+        writer.write(Arrays.asList(new StatusOperationResult("1122", "values", "c\n")).iterator());
+        
+        assertEquals("a\nb\nc\n", new String(client.getData().forPath("/exdemon/operations/env=qa/id=1122/values")));
+        assertEquals("DONE", new String(client.getData().forPath("/exdemon/operations/env=qa/id=1122/status")));
+    }
+    
+    @Test
+    public void warningIsKeptWhenOperationIsDone() throws Exception {
+        Properties properties = new Properties();
+        properties.setProperty("connection_string", "localhost:2182/exdemon/operations/env=qa");
+        ZookeeperStatusesResultsWriter writer = new ZookeeperStatusesResultsWriter(properties);
+        
+        client.create().forPath("/exdemon/operations/env=qa/id=1122/values", new byte[1000001]);
+        
+        writer.write(Arrays.asList(new StatusOperationResult("1122", "values", "a\n"),
+                                   new StatusOperationResult("1122", "values", "b\n"),
+                                   new StatusOperationResult("1122", "values", "c\n")).iterator());
+        
+        assertEquals("0", new String(client.getData().forPath("/exdemon/operations/env=qa/id=1122/pending")));
+        assertEquals("WARNING results maximun size reached", new String(client.getData().forPath("/exdemon/operations/env=qa/id=1122/status")));
+    }
+    
+    @Test(timeout = 10000)
+    public void resultsOfRemovedOperationAreNotWritten() throws Exception {
+        Properties properties = new Properties();
+        properties.setProperty("connection_string", "localhost:2182/exdemon/operations/env=qa");
+        ZookeeperStatusesResultsWriter writer = new ZookeeperStatusesResultsWriter(properties);
+        
+        client.delete().deletingChildrenIfNeeded().forPath("/exdemon/operations/env=qa/id=1122");
+        
+        writer.write(Arrays.asList(new StatusOperationResult("1122", "keys", "a\n")).iterator());
+        
+        assertNull(client.checkExists().forPath("/exdemon/operations/env=qa/id=1122"));
+    }
+    
+    @After
+    public void shutDown() throws IOException, InterruptedException {
+        client.close();
+        if(zkTestServer != null)
+            zkTestServer.close();
+    }
+
+}
@@ -0,0 +1,190 @@
+package ch.cern.spark.status.storage.types;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.IOException;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.HashMap;
+import java.util.Map;
+
+import org.apache.spark.streaming.State;
+import org.apache.spark.streaming.StateImpl;
+import org.apache.spark.streaming.Time;
+import org.junit.Test;
+
+import ch.cern.exdemon.metrics.ValueHistory;
+import ch.cern.exdemon.metrics.defined.DefinedMetricStatuskey;
+import ch.cern.exdemon.metrics.defined.equation.var.agg.AggregationValues;
+import ch.cern.exdemon.metrics.defined.equation.var.agg.CountAgregation;
+import ch.cern.exdemon.metrics.value.AggregatedValue;
+import ch.cern.exdemon.metrics.value.BooleanValue;
+import ch.cern.exdemon.metrics.value.ExceptionValue;
+import ch.cern.exdemon.metrics.value.FloatValue;
+import ch.cern.exdemon.metrics.value.PropertiesValue;
+import ch.cern.exdemon.metrics.value.StringValue;
+import ch.cern.exdemon.monitor.analysis.types.SeasonalAnalysis;
+import ch.cern.properties.Properties;
+import ch.cern.spark.status.StatusKey;
+import ch.cern.spark.status.StatusValue;
+import ch.cern.spark.status.storage.BinaryStatusSerializer;
+import ch.cern.spark.status.storage.JSONStatusSerializer;
+import ch.cern.spark.status.storage.JavaStatusSerializer;
+import ch.cern.spark.status.storage.StatusSerializer;
+
+public class BinaryStatusSerializerTest {
+
+    @Test
+    public void serializeValueHistory() throws IOException {
+        BinaryStatusSerializer ser = new BinaryStatusSerializer();
+
+        ValueHistory.Status status = new ValueHistory.Status(100, 0, ChronoUnit.MINUTES, new CountAgregation());
+        Instant time = Instant.now();
+        status.history.add(time, new FloatValue(1));
+        status.history.add(time.plusSeconds(60), new FloatValue(2.5f));
+        status.history.add(time.plusSeconds(120), new FloatValue(-3));
+
+        ValueHistory.Status statusDesser = (ValueHistory.Status) ser.toValue(ser.fromValue(status));
+
+        assertEquals(status.history, statusDesser.history);
+    }
+
+    @Test
+    public void serializeValueHistoryWithNonFloatValues() throws IOException {
+        BinaryStatusSerializer ser = new BinaryStatusSerializer();
+
+        ValueHistory.Status status = new ValueHistory.Status(100, 0, null, null);
+        Instant time = Instant.now();
+        status.history.add(time, new FloatValue(1));
+        status.history.add(time.plusNanos(10), new StringValue("a"));
+        status.history.add(time.minusSeconds(10), new BooleanValue(false));
+
+        ValueHistory.Status statusDesser = (ValueHistory.Status) ser.toValue(ser.fromValue(status));
+
+        assertEquals(status.history, statusDesser.history);
+    }
+
+    @Test
+    public void serializeValue() throws IOException {
+        BinaryStatusSerializer ser = new BinaryStatusSerializer();
+
+        AggregationValues status = new AggregationValues(100, 0);
+
+        Instant instant = Instant.now();
+        status.add(0, new FloatValue(1d), instant);
+        status.add(1, new StringValue("a"), instant);
+        status.add(2, new BooleanValue(true), instant);
+        status.add(3, new ExceptionValue("Exception msg"), instant);
+        status.add(4, new PropertiesValue("name", new Properties()), instant);
+        status.add(5, new AggregatedValue(new FloatValue(1000)), instant);
+
+        StatusValue statusDesser = ser.toValue(ser.fromValue(status));
+        assertEquals(status, statusDesser);
+
+        State<AggregationValues> state = new StateImpl<>();
+        status.update(state, new Time(1234));
+
+        statusDesser = ser.toValue(ser.fromValue(status));
+        assertEquals(status, statusDesser);
+    }
+
+    @Test
+    public void serializeSeasonalStatus() throws IOException {
+        SeasonalAnalysis analysis = new SeasonalAnalysis();
+        Properties props = new Properties();
+        props.setProperty("season", "week");
+        analysis.config(props);
+        
+        SeasonalAnalysis.Status_ status = analysis.newState();
+        Instant time = Instant.parse("2018-01-01T00:00:00Z");
+        for (int i = 0; i < 10; i++)
+            analysis.process(status, time.plusSeconds(i * 60), i);
+        
+        for (StatusSerializer ser : Arrays.asList(new BinaryStatusSerializer(), new JSONStatusSerializer(), new JavaStatusSerializer())) {
+            SeasonalAnalysis.Status_ statusDesser = (SeasonalAnalysis.Status_) ser.toValue(ser.fromValue(status));
+            
+            assertTrue(Arrays.equals(status.predictor.getValues(), statusDesser.predictor.getValues()));
+            assertTrue(Arrays.equals(status.predictor.getVariance(), statusDesser.predictor.getVariance()));
+        }
+        
+        // Previous format of one week was bigger than 80KB
+        assertTrue(new BinaryStatusSerializer().fromValue(status).length < 3 * 1024);
+    }
+
+    @Test
+    public void serializeKey() throws IOException {
+        BinaryStatusSerializer ser = new BinaryStatusSerializer();
+
+        Map<String, String> attributes = new HashMap<>();
+        attributes.put("HOST", "host1");
+        DefinedMetricStatuskey key = new DefinedMetricStatuskey("dm1", attributes);
+
+        byte[] bytes = ser.fromKey(key);
+        assertEquals(BinaryStatusSerializer.MAGIC, bytes[0]);
+
+        StatusKey keyDesser = ser.toKey(bytes);
+        assertEquals(key, keyDesser);
+    }
+
+    @Test
+    public void smallerThanJSON() throws IOException {
+        ValueHistory.Status status = new ValueHistory.Status(1000, 0, null, null);
+        Instant time = Instant.now();
+        for (int i = 0; i < 100; i++)
+            status.history.add(time.plusSeconds(i), new FloatValue(i));
+
+        int binarySize = new BinaryStatusSerializer().fromValue(status).length;
+        int jsonSize = new JSONStatusSerializer().fromValue(status).length;
+
+        assertTrue(binarySize * 3 < jsonSize);
+    }
+
+    @Test
+    public void readStatusesStoredWithOtherSerializers() throws IOException {
+        BinaryStatusSerializer ser = new BinaryStatusSerializer();
+
+        ValueHistory.Status status = new ValueHistory.Status(100, 0, ChronoUnit.MINUTES, new CountAgregation());
+        status.history.add(Instant.now(), new FloatValue(1));
+
+        byte[] json = new JSONStatusSerializer().fromValue(status);
+        assertEquals(status.history, ((ValueHistory.Status) ser.toValue(json)).history);
+
+        byte[] java = new JavaStatusSerializer().fromValue(status);
+        assertEquals(status.history.getValues().size(), ((ValueHistory.Status) ser.toValue(java)).history.getValues().size());
+
+        DefinedMetricStatuskey key = new DefinedMetricStatuskey("dm1", new HashMap<>());
+        assertEquals(key, ser.toKey(new JSONStatusSerializer().fromKey(key)));
+    }
+
+    @Test
+    public void readStatusesWrittenWithFieldsSchemaVersion() throws IOException {
+        AggregationValues status = new AggregationValues(100, 0);
+
+        Instant instant = Instant.parse("2018-01-01T00:00:00Z");
+        status.add(0, new FloatValue(1d), instant);
+        status.add(1, new StringValue("a"), instant);
+        status.add(2, new BooleanValue(true), instant);
+        status.add(3, new ExceptionValue("Exception msg"), instant);
+        status.add(4, new PropertiesValue("name", new Properties()), instant);
+        status.add(5, new AggregatedValue(new FloatValue(1000)), instant);
+
+        // Written with schema version 1
+        byte[] bytes = Base64.getDecoder().decode("5wFwAMgBAACEAQYBAHEBgMCk8JVYAHMAP4AAAIABAnEBgMCk8JVYAHQAgIJhAQRxAYDApPCVWAB1AQCAAQZxAYDApPCVWAB2RXhjZXB0aW9uIG1z5wCAAQhxAYDApPCVWAB4AG5hbeV5AIABCnEBgMCk8JVYAHdzAER6AACAAIA=");
+
+        assertEquals(status, new BinaryStatusSerializer().toValue(bytes));
+    }
+
+    @Test(expected=IOException.class)
+    public void statusesWithOtherSchemaVersionAreNotRead() throws IOException {
+        BinaryStatusSerializer ser = new BinaryStatusSerializer();
+
+        byte[] bytes = ser.fromValue(new ValueHistory.Status(100, 0, ChronoUnit.MINUTES, new CountAgregation()));
+        bytes[1] = BinaryStatusSerializer.SCHEMA_VERSION + 1;
+
+        ser.toValue(bytes);
+    }
+
+}
@@ -11,8 +11,10 @@ import org.apache.spark.streaming.StateImpl;
 import org.apache.spark.streaming.Time;
 import org.junit.Test;
 
+import ch.cern.exdemon.metrics.DatedValue;
 import ch.cern.exdemon.metrics.ValueHistory;
 import ch.cern.exdemon.metrics.ValueHistory.Status;
+import ch.cern.exdemon.metrics.defined.equation.ComputationException;
 import ch.cern.exdemon.metrics.defined.equation.var.agg.AggregationValues;
 import ch.cern.exdemon.metrics.defined.equation.var.agg.CountAgregation;
 import ch.cern.exdemon.metrics.value.AggregatedValue;
@@ -65,5 +67,29 @@ public class JSONStatusSerializerTest {
         statusDesser = ser.toValue(json.getBytes());
         assertEquals(status, statusDesser);
     }
+    
+    @Test
+    public void deserializeValueHistoryStoredAsListOfValues() throws IOException, ComputationException {
+        JSONStatusSerializer ser = new JSONStatusSerializer();
+        
+        String json = "{\"history\":{"
+                            + "\"values\":[{\"time\":2000,\"value\":{\"str\":\"a\"}},{\"time\":1000,\"value\":{\"num\":1.0}}],"
+                            + "\"max_size\":100,"
+                            + "\"granularity\":\"MINUTES\","
+                            + "\"max_lastAggregatedMetrics_size\":0},"
+                        + "\"status_update_time\":0,"
+                        + "\"fqcn-alias\":\"value-history\"}";
+        
+        ValueHistory.Status status = (Status) ser.toValue(json.getBytes());
+        
+        assertEquals(100, status.history.getMax_size());
+        assertEquals(ChronoUnit.MINUTES, status.history.getGranularity());
+        assertEquals(new DatedValue(Instant.ofEpochMilli(1000), new FloatValue(1)), status.history.getDatedValues().get(0));
+        assertEquals(new DatedValue(Instant.ofEpochMilli(2000), new StringValue("a")), status.history.getDatedValues().get(1));
+        
+        String expectedJson = json.replace("{\"time\":2000,\"value\":{\"str\":\"a\"}},{\"time\":1000,\"value\":{\"num\":1.0}}", 
+                                           "{\"time\":1000,\"value\":{\"num\":1.0}},{\"time\":2000,\"value\":{\"str\":\"a\"}}");
+        assertEquals(expectedJson, new String(ser.fromValue(status)));
+    }
 
-}
\ No newline at end of file
+}
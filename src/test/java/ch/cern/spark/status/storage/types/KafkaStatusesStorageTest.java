@@ -1,11 +1,18 @@
 package ch.cern.spark.status.storage.types;
 
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertNull;
 import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
 
+import java.util.HashMap;
 import java.util.LinkedList;
 import java.util.List;
+import java.util.Map;
 
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.common.utils.Bytes;
 import org.junit.Test;
 
 import ch.cern.properties.ConfigurationException;
@@ -57,4 +64,32 @@ public class KafkaStatusesStorageTest {
         assertNull(actualLast._2);
     }
 	
+    @Test
+    public void shouldKeepLatestRecordPerKeyInPartition() throws Exception {
+        Map<Bytes, Bytes> latestRecords = new HashMap<>();
+        
+        Bytes key1 = new Bytes("key1".getBytes());
+        Bytes key2 = new Bytes("key2".getBytes());
+        
+        KafkaStatusesStorage.addToLatestRecords(latestRecords, new ConsumerRecord<Bytes, Bytes>("topic", 0, 0, key1, new Bytes("0".getBytes())));
+        KafkaStatusesStorage.addToLatestRecords(latestRecords, new ConsumerRecord<Bytes, Bytes>("topic", 0, 1, key2, new Bytes("1".getBytes())));
+        KafkaStatusesStorage.addToLatestRecords(latestRecords, new ConsumerRecord<Bytes, Bytes>("topic", 0, 2, key1, new Bytes("2".getBytes())));
+        KafkaStatusesStorage.addToLatestRecords(latestRecords, new ConsumerRecord<Bytes, Bytes>("topic", 0, 3, key2, null));
+        
+        assertEquals(1, latestRecords.size());
+        assertEquals(new Bytes("2".getBytes()), latestRecords.get(key1));
+        assertFalse(latestRecords.containsKey(key2));
+    }
+    
+    @Test
+    public void loadModeConfiguration() throws Exception {
+        Properties properties = new Properties();
+        properties.setProperty("topic", "topic");
+        properties.setProperty("load.mode", "distributed");
+        assertTrue(new KafkaStatusesStorage().config(properties).getErrors().isEmpty());
+        
+        properties.setProperty("load.mode", "wrong");
+        assertFalse(new KafkaStatusesStorage().config(properties).getErrors().isEmpty());
+    }
+	
 }
@@ -0,0 +1,192 @@
+package ch.cern.spark.status.storage.types;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Mockito.mock;
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedList;
+import java.util.List;
+
+import org.apache.hadoop.conf.Configuration;
+import org.apache.hadoop.fs.FileSystem;
+import org.apache.hadoop.fs.Path;
+import org.apache.spark.api.java.JavaPairRDD;
+import org.apache.spark.api.java.JavaSparkContext;
+import org.apache.spark.streaming.State;
+import org.apache.spark.streaming.Time;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import ch.cern.exdemon.metrics.defined.DefinedMetricStatuskey;
+import ch.cern.exdemon.monitor.MonitorStatusKey;
+import ch.cern.properties.Properties;
+import ch.cern.spark.SparkConf;
+import ch.cern.spark.status.StatusKey;
+import ch.cern.spark.status.StatusValue;
+import ch.cern.spark.status.TestStatus;
+import scala.Tuple2;
+
+public class PartitionedFileStatusesStorageTest {
+    
+    private transient JavaSparkContext context = null;
+
+    private String path;
+    
+    private PartitionedFileStatusesStorage storage;
+    
+    @Before
+    public void setUp() throws Exception {
+        path = "/tmp/spark-metrics-monitor-tests/PartitionedFileStatusesStorageTest/";
+        
+        FileSystem.get(new Configuration()).delete(new Path(path), true);
+        
+        SparkConf sparkConf = new SparkConf();
+        sparkConf.setAppName("Test");
+        sparkConf.setMaster("local[2]");
+        sparkConf.set("spark.driver.host", "localhost");
+        sparkConf.set("spark.driver.allowMultipleContexts", "true");
+
+        context = new JavaSparkContext(sparkConf);
+        
+        storage = new PartitionedFileStatusesStorage();
+        Properties properties = new Properties();
+        properties.setProperty("path", path);
+        properties.setProperty("serialization.type", "java");
+        properties.setProperty("compaction.batches", "1000");
+        storage.config(properties);
+    }
+    
+    @After
+    public void tearDown() {
+        context.close();
+    }
+    
+    @Test
+    public void shouldLoadLatestUpdatedStatuses() throws Exception {
+        StatusKey id1 = new DefinedMetricStatuskey("df1", new HashMap<>());
+        StatusKey id2 = new MonitorStatusKey("mon1", new HashMap<>());
+        StatusKey id3 = new DefinedMetricStatuskey("df3", new HashMap<>());
+        
+        save(new Time(1000), Arrays.asList(status(id1, 1), status(id2, 2), status(id3, 3)));
+        
+        // Only updated in this batch are written
+        TestStatus updated = new TestStatus(11);
+        updated.update(state(), new Time(2000));
+        TestStatus notUpdated = new TestStatus(22);
+        notUpdated.update(state(), new Time(1000));
+        save(new Time(2000), Arrays.asList(new Tuple2<>(id1, updated), new Tuple2<>(id2, notUpdated)));
+        
+        storage.remove(context.parallelize(Arrays.asList(id3)));
+        
+        List<Tuple2<StatusKey, StatusValue>> loaded = storage.load(context).collect();
+        
+        assertEquals(new HashSet<>(Arrays.asList(new Tuple2<>(id1, updated), status(id2, 2))), new HashSet<>(loaded));
+        
+        JavaPairRDD<MonitorStatusKey, TestStatus> monitorStatuses = storage.load(context, MonitorStatusKey.class, TestStatus.class);
+        assertEquals(Arrays.asList(status(id2, 2)), monitorStatuses.collect());
+    }
+    
+    @Test
+    public void shouldCompactSegments() throws Exception {
+        StatusKey id1 = new DefinedMetricStatuskey("df1", new HashMap<>());
+        StatusKey id2 = new DefinedMetricStatuskey("df2", new HashMap<>());
+        
+        save(new Time(1000), Arrays.asList(status(id1, 1), status(id2, 2)));
+        save(new Time(2000), Arrays.asList(status(id1, 11)));
+        storage.remove(context.parallelize(Arrays.asList(id2)));
+        
+        List<String> segments = storage.listSegments();
+        assertTrue(segments.size() >= 3);
+        
+        storage.compact(context, segments);
+        
+        List<String> compactedSegments = storage.listSegments();
+        assertTrue(compactedSegments.size() < segments.size());
+        assertEquals(Arrays.asList(status(id1, 11)), storage.load(context).collect());
+        
+        save(new Time(3000), Arrays.asList(status(id2, 22)));
+        assertEquals(new HashSet<>(Arrays.asList(status(id1, 11), status(id2, 22))), new HashSet<>(storage.load(context).collect()));
+    }
+    
+    @Test
+    public void shouldCompactAfterBatchesIntoBoundedSegments() throws Exception {
+        Properties properties = new Properties();
+        properties.setProperty("path", path);
+        properties.setProperty("serialization.type", "java");
+        properties.setProperty("compaction.batches", "3");
+        properties.setProperty("compaction.output.segments", "2");
+        storage.config(properties);
+        
+        List<Tuple2<StatusKey, StatusValue>> statuses = new LinkedList<>();
+        for (int i = 0; i < 8; i++)
+            statuses.add(status(new DefinedMetricStatuskey("df" + i, new HashMap<>()), i));
+        
+        // Many segments per batch do not trigger compaction
+        save(new Time(1000), statuses, 4);
+        save(new Time(2000), statuses, 4);
+        assertEquals(8, storage.listSegments().size());
+        assertFalse(storage.needsCompaction(storage.listSegments()));
+        
+        save(new Time(3000), statuses, 4);
+        
+        // Compacted in the background
+        long deadline = System.currentTimeMillis() + 30000;
+        while(storage.listSegments().size() > 2 && System.currentTimeMillis() < deadline)
+            Thread.sleep(100);
+        assertTrue(storage.listSegments().size() <= 2);
+        
+        save(new Time(4000), statuses, 4);
+        assertFalse(storage.needsCompaction(storage.listSegments()));
+        
+        assertEquals(new HashSet<>(statuses), new HashSet<>(storage.load(context).collect()));
+    }
+    
+    @Test
+    public void shouldLoadStatusSavedAfterRemoval() throws Exception {
+        StatusKey id1 = new DefinedMetricStatuskey("df1", new HashMap<>());
+        StatusKey id2 = new DefinedMetricStatuskey("df2", new HashMap<>());
+        
+        // Batch times far behind wall-clock time, like a lagging stream
+        save(new Time(1000), Arrays.asList(status(id1, 1), status(id2, 2)));
+        storage.remove(context.parallelize(Arrays.asList(id1)), new Time(2000));
+        save(new Time(3000), Arrays.asList(status(id1, 11)));
+        
+        assertEquals(new HashSet<>(Arrays.asList(status(id1, 11), status(id2, 2))), new HashSet<>(storage.load(context).collect()));
+        
+        storage.remove(context.parallelize(Arrays.asList(id2)), new Time(4000));
+        storage.compact(context, storage.listSegments());
+        save(new Time(5000), Arrays.asList(status(id2, 22)));
+        
+        assertEquals(new HashSet<>(Arrays.asList(status(id1, 11), status(id2, 22))), new HashSet<>(storage.load(context).collect()));
+        
+        // Removed in the batch of the compacted segment
+        storage.compact(context, storage.listSegments());
+        storage.remove(context.parallelize(Arrays.asList(id1)), new Time(5000));
+        
+        assertEquals(Arrays.asList(status(id2, 22)), storage.load(context).collect());
+    }
+    
+    private void save(Time time, List<Tuple2<StatusKey, StatusValue>> statuses) throws Exception {
+        storage.save(context.parallelize(statuses).mapToPair(f -> f), time);
+    }
+    
+    private void save(Time time, List<Tuple2<StatusKey, StatusValue>> statuses, int partitions) throws Exception {
+        storage.save(context.parallelize(statuses, partitions).mapToPair(f -> f), time);
+    }
+    
+    @SuppressWarnings("unchecked")
+    private static State<StatusValue> state() {
+        return mock(State.class);
+    }
+
+    private Tuple2<StatusKey, StatusValue> status(StatusKey key, int number) {
+        return new Tuple2<>(key, new TestStatus(number));
+    }
+    
+}
@@ -0,0 +1,75 @@
+package ch.cern.utils;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Arrays;
+import java.util.Random;
+
+import org.junit.Test;
+
+public class TDigestTest {
+
+    @Test
+    public void quantilesShouldBeCloseToExactOnes() {
+        Random random = new Random(1);
+        
+        TDigest digest = new TDigest(100);
+        double[] values = new double[10000];
+        for (int i = 0; i < values.length; i++) {
+            values[i] = random.nextGaussian() * 10 + 50;
+            digest.add(values[i]);
+        }
+        Arrays.sort(values);
+        
+        assertEquals(values.length, digest.getCount(), 0);
+        assertEquals(values[0], digest.quantile(0), 0);
+        assertEquals(values[values.length - 1], digest.quantile(1), 0);
+        for (double q : new double[] {0.01, 0.02, 0.2, 0.5, 0.8, 0.98, 0.99})
+            assertEquals(values[(int) (q * values.length)], digest.quantile(q), 0.2);
+        
+        assertTrue(digest.getCentroidsCount() <= 100);
+    }
+    
+    @Test
+    public void mergedDigestsShouldBeCloseToSingleDigest() {
+        Random random = new Random(1);
+        
+        TDigest all = new TDigest(100);
+        TDigest merged = new TDigest(100);
+        for (int i = 0; i < 10; i++) {
+            TDigest part = new TDigest(100);
+            
+            for (int j = 0; j < 1000; j++) {
+                double value = random.nextDouble() * 100;
+                
+                all.add(value);
+                part.add(value);
+            }
+            
+            merged.add(part);
+        }
+        
+        assertEquals(all.getCount(), merged.getCount(), 0);
+        for (double q : new double[] {0.01, 0.5, 0.99})
+            assertEquals(all.quantile(q), merged.quantile(q), 0.5);
+    }
+    
+    @Test
+    public void fewValues() {
+        TDigest digest = new TDigest(100);
+        assertTrue(Double.isNaN(digest.quantile(0.5)));
+        
+        digest.add(3);
+        assertEquals(3, digest.quantile(0.5), 0);
+        
+        digest.add(1);
+        digest.add(5);
+        digest.add(4);
+        digest.add(2);
+        assertEquals(3, digest.quantile(0.5), 0);
+        assertEquals(5, digest.quantile(0.99), 0.1);
+        assertEquals(1, digest.quantile(0.01), 0.1);
+    }
+
+}